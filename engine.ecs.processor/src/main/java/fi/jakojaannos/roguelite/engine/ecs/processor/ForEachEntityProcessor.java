@@ -0,0 +1,230 @@
+package fi.jakojaannos.roguelite.engine.ecs.processor;
+
+import lombok.val;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+
+/**
+ * Generates the adapter classes for systems with methods annotated with
+ * <code>@ForEachEntity</code>. For each such system, a package-private
+ * <code>&lt;SystemClass&gt;Adapter</code> is generated to the same package.
+ * <p>
+ * The adapter declares the component parameters of the method as requirements and invokes the
+ * method for each entity of an <code>EntitySpan</code>. Component mappers are resolved once per
+ * tick, so that the generated loop performs no per-entity type lookups.
+ * <p>
+ * The engine types are referred to by their names, so that the processor does not need the ECS
+ * module on its classpath.
+ */
+@SupportedAnnotationTypes(ForEachEntityProcessor.FOR_EACH_ENTITY)
+public class ForEachEntityProcessor extends AbstractProcessor {
+    static final String FOR_EACH_ENTITY = "fi.jakojaannos.roguelite.engine.ecs.ForEachEntity";
+
+    private static final String COMPONENT = "fi.jakojaannos.roguelite.engine.ecs.Component";
+    private static final String COMPONENT_MAPPER = "fi.jakojaannos.roguelite.engine.ecs.ComponentMapper";
+    private static final String ENTITY = "fi.jakojaannos.roguelite.engine.ecs.Entity";
+    private static final String ENTITY_SPAN = "fi.jakojaannos.roguelite.engine.ecs.EntitySpan";
+    private static final String REQUIREMENTS_BUILDER = "fi.jakojaannos.roguelite.engine.ecs.RequirementsBuilder";
+    private static final String WORLD = "fi.jakojaannos.roguelite.engine.ecs.World";
+
+    private static final String ADAPTER_SUFFIX = "Adapter";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        val annotation = this.processingEnv.getElementUtils().getTypeElement(FOR_EACH_ENTITY);
+        if (annotation == null) {
+            return false;
+        }
+
+        val methodsBySystem = new LinkedHashMap<TypeElement, List<ExecutableElement>>();
+        for (val element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            val method = (ExecutableElement) element;
+            methodsBySystem.computeIfAbsent((TypeElement) method.getEnclosingElement(), key -> new ArrayList<>())
+                           .add(method);
+        }
+
+        for (val entry : methodsBySystem.entrySet()) {
+            val system = entry.getKey();
+            val methods = entry.getValue();
+            if (methods.size() > 1) {
+                error(system, "Only a single method per system may be annotated with @ForEachEntity!");
+                continue;
+            }
+
+            val method = methods.get(0);
+            if (isValid(system, method)) {
+                generateAdapter(system, method);
+            }
+        }
+        return true;
+    }
+
+    private boolean isValid(final TypeElement system, final ExecutableElement method) {
+        var valid = true;
+        if (system.getNestingKind() != NestingKind.TOP_LEVEL) {
+            error(method, "@ForEachEntity methods must be declared in top-level classes!");
+            valid = false;
+        }
+        if (method.getModifiers().contains(Modifier.PRIVATE) || method.getModifiers().contains(Modifier.STATIC)) {
+            error(method, "@ForEachEntity methods may not be private or static!");
+            valid = false;
+        }
+        if (method.getReturnType().getKind() != TypeKind.VOID) {
+            error(method, "@ForEachEntity methods must return void!");
+            valid = false;
+        }
+
+        for (val parameter : method.getParameters()) {
+            if (parameterKindOf(parameter.asType()) == ParameterKind.INVALID) {
+                error(parameter,
+                      String.format("Parameter \"%s\" is not a component, Entity or World!",
+                                    parameter.getSimpleName()));
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    private void generateAdapter(final TypeElement system, final ExecutableElement method) {
+        val packageName = this.processingEnv.getElementUtils().getPackageOf(system).getQualifiedName().toString();
+        val adapterName = system.getSimpleName() + ADAPTER_SUFFIX;
+        val qualifiedAdapterName = packageName.isEmpty() ? adapterName : packageName + '.' + adapterName;
+
+        val componentTypes = new ArrayList<String>();
+        val arguments = new ArrayList<String>();
+        for (val parameter : method.getParameters()) {
+            val type = parameter.asType();
+            switch (parameterKindOf(type)) {
+                case ENTITY:
+                    arguments.add("entity");
+                    break;
+                case WORLD:
+                    arguments.add("world");
+                    break;
+                default:
+                    arguments.add("mapper" + componentTypes.size() + ".get(entity)");
+                    componentTypes.add(this.processingEnv.getTypeUtils().erasure(type).toString());
+                    break;
+            }
+        }
+
+        try (val out = new PrintWriter(this.processingEnv.getFiler()
+                                                         .createSourceFile(qualifiedAdapterName, system)
+                                                         .openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.printf("package %s;%n%n", packageName);
+            }
+            out.printf("// Generated by %s from %s#%s. Do not edit.%n",
+                       ForEachEntityProcessor.class.getSimpleName(),
+                       system.getSimpleName(),
+                       method.getSimpleName());
+            out.printf("final class %s {%n", adapterName);
+            out.printf("    private %s() {%n    }%n%n", adapterName);
+
+            out.printf("    static %1$s declareRequirements(final %1$s requirements) {%n", REQUIREMENTS_BUILDER);
+            out.printf("        return requirements");
+            for (val componentType : componentTypes) {
+                out.printf("%n                .withComponent(%s.class)", componentType);
+            }
+            for (val componentType : annotationTypes(method, "with")) {
+                out.printf("%n                .withComponent(%s.class)", componentType);
+            }
+            for (val componentType : annotationTypes(method, "without")) {
+                out.printf("%n                .withoutComponent(%s.class)", componentType);
+            }
+            out.printf(";%n    }%n%n");
+
+            out.printf("    static void tick(%n");
+            out.printf("            final %s system,%n", system.getQualifiedName());
+            out.printf("            final %s entities,%n", ENTITY_SPAN);
+            out.printf("            final %s world%n", WORLD);
+            out.printf("    ) {%n");
+            if (!componentTypes.isEmpty()) {
+                out.printf("        final var entityManager = world.getEntityManager();%n");
+            }
+            for (int i = 0; i < componentTypes.size(); ++i) {
+                out.printf("        final %1$s<%2$s> mapper%3$d = entityManager.getComponentMapper(%2$s.class);%n",
+                           COMPONENT_MAPPER,
+                           componentTypes.get(i),
+                           i);
+            }
+            out.printf("        for (int i = 0, n = entities.size(); i < n; ++i) {%n");
+            out.printf("            final %s entity = entities.get(i);%n", ENTITY);
+            out.printf("            system.%s(%s);%n", method.getSimpleName(), String.join(", ", arguments));
+            out.printf("        }%n");
+            out.printf("    }%n");
+            out.printf("}%n");
+        } catch (IOException e) {
+            error(system, "Could not write the adapter: " + e.getMessage());
+        }
+    }
+
+    private List<String> annotationTypes(final ExecutableElement method, final String name) {
+        val result = new ArrayList<String>();
+        for (val mirror : method.getAnnotationMirrors()) {
+            val annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!annotationType.getQualifiedName().contentEquals(FOR_EACH_ENTITY)) {
+                continue;
+            }
+
+            for (val entry : mirror.getElementValues().entrySet()) {
+                if (!entry.getKey().getSimpleName().contentEquals(name)) {
+                    continue;
+                }
+
+                // Array-valued annotation members are lists of annotation values
+                val values = (List<?>) entry.getValue().getValue();
+                for (val value : values) {
+                    result.add(((TypeMirror) ((AnnotationValue) value).getValue()).toString());
+                }
+            }
+        }
+        return result;
+    }
+
+    private ParameterKind parameterKindOf(final TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return ParameterKind.INVALID;
+        }
+
+        val typeName = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName();
+        if (typeName.contentEquals(ENTITY)) {
+            return ParameterKind.ENTITY;
+        } else if (typeName.contentEquals(WORLD)) {
+            return ParameterKind.WORLD;
+        }
+
+        val component = this.processingEnv.getElementUtils().getTypeElement(COMPONENT);
+        val types = this.processingEnv.getTypeUtils();
+        return component != null && types.isAssignable(types.erasure(type), component.asType())
+                ? ParameterKind.COMPONENT
+                : ParameterKind.INVALID;
+    }
+
+    private void error(final Element element, final String message) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private enum ParameterKind {
+        COMPONENT,
+        ENTITY,
+        WORLD,
+        INVALID
+    }
+}
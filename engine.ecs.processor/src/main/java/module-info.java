@@ -0,0 +1,7 @@
+module roguelite.engine.ecs.processor {
+    requires static lombok;
+    requires java.compiler;
+
+    provides javax.annotation.processing.Processor
+            with fi.jakojaannos.roguelite.engine.ecs.processor.ForEachEntityProcessor;
+}
@@ -0,0 +1,149 @@
+package fi.jakojaannos.roguelite.engine.ecs.processor;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForEachEntityProcessorTest {
+    private static final String HEADER = "package test;\n"
+            + "import fi.jakojaannos.roguelite.engine.ecs.*;\n"
+            + "class Position implements Component {}\n"
+            + "class Velocity implements Component {}\n"
+            + "class Frozen implements Component {}\n";
+
+    @Test
+    void validSystemGeneratesAdapter() throws Exception {
+        Result result = compile(HEADER
+                                        + "class MoveSystem {\n"
+                                        + "    @ForEachEntity(without = Frozen.class)\n"
+                                        + "    void move(Entity entity, Position position, Velocity velocity, World world) {}\n"
+                                        + "}\n");
+
+        assertTrue(result.success, result.diagnostics::toString);
+        String adapter = result.generatedSources.get("test.MoveSystemAdapter");
+        assertNotNull(adapter);
+        assertTrue(adapter.contains(".withComponent(test.Position.class)"));
+        assertTrue(adapter.contains(".withComponent(test.Velocity.class)"));
+        assertTrue(adapter.contains(".withoutComponent(test.Frozen.class)"));
+        assertTrue(adapter.contains("system.move(entity, mapper0.get(entity), mapper1.get(entity), world);"));
+    }
+
+    @Test
+    void privateMethodIsRejected() throws Exception {
+        Result result = compile(HEADER
+                                        + "class MoveSystem {\n"
+                                        + "    @ForEachEntity\n"
+                                        + "    private void move(Position position) {}\n"
+                                        + "}\n");
+
+        assertFalse(result.success);
+        assertFalse(result.generatedSources.containsKey("test.MoveSystemAdapter"));
+    }
+
+    @Test
+    void nonComponentParameterIsRejected() throws Exception {
+        Result result = compile(HEADER
+                                        + "class MoveSystem {\n"
+                                        + "    @ForEachEntity\n"
+                                        + "    void move(Position position, String name) {}\n"
+                                        + "}\n");
+
+        assertFalse(result.success);
+        assertTrue(result.diagnostics.stream()
+                                     .anyMatch(diagnostic -> diagnostic.getMessage(null).contains("\"name\"")));
+    }
+
+    @Test
+    void multipleAnnotatedMethodsAreRejected() throws Exception {
+        Result result = compile(HEADER
+                                        + "class MoveSystem {\n"
+                                        + "    @ForEachEntity void first(Position position) {}\n"
+                                        + "    @ForEachEntity void second(Velocity velocity) {}\n"
+                                        + "}\n");
+
+        assertFalse(result.success);
+    }
+
+    private static Result compile(final String source) throws URISyntaxException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Map<String, String> generatedSources = new HashMap<>();
+
+        String classpath = Paths.get(Component.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                                .toString();
+        JavaFileManager fileManager = new ForwardingJavaFileManager<>(compiler.getStandardFileManager(diagnostics, null, null)) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(
+                    final Location location,
+                    final String className,
+                    final JavaFileObject.Kind kind,
+                    final FileObject sibling
+            ) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return new ByteArrayOutputStream() {
+                            @Override
+                            public void close() throws IOException {
+                                super.close();
+                                if (kind == Kind.SOURCE) {
+                                    generatedSources.put(className, toString());
+                                }
+                            }
+                        };
+                    }
+
+                    @Override
+                    public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                        return generatedSources.get(className);
+                    }
+                };
+            }
+        };
+
+        JavaFileObject input = new SimpleJavaFileObject(URI.create("mem:///test/MoveSystem.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+
+        JavaCompiler.CompilationTask task = compiler.getTask(null,
+                                                             fileManager,
+                                                             diagnostics,
+                                                             List.of("-classpath", classpath),
+                                                             null,
+                                                             List.of(input));
+        task.setProcessors(List.of(new ForEachEntityProcessor()));
+        boolean success = task.call();
+        return new Result(success, diagnostics.getDiagnostics(), generatedSources);
+    }
+
+    private static class Result {
+        private final boolean success;
+        private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+        private final Map<String, String> generatedSources;
+
+        private Result(
+                final boolean success,
+                final List<Diagnostic<? extends JavaFileObject>> diagnostics,
+                final Map<String, String> generatedSources
+        ) {
+            this.success = success;
+            this.diagnostics = diagnostics;
+            this.generatedSources = generatedSources;
+        }
+    }
+}
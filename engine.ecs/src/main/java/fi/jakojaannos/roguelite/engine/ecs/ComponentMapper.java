@@ -0,0 +1,103 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+import javax.annotation.Nullable;
+
+/**
+ * Fast accessor to components of a single type. Avoids the type lookups and {@link
+ * java.util.Optional} allocations of {@link EntityManager#getComponentOf(Entity, Class)}, accessing
+ * the component storage directly instead.
+ * <p>
+ * Mappers are bound to the entity manager they were obtained from. Obtaining the mapper is cheap,
+ * so systems should fetch the mappers they need at the beginning of each tick and use them when
+ * iterating over the entities.
+ * <p>
+ * Mappers also track when the components were last changed. Components are considered changed
+ * when they are added, and whenever they are {@link #markChanged(Entity) marked changed}. Systems
+ * may then use {@link RequirementsBuilder#withChangedComponent(Class)} to only process entities
+ * with changed components.
+ *
+ * @param <TComponent> type of the component
+ *
+ * @see EntityManager#getComponentMapper(Class)
+ */
+public interface ComponentMapper<TComponent extends Component> {
+    /**
+     * Gets the component of the entity, or <code>null</code> if the entity does not have the
+     * component.
+     *
+     * @param entity entity to get the component from
+     *
+     * @return the component, <code>null</code> if the entity does not have one
+     */
+    @Nullable
+    TComponent getOrNull(Entity entity);
+
+    /**
+     * Checks whether or not the entity has the component.
+     *
+     * @param entity entity to check
+     *
+     * @return <code>true</code> if the entity has the component, <code>false</code> otherwise
+     */
+    default boolean has(final Entity entity) {
+        return getOrNull(entity) != null;
+    }
+
+    /**
+     * Gets the component of the entity. Should be used when the entity is known to have the
+     * component, e.g. when the component is required by the system. Does not mark the component
+     * changed, use {@link #getForWrite(Entity)} instead if the component is going to be modified.
+     *
+     * @param entity entity to get the component from
+     *
+     * @return the component
+     *
+     * @throws IllegalStateException if the entity does not have the component
+     */
+    default TComponent get(final Entity entity) {
+        final TComponent component = getOrNull(entity);
+        if (component == null) {
+            throw new IllegalStateException(String.format("Entity %d does not have the requested component!",
+                                                          entity.getId()));
+        }
+        return component;
+    }
+
+    /**
+     * Gets the component of the entity and marks it changed. Should be used when the component is
+     * going to be modified.
+     *
+     * @param entity entity to get the component from
+     *
+     * @return the component
+     *
+     * @throws IllegalStateException if the entity does not have the component
+     * @see #markChanged(Entity)
+     */
+    default TComponent getForWrite(final Entity entity) {
+        final TComponent component = get(entity);
+        markChanged(entity);
+        return component;
+    }
+
+    /**
+     * Marks the component of the entity changed on the current {@link
+     * EntityManager#getChangeTick() change tick}.
+     *
+     * @param entity entity which component has changed
+     *
+     * @throws IllegalStateException if the entity does not have the component
+     */
+    void markChanged(Entity entity);
+
+    /**
+     * Checks whether or not the component of the entity has been added or marked changed after the
+     * given change tick.
+     *
+     * @param entity entity to check
+     * @param tick   the change tick to compare against
+     *
+     * @return <code>true</code> if the entity has the component and it has changed after the tick
+     */
+    boolean isChangedSince(Entity entity, int tick);
+}
@@ -0,0 +1,47 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+/**
+ * Receives notifications of components of a single type being added to or removed from entities.
+ * Allows maintaining indices derived from the components incrementally, instead of re-scanning
+ * the entities every tick.
+ * <p>
+ * Notifications are deferred. Changes are recorded as they happen and the observers are notified
+ * in a single batch during {@link EntityManager#applyModifications()}, in the order the changes
+ * were made. Thus, by the time an observer is notified, the entity may no longer have the
+ * component. Components added or removed by the observers themselves are notified during the same
+ * batch, entities created or destroyed are notified during the next one.
+ *
+ * @param <TComponent> type of the observed component
+ *
+ * @see EntityManager#addObserver(Class, ComponentObserver)
+ */
+public interface ComponentObserver<TComponent extends Component> {
+    /**
+     * Called when the component has been added to an entity.
+     *
+     * @param entity    the entity the component was added to
+     * @param component the added component
+     */
+    default void onAdded(final Entity entity, final TComponent component) {
+    }
+
+    /**
+     * Called when the component has been removed from an entity.
+     *
+     * @param entity    the entity the component was removed from
+     * @param component the removed component
+     */
+    default void onRemoved(final Entity entity, final TComponent component) {
+    }
+
+    /**
+     * Called when an entity holding the component has been destroyed. By default, treats the
+     * destruction as removal of the component.
+     *
+     * @param entity    the destroyed entity
+     * @param component the component the entity had
+     */
+    default void onDestroyed(final Entity entity, final TComponent component) {
+        onRemoved(entity, component);
+    }
+}
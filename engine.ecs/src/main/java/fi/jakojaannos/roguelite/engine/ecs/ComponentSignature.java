@@ -0,0 +1,347 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Fixed-size set of bits, identifying a combination of component types. Each registered component
+ * type (and component group) has an index, and the signature of an entity has bits set for each
+ * type the entity has a component of.
+ * <p>
+ * The first 64 bits are stored inline, so that signatures of worlds with 64 or fewer component
+ * types never touch an array. Bits beyond that are stored in an additional <code>long[]</code>.
+ * Signatures of different sizes may be compared freely, missing bits are considered unset.
+ */
+public final class ComponentSignature {
+    private static final int BITS_PER_WORD = 64;
+    private static final int WORD_SHIFT = 6;
+
+    private final int size;
+    private long bits;
+    @Nullable private final long[] extraBits;
+
+    /**
+     * Creates a new empty signature.
+     *
+     * @param size number of bits in the signature
+     */
+    public ComponentSignature(final int size) {
+        this.size = size;
+        this.extraBits = size > BITS_PER_WORD
+                ? new long[((size - 1) >> WORD_SHIFT)]
+                : null;
+    }
+
+    /**
+     * Creates a copy of the given signature.
+     *
+     * @param other the signature to copy
+     */
+    public ComponentSignature(final ComponentSignature other) {
+        this.size = other.size;
+        this.bits = other.bits;
+        this.extraBits = other.extraBits != null
+                ? other.extraBits.clone()
+                : null;
+    }
+
+    /**
+     * Gets the number of bits in this signature.
+     *
+     * @return the size of the signature
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks whether or not the n-th bit is set.
+     *
+     * @param n index of the bit
+     *
+     * @return <code>true</code> if the bit is set, <code>false</code> otherwise
+     */
+    public boolean get(final int n) {
+        if (n < 0) {
+            return false;
+        }
+        if (n < BITS_PER_WORD) {
+            return (this.bits & (1L << n)) != 0;
+        }
+
+        return (wordOf(n) & (1L << n)) != 0;
+    }
+
+    /**
+     * Sets the n-th bit.
+     *
+     * @param n index of the bit
+     *
+     * @return this signature
+     *
+     * @throws IndexOutOfBoundsException if the index does not fit the signature
+     */
+    public ComponentSignature set(final int n) {
+        checkIndex(n);
+        if (n < BITS_PER_WORD) {
+            this.bits |= 1L << n;
+        } else {
+            // noinspection ConstantConditions
+            this.extraBits[(n >> WORD_SHIFT) - 1] |= 1L << n;
+        }
+        return this;
+    }
+
+    /**
+     * Unsets the n-th bit.
+     *
+     * @param n index of the bit
+     *
+     * @return this signature
+     *
+     * @throws IndexOutOfBoundsException if the index does not fit the signature
+     */
+    public ComponentSignature unset(final int n) {
+        checkIndex(n);
+        if (n < BITS_PER_WORD) {
+            this.bits &= ~(1L << n);
+        } else {
+            // noinspection ConstantConditions
+            this.extraBits[(n >> WORD_SHIFT) - 1] &= ~(1L << n);
+        }
+        return this;
+    }
+
+    /**
+     * Sets all bits which are set in the other signature. Bits not fitting this signature are
+     * ignored.
+     *
+     * @param other the signature to combine with
+     *
+     * @return this signature
+     */
+    public ComponentSignature or(final ComponentSignature other) {
+        this.bits |= other.bits;
+        if (this.extraBits != null && other.extraBits != null) {
+            final int n = Math.min(this.extraBits.length, other.extraBits.length);
+            for (int i = 0; i < n; ++i) {
+                this.extraBits[i] |= other.extraBits[i];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Unsets all bits which are set in the other signature.
+     *
+     * @param other the signature of bits to unset
+     *
+     * @return this signature
+     */
+    public ComponentSignature andNot(final ComponentSignature other) {
+        this.bits &= ~other.bits;
+        if (this.extraBits != null && other.extraBits != null) {
+            final int n = Math.min(this.extraBits.length, other.extraBits.length);
+            for (int i = 0; i < n; ++i) {
+                this.extraBits[i] &= ~other.extraBits[i];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Unsets all bits.
+     *
+     * @return this signature
+     */
+    public ComponentSignature clear() {
+        this.bits = 0;
+        if (this.extraBits != null) {
+            Arrays.fill(this.extraBits, 0L);
+        }
+        return this;
+    }
+
+    /**
+     * Checks whether or not any bits are set.
+     *
+     * @return <code>true</code> if no bits are set, <code>false</code> otherwise
+     */
+    public boolean isEmpty() {
+        if (this.bits != 0) {
+            return false;
+        }
+
+        if (this.extraBits != null) {
+            for (final long word : this.extraBits) {
+                if (word != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that all bits set in the other signature are also set in this signature.
+     *
+     * @param other the signature to check against
+     *
+     * @return <code>true</code> if all bits of the other signature are set
+     */
+    public boolean containsAll(final ComponentSignature other) {
+        if ((this.bits & other.bits) != other.bits) {
+            return false;
+        }
+
+        if (other.extraBits != null) {
+            for (int i = 0; i < other.extraBits.length; ++i) {
+                final long word = other.extraBits[i];
+                if ((extraWord(i) & word) != word) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that none of the bits set in the other signature are set in this signature.
+     *
+     * @param other the signature to check against
+     *
+     * @return <code>true</code> if none of the bits of the other signature are set
+     */
+    public boolean containsNoneOf(final ComponentSignature other) {
+        if ((this.bits & other.bits) != 0) {
+            return false;
+        }
+
+        if (other.extraBits != null) {
+            for (int i = 0; i < other.extraBits.length; ++i) {
+                if ((extraWord(i) & other.extraBits[i]) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that this signature has all of the <code>required</code> bits and none of the
+     * <code>excluded</code> bits.
+     *
+     * @param required the bits which must be set
+     * @param excluded the bits which must not be set
+     *
+     * @return <code>true</code> if this signature matches the given criteria
+     */
+    public boolean matches(final ComponentSignature required, final ComponentSignature excluded) {
+        return containsAll(required) && containsNoneOf(excluded);
+    }
+
+    /**
+     * Finds the next set bit, starting from the given index.
+     *
+     * @param from index to start the search from, inclusive
+     *
+     * @return index of the next set bit, <code>-1</code> if there are no more set bits
+     */
+    public int nextSetBit(final int from) {
+        if (from < 0 || from >= Math.max(this.size, BITS_PER_WORD)) {
+            return -1;
+        }
+
+        int wordIndex = from >> WORD_SHIFT;
+        long word = wordAt(wordIndex) & (-1L << from);
+        final int wordCount = this.extraBits != null ? this.extraBits.length + 1 : 1;
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex >= wordCount) {
+                return -1;
+            }
+            word = wordAt(wordIndex);
+        }
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ComponentSignature)) {
+            return false;
+        }
+
+        final ComponentSignature other = (ComponentSignature) obj;
+        if (this.bits != other.bits) {
+            return false;
+        }
+
+        final int n = Math.max(extraLength(), other.extraLength());
+        for (int i = 0; i < n; ++i) {
+            if (extraWord(i) != other.extraWord(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // Trailing empty words are ignored, so that equal signatures of different sizes produce
+        // the same hash.
+        int lastNonEmpty = extraLength() - 1;
+        while (lastNonEmpty >= 0 && extraWord(lastNonEmpty) == 0) {
+            --lastNonEmpty;
+        }
+
+        int hash = Long.hashCode(this.bits);
+        for (int i = 0; i <= lastNonEmpty; ++i) {
+            hash = 31 * hash + Long.hashCode(extraWord(i));
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("ComponentSignature{");
+        for (int i = nextSetBit(0); i != -1; i = nextSetBit(i + 1)) {
+            if (builder.charAt(builder.length() - 1) != '{') {
+                builder.append(", ");
+            }
+            builder.append(i);
+        }
+        return builder.append('}').toString();
+    }
+
+    private void checkIndex(final int n) {
+        if (n < 0 || n >= this.size) {
+            throw new IndexOutOfBoundsException(String.format("Bit %d is out of bounds for signature of size %d",
+                                                              n,
+                                                              this.size));
+        }
+    }
+
+    private long wordOf(final int n) {
+        return extraWord((n >> WORD_SHIFT) - 1);
+    }
+
+    private long wordAt(final int wordIndex) {
+        return wordIndex == 0
+                ? this.bits
+                : extraWord(wordIndex - 1);
+    }
+
+    private long extraWord(final int i) {
+        return this.extraBits != null && i < this.extraBits.length
+                ? this.extraBits[i]
+                : 0L;
+    }
+
+    private int extraLength() {
+        return this.extraBits != null ? this.extraBits.length : 0;
+    }
+}
@@ -0,0 +1,26 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+/**
+ * Opt-in for component and resource types which can be captured to {@link World#snapshot()
+ * snapshots}. Snapshots hold copies of the instances, so that the state at the time of capture
+ * can be restored even after the instances in the world have been modified.
+ * <p>
+ * Copies must not share mutable state with the original. Immutable data, e.g. a tile map never
+ * modified after generation, may be shared. Entity references are copied as-is, as restoring a
+ * snapshot brings back the same entity instances. An instance shared by multiple entities is
+ * copied only once per snapshot or restore, so the entities share the copy just the same.
+ * <p>
+ * Capturing a snapshot fails if any entity has a component which is neither copyable, a {@link
+ * TagComponent tag} nor stored {@link OffHeapStorage off-heap}. Resources which are not copyable
+ * are not captured at all, and are left untouched when restoring.
+ *
+ * @param <T> type of the copy
+ */
+public interface Copyable<T> {
+    /**
+     * Creates a copy of this instance.
+     *
+     * @return the copy
+     */
+    T copy();
+}
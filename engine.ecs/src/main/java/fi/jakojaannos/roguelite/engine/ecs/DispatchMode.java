@@ -0,0 +1,26 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+/**
+ * Controls how a {@link SystemDispatcher} executes the systems.
+ *
+ * @see DispatcherBuilder#withMode(DispatchMode)
+ */
+public enum DispatchMode {
+    /**
+     * Systems are executed one at a time on the dispatching thread, in a deterministic order
+     * respecting the system dependencies.
+     */
+    SERIAL,
+    /**
+     * Systems which have declared their component and resource accesses and do not conflict with
+     * each other may be executed simultaneously on a work-stealing thread pool. Ordering defined by
+     * the system dependencies still holds. Systems which have not declared any accesses are always
+     * executed alone.
+     *
+     * @see RequirementsBuilder#readsComponent(Class)
+     * @see RequirementsBuilder#writesComponent(Class)
+     * @see RequirementsBuilder#readsResource(Class)
+     * @see RequirementsBuilder#writesResource(Class)
+     */
+    PARALLEL
+}
@@ -0,0 +1,117 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+import lombok.Getter;
+import lombok.val;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dispatch schedule of a world. The {@link SystemDispatcher dispatcher} keeps the number of
+ * dispatches as a resource of the dispatched world instead of tracking it itself, so that the
+ * schedule is part of the world state. Each world thus has a schedule of its own, and {@link
+ * World#restore(World.Snapshot) restoring} a snapshot rewinds the schedule, so that systems with
+ * {@link DispatcherBuilder#withTickInterval(Class, int, int) tick intervals} tick on the same
+ * dispatches as they did originally.
+ * <p>
+ * The dispatch each system was last due on is recorded as well. Systems which do not tick on every
+ * dispatch should scale their time-steps by {@link #getElapsedTicks(ECSSystem)} instead of
+ * assuming their tick interval. Due dispatches on which the system was skipped by its {@link
+ * RequirementsBuilder#runIfEntitiesMatch() run conditions} count as consumed, so that systems
+ * which have been skipped for a while do not catch up on the skipped time all at once.
+ */
+public final class DispatchTicks implements Resource, Copyable<DispatchTicks> {
+    /**
+     * Number of earlier dispatches of the world. During a dispatch, this is the index of the
+     * ongoing dispatch.
+     */
+    @Getter private long dispatchIndex;
+    /**
+     * Index of the dispatch each system was last due on. Only modified by the dispatching thread
+     * between the ticks of the systems, so systems ticking in parallel may read this freely.
+     */
+    private final Map<Class<? extends ECSSystem>, LastTick> lastTicks;
+
+    public DispatchTicks() {
+        this(0, new HashMap<>());
+    }
+
+    private DispatchTicks(
+            final long dispatchIndex,
+            final Map<Class<? extends ECSSystem>, LastTick> lastTicks
+    ) {
+        this.dispatchIndex = dispatchIndex;
+        this.lastTicks = lastTicks;
+    }
+
+    /**
+     * Gets the number of dispatches since the system was last due, including the current dispatch.
+     * When called during the tick of a system ticking on every dispatch, this is always one, and
+     * never more than the tick interval of the system. For systems which have not been dispatched
+     * before, this is the number of dispatches so far.
+     *
+     * @param system the system
+     *
+     * @return the number of dispatches the tick of the system should account for
+     */
+    public long getElapsedTicks(final ECSSystem system) {
+        val lastTick = this.lastTicks.get(system.getClass());
+        return lastTick != null
+                ? this.dispatchIndex - lastTick.dispatchIndex
+                : this.dispatchIndex + 1;
+    }
+
+    /**
+     * Prepares the system for being due on the current dispatch. Called by the dispatcher before
+     * deciding whether or not the system is ticked. Systems dispatched for the first time are
+     * considered to have been last due one tick interval ago, or on the first dispatch of the
+     * world if that is more recent, so that their first tick never accounts for more than one
+     * interval.
+     *
+     * @param system       the system which is due
+     * @param tickInterval tick interval of the system, values less than two for every dispatch
+     */
+    public void markDue(final ECSSystem system, final int tickInterval) {
+        if (!this.lastTicks.containsKey(system.getClass())) {
+            val lastTick = new LastTick();
+            lastTick.dispatchIndex = this.dispatchIndex - Math.min(this.dispatchIndex + 1,
+                                                                   Math.max(1, tickInterval));
+            this.lastTicks.put(system.getClass(), lastTick);
+        }
+    }
+
+    /**
+     * Records the current dispatch as consumed by the system. Called by the dispatcher after the
+     * system has been ticked or skipped on a dispatch it was due on.
+     *
+     * @param system the system which was due
+     */
+    public void markConsumed(final ECSSystem system) {
+        this.lastTicks.get(system.getClass()).dispatchIndex = this.dispatchIndex;
+    }
+
+    /**
+     * Advances to the next dispatch. Called by the dispatcher once all systems have been ticked.
+     */
+    public void advance() {
+        ++this.dispatchIndex;
+    }
+
+    @Override
+    public DispatchTicks copy() {
+        val lastTicks = new HashMap<Class<? extends ECSSystem>, LastTick>(this.lastTicks.size());
+        this.lastTicks.forEach((systemClass, lastTick) -> {
+            val copy = new LastTick();
+            copy.dispatchIndex = lastTick.dispatchIndex;
+            lastTicks.put(systemClass, copy);
+        });
+        return new DispatchTicks(this.dispatchIndex, lastTicks);
+    }
+
+    /**
+     * Mutable holder, so that recording a tick does not box the index.
+     */
+    private static final class LastTick {
+        private long dispatchIndex;
+    }
+}
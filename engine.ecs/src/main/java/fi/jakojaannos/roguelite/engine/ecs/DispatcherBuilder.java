@@ -73,6 +73,60 @@ public interface DispatcherBuilder {
      */
     DispatcherBuilder withSystem(ECSSystem system);
 
+    /**
+     * Makes the system tick only on every <code>interval</code>-th dispatch. The system ticks on
+     * dispatches where the number of earlier dispatches of the world modulo the interval equals
+     * the phase. Systems with the same interval may be given different phases to spread their load
+     * across dispatches.
+     * <p>
+     * The schedule only depends on the number of dispatches, which is kept in the {@link
+     * DispatchTicks} resource of the world, so it is deterministic and rewound when restoring
+     * snapshots. Systems
+     * skipped on a dispatch keep their place in the dispatch order, as with {@link
+     * RequirementsBuilder#runIfEntitiesMatch() run conditions}. Systems using time-steps should
+     * scale them by {@link DispatchTicks#getElapsedTicks(ECSSystem) the number of dispatches since
+     * they were previously due}.
+     *
+     * @param system type of the system
+     * @param interval number of dispatches between the ticks of the system
+     * @param phase    index of the dispatch the system ticks on within the interval
+     *
+     * @return the builder for chaining
+     */
+    DispatcherBuilder withTickInterval(
+            Class<? extends ECSSystem> system,
+            int interval,
+            int phase
+    );
+
+    /**
+     * Makes all systems in the group tick only on every <code>interval</code>-th dispatch. Tick
+     * intervals defined for single systems override those of their groups.
+     *
+     * @param group    the system group
+     * @param interval number of dispatches between the ticks of the systems
+     * @param phase    index of the dispatch the systems tick on within the interval
+     *
+     * @return the builder for chaining
+     *
+     * @see #withTickInterval(Class, int, int)
+     */
+    DispatcherBuilder withTickInterval(
+            SystemGroup group,
+            int interval,
+            int phase
+    );
+
+    /**
+     * Selects how the built dispatcher executes the systems. Defaults to {@link
+     * DispatchMode#SERIAL}.
+     *
+     * @param mode the dispatch mode to use
+     *
+     * @return the builder for chaining
+     */
+    DispatcherBuilder withMode(DispatchMode mode);
+
     /**
      * Finalizes the construction process and outputs a fully operational {@link SystemDispatcher}
      * instance.
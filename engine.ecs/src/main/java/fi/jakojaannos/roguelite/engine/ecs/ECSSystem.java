@@ -18,7 +18,8 @@ import java.util.stream.Stream;
  * variables should be named accordingly, and current convention is to prefix those with "tmp". For
  * example, system which often calculates some direction vector, could have field <code>private
  * final Vector2d tmpSomeDirection</code>, which is then recycled. Care must be taken for recycled
- * objects old state not accidentally affecting other entities.
+ * objects old state not accidentally affecting other entities. Systems processing their entities
+ * in parallel use per-worker scratch objects instead, see {@link ParallelECSSystem}.
  * <p>
  * System dependencies are defined in {@link #declareRequirements(RequirementsBuilder)} via a {@link
  * RequirementsBuilder}. Typically, systems should be designed so that execution order does not
@@ -29,6 +29,17 @@ public interface Entity {
      */
     int getId();
 
+    /**
+     * Gets the versioned handle of this entity. The handle combines the ID with a generation
+     * counter, which is incremented every time an entity with the same ID is destroyed. This
+     * allows storing references to entities as plain <code>long</code>s and checking whether or
+     * not the referenced entity still exists with {@link EntityManager#isAlive(long)}, even after
+     * the ID has been re-used.
+     *
+     * @return the versioned handle of this entity
+     */
+    long getHandle();
+
     /**
      * Indicates whether or not this entity is flagged for removal. Entities marked to be removed
      * are destroyed the next time {@link EntityManager#applyModifications()} is called.
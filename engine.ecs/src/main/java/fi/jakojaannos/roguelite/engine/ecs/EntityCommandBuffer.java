@@ -0,0 +1,80 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+/**
+ * Records structural changes to entities, deferring them to be applied later during {@link
+ * EntityManager#applyModifications()}. Allows safely creating and destroying entities and adding or
+ * removing components while iterating, and from systems running on multiple threads.
+ * <p>
+ * Commands are stored in flat arrays of entity handles and component type indices, so recording a
+ * command does not allocate once the buffer has grown large enough. Commands targeting entities
+ * which have been destroyed by the time of playback are skipped. Commands of a single buffer are played back in the order they were recorded.
+ * Buffers themselves are played back in the order they were created, so the result never depends
+ * on which thread finished first.
+ * <p>
+ * A single buffer must not be used from multiple threads simultaneously.
+ *
+ * @see EntityManager#createCommandBuffer()
+ * @see EntityManager#getCommandBuffer()
+ */
+public interface EntityCommandBuffer {
+    /**
+     * Records creating a new entity. The ID of the entity is reserved immediately, so the returned
+     * entity may be used as a target for further commands recorded to this buffer. The entity is
+     * spawned once the buffer has been played back, after which it can be used as any other entity.
+     *
+     * @return the entity to be created
+     */
+    Entity createEntity();
+
+    /**
+     * Records destroying an entity. The entity is marked for removal immediately.
+     *
+     * @param entity the entity to destroy
+     */
+    void destroyEntity(Entity entity);
+
+    /**
+     * Records adding a component to the entity. If the entity already has a component of the same
+     * type when the command is played back, the command is ignored.
+     *
+     * @param entity       entity to add the component to
+     * @param component    component to add
+     * @param <TComponent> type of the component
+     */
+    <TComponent extends Component> void addComponentTo(Entity entity, TComponent component);
+
+    /**
+     * Records adding a tag to the entity. If the entity already has the tag when the command is
+     * played back, the command is ignored.
+     *
+     * @param entity   entity to add the tag to
+     * @param tagClass type of the tag to add
+     */
+    void addComponentTo(Entity entity, Class<? extends TagComponent> tagClass);
+
+    /**
+     * Records setting a component of the entity. Any existing component of the same type is
+     * replaced when the command is played back.
+     *
+     * @param entity       entity to set the component for
+     * @param component    the new component
+     * @param <TComponent> type of the component
+     */
+    <TComponent extends Component> void setComponent(Entity entity, TComponent component);
+
+    /**
+     * Records removing a component from the entity. If the entity does not have a component of the
+     * given type when the command is played back, the command is ignored.
+     *
+     * @param entity         entity to remove the component from
+     * @param componentClass type of the component to remove
+     */
+    void removeComponentFrom(Entity entity, Class<? extends Component> componentClass);
+
+    /**
+     * Checks whether or not there are any commands waiting to be played back.
+     *
+     * @return <code>true</code> if there are no recorded commands
+     */
+    boolean isEmpty();
+}
@@ -4,6 +4,7 @@ import fi.jakojaannos.roguelite.engine.ecs.entities.EntityManagerImpl;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -17,6 +18,19 @@ public interface EntityManager {
         return new EntityManagerImpl(entityCapacity, maxComponentTypes);
     }
 
+    /**
+     * Creates a new entity manager, storing components using the given memory layout.
+     *
+     * @param entityCapacity    expected number of entities, storages grow beyond this as needed
+     * @param maxComponentTypes maximum number of component types and component groups
+     * @param layout            memory layout to use for storing the components
+     *
+     * @return the newly created entity manager
+     */
+    static EntityManager createNew(int entityCapacity, int maxComponentTypes, StorageLayout layout) {
+        return new EntityManagerImpl(entityCapacity, maxComponentTypes, layout);
+    }
+
     /**
      * Registers a new component group. Should be called only before any entities are created.
      *
@@ -32,22 +46,162 @@ public interface EntityManager {
      */
     Entity createEntity();
 
+    /**
+     * Creates a new entity with the components of the template. The entity has all of its
+     * components immediately, and is added to the game world during the next {@link
+     * #applyModifications()}, just like entities created with {@link #createEntity()}.
+     *
+     * @param template the template to instantiate
+     *
+     * @return the entity created
+     */
+    Entity spawn(EntityTemplate template);
+
+    /**
+     * Creates multiple entities from the same template. The template is resolved only once for
+     * the whole batch and storage for the spawn commands is reserved up front.
+     *
+     * @param template    the template to instantiate
+     * @param count       number of entities to create
+     * @param initializer callback invoked for each created entity, after the template components
+     *                    have been added. Used for setting per-entity component values.
+     */
+    void spawnBatch(EntityTemplate template, int count, EntityTemplate.Initializer initializer);
+
     /**
      * Destroys an entity. The entity is marked for removal instantly, and destroyed during the next
-     * {@link #applyModifications()}
+     * {@link #applyModifications()}. If a command buffer is bound to the current thread, the
+     * destruction is recorded to it.
      *
      * @param entity the entity to mark for removal
      */
     void destroyEntity(Entity entity);
 
+    /**
+     * Creates a new command buffer for deferring structural changes. Commands recorded to the
+     * buffer are played back during every {@link #applyModifications()}, after entities created and
+     * destroyed directly through the manager. Buffers are played back in the order they were
+     * created, so buffers should be created from a single thread.
+     *
+     * @return the newly created command buffer
+     */
+    EntityCommandBuffer createCommandBuffer();
+
+    /**
+     * Releases a command buffer created with {@link #createCommandBuffer()}. Commands already
+     * recorded are played back during the next {@link #applyModifications()}, after which the
+     * buffer is no longer played back and is re-used by a later {@link #createCommandBuffer()}.
+     * The buffer must not be used after it has been released.
+     *
+     * @param buffer the buffer to release
+     *
+     * @throws IllegalStateException if the buffer was not created by this entity manager
+     */
+    void releaseCommandBuffer(EntityCommandBuffer buffer);
+
+    /**
+     * Gets the command buffer bound to the current thread. When systems are dispatched, each
+     * system (and each range of a parallel system) has its own buffer bound. If no buffer is bound,
+     * a shared default buffer is returned.
+     *
+     * @return the command buffer to use on the current thread
+     */
+    EntityCommandBuffer getCommandBuffer();
+
+    /**
+     * Binds the command buffer to the current thread. Returned by {@link #getCommandBuffer()}
+     * until a different buffer is bound. While a buffer is bound, adding and removing components of
+     * spawned entities and destroying entities are recorded to the buffer instead of being applied
+     * immediately. Entities which are not yet spawned are still modified immediately.
+     *
+     * @param buffer the buffer to bind, <code>null</code> to unbind
+     */
+    void setCommandBuffer(@Nullable EntityCommandBuffer buffer);
+
+    /**
+     * Checks whether or not the entity referred to by the handle is alive. An entity is alive once
+     * it has been spawned during {@link #applyModifications()} and until it is destroyed. Handles
+     * of destroyed entities never become alive again, even if their IDs are re-used.
+     *
+     * @param handle handle of the entity, obtained with {@link Entity#getHandle()}
+     *
+     * @return <code>true</code> if the entity is alive, <code>false</code> otherwise
+     */
+    boolean isAlive(long handle);
+
+    /**
+     * Checks whether or not the given entity is alive.
+     *
+     * @param entity the entity to check
+     *
+     * @return <code>true</code> if the entity is alive, <code>false</code> otherwise
+     *
+     * @see #isAlive(long)
+     */
+    default boolean isAlive(final Entity entity) {
+        return isAlive(entity.getHandle());
+    }
+
+    /**
+     * Gets the entity referred to by the handle.
+     *
+     * @param handle handle of the entity, obtained with {@link Entity#getHandle()}
+     *
+     * @return the entity, <code>null</code> if the entity is not {@link #isAlive(long) alive}
+     */
+    @Nullable
+    Entity getEntity(long handle);
+
     /**
      * Applies all entity mutations. Executes all tasks queued with {@link #createEntity()} and
-     * {@link #destroyEntity(Entity)}
+     * {@link #destroyEntity(Entity)}, after which all {@link EntityCommandBuffer command buffers}
+     * are played back in the order they were created. Finally, {@link ComponentObserver observers}
+     * are notified of the changes made since the previous call. {@link Poolable} components of
+     * the destroyed entities are recycled only after the observers have been notified.
      */
     void applyModifications();
 
     /**
-     * Adds the component to the entity.
+     * Releases the storage of entity ID ranges no longer having any entities. Entity and component
+     * storages grow in fixed-size pages as entities are created. Calling this after a large number
+     * of entities has been destroyed returns the memory of the pages no longer needed. Released
+     * pages are allocated again once their IDs are re-used.
+     *
+     * @return the number of entity ID ranges released
+     */
+    int releaseEmptyPages();
+
+    /**
+     * Registers an observer to be notified when components of the given type are added, removed or
+     * destroyed along with their entity. The notifications are delivered during {@link
+     * #applyModifications()}.
+     *
+     * @param componentClass type of the components to observe
+     * @param observer       the observer to register
+     * @param <TComponent>   type of the component
+     */
+    <TComponent extends Component> void addObserver(
+            Class<TComponent> componentClass,
+            ComponentObserver<? super TComponent> observer
+    );
+
+    /**
+     * Unregisters an observer previously registered with {@link #addObserver(Class,
+     * ComponentObserver)}.
+     *
+     * @param componentClass type of the observed components
+     * @param observer       the observer to unregister
+     * @param <TComponent>   type of the component
+     */
+    <TComponent extends Component> void removeObserver(
+            Class<TComponent> componentClass,
+            ComponentObserver<? super TComponent> observer
+    );
+
+    /**
+     * Adds the component to the entity. If a command buffer is {@link
+     * #setCommandBuffer(EntityCommandBuffer) bound} to the current thread and the entity has been
+     * spawned, the addition is recorded to the buffer instead.
      *
      * @param entity       Entity to add the component to
      * @param component    Component to add
@@ -55,6 +209,15 @@ public interface EntityManager {
      */
     <TComponent extends Component> void addComponentTo(Entity entity, TComponent component);
 
+    /**
+     * Adds the tag to the entity. Unlike adding the tag component as an instance, does not require
+     * allocating anything. Recorded to the bound command buffer, just like {@link
+     * #addComponentTo(Entity, Component)}.
+     *
+     * @param entity   Entity to add the tag to
+     * @param tagClass Type of the tag to add
+     */
+    void addComponentTo(Entity entity, Class<? extends TagComponent> tagClass);
 
     /**
      * Removes a component of given type from the entity.
@@ -70,7 +233,8 @@ public interface EntityManager {
     }
 
     /**
-     * Removes a component of given type from the entity.
+     * Removes a component of given type from the entity. Recorded to the bound command buffer,
+     * just like {@link #addComponentTo(Entity, Component)}.
      *
      * @param entity         Entity to remove the component from
      * @param componentClass Type of the component to remove
@@ -92,6 +256,66 @@ public interface EntityManager {
             Class<? extends TComponent> componentClass
     );
 
+    /**
+     * Gets a mapper for fast access to components of the given type. Mappers are cached, so
+     * repeated calls with the same type return the same instance.
+     *
+     * @param componentClass type of the components to access
+     * @param <TComponent>   type of the component
+     *
+     * @return mapper for the component type
+     */
+    <TComponent extends Component> ComponentMapper<TComponent> getComponentMapper(
+            Class<TComponent> componentClass
+    );
+
+    /**
+     * Gets the columns of an {@link OffHeapStorage off-heap} component type, for iterating over the
+     * stored values directly.
+     *
+     * @param componentClass type of the components to access
+     * @param <TComponent>   type of the component
+     *
+     * @return columns of the component type
+     *
+     * @throws IllegalStateException if the component type is not stored off-heap
+     */
+    <TComponent extends Component> OffHeapColumns<TComponent> getOffHeapColumns(
+            Class<TComponent> componentClass
+    );
+
+    /**
+     * Marks the component of the entity changed.
+     *
+     * @param entity         entity which component has changed
+     * @param componentClass type of the changed component
+     *
+     * @see ComponentMapper#markChanged(Entity)
+     */
+    default void markChanged(
+            final Entity entity,
+            final Class<? extends Component> componentClass
+    ) {
+        getComponentMapper(componentClass).markChanged(entity);
+    }
+
+    /**
+     * Gets the current change tick. Components added or marked changed are stamped with the
+     * current tick, which is advanced by the {@link SystemDispatcher dispatcher} after each system
+     * has ticked.
+     *
+     * @return the current change tick
+     */
+    int getChangeTick();
+
+    /**
+     * Advances the change tick. Changes made after this call are considered newer than all changes
+     * made before it.
+     *
+     * @return the change tick before advancing
+     */
+    int advanceChangeTick();
+
     /**
      * Checks whether or not the given entity has the specified component.
      *
@@ -173,6 +397,28 @@ public interface EntityManager {
             Collection<ComponentGroup> excludedGroups
     );
 
+    /**
+     * Creates a persistent query for entities which have all components specified in
+     * <code>required</code> and none of the components specified in <code>excluded</code>. Unlike
+     * {@link #getEntitiesWith(Collection, Collection, Collection, Collection)}, the matching
+     * entities are kept up to date as the entities change, so the returned query should be stored
+     * and re-used instead of creating a new one every time. Queries with identical criteria may be
+     * shared.
+     *
+     * @param required       required component types
+     * @param excluded       excluded component types
+     * @param requiredGroups required component groups
+     * @param excludedGroups excluded component groups
+     *
+     * @return query for the entities matching the given criteria
+     */
+    EntityQuery createQuery(
+            Collection<Class<? extends Component>> required,
+            Collection<Class<? extends Component>> excluded,
+            Collection<ComponentGroup> requiredGroups,
+            Collection<ComponentGroup> excludedGroups
+    );
+
     /**
      * Adds the component to the entity if it does not already have a component of the given type.
      * In other words, ensures the entity has a component of given type.
@@ -195,6 +441,26 @@ public interface EntityManager {
         return true;
     }
 
+    /**
+     * Adds the tag to the entity if it does not already have it.
+     *
+     * @param entity   Entity to add the tag to
+     * @param tagClass Type of the tag to add
+     *
+     * @return <code>true</code> if the tag was added, <code>false</code> otherwise
+     */
+    default boolean addComponentIfAbsent(
+            final Entity entity,
+            final Class<? extends TagComponent> tagClass
+    ) {
+        if (hasComponent(entity, tagClass)) {
+            return false;
+        }
+
+        addComponentTo(entity, tagClass);
+        return true;
+    }
+
     /**
      * Removes the component from the entity if it has a component of given type. In other words,
      * ensures that the entity has no component of the given type.
@@ -218,6 +484,46 @@ public interface EntityManager {
 
     int entityCount();
 
+    /**
+     * Captures the spawned entities and copies of their components. Modifications which have not
+     * yet been applied are not captured, so snapshots should be taken between ticks.
+     *
+     * @return the captured state
+     *
+     * @throws IllegalStateException if any entity has a component which cannot be copied
+     * @see Copyable
+     */
+    Snapshot snapshot();
+
+    /**
+     * Restores the entities and components captured by {@link #snapshot()}. Entities created after
+     * the snapshot are destroyed and entities destroyed after the snapshot are brought back. All
+     * pending modifications are discarded, and observers are not notified of the restored or
+     * removed components. The same snapshot may be restored any number of times. Queries and
+     * component storages iterate the restored entities in the same order as they did when the
+     * snapshot was captured, so that systems ticked after restoring behave the same.
+     * <p>
+     * Components are restored as copies, references to components held across a restore point
+     * to the discarded instances. Entities are restored as-is, so their handles become valid
+     * again. Handles of entities created after the snapshot stay invalid, even once their IDs are
+     * re-used.
+     *
+     * @param snapshot the state to restore, must have been captured from this entity manager
+     */
+    void restore(Snapshot snapshot);
+
+    /**
+     * State of the entities of an entity manager, captured by {@link #snapshot()}.
+     */
+    interface Snapshot {
+        /**
+         * Gets the number of captured entities.
+         *
+         * @return the number of entities
+         */
+        int getEntityCount();
+    }
+
     @RequiredArgsConstructor
     class EntityComponentPair<TComponent extends Component> {
         @Getter private final Entity entity;
@@ -0,0 +1,60 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * Persistent query for entities matching a fixed set of component requirements. The set of
+ * matching entities is maintained incrementally by the {@link EntityManager} as components are
+ * added or removed and as entities are spawned or destroyed. Iterating the query thus never needs
+ * to look at entities which do not match.
+ *
+ * @see EntityManager#createQuery(Collection, Collection, Collection, Collection)
+ */
+public interface EntityQuery {
+    /**
+     * Gets the number of entities currently matching this query.
+     *
+     * @return number of matching entities
+     */
+    int size();
+
+    /**
+     * Checks whether or not there are no entities matching this query.
+     *
+     * @return <code>true</code> if there are no matching entities, <code>false</code> otherwise
+     */
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Gets the i-th entity matching this query. Order of the entities is unspecified and changes as
+     * entities start or stop matching the query, so the entities should not be modified in ways
+     * affecting the match while iterating with this method.
+     *
+     * @param index index of the entity, less than {@link #size()}
+     *
+     * @return the entity
+     *
+     * @throws IndexOutOfBoundsException if the index is negative or not less than {@link #size()}
+     */
+    Entity get(int index);
+
+    /**
+     * Streams the entities matching this query. The stream is a snapshot of the matches at the
+     * time of the call, adding or removing components while consuming the stream does not affect
+     * which entities the stream contains.
+     *
+     * @return stream of the matching entities
+     */
+    Stream<Entity> stream();
+
+    /**
+     * Copies the entities matching this query to a new array. Like {@link #stream()}, the array is
+     * a snapshot of the matches at the time of the call.
+     *
+     * @return array of the matching entities
+     */
+    Entity[] toArray();
+}
@@ -0,0 +1,114 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+import lombok.val;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Reusable, growable buffer of entities. Used for handing the matching entities to {@link
+ * EntitySpanSystem systems} without allocating. The dispatcher refills the same span on every
+ * tick, so spans should not be stored or used after the tick they were received on.
+ *
+ * <pre>{@code
+ * for (int i = 0; i < entities.size(); ++i) {
+ *     final Entity entity = entities.get(i);
+ *     // ...
+ * }
+ * }</pre>
+ */
+public final class EntitySpan {
+    private Entity[] entities;
+    private int size;
+
+    public EntitySpan() {
+        this(16);
+    }
+
+    /**
+     * Creates a new empty span.
+     *
+     * @param initialCapacity number of entities the span can hold before it needs to grow
+     */
+    public EntitySpan(final int initialCapacity) {
+        this.entities = new Entity[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Gets the number of entities in this span.
+     *
+     * @return the number of entities
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks whether or not this span is empty.
+     *
+     * @return <code>true</code> if there are no entities in this span, <code>false</code>
+     * otherwise
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Gets the i-th entity of this span.
+     *
+     * @param index index of the entity
+     *
+     * @return the entity
+     *
+     * @throws IndexOutOfBoundsException if the index is negative or not less than {@link #size()}
+     */
+    public Entity get(final int index) {
+        Objects.checkIndex(index, this.size);
+        return this.entities[index];
+    }
+
+    /**
+     * Appends an entity to this span, growing the span if necessary.
+     *
+     * @param entity the entity to add
+     */
+    public void add(final Entity entity) {
+        if (this.size == this.entities.length) {
+            this.entities = Arrays.copyOf(this.entities, this.entities.length * 2);
+        }
+        this.entities[this.size] = entity;
+        ++this.size;
+    }
+
+    /**
+     * Removes all entities from this span. The capacity is retained.
+     */
+    public void clear() {
+        Arrays.fill(this.entities, 0, this.size, null);
+        this.size = 0;
+    }
+
+    /**
+     * Streams the entities of this span. Provided for compatibility with code operating on
+     * streams, prefer indexed iteration in performance-sensitive code.
+     *
+     * @return stream of the entities
+     */
+    public Stream<Entity> stream() {
+        return Arrays.stream(this.entities, 0, this.size);
+    }
+
+    /**
+     * Creates a span of the entities in the stream.
+     *
+     * @param entities the entities
+     *
+     * @return a new span containing the entities
+     */
+    public static EntitySpan of(final Stream<Entity> entities) {
+        val span = new EntitySpan();
+        entities.forEach(span::add);
+        return span;
+    }
+}
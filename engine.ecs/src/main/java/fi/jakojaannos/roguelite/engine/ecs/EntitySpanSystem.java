@@ -0,0 +1,28 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+import java.util.stream.Stream;
+
+/**
+ * {@link ECSSystem} receiving its entities as a reusable {@link EntitySpan} instead of a {@link
+ * Stream}. The dispatcher fills the span directly from the persistent query of the system, so
+ * ticking the system allocates nothing in the ECS layer.
+ * <p>
+ * The {@link #tick(Stream, World) stream variant} remains available, e.g. for ticking the system
+ * manually in tests, and collects the stream to a span.
+ */
+public interface EntitySpanSystem extends ECSSystem {
+    /**
+     * Performs the state manipulation on given {@link World}. All entities are guaranteed to match
+     * requirements specified in {@link #declareRequirements(RequirementsBuilder)}.
+     *
+     * @param entities span of matching entities to operate on. Valid only for the duration of the
+     *                 call.
+     * @param world    world the entities belong to
+     */
+    void tick(EntitySpan entities, World world);
+
+    @Override
+    default void tick(final Stream<Entity> entities, final World world) {
+        tick(EntitySpan.of(entities), world);
+    }
+}
@@ -0,0 +1,245 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+import lombok.val;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Reusable description of the components of an entity. Spawning an entity from a template adds
+ * all of its components in a single step: the component type lookups and the component signature
+ * of the template are resolved once per entity manager, after which spawning only needs to
+ * instantiate the components.
+ * <p>
+ * Each non-tag component type has a factory, invoked once for every spawned entity. Factories
+ * should return a new instance on every call, unless the instance is meant to be shared between
+ * the entities. Components of {@link Poolable} types may instead be added as pooled, in which case
+ * instances are acquired from the pool of the entity manager whenever possible, and the factory is
+ * only used when the pool is empty. Pooled components are configured by an initializer, which is
+ * invoked for both new and recycled instances.
+ *
+ * <pre>{@code
+ * EntityTemplate template = EntityTemplate.builder()
+ *                                         .with(Transform.class, Transform::new)
+ *                                         .with(Health.class, () -> new Health(3))
+ *                                         .withTag(EnemyTag.class)
+ *                                         .build();
+ * Entity entity = entityManager.spawn(template);
+ * }</pre>
+ *
+ * @see EntityManager#spawn(EntityTemplate)
+ * @see EntityManager#spawnBatch(EntityTemplate, int, Initializer)
+ */
+public final class EntityTemplate {
+    private final Class<? extends Component>[] componentTypes;
+    private final Supplier<? extends Component>[] factories;
+    private final Consumer<Component>[] initializers;
+
+    private EntityTemplate(
+            final Class<? extends Component>[] componentTypes,
+            final Supplier<? extends Component>[] factories,
+            final Consumer<Component>[] initializers
+    ) {
+        this.componentTypes = componentTypes;
+        this.factories = factories;
+        this.initializers = initializers;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets the number of component types in this template.
+     *
+     * @return the number of component types
+     */
+    public int size() {
+        return this.componentTypes.length;
+    }
+
+    /**
+     * Gets the i-th component type of this template.
+     *
+     * @param index index of the component type
+     *
+     * @return the component type
+     */
+    public Class<? extends Component> getComponentType(final int index) {
+        return this.componentTypes[index];
+    }
+
+    /**
+     * Checks whether or not the i-th component is pooled.
+     *
+     * @param index index of the component type
+     *
+     * @return <code>true</code> if instances should be acquired from a pool
+     */
+    public boolean isPooled(final int index) {
+        return this.initializers[index] != null;
+    }
+
+    /**
+     * Creates a new instance of the i-th component. Pooled components still need to be
+     * {@link #initializeComponent(int, Component) initialized} afterwards.
+     *
+     * @param index index of the component type
+     *
+     * @return the new component, <code>null</code> for tags
+     */
+    @Nullable
+    public Component createComponent(final int index) {
+        val factory = this.factories[index];
+        return factory != null
+                ? factory.get()
+                : null;
+    }
+
+    /**
+     * Initializes a new or recycled instance of the i-th component. Does nothing for components
+     * which are not pooled.
+     *
+     * @param index     index of the component type
+     * @param component the component to initialize
+     */
+    public void initializeComponent(final int index, final Component component) {
+        val initializer = this.initializers[index];
+        if (initializer != null) {
+            initializer.accept(component);
+        }
+    }
+
+    /**
+     * Creates the components for a new entity, without using any pools. Elements of tag types are
+     * <code>null</code>, as tags are added by type.
+     *
+     * @return new components, in the order of the component types of this template
+     */
+    public Component[] instantiate() {
+        val components = new Component[this.factories.length];
+        for (int i = 0; i < components.length; ++i) {
+            val component = createComponent(i);
+            if (component != null) {
+                initializeComponent(i, component);
+                components[i] = component;
+            }
+        }
+        return components;
+    }
+
+    /**
+     * Initializes entities spawned with {@link EntityManager#spawnBatch(EntityTemplate, int,
+     * Initializer)}. Invoked after the components of the template have been added.
+     */
+    @FunctionalInterface
+    public interface Initializer {
+        /**
+         * Initializes the entity.
+         *
+         * @param entity the spawned entity
+         * @param index  index of the entity within the batch
+         */
+        void initialize(Entity entity, int index);
+    }
+
+    public static final class Builder {
+        private final List<Class<? extends Component>> componentTypes = new ArrayList<>();
+        private final List<Supplier<? extends Component>> factories = new ArrayList<>();
+        private final List<Consumer<? super Component>> initializers = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a component type to the template.
+         *
+         * @param componentClass type of the component
+         * @param factory        factory for creating the component instances
+         * @param <TComponent>   type of the component
+         *
+         * @return this builder for chaining
+         */
+        public <TComponent extends Component> Builder with(
+                final Class<TComponent> componentClass,
+                final Supplier<? extends TComponent> factory
+        ) {
+            return add(componentClass, factory, null);
+        }
+
+        /**
+         * Adds a pooled component type to the template. Instances are acquired from the pool of
+         * the component type, falling back to the factory if the pool is empty.
+         *
+         * @param componentClass type of the component
+         * @param factory        factory for creating new component instances
+         * @param initializer    initializer invoked for each new and recycled instance
+         * @param <TComponent>   type of the component
+         *
+         * @return this builder for chaining
+         */
+        public <TComponent extends Component & Poolable> Builder withPooled(
+                final Class<TComponent> componentClass,
+                final Supplier<? extends TComponent> factory,
+                final Consumer<? super TComponent> initializer
+        ) {
+            return add(componentClass, factory, component -> initializer.accept(componentClass.cast(component)));
+        }
+
+        /**
+         * Adds a pooled component type to the template. Instances are used as-is after they have
+         * been reset.
+         *
+         * @param componentClass type of the component
+         * @param factory        factory for creating new component instances
+         * @param <TComponent>   type of the component
+         *
+         * @return this builder for chaining
+         */
+        public <TComponent extends Component & Poolable> Builder withPooled(
+                final Class<TComponent> componentClass,
+                final Supplier<? extends TComponent> factory
+        ) {
+            return withPooled(componentClass, factory, component -> {});
+        }
+
+        /**
+         * Adds a tag to the template.
+         *
+         * @param tagClass type of the tag
+         *
+         * @return this builder for chaining
+         */
+        public Builder withTag(final Class<? extends TagComponent> tagClass) {
+            return add(tagClass, null, null);
+        }
+
+        // Generic arrays cannot be created directly. The lists only ever hold elements of the array
+        // types and the arrays are never exposed, so the casts are safe.
+        @SuppressWarnings("unchecked")
+        public EntityTemplate build() {
+            return new EntityTemplate(this.componentTypes.toArray(Class[]::new),
+                                      this.factories.toArray(Supplier[]::new),
+                                      this.initializers.toArray(Consumer[]::new));
+        }
+
+        private Builder add(
+                final Class<? extends Component> componentClass,
+                @Nullable final Supplier<? extends Component> factory,
+                @Nullable final Consumer<? super Component> initializer
+        ) {
+            if (this.componentTypes.contains(componentClass)) {
+                throw new IllegalStateException(String.format("Template already contains component type %s!",
+                                                              componentClass.getSimpleName()));
+            }
+
+            this.componentTypes.add(componentClass);
+            this.factories.add(factory);
+            this.initializers.add(initializer);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+import lombok.val;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Double-buffered channel for passing events between systems. Each event type gets a resource of
+ * its own by extending the channel, e.g. <code>class Collisions extends
+ * EventChannel&lt;CollisionEvent&gt; {}</code>.
+ * <p>
+ * Events published during a tick are visible through {@link #current()} for the rest of the tick,
+ * and through {@link #previous()} for the whole of the next tick. Systems ticking after the writers
+ * should read the current events, systems ticking before them the previous ones. The {@link
+ * SystemDispatcher dispatcher} swaps the buffers after each dispatch for all channels its systems
+ * declare as resources.
+ * <p>
+ * Events are stored to plain arrays, which are reused across ticks, so that publishing does not
+ * allocate once the arrays have grown large enough. Events may optionally be published for an
+ * entity, in which case they are linked to the earlier events of the same entity. Events of a
+ * single entity can then be iterated without visiting the events of other entities, and without
+ * any per-entity collections.
+ * <p>
+ * Channels are not thread-safe. Systems publishing to a channel should declare writing to it with
+ * {@link RequirementsBuilder#writesResource(Class)}, so that they are never ticked simultaneously
+ * with the readers.
+ *
+ * @param <TEvent> type of the events
+ */
+public abstract class EventChannel<TEvent> implements Resource {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Events<TEvent> current;
+    private Events<TEvent> previous;
+
+    protected EventChannel() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new channel with storage for the given number of events per tick preallocated.
+     *
+     * @param initialCapacity number of events to preallocate storage for
+     */
+    protected EventChannel(final int initialCapacity) {
+        this.current = new Events<>(initialCapacity);
+        this.previous = new Events<>(initialCapacity);
+    }
+
+    /**
+     * Publishes an event not associated with any entity.
+     *
+     * @param event the event to publish
+     */
+    public void publish(final TEvent event) {
+        this.current.add(null, event);
+    }
+
+    /**
+     * Publishes an event for the given entity. The event can be found using {@link
+     * Events#first(Entity)} in addition to iterating over all events.
+     *
+     * @param entity entity the event is for
+     * @param event  the event to publish
+     */
+    public void publish(final Entity entity, final TEvent event) {
+        this.current.add(entity, event);
+    }
+
+    /**
+     * Gets the events published during the current tick.
+     *
+     * @return the current events
+     */
+    public Events<TEvent> current() {
+        return this.current;
+    }
+
+    /**
+     * Gets the events published during the previous tick.
+     *
+     * @return the previous events
+     */
+    public Events<TEvent> previous() {
+        return this.previous;
+    }
+
+    /**
+     * Swaps the buffers. Current events become the previous events and the previous events are
+     * discarded, their storage is reused for the events of the next tick.
+     */
+    public void swap() {
+        val discarded = this.previous;
+        this.previous = this.current;
+        this.current = discarded;
+        this.current.clear();
+    }
+
+    /**
+     * Discards all events of both buffers.
+     */
+    public void clear() {
+        this.current.clear();
+        this.previous.clear();
+    }
+
+    /**
+     * Read-only view to the events published during a single tick. Events are in the order they
+     * were published in and can be accessed by index:
+     * <pre>{@code
+     * for (int i = 0, n = events.size(); i < n; ++i) {
+     *     handle(events.get(i));
+     * }
+     * }</pre>
+     * Events of a single entity are iterated using {@link #first(Entity)} and {@link #next(int)}:
+     * <pre>{@code
+     * for (int i = events.first(entity); i != -1; i = events.next(i)) {
+     *     handle(events.get(i));
+     * }
+     * }</pre>
+     *
+     * @param <TEvent> type of the events
+     */
+    public static final class Events<TEvent> {
+        private Object[] events;
+        private Entity[] entities;
+        /**
+         * Handles of the entities at the time the events were published. Entity instances are
+         * re-used along with their IDs, so the handles tell apart the events of entities sharing an
+         * instance.
+         */
+        private long[] handles;
+        /**
+         * Index of the next event of the same entity, <code>-1</code> for the last event.
+         */
+        private int[] nextOfEntity;
+        /**
+         * Indices of the first and last events of each entity, indexed by entity ID. Entries are
+         * only valid if the stamp of the ID matches the current generation, so that clearing
+         * does not need to touch the index.
+         */
+        private int[] heads = new int[0];
+        private int[] tails = new int[0];
+        private int[] stamps = new int[0];
+        private int generation = 1;
+        private int size;
+
+        private Events(final int initialCapacity) {
+            val capacity = Math.max(1, initialCapacity);
+            this.events = new Object[capacity];
+            this.entities = new Entity[capacity];
+            this.handles = new long[capacity];
+            this.nextOfEntity = new int[capacity];
+        }
+
+        /**
+         * Gets the number of events.
+         *
+         * @return the number of events
+         */
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * Checks whether or not there are any events.
+         *
+         * @return <code>true</code> if there are no events, <code>false</code> otherwise
+         */
+        public boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        /**
+         * Gets the event at the given index.
+         *
+         * @param index index of the event
+         *
+         * @return the event
+         */
+        // Events are only ever added through add, which takes a TEvent
+        @SuppressWarnings("unchecked")
+        public TEvent get(final int index) {
+            Objects.checkIndex(index, this.size);
+            return (TEvent) this.events[index];
+        }
+
+        /**
+         * Gets the entity the event at the given index was published for.
+         *
+         * @param index index of the event
+         *
+         * @return the entity, <code>null</code> if the event is not associated with any entity
+         */
+        @Nullable
+        public Entity getEntity(final int index) {
+            Objects.checkIndex(index, this.size);
+            return this.entities[index];
+        }
+
+        /**
+         * Gets the index of the first event published for the entity.
+         *
+         * @param entity the entity
+         *
+         * @return index of the first event, <code>-1</code> if there are no events for the entity
+         */
+        public int first(final Entity entity) {
+            val id = entity.getId();
+            if (id >= this.stamps.length || this.stamps[id] != this.generation) {
+                return -1;
+            }
+
+            return matching(this.heads[id], entity.getHandle());
+        }
+
+        /**
+         * Gets the index of the next event published for the same entity as the event at the given
+         * index.
+         *
+         * @param index index of the current event
+         *
+         * @return index of the next event, <code>-1</code> if there are no more events for the
+         * entity
+         */
+        public int next(final int index) {
+            Objects.checkIndex(index, this.size);
+            return this.entities[index] != null
+                    ? matching(this.nextOfEntity[index], this.handles[index])
+                    : -1;
+        }
+
+        /**
+         * Checks whether or not there are any events for the entity.
+         *
+         * @param entity the entity
+         *
+         * @return <code>true</code> if there are events for the entity
+         */
+        public boolean hasEventsFor(final Entity entity) {
+            return first(entity) != -1;
+        }
+
+        /**
+         * Streams all events.
+         *
+         * @return stream of the events
+         */
+        public Stream<TEvent> stream() {
+            return IntStream.range(0, this.size)
+                            .mapToObj(this::get);
+        }
+
+        /**
+         * Streams the events published for the entity.
+         *
+         * @param entity the entity
+         *
+         * @return stream of the events of the entity
+         */
+        public Stream<TEvent> streamFor(final Entity entity) {
+            return IntStream.iterate(first(entity), index -> index != -1, this::next)
+                            .mapToObj(this::get);
+        }
+
+        private void add(@Nullable final Entity entity, final TEvent event) {
+            if (this.size == this.events.length) {
+                val capacity = this.size * 2;
+                this.events = Arrays.copyOf(this.events, capacity);
+                this.entities = Arrays.copyOf(this.entities, capacity);
+                this.handles = Arrays.copyOf(this.handles, capacity);
+                this.nextOfEntity = Arrays.copyOf(this.nextOfEntity, capacity);
+            }
+
+            val index = this.size;
+            this.events[index] = event;
+            this.entities[index] = entity;
+            this.handles[index] = entity != null ? entity.getHandle() : 0L;
+            this.nextOfEntity[index] = -1;
+            ++this.size;
+
+            if (entity != null) {
+                link(entity.getId(), index);
+            }
+        }
+
+        private void link(final int id, final int index) {
+            if (id >= this.stamps.length) {
+                val capacity = Math.max(id + 1, this.stamps.length * 2);
+                this.heads = Arrays.copyOf(this.heads, capacity);
+                this.tails = Arrays.copyOf(this.tails, capacity);
+                this.stamps = Arrays.copyOf(this.stamps, capacity);
+            }
+
+            if (this.stamps[id] != this.generation) {
+                this.stamps[id] = this.generation;
+                this.heads[id] = index;
+            } else {
+                this.nextOfEntity[this.tails[id]] = index;
+            }
+            this.tails[id] = index;
+        }
+
+        /**
+         * Events are linked by entity ID. Skips the events of other entities sharing the same ID,
+         * e.g. when an entity is destroyed and its ID is reused within the same tick.
+         */
+        private int matching(final int from, final long handle) {
+            var index = from;
+            while (index != -1 && this.handles[index] != handle) {
+                index = this.nextOfEntity[index];
+            }
+            return index;
+        }
+
+        private void clear() {
+            Arrays.fill(this.events, 0, this.size, null);
+            Arrays.fill(this.entities, 0, this.size, null);
+            this.size = 0;
+            ++this.generation;
+        }
+    }
+}
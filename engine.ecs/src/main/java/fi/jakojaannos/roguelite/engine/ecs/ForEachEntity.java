@@ -0,0 +1,60 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of a system to be invoked once for each matching entity. The annotation processor
+ * in <code>engine.ecs.processor</code> generates an adapter class named
+ * <code>&lt;SystemClass&gt;Adapter</code> to the same package, with two static methods:
+ * <ul>
+ *     <li><code>declareRequirements(RequirementsBuilder)</code> declares the component
+ *     parameters of the method as required, along with {@link #with()} and {@link #without()}.
+ *     Returns the builder for declaring the rest of the requirements.</li>
+ *     <li><code>tick(System, EntitySpan, World)</code> resolves the component mappers once per
+ *     tick and invokes the method for each entity in a plain indexed loop.</li>
+ * </ul>
+ * <p>
+ * Parameters of the method may be any {@link Component} types, the {@link Entity} itself, or the
+ * {@link World}. The method may not be private or static, and only a single method per class may be
+ * annotated.
+ *
+ * <pre>{@code
+ * public class MovementSystem implements EntitySpanSystem {
+ *     public void declareRequirements(final RequirementsBuilder requirements) {
+ *         MovementSystemAdapter.declareRequirements(requirements)
+ *                              .addToGroup(SystemGroups.CHARACTER_TICK);
+ *     }
+ *
+ *     public void tick(final EntitySpan entities, final World world) {
+ *         MovementSystemAdapter.tick(this, entities, world);
+ *     }
+ *
+ *     @ForEachEntity(without = DeadTag.class)
+ *     void move(final Transform transform, final Velocity velocity) {
+ *         transform.position.add(velocity.velocity);
+ *     }
+ * }
+ * }</pre>
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.SOURCE)
+public @interface ForEachEntity {
+    /**
+     * Additional required component types, which are not passed as parameters. Typically tags.
+     *
+     * @return the additional required component types
+     */
+    Class<? extends Component>[] with() default {};
+
+    /**
+     * Excluded component types.
+     *
+     * @return the excluded component types
+     */
+    Class<? extends Component>[] without() default {};
+}
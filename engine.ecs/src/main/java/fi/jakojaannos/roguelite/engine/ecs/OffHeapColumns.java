@@ -0,0 +1,116 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Direct access to the columns of an {@link OffHeapStorage off-heap} component type. Components of
+ * all entities having the component are packed densely, with indices ranging from zero to {@link
+ * #size()}. Removals move the last component to the freed index, so the indices are not stable
+ * across structural changes.
+ * <p>
+ * Each field of the component has a column, resolved by the field name with {@link
+ * #columnOf(String)}. Columns are accessed through typed buffer views, which should be fetched at
+ * the beginning of each tick. Adding components may reallocate the columns, so views are only valid
+ * until the next time components of the type are added or removed.
+ *
+ * <pre>{@code
+ * val positions = entityManager.getOffHeapColumns(Position.class);
+ * val x = positions.getDoubles(positions.columnOf("x"));
+ * val y = positions.getDoubles(positions.columnOf("y"));
+ * for (int i = 0, n = positions.size(); i < n; ++i) {
+ *     x.put(i, x.get(i) + 1.0);
+ *     y.put(i, y.get(i) - 1.0);
+ * }
+ * }</pre>
+ * <p>
+ * Writes through the views are not tracked, use {@link ComponentMapper#markChanged(Entity)} if
+ * change detection is needed.
+ *
+ * @param <TComponent> type of the component
+ *
+ * @see EntityManager#getOffHeapColumns(Class)
+ */
+public interface OffHeapColumns<TComponent extends Component> {
+    /**
+     * Gets the number of stored components.
+     *
+     * @return the number of components
+     */
+    int size();
+
+    /**
+     * Gets the entity owning the component at the given index.
+     *
+     * @param index dense index of the component
+     *
+     * @return the entity
+     */
+    Entity getEntity(int index);
+
+    /**
+     * Gets the dense index of the component of the given entity.
+     *
+     * @param entity the entity to look up
+     *
+     * @return the index, <code>-1</code> if the entity does not have the component
+     */
+    int indexOf(Entity entity);
+
+    /**
+     * Gets the column of the given field.
+     *
+     * @param fieldName name of the field
+     *
+     * @return index of the column
+     *
+     * @throws IllegalStateException if the component type has no such field
+     */
+    int columnOf(String fieldName);
+
+    /**
+     * Gets a view to a column of a <code>double</code> field.
+     *
+     * @param column index of the column
+     *
+     * @return view to the column, holding exactly {@link #size()} values
+     *
+     * @throws IllegalStateException if the field is not a <code>double</code>
+     */
+    DoubleBuffer getDoubles(int column);
+
+    /**
+     * Gets a view to a column of a <code>float</code> field.
+     *
+     * @param column index of the column
+     *
+     * @return view to the column, holding exactly {@link #size()} values
+     *
+     * @throws IllegalStateException if the field is not a <code>float</code>
+     */
+    FloatBuffer getFloats(int column);
+
+    /**
+     * Gets a view to a column of a <code>long</code> field.
+     *
+     * @param column index of the column
+     *
+     * @return view to the column, holding exactly {@link #size()} values
+     *
+     * @throws IllegalStateException if the field is not a <code>long</code>
+     */
+    LongBuffer getLongs(int column);
+
+    /**
+     * Gets a view to a column of an <code>int</code> field.
+     *
+     * @param column index of the column
+     *
+     * @return view to the column, holding exactly {@link #size()} values
+     *
+     * @throws IllegalStateException if the field is not an <code>int</code>
+     */
+    IntBuffer getInts(int column);
+}
@@ -0,0 +1,33 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a plain-data component type to be stored off-heap, regardless of the {@link StorageLayout}
+ * of the entity manager. Intended for small component types with many instances, where the object
+ * headers and scattered heap allocations dominate the actual data.
+ * <p>
+ * Each field of the component is stored to a column of its own, in a direct buffer outside of the
+ * heap. Components of all entities are packed densely to the columns, so that the values of a
+ * single field can be iterated as a contiguous array through {@link OffHeapColumns}. The columns
+ * are obtained with {@link EntityManager#getOffHeapColumns(Class)}.
+ * <p>
+ * Component instances are not retained. Added components have their fields copied to the columns,
+ * and fetching the component e.g. with {@link EntityManager#getComponentOf(Entity, Class)} returns
+ * a new copy of the stored values. Modifying the copy has no effect on the stored component, the
+ * columns must be written to directly instead.
+ * <p>
+ * The component type must have a no-args constructor and may only declare fields of primitive types
+ * <code>double</code>, <code>float</code>, <code>long</code> and <code>int</code>. Has no effect on
+ * {@link TagComponent tags}, as they have no instances to store. Off-heap components are never
+ * {@link Poolable pooled}.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OffHeapStorage {
+}
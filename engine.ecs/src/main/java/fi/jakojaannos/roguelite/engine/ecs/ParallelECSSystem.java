@@ -0,0 +1,53 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+import java.util.stream.Stream;
+
+/**
+ * An {@link ECSSystem} which can split processing of its entities across multiple threads. When
+ * dispatched with a {@link DispatchMode#PARALLEL parallel dispatcher}, the matching entities are
+ * split into ranges, each of which is processed on a worker thread with {@link #tick(Entity[], int,
+ * int, World, Object) the range tick}. Otherwise, all entities are processed as a single range on
+ * the dispatching thread.
+ * <p>
+ * Instead of the <code>tmp</code>-prefixed fields used by regular systems, temporary variables are
+ * kept in a per-worker <i>scratch</i> object, which is never accessed by two threads at once.
+ * Processing a single entity must not touch components of other entities processed by the system,
+ * and must not add or remove components nor create or destroy entities.
+ *
+ * @param <TScratch> type of the scratch object
+ */
+public interface ParallelECSSystem<TScratch> extends ECSSystem {
+    /**
+     * Creates a new scratch object. When dispatched in parallel, called once for each worker and
+     * the scratch objects are re-used between ticks. Systems without need for temporary variables
+     * may use {@link Void} as the scratch type and return <code>null</code>.
+     *
+     * @return a new scratch object
+     */
+    TScratch createScratch();
+
+    /**
+     * Processes a range of the matching entities. All entities are guaranteed to match requirements
+     * specified in {@link #declareRequirements(RequirementsBuilder)}.
+     *
+     * @param entities array of all entities matching the requirements
+     * @param from     index of the first entity to process, inclusive
+     * @param to       index of the last entity to process, exclusive
+     * @param world    world the entities belong to
+     * @param scratch  scratch object reserved for this range
+     */
+    void tick(Entity[] entities, int from, int to, World world, TScratch scratch);
+
+    /**
+     * Processes all entities as a single range. Used when the system is not dispatched in
+     * parallel.
+     *
+     * @param entities stream of matching entities to operate on
+     * @param world    world the entities belong to
+     */
+    @Override
+    default void tick(final Stream<Entity> entities, final World world) {
+        final Entity[] entityArray = entities.toArray(Entity[]::new);
+        tick(entityArray, 0, entityArray.length, world, createScratch());
+    }
+}
@@ -0,0 +1,20 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+/**
+ * Opt-in marker for component types whose instances are recycled. When an entity is destroyed,
+ * its poolable components are returned to a per-type pool of the entity manager, from which
+ * {@link EntityTemplate templates} acquire instances for newly spawned entities.
+ * <p>
+ * Recycled instances are only reset and handed out after observers have been notified of the
+ * destruction. Instances of poolable types must not be shared between entities, nor should
+ * references to them be held after the owning entity has been destroyed.
+ *
+ * @see EntityTemplate.Builder#withPooled(Class, java.util.function.Supplier,
+ * java.util.function.Consumer)
+ */
+public interface Poolable {
+    /**
+     * Resets the instance to its initial state before it is re-used.
+     */
+    void reset();
+}
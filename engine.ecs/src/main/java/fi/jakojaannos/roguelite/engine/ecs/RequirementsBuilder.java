@@ -1,5 +1,6 @@
 package fi.jakojaannos.roguelite.engine.ecs;
 
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 /**
@@ -64,6 +65,26 @@ public interface RequirementsBuilder {
      */
     RequirementsBuilder withComponent(Class<? extends Component> componentClass);
 
+    /**
+     * Marks requirement for all entities this system handles to have a component of given type,
+     * which has changed since the previous time this system ticked. Components are changed when
+     * they are added or {@link ComponentMapper#markChanged(Entity) marked changed}. If multiple
+     * changed components are required, entities with any one of them changed are handled.
+     * <p>
+     * Changes are never detected automatically. Components modified in place after they have been
+     * added must be accessed using {@link ComponentMapper#getForWrite(Entity)} or explicitly
+     * {@link ComponentMapper#markChanged(Entity) marked changed}, otherwise systems using this
+     * filter miss the modifications. The filter is thus best suited for components which are
+     * rarely modified, and only by code which marks the changes.
+     * <p>
+     * On its first tick, the system handles all entities with the component.
+     *
+     * @param componentClass type of the required component
+     *
+     * @return the builder for chaining
+     */
+    RequirementsBuilder withChangedComponent(Class<? extends Component> componentClass);
+
     /**
      * Marks requirement for all entities this system handles to not have a component of given type.
      * This means that any entities with given component type are excluded from being passed into
@@ -104,4 +125,96 @@ public interface RequirementsBuilder {
      * @return the builder for chaining
      */
     RequirementsBuilder requireResource(Class<? extends Resource> resource);
+
+    /**
+     * Declares that this system reads components of the given type. Component access declarations
+     * are used by the {@link DispatchMode#PARALLEL parallel dispatcher} to determine which systems
+     * can be safely executed simultaneously. Declaring a read does not make the component required,
+     * use {@link #withComponent(Class)} for that.
+     * <p>
+     * Systems declaring any accesses are assumed to declare all components and resources they
+     * access, including those accessed through other entities, and to not add or remove components
+     * nor create or destroy entities.
+     *
+     * @param componentClass type of the component read by this system
+     *
+     * @return the builder for chaining
+     */
+    RequirementsBuilder readsComponent(Class<? extends Component> componentClass);
+
+    /**
+     * Declares that this system modifies components of the given type. Implies read access.
+     *
+     * @param componentClass type of the component modified by this system
+     *
+     * @return the builder for chaining
+     *
+     * @see #readsComponent(Class)
+     */
+    RequirementsBuilder writesComponent(Class<? extends Component> componentClass);
+
+    /**
+     * Declares that this system reads the given resource.
+     *
+     * @param resource type of the resource read by this system
+     *
+     * @return the builder for chaining
+     *
+     * @see #readsComponent(Class)
+     */
+    RequirementsBuilder readsResource(Class<? extends Resource> resource);
+
+    /**
+     * Declares that this system modifies the given resource. Implies read access.
+     *
+     * @param resource type of the resource modified by this system
+     *
+     * @return the builder for chaining
+     *
+     * @see #readsComponent(Class)
+     */
+    RequirementsBuilder writesResource(Class<? extends Resource> resource);
+
+    /**
+     * Skips ticking this system when there are no entities matching its component requirements.
+     * The check uses the match counts the entity manager maintains for the system query, so
+     * skipped systems cost next to nothing. Systems which do work even when there are no entities
+     * to handle must not use this.
+     * <p>
+     * Skipping a system does not affect the dispatch order, systems depending on it still tick
+     * after the position it would have ticked in.
+     *
+     * @return the builder for chaining
+     */
+    RequirementsBuilder runIfEntitiesMatch();
+
+    /**
+     * Skips ticking this system when the given condition does not hold for the resource. The
+     * condition is evaluated on the dispatching thread before each tick, so it should be cheap and
+     * must not modify the resource. Implies {@link #requireResource(Class)}.
+     *
+     * @param resource  type of the resource to test
+     * @param condition condition which must hold for the system to tick
+     * @param <TResource> type of the resource
+     *
+     * @return the builder for chaining
+     *
+     * @see #runIfEntitiesMatch()
+     */
+    <TResource extends Resource> RequirementsBuilder runIf(
+            Class<TResource> resource,
+            Predicate<? super TResource> condition
+    );
+
+    /**
+     * Skips ticking this system when neither the current nor the previous events of the given
+     * channel contain any events. Implies {@link #requireResource(Class)}.
+     *
+     * @param channel type of the event channel
+     *
+     * @return the builder for chaining
+     *
+     * @see #runIfEntitiesMatch()
+     */
+    RequirementsBuilder runIfEventsIn(Class<? extends EventChannel<?>> channel);
 }
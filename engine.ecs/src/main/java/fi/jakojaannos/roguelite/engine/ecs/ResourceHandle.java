@@ -0,0 +1,69 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Handle for accessing a resource type. Each resource type is assigned a dense index, allowing
+ * worlds to store their resources in an array. Looking up a resource using a handle is thus a
+ * plain array access instead of a hash lookup by type.
+ * <p>
+ * Handles are global, the same handle is valid for all worlds. Systems should resolve the handles
+ * they need once and re-use them on every tick.
+ *
+ * @param <TResource> type of the resource
+ *
+ * @see World#getResource(ResourceHandle)
+ */
+public final class ResourceHandle<TResource extends Resource> {
+    private static final Map<Class<? extends Resource>, ResourceHandle<?>> HANDLES = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+
+    @Getter private final Class<TResource> resourceType;
+    @Getter private final int index;
+
+    private ResourceHandle(final Class<TResource> resourceType, final int index) {
+        this.resourceType = resourceType;
+        this.index = index;
+    }
+
+    /**
+     * Gets the handle for the given resource type. Assigns the type a new index if it does not
+     * have one yet.
+     *
+     * @param resourceType type of the resource
+     * @param <TResource>  type of the resource
+     *
+     * @return handle for the resource type
+     */
+    // Handles are only ever stored under their own resource type
+    @SuppressWarnings("unchecked")
+    public static <TResource extends Resource> ResourceHandle<TResource> of(
+            final Class<TResource> resourceType
+    ) {
+        return (ResourceHandle<TResource>) HANDLES.computeIfAbsent(resourceType, ResourceHandle::create);
+    }
+
+    /**
+     * Gets the number of resource types assigned an index so far.
+     *
+     * @return the number of indices assigned
+     */
+    public static int count() {
+        return NEXT_INDEX.get();
+    }
+
+    private static <TResource extends Resource> ResourceHandle<TResource> create(
+            final Class<TResource> resourceType
+    ) {
+        return new ResourceHandle<>(resourceType, NEXT_INDEX.getAndIncrement());
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceHandle{" + this.resourceType.getSimpleName() + "@" + this.index + "}";
+    }
+}
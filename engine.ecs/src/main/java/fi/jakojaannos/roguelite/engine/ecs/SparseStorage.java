@@ -0,0 +1,25 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a component type to be stored in a sparse set, regardless of the {@link StorageLayout} of
+ * the entity manager. Intended for component types only a handful of entities ever have, e.g.
+ * cameras or spawners.
+ * <p>
+ * Sparse components are packed densely to arrays of their own, with a paged index from entity IDs
+ * to the packed arrays. Memory use thus scales with the number of components instead of the entity
+ * capacity, and queries requiring a sparse component only visit the entities having it. Accessing
+ * the components is slightly slower due to the additional indirection.
+ * <p>
+ * Has no effect on {@link TagComponent tags}, as they have no instances to store.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SparseStorage {
+}
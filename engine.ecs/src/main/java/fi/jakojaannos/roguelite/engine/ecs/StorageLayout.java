@@ -0,0 +1,34 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+/**
+ * Memory layout an {@link EntityManager} uses for storing component instances. The layout does not
+ * affect the behavior of the entity manager, only how the data is laid out in memory.
+ * <p>
+ * Component types marked with {@link SparseStorage} are stored in sparse sets and types marked with
+ * {@link OffHeapStorage} in off-heap columns, regardless of the layout.
+ *
+ * @see EntityManager#createNew(int, int, StorageLayout)
+ */
+public enum StorageLayout {
+    /**
+     * Each component type has its own array, indexed with entity IDs. Adding and removing
+     * components is cheap, but iterating over entities with multiple components ends up accessing
+     * multiple unrelated arrays.
+     */
+    COMPONENT_MAPS,
+
+    /**
+     * Entities with identical component signatures (archetypes) are stored together in fixed-size
+     * chunks, with each component type having its own column inside the chunk. Streams of {@link
+     * EntityManager#getEntitiesWith(Class) entities with given components} visit the entities
+     * archetype-by-archetype, so that the components accessed close to each other in time are also
+     * close to each other in memory. Adding or removing components moves the entity to another
+     * archetype.
+     * <p>
+     * {@link EntityQuery Queries} keep their members in the order the entities started matching and
+     * {@link ComponentMapper mappers} look the components up by entity ID, through the archetype
+     * and the row of the entity. Systems iterating queries thus do not follow the chunk order, and
+     * pay for an extra lookup per component compared to {@link #COMPONENT_MAPS}.
+     */
+    ARCHETYPES
+}
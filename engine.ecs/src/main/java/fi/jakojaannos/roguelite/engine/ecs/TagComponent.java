@@ -0,0 +1,14 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+/**
+ * Tag-interface for defining tag components. Tags are components without any data, used for
+ * marking entities e.g. as dead or as belonging to the player. As tags carry no data, their presence
+ * is stored purely in the component signature of the entity, without allocating any storage for
+ * the component instances.
+ * <p>
+ * Tags can be added to entities without instantiating them with {@link
+ * EntityManager#addComponentTo(Entity, Class)}. Fetching a tag from an entity always returns a
+ * single shared instance of the tag type. Implementing classes must not declare any fields.
+ */
+public interface TagComponent extends Component {
+}
@@ -15,12 +15,72 @@ public interface World {
     EntityManager getEntityManager();
 
     /**
-     * Creates or gets the resource of given type.
+     * Registers a resource to this world, creating a new instance using the default constructor
+     * of the resource type. Does nothing if the resource has already been registered. The {@link
+     * SystemDispatcher dispatcher} registers all resources declared by its systems before
+     * dispatching, so that resources are never created while the systems are ticking.
+     *
+     * @param handle      handle of the resource to register
+     * @param <TResource> type of the resource
+     */
+    <TResource extends Resource> void registerResource(ResourceHandle<TResource> handle);
+
+    /**
+     * Gets the resource referred to by the handle. Resources which have not been registered yet
+     * are registered on first access.
+     *
+     * @param handle      handle of the resource to get
+     * @param <TResource> type of the resource to get
+     *
+     * @return the resource
+     */
+    <TResource extends Resource> TResource getResource(ResourceHandle<TResource> handle);
+
+    /**
+     * Creates or gets the resource of given type. Prefer {@link #getResource(ResourceHandle)} on
+     * hot paths, as this needs to look up the handle for the type first.
      *
      * @param resourceType class of the resource to get
      * @param <TResource>  type of the resource to get
      *
      * @return the resource of given type
      */
-    <TResource extends Resource> TResource getResource(Class<? extends TResource> resourceType);
+    default <TResource extends Resource> TResource getResource(Class<? extends TResource> resourceType) {
+        return getResource(ResourceHandle.of(resourceType));
+    }
+
+    /**
+     * Captures the state of the world for restoring it later, e.g. for save states or rolling back
+     * to a checkpoint. Captures the {@link EntityManager#snapshot() entities} and copies of all
+     * {@link Copyable copyable} resources.
+     *
+     * @return the captured state
+     *
+     * @throws IllegalStateException if any entity has a component which cannot be copied
+     */
+    Snapshot snapshot();
+
+    /**
+     * Restores the state captured by {@link #snapshot()}. Copyable resources are replaced with
+     * copies of the captured ones, so references to them must not be held across a restore.
+     * Resources which are not copyable are left as they are, except {@link EventChannel event
+     * channels}, which are cleared.
+     *
+     * @param snapshot the state to restore, must have been captured from this world
+     *
+     * @see EntityManager#restore(EntityManager.Snapshot)
+     */
+    void restore(Snapshot snapshot);
+
+    /**
+     * State of a world, captured by {@link #snapshot()}.
+     */
+    interface Snapshot {
+        /**
+         * Gets the captured entities.
+         *
+         * @return the entity snapshot
+         */
+        EntityManager.Snapshot getEntities();
+    }
 }
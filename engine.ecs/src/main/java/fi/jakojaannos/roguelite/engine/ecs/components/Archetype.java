@@ -0,0 +1,138 @@
+package fi.jakojaannos.roguelite.engine.ecs.components;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentSignature;
+import fi.jakojaannos.roguelite.engine.ecs.entities.EntityImpl;
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * A set of entities sharing the exact same set of component types. Entities are packed densely to
+ * a list of {@link ArchetypeChunk chunks}, so that all chunks but the last one are always full.
+ * Archetype-local entity indices are thus stable only until the next removal from the archetype.
+ *
+ * @see ArchetypeBackend
+ */
+final class Archetype {
+    @Getter private final ComponentSignature signature;
+    private final int[] columnTypeIndices;
+    private final int[] columnOfType;
+    /**
+     * Component types of the columns. Wildcard-typed, as arrays of <code>Class&lt;? extends
+     * Component&gt;</code> cannot be created without unchecked casts.
+     */
+    private final Class<?>[] columnTypes;
+
+    final Archetype[] addEdges;
+    final Archetype[] removeEdges;
+
+    private ArchetypeChunk[] chunks = new ArchetypeChunk[0];
+    @Getter private int size;
+
+    Archetype(
+            final ComponentSignature signature,
+            final int[] columnTypeIndices,
+            final Class<?>[] columnTypes,
+            final int maxComponentTypes
+    ) {
+        this.signature = signature;
+        this.columnTypeIndices = columnTypeIndices;
+        this.columnTypes = columnTypes;
+        this.columnOfType = new int[maxComponentTypes];
+        Arrays.fill(this.columnOfType, -1);
+        for (int column = 0; column < columnTypeIndices.length; ++column) {
+            this.columnOfType[columnTypeIndices[column]] = column;
+        }
+
+        this.addEdges = new Archetype[maxComponentTypes];
+        this.removeEdges = new Archetype[maxComponentTypes];
+    }
+
+    int getColumnCount() {
+        return this.columnTypeIndices.length;
+    }
+
+    int getTypeIndexOfColumn(final int column) {
+        return this.columnTypeIndices[column];
+    }
+
+    int getColumnOf(final int typeIndex) {
+        return this.columnOfType[typeIndex];
+    }
+
+    EntityImpl getEntity(final int index) {
+        return this.chunks[index >> ArchetypeChunk.CAPACITY_SHIFT].entities[index & ArchetypeChunk.INDEX_MASK];
+    }
+
+    @Nullable
+    Component get(final int index, final int column) {
+        return this.chunks[index >> ArchetypeChunk.CAPACITY_SHIFT].columns[column][index & ArchetypeChunk.INDEX_MASK];
+    }
+
+    void set(final int index, final int column, @Nullable final Component component) {
+        this.chunks[index >> ArchetypeChunk.CAPACITY_SHIFT].columns[column][index & ArchetypeChunk.INDEX_MASK] = component;
+    }
+
+    /**
+     * Reserves a slot for the entity at the end of the archetype. Component columns of the slot are
+     * left empty.
+     *
+     * @param entity the entity to add
+     *
+     * @return archetype-local index of the entity
+     */
+    int allocate(final EntityImpl entity) {
+        final int index = this.size;
+        final int chunkIndex = index >> ArchetypeChunk.CAPACITY_SHIFT;
+        if (chunkIndex >= this.chunks.length) {
+            this.chunks = Arrays.copyOf(this.chunks, chunkIndex + 1);
+        }
+        if (this.chunks[chunkIndex] == null) {
+            this.chunks[chunkIndex] = new ArchetypeChunk(this.columnTypes);
+        }
+
+        this.chunks[chunkIndex].entities[index & ArchetypeChunk.INDEX_MASK] = entity;
+        ++this.size;
+        return index;
+    }
+
+    /**
+     * Removes the entity at given index by moving the last entity of the archetype to its place.
+     *
+     * @param index archetype-local index of the entity to remove
+     *
+     * @return the entity which was moved to the given index, <code>null</code> if the removed
+     * entity was the last one
+     */
+    @Nullable
+    EntityImpl removeAt(final int index) {
+        final int last = this.size - 1;
+        final EntityImpl moved;
+        if (index != last) {
+            moved = getEntity(last);
+            this.chunks[index >> ArchetypeChunk.CAPACITY_SHIFT].entities[index & ArchetypeChunk.INDEX_MASK] = moved;
+            for (int column = 0; column < this.columnTypeIndices.length; ++column) {
+                set(index, column, get(last, column));
+            }
+        } else {
+            moved = null;
+        }
+
+        this.chunks[last >> ArchetypeChunk.CAPACITY_SHIFT].entities[last & ArchetypeChunk.INDEX_MASK] = null;
+        for (int column = 0; column < this.columnTypeIndices.length; ++column) {
+            set(last, column, null);
+        }
+        --this.size;
+
+        // Keep at most one empty chunk around to avoid re-allocating when entities move back and
+        // forth at the chunk boundary.
+        final int chunksInUse = (this.size + ArchetypeChunk.INDEX_MASK) >> ArchetypeChunk.CAPACITY_SHIFT;
+        if (chunksInUse + 1 < this.chunks.length) {
+            this.chunks[chunksInUse + 1] = null;
+        }
+
+        return moved;
+    }
+}
@@ -0,0 +1,285 @@
+package fi.jakojaannos.roguelite.engine.ecs.components;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentSignature;
+import fi.jakojaannos.roguelite.engine.ecs.StorageLayout;
+import fi.jakojaannos.roguelite.engine.ecs.entities.EntityImpl;
+import fi.jakojaannos.roguelite.engine.ecs.entities.EntityStorage;
+import fi.jakojaannos.roguelite.engine.utilities.PagedArray;
+import fi.jakojaannos.roguelite.engine.utilities.PagedIntArray;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * {@link ComponentBackend} for {@link StorageLayout#ARCHETYPES}. Groups entities by their component
+ * signature to {@link Archetype archetypes}.
+ * <p>
+ * Location of each entity is tracked with two paged arrays indexed by the entity ID: the archetype
+ * the entity belongs to and the archetype-local index of the entity. Adding or removing a component
+ * moves the entity to another archetype. Target archetypes are cached as edges between archetypes,
+ * so that after the first transition, moving entities between the two archetypes requires no
+ * lookups. Entities without any components do not belong to any archetype.
+ */
+@Slf4j
+class ArchetypeBackend implements ComponentBackend {
+    private final int maxComponentTypes;
+    /**
+     * Component types registered to the backend, indexed by component type. Wildcard-typed for the
+     * same reason as the column types of {@link Archetype archetypes}.
+     */
+    private final Class<?>[] componentClasses;
+    private final Map<ComponentSignature, Archetype> archetypes = new HashMap<>();
+    private final List<Archetype> archetypesInCreationOrder = new ArrayList<>();
+    private final Archetype empty;
+
+    private final PagedArray<Archetype> archetypeOf;
+    private final PagedIntArray indexOf;
+
+    ArchetypeBackend(final int entityCapacity, final int maxComponentTypes) {
+        this.maxComponentTypes = maxComponentTypes;
+        this.componentClasses = new Class<?>[maxComponentTypes];
+        this.archetypeOf = new PagedArray<>(entityCapacity);
+        this.indexOf = new PagedIntArray(entityCapacity);
+
+        this.empty = new Archetype(new ComponentSignature(maxComponentTypes),
+                                   new int[0],
+                                   new Class<?>[0],
+                                   maxComponentTypes);
+    }
+
+    @Override
+    public void registerType(final int typeIndex, final Class<? extends Component> componentClass) {
+        this.componentClasses[typeIndex] = componentClass;
+    }
+
+    @Override
+    public void registerTagType(final int typeIndex) {
+        // Tags affect the archetype of the entity, but get no column in the archetype. Type
+        // indices without a component class are treated as tags.
+    }
+
+    @Override
+    public void addTag(final EntityImpl entity, final int typeIndex) {
+        val source = this.archetypeOf.get(entity.getId());
+        moveTo(entity, source, archetypeWith(source != null ? source : this.empty, typeIndex));
+    }
+
+    @Override
+    public void add(final EntityImpl entity, final int typeIndex, final Component component) {
+        val id = entity.getId();
+        val source = this.archetypeOf.get(id);
+        val target = archetypeWith(source != null ? source : this.empty, typeIndex);
+
+        val index = moveTo(entity, source, target);
+        target.set(index, target.getColumnOf(typeIndex), component);
+    }
+
+    @Override
+    public void addAll(final EntityImpl entity, final TemplateLayout layout, final Component[] components) {
+        if (layout.backendBits.isEmpty()) {
+            return;
+        }
+
+        // Entities are moved directly to the final archetype, skipping the intermediate archetypes
+        // adding the components one by one would visit
+        val source = this.archetypeOf.get(entity.getId());
+        val target = source != null
+                ? archetypeFor(new ComponentSignature(source.getSignature()).or(layout.backendBits))
+                : archetypeFor(layout.backendBits);
+
+        val index = moveTo(entity, source, target);
+        for (val position : layout.backendComponents) {
+            target.set(index, target.getColumnOf(layout.typeIndices[position]), components[position]);
+        }
+    }
+
+    @Override
+    public void remove(final EntityImpl entity, final int typeIndex) {
+        val id = entity.getId();
+        val source = this.archetypeOf.get(id);
+        if (source == null) {
+            return;
+        }
+
+        val target = archetypeWithout(source, typeIndex);
+        moveTo(entity, source, target != this.empty ? target : null);
+    }
+
+    @Nullable
+    @Override
+    public Component get(final EntityImpl entity, final int typeIndex) {
+        val id = entity.getId();
+        val archetype = this.archetypeOf.get(id);
+        if (archetype == null) {
+            return null;
+        }
+
+        val column = archetype.getColumnOf(typeIndex);
+        return column != -1
+                ? archetype.get(this.indexOf.get(id), column)
+                : null;
+    }
+
+    @Override
+    public void clear(final EntityImpl entity) {
+        val source = this.archetypeOf.get(entity.getId());
+        if (source != null) {
+            moveTo(entity, source, null);
+        }
+    }
+
+    // The column of the type index only ever holds components of the type registered for the index
+    @SuppressWarnings("unchecked")
+    @Override
+    public <TComponent extends Component> ComponentAccessor<TComponent> createAccessor(final int typeIndex) {
+        return entity -> (TComponent) get((EntityImpl) entity, typeIndex);
+    }
+
+    @Override
+    public void releasePage(final int page) {
+        this.archetypeOf.releasePage(page);
+        this.indexOf.releasePage(page);
+    }
+
+    @Override
+    public EntityImpl[] toIterationOrder(final EntityImpl[] entities) {
+        val included = new boolean[entities.length > 0 ? entities[entities.length - 1].getId() + 1 : 0];
+        for (val entity : entities) {
+            included[entity.getId()] = true;
+        }
+
+        // Archetypes also hold the components of entities which are not yet spawned, skip those
+        val ordered = new EntityImpl[entities.length];
+        int count = 0;
+        for (val archetype : this.archetypesInCreationOrder) {
+            for (int i = 0; i < archetype.getSize(); ++i) {
+                val entity = archetype.getEntity(i);
+                if (entity.getId() < included.length && included[entity.getId()]) {
+                    ordered[count++] = entity;
+                }
+            }
+        }
+        for (val entity : entities) {
+            if (this.archetypeOf.get(entity.getId()) == null) {
+                ordered[count++] = entity;
+            }
+        }
+        return ordered;
+    }
+
+    @Override
+    public Stream<EntityImpl> stream(
+            final EntityStorage entities,
+            final ComponentSignature required,
+            final ComponentSignature excluded
+    ) {
+        // Matching is done against the signature of the first entity of each archetype. All entities
+        // within an archetype share their component types and thus also their group bits.
+        //
+        // Result is collected eagerly, as systems are allowed to add or remove components while
+        // iterating, which would move entities around in the archetypes.
+        return Arrays.stream(this.archetypesInCreationOrder
+                                     .stream()
+                                     .filter(archetype -> archetype.getSize() > 0)
+                                     .filter(archetype -> archetype.getEntity(0)
+                                                                   .getComponentSignature()
+                                                                   .matches(required, excluded))
+                                     .flatMap(archetype -> IntStream.range(0, archetype.getSize())
+                                                                    .mapToObj(archetype::getEntity))
+                                     .filter(entities::isSpawned)
+                                     .toArray(EntityImpl[]::new));
+    }
+
+    /**
+     * Moves the entity from its current archetype to the target archetype. Components of the
+     * types present in both archetypes are carried over.
+     *
+     * @param entity the entity to move
+     * @param source archetype the entity currently belongs to. <code>null</code> if the entity has
+     *               no components
+     * @param target archetype to move the entity to. <code>null</code> if the entity should be
+     *               removed from all archetypes
+     *
+     * @return new archetype-local index of the entity, <code>-1</code> if target was
+     * <code>null</code>
+     */
+    private int moveTo(
+            final EntityImpl entity,
+            @Nullable final Archetype source,
+            @Nullable final Archetype target
+    ) {
+        val id = entity.getId();
+        val targetIndex = target != null ? target.allocate(entity) : -1;
+        if (source != null) {
+            val sourceIndex = this.indexOf.get(id);
+            if (target != null) {
+                for (int column = 0; column < source.getColumnCount(); ++column) {
+                    val targetColumn = target.getColumnOf(source.getTypeIndexOfColumn(column));
+                    if (targetColumn != -1) {
+                        target.set(targetIndex, targetColumn, source.get(sourceIndex, column));
+                    }
+                }
+            }
+
+            val moved = source.removeAt(sourceIndex);
+            if (moved != null) {
+                this.indexOf.set(moved.getId(), sourceIndex);
+            }
+        }
+
+        this.archetypeOf.set(id, target);
+        this.indexOf.set(id, targetIndex);
+        return targetIndex;
+    }
+
+    private Archetype archetypeWith(final Archetype source, final int typeIndex) {
+        var target = source.addEdges[typeIndex];
+        if (target == null) {
+            val signature = new ComponentSignature(source.getSignature()).set(typeIndex);
+            target = archetypeFor(signature);
+
+            source.addEdges[typeIndex] = target;
+            target.removeEdges[typeIndex] = source;
+        }
+        return target;
+    }
+
+    private Archetype archetypeWithout(final Archetype source, final int typeIndex) {
+        var target = source.removeEdges[typeIndex];
+        if (target == null) {
+            val signature = new ComponentSignature(source.getSignature()).unset(typeIndex);
+            target = archetypeFor(signature);
+
+            source.removeEdges[typeIndex] = target;
+            target.addEdges[typeIndex] = source;
+        }
+        return target;
+    }
+
+    private Archetype archetypeFor(final ComponentSignature signature) {
+        if (signature.isEmpty()) {
+            return this.empty;
+        }
+
+        return this.archetypes.computeIfAbsent(signature, key -> {
+            val typeIndices = IntStream.iterate(signature.nextSetBit(0),
+                                                typeIndex -> typeIndex != -1,
+                                                typeIndex -> signature.nextSetBit(typeIndex + 1))
+                                       .filter(typeIndex -> this.componentClasses[typeIndex] != null)
+                                       .toArray();
+            val columnTypes = Arrays.stream(typeIndices)
+                                    .mapToObj(typeIndex -> this.componentClasses[typeIndex])
+                                    .toArray(Class<?>[]::new);
+
+            val archetype = new Archetype(signature, typeIndices, columnTypes, this.maxComponentTypes);
+            this.archetypesInCreationOrder.add(archetype);
+            LOG.trace("Created new archetype with {} component types", typeIndices.length);
+            return archetype;
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package fi.jakojaannos.roguelite.engine.ecs.components;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.entities.EntityImpl;
+
+import java.lang.reflect.Array;
+
+/**
+ * Fixed-size block of entities belonging to a single {@link Archetype}. Each component type of the
+ * archetype has its own column, so that iterating over a single component type within the chunk
+ * walks over a contiguous array.
+ */
+final class ArchetypeChunk {
+    static final int CAPACITY_SHIFT = 7;
+    static final int CAPACITY = 1 << CAPACITY_SHIFT;
+    static final int INDEX_MASK = CAPACITY - 1;
+
+    final EntityImpl[] entities = new EntityImpl[CAPACITY];
+    final Component[][] columns;
+
+    ArchetypeChunk(final Class<?>[] columnTypes) {
+        this.columns = new Component[columnTypes.length][];
+        for (int i = 0; i < columnTypes.length; ++i) {
+            this.columns[i] = (Component[]) Array.newInstance(columnTypes[i], CAPACITY);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package fi.jakojaannos.roguelite.engine.ecs.components;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Entity;
+
+import javax.annotation.Nullable;
+
+/**
+ * Direct access to components of a single type, provided by the {@link ComponentBackend}. Wrapped
+ * into a {@link ComponentMapperImpl} by the {@link ComponentStorage}.
+ *
+ * @param <TComponent> type of the component
+ */
+@FunctionalInterface
+interface ComponentAccessor<TComponent extends Component> {
+    @Nullable
+    TComponent getOrNull(Entity entity);
+}
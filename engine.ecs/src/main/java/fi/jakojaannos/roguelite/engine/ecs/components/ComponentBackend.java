@@ -0,0 +1,110 @@
+package fi.jakojaannos.roguelite.engine.ecs.components;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentSignature;
+import fi.jakojaannos.roguelite.engine.ecs.entities.EntityImpl;
+import fi.jakojaannos.roguelite.engine.ecs.entities.EntityStorage;
+
+import javax.annotation.Nullable;
+import java.util.stream.Stream;
+
+/**
+ * Stores the actual component instances for a {@link ComponentStorage}. Component type indices and
+ * entity signatures are managed by the <code>ComponentStorage</code>, backends only need to worry
+ * about where the instances are kept.
+ * <p>
+ * All operations are guaranteed to be called with valid, registered component type indices. The
+ * component storage also guarantees that <code>add</code> is never called for a component the
+ * entity already has and <code>remove</code> is never called for a component the entity does not
+ * have.
+ */
+interface ComponentBackend {
+    void registerType(int typeIndex, Class<? extends Component> componentClass);
+
+    /**
+     * Registers a new {@link fi.jakojaannos.roguelite.engine.ecs.TagComponent tag} type. Tags have
+     * no component instances, so the backend only needs to track their presence if the layout
+     * depends on the component types of the entities.
+     *
+     * @param typeIndex index of the tag type
+     */
+    void registerTagType(int typeIndex);
+
+    /**
+     * Adds a tag to the entity.
+     *
+     * @param entity    the entity to add the tag to
+     * @param typeIndex index of the tag type
+     */
+    void addTag(EntityImpl entity, int typeIndex);
+
+    void add(EntityImpl entity, int typeIndex, Component component);
+
+    /**
+     * Adds all backend-stored components of a template to the entity in a single step. Components
+     * of the layout are guaranteed to be absent from the entity.
+     *
+     * @param entity     the entity to add the components to
+     * @param layout     layout of the template
+     * @param components instantiated components of the template, in template order
+     */
+    void addAll(EntityImpl entity, TemplateLayout layout, Component[] components);
+
+    void remove(EntityImpl entity, int typeIndex);
+
+    @Nullable
+    Component get(EntityImpl entity, int typeIndex);
+
+    /**
+     * Removes all components of the entity. Only the types set in the component signature of the
+     * entity need to be visited, so the signature must still be intact when this is called.
+     *
+     * @param entity the entity to clear
+     */
+    void clear(EntityImpl entity);
+
+    /**
+     * Creates an accessor for accessing components of the given type directly.
+     *
+     * @param typeIndex    index of the component type
+     * @param <TComponent> type of the component
+     *
+     * @return accessor for the component type
+     */
+    <TComponent extends Component> ComponentAccessor<TComponent> createAccessor(int typeIndex);
+
+    /**
+     * Releases the storage of the given page of entity IDs. Called only for pages with no entities
+     * left.
+     *
+     * @param page index of the {@link fi.jakojaannos.roguelite.engine.utilities.PagedArray page}
+     */
+    void releasePage(int page);
+
+    /**
+     * Arranges the entities to the order the backend {@link #stream streams} them in. Adding the
+     * components of the entities back in this order after clearing them restores the same order.
+     * Entities without any backend-stored components may be placed anywhere.
+     *
+     * @param entities the entities to arrange, in ID order
+     *
+     * @return the entities in iteration order
+     */
+    EntityImpl[] toIterationOrder(EntityImpl[] entities);
+
+    /**
+     * Streams all spawned entities having all bits of <code>requiredMask</code> and none of the bits
+     * of <code>excludedMask</code> set. Order of the entities is up to the backend.
+     *
+     * @param entities     entity storage to use for determining which entities are spawned
+     * @param requiredMask bits the entities must have
+     * @param excludedMask bits the entities must not have
+     *
+     * @return stream of matching entities
+     */
+    Stream<EntityImpl> stream(
+            EntityStorage entities,
+            ComponentSignature required,
+            ComponentSignature excluded
+    );
+}
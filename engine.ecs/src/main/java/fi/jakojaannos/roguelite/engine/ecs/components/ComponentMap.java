@@ -1,42 +1,44 @@
 package fi.jakojaannos.roguelite.engine.ecs.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.entities.EntityImpl;
-import lombok.extern.slf4j.Slf4j;
-
-import java.lang.reflect.Array;
-import java.util.Arrays;
-
-@Slf4j
-class ComponentMap<TComponent extends Component> {
-    private int entityCapacity;
-    private TComponent[] components;
-
-    ComponentMap(
-            final int entityCapacity,
-            final Class<TComponent> componentClass
-    ) {
-        this.entityCapacity = entityCapacity;
-        // noinspection unchecked
-        this.components = (TComponent[]) Array.newInstance(componentClass, this.entityCapacity);
+import fi.jakojaannos.roguelite.engine.utilities.PagedArray;
+
+import javax.annotation.Nullable;
+
+/**
+ * Storage for components of a single type, indexed by entity ID. Doubles as the {@link
+ * ComponentAccessor} for the type. Components are stored in {@link PagedArray pages}, so that
+ * growing the storage never copies existing components.
+ */
+class ComponentMap<TComponent extends Component> implements ComponentAccessor<TComponent> {
+    private final PagedArray<TComponent> components;
+
+    ComponentMap(final int entityCapacity) {
+        this.components = new PagedArray<>(entityCapacity);
     }
 
     void addComponent(final EntityImpl entity, final TComponent component) {
-        this.components[entity.getId()] = component;
+        this.components.set(entity.getId(), component);
     }
 
     void removeComponent(final EntityImpl entity) {
-        this.components[entity.getId()] = null;
+        this.components.set(entity.getId(), null);
     }
 
+    @Nullable
     TComponent getComponent(final EntityImpl entity) {
-        return this.components[entity.getId()];
+        return this.components.get(entity.getId());
+    }
+
+    @Nullable
+    @Override
+    public TComponent getOrNull(final Entity entity) {
+        return this.components.get(entity.getId());
     }
 
-    void resize(final int entityCapacity) {
-        if (entityCapacity > this.entityCapacity) {
-            this.entityCapacity = entityCapacity;
-            this.components = Arrays.copyOf(this.components, this.entityCapacity);
-        }
+    void releasePage(final int page) {
+        this.components.releasePage(page);
     }
 }
@@ -0,0 +1,116 @@
+package fi.jakojaannos.roguelite.engine.ecs.components;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentSignature;
+import fi.jakojaannos.roguelite.engine.ecs.StorageLayout;
+import fi.jakojaannos.roguelite.engine.ecs.entities.EntityImpl;
+import fi.jakojaannos.roguelite.engine.ecs.entities.EntityStorage;
+import lombok.val;
+
+import javax.annotation.Nullable;
+import java.util.stream.Stream;
+
+/**
+ * {@link ComponentBackend} for {@link StorageLayout#COMPONENT_MAPS}. Keeps a single {@link
+ * ComponentMap} per component type.
+ */
+class ComponentMapBackend implements ComponentBackend {
+    private final int entityCapacity;
+    /**
+     * Component maps, indexed by component type. The backend only ever handles components as plain
+     * {@link Component Components}, so the maps are typed as such. Accessors are cast to the actual
+     * component types when they are created.
+     */
+    private final ComponentMap<Component>[] componentTypes;
+
+    ComponentMapBackend(final int entityCapacity, final int maxComponentTypes) {
+        this.entityCapacity = entityCapacity;
+        // Generic arrays cannot be created directly. The array is never exposed, so the cast is safe
+        @SuppressWarnings("unchecked")
+        final ComponentMap<Component>[] componentTypes = (ComponentMap<Component>[]) new ComponentMap<?>[maxComponentTypes];
+        this.componentTypes = componentTypes;
+    }
+
+    @Override
+    public void registerType(final int typeIndex, final Class<? extends Component> componentClass) {
+        this.componentTypes[typeIndex] = new ComponentMap<>(this.entityCapacity);
+    }
+
+    @Override
+    public void registerTagType(final int typeIndex) {
+        // Tags are tracked by the entity signatures alone
+    }
+
+    @Override
+    public void addTag(final EntityImpl entity, final int typeIndex) {
+    }
+
+    @Override
+    public void add(final EntityImpl entity, final int typeIndex, final Component component) {
+        this.componentTypes[typeIndex].addComponent(entity, component);
+    }
+
+    @Override
+    public void addAll(final EntityImpl entity, final TemplateLayout layout, final Component[] components) {
+        for (val position : layout.backendComponents) {
+            this.componentTypes[layout.typeIndices[position]].addComponent(entity, components[position]);
+        }
+    }
+
+    @Override
+    public void remove(final EntityImpl entity, final int typeIndex) {
+        val storage = this.componentTypes[typeIndex];
+        if (storage != null) {
+            storage.removeComponent(entity);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Component get(final EntityImpl entity, final int typeIndex) {
+        return this.componentTypes[typeIndex].getComponent(entity);
+    }
+
+    @Override
+    public void clear(final EntityImpl entity) {
+        val signature = entity.getComponentSignature();
+        for (int i = signature.nextSetBit(0); i != -1; i = signature.nextSetBit(i + 1)) {
+            val storage = this.componentTypes[i];
+            if (storage != null) {
+                storage.removeComponent(entity);
+            }
+        }
+    }
+
+    // The map only ever holds components of the type registered for the index
+    @SuppressWarnings("unchecked")
+    @Override
+    public <TComponent extends Component> ComponentAccessor<TComponent> createAccessor(final int typeIndex) {
+        return (ComponentAccessor<TComponent>) (ComponentAccessor<?>) this.componentTypes[typeIndex];
+    }
+
+    @Override
+    public void releasePage(final int page) {
+        for (val storage : this.componentTypes) {
+            if (storage != null) {
+                storage.releasePage(page);
+            }
+        }
+    }
+
+    @Override
+    public EntityImpl[] toIterationOrder(final EntityImpl[] entities) {
+        // Entities are streamed from the entity storage, in ID order
+        return entities;
+    }
+
+    @Override
+    public Stream<EntityImpl> stream(
+            final EntityStorage entities,
+            final ComponentSignature required,
+            final ComponentSignature excluded
+    ) {
+        return entities.stream()
+                       .filter(e -> e.getComponentSignature().matches(required, excluded));
+    }
+}
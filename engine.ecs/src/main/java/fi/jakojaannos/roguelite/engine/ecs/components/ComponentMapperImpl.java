@@ -0,0 +1,36 @@
+package fi.jakojaannos.roguelite.engine.ecs.components;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentMapper;
+import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.entities.EntityImpl;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nullable;
+
+/**
+ * Default {@link ComponentMapper} implementation. Components are accessed through the backend
+ * accessor, change ticks are kept by the {@link ComponentStorage}.
+ */
+@RequiredArgsConstructor
+final class ComponentMapperImpl<TComponent extends Component> implements ComponentMapper<TComponent> {
+    private final ComponentStorage storage;
+    private final int componentTypeIndex;
+    private final ComponentAccessor<TComponent> accessor;
+
+    @Nullable
+    @Override
+    public TComponent getOrNull(final Entity entity) {
+        return this.accessor.getOrNull(entity);
+    }
+
+    @Override
+    public void markChanged(final Entity entity) {
+        this.storage.markChanged((EntityImpl) entity, this.componentTypeIndex);
+    }
+
+    @Override
+    public boolean isChangedSince(final Entity entity, final int tick) {
+        return this.storage.isChangedSince((EntityImpl) entity, this.componentTypeIndex, tick);
+    }
+}
@@ -0,0 +1,88 @@
+package fi.jakojaannos.roguelite.engine.ecs.components;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Poolable;
+import lombok.val;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pool of recycled instances of a single {@link Poolable} component type. Released instances are
+ * held as pending until {@link #recycle()} is called, so that components of destroyed entities
+ * stay intact until observers have been notified. Instances are reset when they are recycled.
+ * <p>
+ * The pool keeps track of the instances it holds, so that releasing an instance which is already
+ * pending or available fails instead of handing the same instance out twice.
+ */
+final class ComponentPool {
+    private final int maxSize;
+    private final List<Component> available = new ArrayList<>();
+    private final List<Component> pending = new ArrayList<>();
+    private final Set<Component> held = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * @param maxSize maximum number of instances held by the pool. Instances released while the
+     *                pool is full are left for the garbage collector.
+     */
+    ComponentPool(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    int getAvailableCount() {
+        return this.available.size();
+    }
+
+    /**
+     * Acquires a recycled instance from the pool.
+     *
+     * @return a reset instance, <code>null</code> if the pool is empty
+     */
+    @Nullable
+    Component acquire() {
+        val size = this.available.size();
+        if (size == 0) {
+            return null;
+        }
+
+        val component = this.available.remove(size - 1);
+        this.held.remove(component);
+        return component;
+    }
+
+    /**
+     * Returns an instance to the pool. The instance becomes available after the next {@link
+     * #recycle()}.
+     *
+     * @param component the instance to release
+     *
+     * @throws IllegalStateException if the instance has already been released and not acquired
+     *                               since
+     */
+    void release(final Component component) {
+        if (this.held.contains(component)) {
+            throw new IllegalStateException(String.format("Component %s was released to the pool twice!",
+                                                          component.getClass().getSimpleName()));
+        }
+
+        if (this.available.size() + this.pending.size() < this.maxSize) {
+            this.pending.add(component);
+            this.held.add(component);
+        }
+    }
+
+    /**
+     * Resets all pending instances and makes them available.
+     */
+    void recycle() {
+        for (val component : this.pending) {
+            ((Poolable) component).reset();
+            this.available.add(component);
+        }
+        this.pending.clear();
+    }
+}
@@ -0,0 +1,101 @@
+package fi.jakojaannos.roguelite.engine.ecs.components;
+
+import fi.jakojaannos.roguelite.engine.ecs.ComponentSignature;
+import fi.jakojaannos.roguelite.engine.ecs.entities.EntityImpl;
+
+import java.util.Arrays;
+
+/**
+ * Copies of the components of a set of entities, captured from a single {@link ComponentStorage}.
+ * Entities are grouped by their signatures, so that the components of each group are stored
+ * column by column and restored using a single {@link TemplateLayout layout}, just like entities
+ * spawned from a template.
+ * <p>
+ * Iteration order is captured as well. The order the backend iterates the entities in is recorded
+ * across the groups, and the components of each {@link SparseSet sparse set} are captured in the
+ * order of the set, so that the entities are iterated in the same order after restoring.
+ *
+ * @see ComponentStorage#snapshot(EntityImpl[])
+ * @see ComponentStorage#restore(ComponentSnapshot)
+ */
+public final class ComponentSnapshot {
+    final Chunk[] chunks;
+    /**
+     * Index of the chunk of each entity, in the order the backend iterates the entities in. The
+     * entities of each chunk are in the same order, so the row of an entity within its chunk is
+     * the number of earlier entries of the same chunk.
+     */
+    final int[] chunkOrder;
+    /**
+     * Captured sparse sets, indexed by component type. <code>null</code> for types not stored in
+     * sparse sets.
+     */
+    final SparseColumn[] sparseColumns;
+
+    ComponentSnapshot(
+            final Chunk[] chunks,
+            final int[] chunkOrder,
+            final SparseColumn[] sparseColumns
+    ) {
+        this.chunks = chunks;
+        this.chunkOrder = chunkOrder;
+        this.sparseColumns = sparseColumns;
+    }
+
+    /**
+     * Entities sharing a signature and the copies of their components.
+     */
+    static final class Chunk {
+        final int index;
+        /**
+         * Layout of the component types of the signature, in type index order.
+         */
+        final TemplateLayout layout;
+        EntityImpl[] entities;
+        int size;
+        /**
+         * Copies of the backend-stored components, one column per component type and one row per
+         * entity. <code>null</code> columns for tags and sparse types.
+         * <p>
+         * Columns are plain <code>Object[]</code>s, so that storing the copies does not check them
+         * against {@link fi.jakojaannos.roguelite.engine.ecs.Component Component}. The JVM caches
+         * only the latest interface each class was checked against, and alternating between
+         * <code>Component</code> and <code>Copyable</code> for every instance made copying several
+         * times slower.
+         */
+        Object[][] columns;
+
+        Chunk(final int index, final TemplateLayout layout) {
+            this.index = index;
+            this.layout = layout;
+            this.entities = new EntityImpl[1];
+        }
+
+        ComponentSignature getSignature() {
+            return this.layout.signatureBits;
+        }
+
+        void add(final EntityImpl entity) {
+            if (this.size == this.entities.length) {
+                this.entities = Arrays.copyOf(this.entities, this.size * 2);
+            }
+            this.entities[this.size++] = entity;
+        }
+    }
+
+    /**
+     * Entities of a sparse set and the copies of their components, in the order of the set.
+     */
+    static final class SparseColumn {
+        final EntityImpl[] entities;
+        /**
+         * Copies of the components, see {@link Chunk#columns}.
+         */
+        final Object[] components;
+
+        SparseColumn(final EntityImpl[] entities, final Object[] components) {
+            this.entities = entities;
+            this.components = components;
+        }
+    }
+}
@@ -2,34 +2,140 @@ package fi.jakojaannos.roguelite.engine.ecs.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
 import fi.jakojaannos.roguelite.engine.ecs.ComponentGroup;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentMapper;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentSignature;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
+import fi.jakojaannos.roguelite.engine.ecs.EntityTemplate;
+import fi.jakojaannos.roguelite.engine.ecs.OffHeapColumns;
+import fi.jakojaannos.roguelite.engine.ecs.OffHeapStorage;
+import fi.jakojaannos.roguelite.engine.ecs.Poolable;
+import fi.jakojaannos.roguelite.engine.ecs.SparseStorage;
+import fi.jakojaannos.roguelite.engine.ecs.StorageLayout;
+import fi.jakojaannos.roguelite.engine.ecs.TagComponent;
 import fi.jakojaannos.roguelite.engine.ecs.entities.EntityImpl;
-import fi.jakojaannos.roguelite.engine.utilities.BitMaskUtils;
+import fi.jakojaannos.roguelite.engine.ecs.entities.EntityStorage;
+import fi.jakojaannos.roguelite.engine.utilities.PagedIntArray;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
+import javax.annotation.Nullable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 @Slf4j
 public class ComponentStorage {
+    /**
+     * Maximum number of recycled instances held per {@link Poolable} component type.
+     */
+    private static final int MAX_POOLED_INSTANCES = 1024;
+
     private final int maxComponentTypes;
-    private final Map<Integer, ComponentMap> componentTypes = new HashMap<>();
+    private final ComponentBackend backend;
     private final Map<Class<? extends Component>, Integer> componentTypeIndices = new HashMap<>();
     private final Map<ComponentGroup, Integer> componentGroupIndices = new HashMap<>();
+    /**
+     * Mappers of the component types, indexed by component type. Created once the type is
+     * registered, so that getting a mapper during a parallel dispatch never writes to the storage.
+     */
+    private final ComponentMapper<?>[] mappers;
+    /**
+     * Component class of each registered type index, <code>null</code> for groups.
+     */
+    private final Class<?>[] componentTypes;
+    private final ComponentSignature tagTypes;
+    private final Component[] tagInstances;
+    /**
+     * Change tick of each component, indexed by component type and entity ID. Arrays are allocated
+     * once the type is registered, and adding a component stamps it, allocating the page of the
+     * entity. Marking existing components changed thus only ever writes to pages which already
+     * exist, so systems ticking in parallel may mark different entities changed simultaneously.
+     * <code>null</code> for sparse types, which track the ticks in their sets.
+     */
+    private final PagedIntArray[] changeTicks;
+    /**
+     * Storages of the {@link SparseStorage sparse} and {@link OffHeapStorage off-heap} component
+     * types, indexed by component type. These types are never registered to the backend.
+     */
+    private final SparseSet<?>[] sparseSets;
+    /**
+     * Bits of the sparse and off-heap component types and of the groups containing such types.
+     * Backends know nothing about these bits, so queries involving them need to be resolved here.
+     */
+    private final ComponentSignature sparseBits;
+    /**
+     * Pools of the {@link Poolable} component types, indexed by component type.
+     */
+    private final ComponentPool[] pools;
+    /**
+     * Bits of the {@link Poolable} component types.
+     */
+    private final ComponentSignature pooledBits;
+    /**
+     * Indices of the groups each component type belongs to, indexed by component type.
+     */
+    private final int[][] groupsOf;
+    /**
+     * Bits of the member component types of each group, indexed by the type index of the group.
+     * <code>null</code> for indices which are not groups.
+     */
+    private final ComponentSignature[] groupMembers;
+
+    private final int entityCapacity;
 
     private int registeredTypeIndices = 0;
-    private int entityCapacity;
+    private int changeTick = 1;
 
     public ComponentStorage(final int entityCapacity, final int maxComponentTypes) {
+        this(entityCapacity, maxComponentTypes, StorageLayout.COMPONENT_MAPS);
+    }
+
+    public ComponentStorage(
+            final int entityCapacity,
+            final int maxComponentTypes,
+            final StorageLayout layout
+    ) {
         this.entityCapacity = entityCapacity;
         this.maxComponentTypes = maxComponentTypes;
+        switch (layout) {
+            case ARCHETYPES:
+                this.backend = new ArchetypeBackend(entityCapacity, maxComponentTypes);
+                break;
+            case COMPONENT_MAPS:
+            default:
+                this.backend = new ComponentMapBackend(entityCapacity, maxComponentTypes);
+                break;
+        }
+        this.mappers = new ComponentMapper<?>[maxComponentTypes];
+        this.componentTypes = new Class<?>[maxComponentTypes];
+        this.tagTypes = new ComponentSignature(maxComponentTypes);
+        this.tagInstances = new Component[maxComponentTypes];
+        this.changeTicks = new PagedIntArray[maxComponentTypes];
+        this.sparseSets = new SparseSet<?>[maxComponentTypes];
+        this.sparseBits = new ComponentSignature(maxComponentTypes);
+        this.pools = new ComponentPool[maxComponentTypes];
+        this.pooledBits = new ComponentSignature(maxComponentTypes);
+        this.groupsOf = new int[maxComponentTypes][];
+        Arrays.fill(this.groupsOf, new int[0]);
+        this.groupMembers = new ComponentSignature[maxComponentTypes];
     }
 
     public void clear(final EntityImpl entity) {
-        for (val storage : this.componentTypes.values()) {
-            storage.removeComponent(entity);
+        val signature = entity.getComponentSignature();
+        if (!signature.containsNoneOf(this.pooledBits)) {
+            releasePooledComponents(entity, signature);
+        }
+
+        this.backend.clear(entity);
+        if (!signature.containsNoneOf(this.sparseBits)) {
+            for (int i = signature.nextSetBit(0); i != -1; i = signature.nextSetBit(i + 1)) {
+                val sparseSet = this.sparseSets[i];
+                if (sparseSet != null) {
+                    sparseSet.remove(entity);
+                }
+            }
         }
     }
 
@@ -37,37 +143,112 @@ public class ComponentStorage {
             final EntityImpl entity,
             final Class<? extends Component> except
     ) {
-        val componentTypeIndex = getComponentTypeIndexFor(except);
-        IntStream.range(0, this.componentTypes.size())
-                 .filter(i -> i != componentTypeIndex)
-                 .forEach(index -> removeComponentByIndex(entity, index));
-
-        checkGroupsAfterRemove(entity, except);
+        clearExcept(entity, new ComponentSignature(this.maxComponentTypes).set(getComponentTypeIndexFor(except)));
     }
 
     public void clear(
             final EntityImpl entity,
             final Collection<Class<? extends Component>> except
     ) {
-        List<Integer> allowedIndices = except.stream()
-                                             .map(this::getComponentTypeIndexFor)
-                                             .collect(Collectors.toList());
-        IntStream.range(0, this.componentTypes.size())
-                 .filter(i -> !allowedIndices.contains(i))
-                 .forEach(index -> removeComponentByIndex(entity, index));
+        clearExcept(entity, createComponentSignature(except));
+    }
 
-        except.forEach(removed -> checkGroupsAfterRemove(entity, removed));
+    /**
+     * Makes the components released from destroyed entities available for re-use. Should be
+     * called once the destroyed components are no longer referenced, e.g. after observers have been
+     * notified.
+     */
+    public void recyclePooledComponents() {
+        for (val pool : this.pools) {
+            if (pool != null) {
+                pool.recycle();
+            }
+        }
     }
 
-    public void resize(final int entityCapacity) {
-        if (entityCapacity > this.entityCapacity) {
-            this.entityCapacity = entityCapacity;
-            for (val storage : this.componentTypes.values()) {
-                storage.resize(entityCapacity);
+    /**
+     * Gets the number of recycled instances of the component type, ready to be re-used.
+     *
+     * @param componentClass the component type
+     *
+     * @return number of available instances, <code>0</code> if the type is not poolable
+     */
+    public int getPooledCount(final Class<? extends Component> componentClass) {
+        val pool = this.pools[getComponentTypeIndexFor(componentClass)];
+        return pool != null
+                ? pool.getAvailableCount()
+                : 0;
+    }
+
+    /**
+     * Releases the storage of the given page of entity IDs. Should only be called for pages with
+     * no entities left.
+     *
+     * @param page index of the page to release
+     */
+    public void releasePage(final int page) {
+        this.backend.releasePage(page);
+        for (val sparseSet : this.sparseSets) {
+            if (sparseSet != null) {
+                sparseSet.releasePage(page);
+            }
+        }
+        for (val ticks : this.changeTicks) {
+            if (ticks != null) {
+                ticks.releasePage(page);
             }
         }
     }
 
+    /**
+     * Gets the current change tick. Components added or marked changed are stamped with the
+     * current tick.
+     *
+     * @return the current change tick
+     */
+    public int getChangeTick() {
+        return this.changeTick;
+    }
+
+    /**
+     * Advances the change tick. Changes made after this call are considered newer than any changes
+     * made before it.
+     *
+     * @return the change tick before advancing
+     */
+    public int advanceChangeTick() {
+        return this.changeTick++;
+    }
+
+    void markChanged(final EntityImpl entity, final int componentTypeIndex) {
+        if (!entity.getComponentSignature().get(componentTypeIndex)) {
+            throw new IllegalStateException("Component marked as changed while type bit is unset!");
+        }
+
+        val sparseSet = this.sparseSets[componentTypeIndex];
+        if (sparseSet != null) {
+            sparseSet.setChangeTick(entity, this.changeTick);
+            return;
+        }
+
+        this.changeTicks[componentTypeIndex].set(entity.getId(), this.changeTick);
+    }
+
+    boolean isChangedSince(
+            final EntityImpl entity,
+            final int componentTypeIndex,
+            final int tick
+    ) {
+        val sparseSet = this.sparseSets[componentTypeIndex];
+        if (sparseSet != null) {
+            return entity.getComponentSignature().get(componentTypeIndex)
+                    && sparseSet.getChangeTick(entity) > tick;
+        }
+
+        return entity.getComponentSignature().get(componentTypeIndex)
+                && this.changeTicks[componentTypeIndex].get(entity.getId()) > tick;
+    }
+
     public void registerGroup(final ComponentGroup group) {
         getComponentTypeIndexFor(group);
     }
@@ -77,26 +258,252 @@ public class ComponentStorage {
             final TComponent component
     ) {
         val componentTypeIndex = getComponentTypeIndexFor(component.getClass());
-        if (BitMaskUtils.isNthBitSet(entity.getComponentBitmask(), componentTypeIndex)) {
+        val signature = entity.getComponentSignature();
+        if (signature.get(componentTypeIndex)) {
+            throw new IllegalStateException("Component added while type bit is already set!");
+        }
+        signature.set(componentTypeIndex);
+
+        if (this.tagTypes.get(componentTypeIndex)) {
+            if (this.tagInstances[componentTypeIndex] == null) {
+                this.tagInstances[componentTypeIndex] = component;
+            }
+            this.backend.addTag(entity, componentTypeIndex);
+        } else if (this.sparseSets[componentTypeIndex] != null) {
+            this.sparseSets[componentTypeIndex].add(entity, component);
+        } else {
+            this.backend.add(entity, componentTypeIndex, component);
+        }
+        markChanged(entity, componentTypeIndex);
+
+        updateGroupsAfterAdd(signature, componentTypeIndex);
+    }
+
+    /**
+     * Resolves the component type indices and the signature bits of the template.
+     *
+     * @param template the template to resolve
+     *
+     * @return layout of the template within this storage
+     */
+    public TemplateLayout createLayout(final EntityTemplate template) {
+        val typeIndices = new int[template.size()];
+        val pools = new ComponentPool[typeIndices.length];
+        for (int i = 0; i < typeIndices.length; ++i) {
+            val componentTypeIndex = getComponentTypeIndexFor(template.getComponentType(i));
+            typeIndices[i] = componentTypeIndex;
+            if (template.isPooled(i)) {
+                pools[i] = this.pools[componentTypeIndex];
+            }
+        }
+
+        return createLayout(typeIndices, pools);
+    }
+
+    /**
+     * Creates the components of a template for a new entity. Pooled components are acquired from
+     * their pools when possible.
+     *
+     * @param template the template to instantiate
+     * @param layout   layout of the template
+     *
+     * @return the components, <code>null</code> for tags
+     */
+    public Component[] instantiate(
+            final EntityTemplate template,
+            final TemplateLayout layout
+    ) {
+        val components = new Component[layout.typeIndices.length];
+        for (int i = 0; i < components.length; ++i) {
+            val pool = layout.pools[i];
+            val recycled = pool != null ? pool.acquire() : null;
+            val component = recycled != null
+                    ? recycled
+                    : template.createComponent(i);
+            if (component != null) {
+                template.initializeComponent(i, component);
+                components[i] = component;
+            }
+        }
+        return components;
+    }
+
+    /**
+     * Adds all components of a template to the entity. The signature bits are set in a single
+     * step and the backend stores all components at once, instead of handling them one by one.
+     *
+     * @param entity     the entity to add the components to
+     * @param layout     layout of the template
+     * @param components instantiated components of the template, <code>null</code> for tags
+     *                   added by type
+     */
+    public void addAll(
+            final EntityImpl entity,
+            final TemplateLayout layout,
+            final Component[] components
+    ) {
+        val signature = entity.getComponentSignature();
+        if (!signature.containsNoneOf(layout.typeBits)) {
+            throw new IllegalStateException("Component added while type bit is already set!");
+        }
+        signature.or(layout.signatureBits);
+
+        this.backend.addAll(entity, layout, components);
+        for (int i = 0; i < layout.typeIndices.length; ++i) {
+            val componentTypeIndex = layout.typeIndices[i];
+            val sparseSet = this.sparseSets[componentTypeIndex];
+            if (sparseSet != null) {
+                sparseSet.add(entity, components[i]);
+            } else if (this.tagTypes.get(componentTypeIndex)
+                    && components[i] != null
+                    && this.tagInstances[componentTypeIndex] == null) {
+                this.tagInstances[componentTypeIndex] = components[i];
+            }
+            markChanged(entity, componentTypeIndex);
+        }
+    }
+
+    /**
+     * Captures copies of the components of the given entities. Components are copied using {@link
+     * Copyable#copy()}, except tags, which share their instances, and off-heap components, which
+     * are loaded as new instances anyway. Instances shared by multiple entities are copied only
+     * once, so that the copies are shared as well.
+     * <p>
+     * The order in which the backend and each sparse set iterate the entities is captured as well.
+     *
+     * @param entities the entities to capture, in ID order
+     *
+     * @return the captured components
+     *
+     * @throws IllegalStateException if any of the entities has a component which cannot be copied
+     */
+    public ComponentSnapshot snapshot(final EntityImpl[] entities) {
+        val ordered = this.backend.toIterationOrder(entities);
+        val chunks = new LinkedHashMap<ComponentSignature, ComponentSnapshot.Chunk>();
+        val chunkOrder = new int[ordered.length];
+        ComponentSnapshot.Chunk previous = null;
+        for (int i = 0; i < ordered.length; ++i) {
+            val entity = ordered[i];
+            val signature = entity.getComponentSignature();
+            var chunk = previous != null && previous.getSignature().equals(signature)
+                    ? previous
+                    : chunks.get(signature);
+            if (chunk == null) {
+                chunk = new ComponentSnapshot.Chunk(chunks.size(), createLayout(componentTypeIndicesOf(signature), null));
+                chunks.put(chunk.getSignature(), chunk);
+            }
+            chunk.add(entity);
+            chunkOrder[i] = chunk.index;
+            previous = chunk;
+        }
+
+        val copies = new IdentityHashMap<Object, Object>();
+        for (val chunk : chunks.values()) {
+            val typeIndices = chunk.layout.typeIndices;
+            chunk.columns = new Object[typeIndices.length][];
+            for (int i = 0; i < typeIndices.length; ++i) {
+                chunk.columns[i] = captureColumn(chunk.entities, chunk.size, typeIndices[i], copies);
+            }
+        }
+
+        // Sparse sets also hold the components of entities which are not yet spawned, skip those
+        val included = new boolean[entities.length > 0 ? entities[entities.length - 1].getId() + 1 : 0];
+        for (val entity : entities) {
+            included[entity.getId()] = true;
+        }
+        val sparseColumns = new ComponentSnapshot.SparseColumn[this.maxComponentTypes];
+        for (int i = 0; i < this.sparseSets.length; ++i) {
+            if (this.sparseSets[i] != null) {
+                sparseColumns[i] = captureSparseSet(this.sparseSets[i], included, copies);
+            }
+        }
+
+        return new ComponentSnapshot(chunks.values().toArray(ComponentSnapshot.Chunk[]::new),
+                                     chunkOrder,
+                                     sparseColumns);
+    }
+
+    /**
+     * Restores the captured components to their entities, overwriting their signatures. The
+     * components of the entities must have been {@link #clear(EntityImpl) cleared}. Components
+     * are copied again, so that the same snapshot can be restored multiple times. Copies shared by
+     * multiple entities are restored as shared instances. Restored components are marked as
+     * changed.
+     * <p>
+     * Components are added in the captured order, so that the entities are iterated in the same
+     * order as they were when the snapshot was captured.
+     *
+     * @param snapshot the components to restore
+     */
+    public void restore(final ComponentSnapshot snapshot) {
+        val copies = new IdentityHashMap<Object, Object>();
+        val columns = new Object[snapshot.chunks.length][][];
+        val components = new Component[snapshot.chunks.length][];
+        for (val chunk : snapshot.chunks) {
+            val typeIndices = chunk.layout.typeIndices;
+            columns[chunk.index] = new Object[typeIndices.length][];
+            components[chunk.index] = new Component[typeIndices.length];
+            for (int i = 0; i < typeIndices.length; ++i) {
+                val captured = chunk.columns[i];
+                columns[chunk.index][i] = captured != null
+                        ? copyAll(captured, copies)
+                        : null;
+            }
+        }
+
+        val rows = new int[snapshot.chunks.length];
+        for (val chunkIndex : snapshot.chunkOrder) {
+            val chunk = snapshot.chunks[chunkIndex];
+            val row = rows[chunkIndex]++;
+            val chunkColumns = columns[chunkIndex];
+            val chunkComponents = components[chunkIndex];
+            for (int i = 0; i < chunkComponents.length; ++i) {
+                chunkComponents[i] = chunkColumns[i] != null
+                        ? (Component) chunkColumns[i][row]
+                        : null;
+            }
+
+            val entity = chunk.entities[row];
+            entity.getComponentSignature().clear().or(chunk.layout.signatureBits);
+            this.backend.addAll(entity, chunk.layout, chunkComponents);
+            for (val componentTypeIndex : chunk.layout.typeIndices) {
+                if (this.sparseSets[componentTypeIndex] == null) {
+                    markChanged(entity, componentTypeIndex);
+                }
+            }
+        }
+
+        for (int componentTypeIndex = 0; componentTypeIndex < snapshot.sparseColumns.length; ++componentTypeIndex) {
+            val captured = snapshot.sparseColumns[componentTypeIndex];
+            if (captured != null) {
+                restoreSparseSet(componentTypeIndex, captured, copies);
+            }
+        }
+    }
+
+    public void addTag(
+            final EntityImpl entity,
+            final Class<? extends TagComponent> tagClass
+    ) {
+        val componentTypeIndex = getComponentTypeIndexFor(tagClass);
+        val signature = entity.getComponentSignature();
+        if (signature.get(componentTypeIndex)) {
             throw new IllegalStateException("Component added while type bit is already set!");
         }
-        BitMaskUtils.setNthBit(entity.getComponentBitmask(), componentTypeIndex);
+        signature.set(componentTypeIndex);
 
-        // noinspection unchecked
-        this.componentTypes.get(componentTypeIndex)
-                           .addComponent(entity, component);
+        this.backend.addTag(entity, componentTypeIndex);
+        markChanged(entity, componentTypeIndex);
 
-        checkGroupsAfterAdd(entity, component.getClass());
+        updateGroupsAfterAdd(signature, componentTypeIndex);
     }
 
     public void remove(final EntityImpl entity, final Class<? extends Component> componentClass) {
         val componentTypeIndex = getComponentTypeIndexFor(componentClass);
-        if (!BitMaskUtils.isNthBitSet(entity.getComponentBitmask(), componentTypeIndex)) {
+        if (!entity.getComponentSignature().get(componentTypeIndex)) {
             throw new IllegalStateException("Component removed while type bit is already unset!");
         }
         removeComponentByIndex(entity, componentTypeIndex);
-
-        checkGroupsAfterRemove(entity, componentClass);
     }
 
     public <TComponent extends Component> Optional<TComponent> get(
@@ -104,42 +511,101 @@ public class ComponentStorage {
             final Class<? extends TComponent> componentClass
     ) {
         val componentTypeIndex = getComponentTypeIndexFor(componentClass);
-        if (!BitMaskUtils.isNthBitSet(entity.getComponentBitmask(), componentTypeIndex)) {
+        if (!entity.getComponentSignature().get(componentTypeIndex)) {
             return Optional.empty();
         }
 
-        val componentStorage = componentTypes.get(componentTypeIndex);
-        // noinspection unchecked
-        return (Optional<TComponent>) Optional.of(componentStorage.getComponent(entity));
+        if (this.tagTypes.get(componentTypeIndex)) {
+            return Optional.of(getTagInstance(componentTypeIndex, componentClass));
+        }
+
+        val sparseSet = this.sparseSets[componentTypeIndex];
+        val component = sparseSet != null
+                ? sparseSet.get(entity)
+                : this.backend.get(entity, componentTypeIndex);
+
+        return Optional.<TComponent>ofNullable(componentClass.cast(component));
+    }
+
+    /**
+     * Gets the mapper of a component type. Registers the type if it has not been registered yet,
+     * otherwise only reads the storage and may thus be called from systems ticking in parallel.
+     *
+     * @param componentClass type of the component
+     * @param <TComponent>   type of the component
+     *
+     * @return the mapper
+     */
+    /**
+     * Gets the index of a component type. Registers the type if it has not been registered yet,
+     * otherwise only reads the storage and may thus be called from systems ticking in parallel.
+     *
+     * @param componentClass type of the component
+     *
+     * @return the type index
+     */
+    public int getComponentTypeIndex(final Class<? extends Component> componentClass) {
+        return getComponentTypeIndexFor(componentClass);
+    }
+
+    /**
+     * Gets the component type registered with the given index.
+     *
+     * @param componentTypeIndex index of the type
+     *
+     * @return the component type
+     */
+    public Class<? extends Component> getComponentType(final int componentTypeIndex) {
+        return this.componentTypes[componentTypeIndex].asSubclass(Component.class);
+    }
+
+    // Mappers are created for the component class of their type index when the type is registered
+    @SuppressWarnings("unchecked")
+    public <TComponent extends Component> ComponentMapper<TComponent> getMapper(
+            final Class<TComponent> componentClass
+    ) {
+        return (ComponentMapper<TComponent>) this.mappers[getComponentTypeIndexFor(componentClass)];
+    }
+
+    // The set was created for the component class of the type index
+    @SuppressWarnings("unchecked")
+    public <TComponent extends Component> OffHeapColumns<TComponent> getOffHeapColumns(
+            final Class<TComponent> componentClass
+    ) {
+        val sparseSet = this.sparseSets[getComponentTypeIndexFor(componentClass)];
+        if (!(sparseSet instanceof OffHeapSet)) {
+            throw new IllegalStateException(String.format("Component %s is not stored off-heap!",
+                                                          componentClass.getSimpleName()));
+        }
+
+        return (OffHeapColumns<TComponent>) sparseSet;
     }
 
     public boolean exists(
             final EntityImpl entity,
             final Class<? extends Component> componentClass
     ) {
-        return BitMaskUtils.isNthBitSet(entity.getComponentBitmask(),
-                                        getComponentTypeIndexFor(componentClass));
+        return entity.getComponentSignature().get(getComponentTypeIndexFor(componentClass));
     }
 
     public boolean anyExists(
             final EntityImpl entity,
             final ComponentGroup group
     ) {
-        return BitMaskUtils.isNthBitSet(entity.getComponentBitmask(),
-                                        getComponentTypeIndexFor(group));
+        return entity.getComponentSignature().get(getComponentTypeIndexFor(group));
     }
 
-    public byte[] createComponentBitmask(
+    public ComponentSignature createComponentSignature(
             final Collection<Class<? extends Component>> componentTypes
     ) {
         return componentTypes.stream()
                              .map(this::getComponentTypeIndexFor)
-                             .reduce(new byte[BitMaskUtils.calculateMaskSize(this.maxComponentTypes)],
-                                     BitMaskUtils::setNthBit,
-                                     BitMaskUtils::combineMasks);
+                             .reduce(new ComponentSignature(this.maxComponentTypes),
+                                     ComponentSignature::set,
+                                     ComponentSignature::or);
     }
 
-    public byte[] createComponentBitmask(
+    public ComponentSignature createComponentSignature(
             final Collection<Class<? extends Component>> componentTypes,
             final Collection<ComponentGroup> componentGroups
     ) {
@@ -147,9 +613,178 @@ public class ComponentStorage {
                                            .map(this::getComponentTypeIndexFor),
                              componentGroups.stream()
                                             .map(this::getComponentTypeIndexFor))
-                     .reduce(new byte[BitMaskUtils.calculateMaskSize(this.maxComponentTypes)],
-                             BitMaskUtils::setNthBit,
-                             BitMaskUtils::combineMasks);
+                     .reduce(new ComponentSignature(this.maxComponentTypes),
+                             ComponentSignature::set,
+                             ComponentSignature::or);
+    }
+
+    /**
+     * Streams all spawned entities matching the given signatures. If sparse component types are
+     * required, only the entities of the smallest required sparse set are visited. Otherwise, the
+     * backend resolves the non-sparse part of the query and the sparse bits are checked per
+     * entity.
+     *
+     * @param entities entity storage to use for determining which entities are spawned
+     * @param required bits the entities must have
+     * @param excluded bits the entities must not have
+     *
+     * @return stream of the matching entities
+     */
+    public Stream<EntityImpl> stream(
+            final EntityStorage entities,
+            final ComponentSignature required,
+            final ComponentSignature excluded
+    ) {
+        if (required.containsNoneOf(this.sparseBits) && excluded.containsNoneOf(this.sparseBits)) {
+            return this.backend.stream(entities, required, excluded);
+        }
+
+        val sparseSet = findSmallestSparseSet(required);
+        if (sparseSet != null) {
+            // Collected eagerly, as removals from the set would move the entities around
+            return Arrays.stream(IntStream.range(0, sparseSet.getSize())
+                                          .mapToObj(sparseSet::getEntity)
+                                          .filter(entities::isSpawned)
+                                          .filter(entity -> entity.getComponentSignature().matches(required, excluded))
+                                          .toArray(EntityImpl[]::new));
+        }
+
+        val backendRequired = new ComponentSignature(required).andNot(this.sparseBits);
+        val backendExcluded = new ComponentSignature(excluded).andNot(this.sparseBits);
+        return this.backend.stream(entities, backendRequired, backendExcluded)
+                           .filter(entity -> entity.getComponentSignature().matches(required, excluded));
+    }
+
+    /**
+     * Resolves the component types in the signature, skipping the groups.
+     */
+    private int[] componentTypeIndicesOf(final ComponentSignature signature) {
+        return IntStream.iterate(signature.nextSetBit(0), i -> i != -1, i -> signature.nextSetBit(i + 1))
+                        .filter(i -> this.groupMembers[i] == null)
+                        .toArray();
+    }
+
+    /**
+     * Copies the backend-stored components of a single type. The components are first fetched and
+     * only then copied, so that the type checks of fetching and copying are not interleaved, see
+     * {@link ComponentSnapshot.Chunk#columns}.
+     */
+    @Nullable
+    private Object[] captureColumn(
+            final EntityImpl[] entities,
+            final int count,
+            final int componentTypeIndex,
+            final Map<Object, Object> copies
+    ) {
+        if (this.tagTypes.get(componentTypeIndex) || this.sparseSets[componentTypeIndex] != null) {
+            return null;
+        }
+
+        val column = new Object[count];
+        for (int e = 0; e < count; ++e) {
+            column[e] = this.backend.get(entities[e], componentTypeIndex);
+        }
+        return copyAll(column, copies);
+    }
+
+    /**
+     * Copies the components of a sparse set, in the order of the set. Entities with IDs not marked
+     * as included are skipped.
+     */
+    private ComponentSnapshot.SparseColumn captureSparseSet(
+            final SparseSet<?> sparseSet,
+            final boolean[] included,
+            final Map<Object, Object> copies
+    ) {
+        val members = new EntityImpl[sparseSet.getSize()];
+        int count = 0;
+        for (int i = 0; i < sparseSet.getSize(); ++i) {
+            val entity = sparseSet.getEntity(i);
+            if (entity.getId() < included.length && included[entity.getId()]) {
+                members[count++] = entity;
+            }
+        }
+
+        val column = new Object[count];
+        for (int i = 0; i < count; ++i) {
+            column[i] = sparseSet.get(members[i]);
+        }
+
+        // Off-heap components are loaded as new instances anyway
+        return new ComponentSnapshot.SparseColumn(Arrays.copyOf(members, count),
+                                                  sparseSet instanceof OffHeapSet
+                                                          ? column
+                                                          : copyAll(column, copies));
+    }
+
+    private void restoreSparseSet(
+            final int componentTypeIndex,
+            final ComponentSnapshot.SparseColumn captured,
+            final Map<Object, Object> copies
+    ) {
+        val sparseSet = this.sparseSets[componentTypeIndex];
+        // Off-heap sets store the field values, not the instances, so the captured instances can
+        // be added as-is
+        val components = sparseSet instanceof OffHeapSet
+                ? captured.components
+                : copyAll(captured.components, copies);
+        for (int i = 0; i < captured.entities.length; ++i) {
+            sparseSet.add(captured.entities[i], (Component) components[i]);
+            markChanged(captured.entities[i], componentTypeIndex);
+        }
+    }
+
+    private static Object[] copyAll(
+            final Object[] components,
+            final Map<Object, Object> copies
+    ) {
+        val column = new Object[components.length];
+        for (int i = 0; i < components.length; ++i) {
+            column[i] = copies.computeIfAbsent(components[i], ComponentStorage::copyOf);
+        }
+        return column;
+    }
+
+    private TemplateLayout createLayout(final int[] typeIndices, final ComponentPool[] pools) {
+        val typeBits = new ComponentSignature(this.maxComponentTypes);
+        val backendBits = new ComponentSignature(this.maxComponentTypes);
+        val backendComponents = new ArrayList<Integer>();
+        for (int i = 0; i < typeIndices.length; ++i) {
+            val componentTypeIndex = typeIndices[i];
+            typeBits.set(componentTypeIndex);
+            if (this.sparseSets[componentTypeIndex] == null) {
+                backendBits.set(componentTypeIndex);
+                if (!this.tagTypes.get(componentTypeIndex)) {
+                    backendComponents.add(i);
+                }
+            }
+        }
+
+        val signatureBits = new ComponentSignature(typeBits);
+        for (val componentTypeIndex : typeIndices) {
+            for (val groupComponentTypeIndex : this.groupsOf[componentTypeIndex]) {
+                signatureBits.set(groupComponentTypeIndex);
+            }
+        }
+
+        return new TemplateLayout(typeIndices,
+                                  typeBits,
+                                  signatureBits,
+                                  backendBits,
+                                  backendComponents.stream().mapToInt(Integer::intValue).toArray(),
+                                  pools);
+    }
+
+    @Nullable
+    private SparseSet<?> findSmallestSparseSet(final ComponentSignature required) {
+        SparseSet<?> smallest = null;
+        for (int i = required.nextSetBit(0); i != -1; i = required.nextSetBit(i + 1)) {
+            val sparseSet = this.sparseSets[i];
+            if (sparseSet != null && (smallest == null || sparseSet.getSize() < smallest.getSize())) {
+                smallest = sparseSet;
+            }
+        }
+        return smallest;
     }
 
     private int getComponentTypeIndexFor(
@@ -168,7 +803,24 @@ public class ComponentStorage {
 
     private int createNewComponentGroup(final ComponentGroup group) {
         LOG.trace("Created new component group {}", group.getName());
-        return getNextComponentTypeIndex();
+        val index = getNextComponentTypeIndex();
+        if (group.getComponentTypes().stream().anyMatch(type -> isSparse(type) || isOffHeap(type))) {
+            this.sparseBits.set(index);
+        }
+
+        // Member types are registered eagerly, so that the membership tables are complete
+        // regardless of the order in which the types and groups are first encountered.
+        val members = new ComponentSignature(this.maxComponentTypes);
+        for (val componentClass : group.getComponentTypes()) {
+            val componentTypeIndex = getComponentTypeIndexFor(componentClass);
+            members.set(componentTypeIndex);
+
+            val groups = Arrays.copyOf(this.groupsOf[componentTypeIndex], this.groupsOf[componentTypeIndex].length + 1);
+            groups[groups.length - 1] = index;
+            this.groupsOf[componentTypeIndex] = groups;
+        }
+        this.groupMembers[index] = members;
+        return index;
     }
 
     private int getNextComponentTypeIndex() {
@@ -182,48 +834,210 @@ public class ComponentStorage {
     }
 
     private int createNewComponentStorage(final Class<? extends Component> componentClass) {
-        int index = getNextComponentTypeIndex();
-        this.componentTypes.put(index, new ComponentMap<>(
-                this.entityCapacity,
-                componentClass
-        ));
+        val index = getNextComponentTypeIndex();
+        this.componentTypes[index] = componentClass;
+        registerStorage(index, componentClass);
+        this.mappers[index] = createMapper(index, componentClass);
+        return index;
+    }
+
+    private void registerStorage(final int index, final Class<? extends Component> componentClass) {
+        if (TagComponent.class.isAssignableFrom(componentClass)) {
+            assertHasNoFields(componentClass);
+            this.tagTypes.set(index);
+            this.changeTicks[index] = new PagedIntArray(this.entityCapacity);
+            this.backend.registerTagType(index);
+
+            LOG.trace("Registered new tag type {}", componentClass.getSimpleName());
+            return;
+        }
+
+        if (isOffHeap(componentClass)) {
+            this.sparseSets[index] = new OffHeapSet<>(this.entityCapacity, componentClass);
+            this.sparseBits.set(index);
+
+            LOG.trace("Created new off-heap component storage {}", componentClass.getSimpleName());
+            return;
+        }
+
+        if (isSparse(componentClass)) {
+            this.sparseSets[index] = new SparseSet<>(this.entityCapacity);
+            this.sparseBits.set(index);
+            registerPool(index, componentClass);
+
+            LOG.trace("Created new sparse component storage {}", componentClass.getSimpleName());
+            return;
+        }
+
+        this.backend.registerType(index, componentClass);
+        this.changeTicks[index] = new PagedIntArray(this.entityCapacity);
+        registerPool(index, componentClass);
 
         LOG.trace("Created new component storage {} with capacity {}",
                   componentClass.getSimpleName(),
                   this.entityCapacity);
-        return index;
     }
 
-    private void removeComponentByIndex(
+    private <TComponent extends Component> ComponentMapper<TComponent> createMapper(
+            final int componentTypeIndex,
+            final Class<TComponent> componentClass
+    ) {
+        final ComponentAccessor<TComponent> accessor;
+        if (this.tagTypes.get(componentTypeIndex)) {
+            accessor = createTagAccessor(componentTypeIndex, componentClass);
+        } else if (this.sparseSets[componentTypeIndex] != null) {
+            // The set was created for the component class of the type index
+            @SuppressWarnings("unchecked")
+            final ComponentAccessor<TComponent> sparseSet = (ComponentAccessor<TComponent>) this.sparseSets[componentTypeIndex];
+            accessor = sparseSet;
+        } else {
+            accessor = this.backend.createAccessor(componentTypeIndex);
+        }
+        return new ComponentMapperImpl<>(this, componentTypeIndex, accessor);
+    }
+
+    private <TComponent extends Component> ComponentAccessor<TComponent> createTagAccessor(
+            final int componentTypeIndex,
+            final Class<TComponent> tagClass
+    ) {
+        return entity -> ((EntityImpl) entity).getComponentSignature().get(componentTypeIndex)
+                ? getTagInstance(componentTypeIndex, tagClass)
+                : null;
+    }
+
+    /**
+     * Gets the shared instance of a tag type. The first instance added to any entity is used, or
+     * if the tag has only been added by type, a new instance is created.
+     */
+    private <TComponent extends Component> TComponent getTagInstance(
+            final int componentTypeIndex,
+            final Class<? extends TComponent> tagClass
+    ) {
+        var instance = this.tagInstances[componentTypeIndex];
+        if (instance == null) {
+            try {
+                val constructor = tagClass.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                instance = constructor.newInstance();
+            } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException(String.format("Could not instantiate tag %s",
+                                                              tagClass.getSimpleName()), e);
+            }
+            this.tagInstances[componentTypeIndex] = instance;
+        }
+
+        return tagClass.cast(instance);
+    }
+
+    private void registerPool(
+            final int componentTypeIndex,
+            final Class<? extends Component> componentClass
+    ) {
+        if (Poolable.class.isAssignableFrom(componentClass)) {
+            this.pools[componentTypeIndex] = new ComponentPool(MAX_POOLED_INSTANCES);
+            this.pooledBits.set(componentTypeIndex);
+        }
+    }
+
+    private void releasePooledComponents(
             final EntityImpl entity,
-            final int componentTypeIndex
+            final ComponentSignature signature
     ) {
-        this.componentTypes.get(componentTypeIndex)
-                           .removeComponent(entity);
+        for (int i = this.pooledBits.nextSetBit(0); i != -1; i = this.pooledBits.nextSetBit(i + 1)) {
+            if (!signature.get(i)) {
+                continue;
+            }
+
+            val sparseSet = this.sparseSets[i];
+            val component = sparseSet != null
+                    ? sparseSet.get(entity)
+                    : this.backend.get(entity, i);
+            if (component != null) {
+                this.pools[i].release(component);
+            }
+        }
+    }
+
+    private static Object copyOf(final Object component) {
+        if (!(component instanceof Copyable)) {
+            throw new IllegalStateException(String.format("Component %s is not copyable",
+                                                          component.getClass().getSimpleName()));
+        }
+
+        return ((Copyable<?>) component).copy();
+    }
+
+    private static boolean isOffHeap(final Class<? extends Component> componentClass) {
+        return componentClass.isAnnotationPresent(OffHeapStorage.class)
+                && !TagComponent.class.isAssignableFrom(componentClass);
+    }
+
+    private static boolean isSparse(final Class<? extends Component> componentClass) {
+        return componentClass.isAnnotationPresent(SparseStorage.class)
+                && !TagComponent.class.isAssignableFrom(componentClass);
+    }
 
-        BitMaskUtils.unsetNthBit(entity.getComponentBitmask(), componentTypeIndex);
+    private static void assertHasNoFields(final Class<? extends Component> tagClass) {
+        for (Class<?> type = tagClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (val field : type.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                    throw new IllegalStateException(String.format("Tag %s must not declare fields, found \"%s\"",
+                                                                  tagClass.getSimpleName(),
+                                                                  field.getName()));
+                }
+            }
+        }
     }
 
-    private void checkGroupsAfterAdd(
+    private void clearExcept(
             final EntityImpl entity,
-            final Class<? extends Component> added
+            final ComponentSignature kept
     ) {
-        this.componentGroupIndices.entrySet()
-                                  .stream()
-                                  .filter(entry -> entry.getKey().getComponentTypes().contains(added))
-                                  .map(Map.Entry::getValue)
-                                  .forEach(groupComponentTypeIndex -> BitMaskUtils.setNthBit(entity.getComponentBitmask(), groupComponentTypeIndex));
+        val signature = entity.getComponentSignature();
+        for (int i = signature.nextSetBit(0); i != -1; i = signature.nextSetBit(i + 1)) {
+            if (this.groupMembers[i] == null && !kept.get(i)) {
+                removeComponentByIndex(entity, i);
+            }
+        }
     }
 
-    private void checkGroupsAfterRemove(
+    private void removeComponentByIndex(
             final EntityImpl entity,
-            final Class<? extends Component> removed
-    ) {
-        this.componentGroupIndices.entrySet()
-                                  .stream()
-                                  .filter(entry -> entry.getKey().getComponentTypes().contains(removed))
-                                  .filter(entry -> !anyExists(entity, entry.getKey()))
-                                  .map(Map.Entry::getValue)
-                                  .forEach(groupComponentTypeIndex -> BitMaskUtils.unsetNthBit(entity.getComponentBitmask(), groupComponentTypeIndex));
+            final int componentTypeIndex
+    ) {
+        val signature = entity.getComponentSignature();
+        if (!signature.get(componentTypeIndex)) {
+            return;
+        }
+
+        signature.unset(componentTypeIndex);
+        val sparseSet = this.sparseSets[componentTypeIndex];
+        if (sparseSet != null) {
+            sparseSet.remove(entity);
+        } else {
+            this.backend.remove(entity, componentTypeIndex);
+        }
+
+        updateGroupsAfterRemove(signature, componentTypeIndex);
+    }
+
+    private void updateGroupsAfterAdd(
+            final ComponentSignature signature,
+            final int added
+    ) {
+        for (val groupComponentTypeIndex : this.groupsOf[added]) {
+            signature.set(groupComponentTypeIndex);
+        }
+    }
+
+    private void updateGroupsAfterRemove(
+            final ComponentSignature signature,
+            final int removed
+    ) {
+        for (val groupComponentTypeIndex : this.groupsOf[removed]) {
+            if (signature.containsNoneOf(this.groupMembers[groupComponentTypeIndex])) {
+                signature.unset(groupComponentTypeIndex);
+            }
+        }
     }
 }
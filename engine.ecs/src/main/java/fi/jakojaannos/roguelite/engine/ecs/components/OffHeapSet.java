@@ -0,0 +1,221 @@
+package fi.jakojaannos.roguelite.engine.ecs.components;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.OffHeapColumns;
+import fi.jakojaannos.roguelite.engine.ecs.OffHeapStorage;
+import fi.jakojaannos.roguelite.engine.ecs.entities.EntityImpl;
+import lombok.val;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.nio.*;
+import java.util.ArrayList;
+
+/**
+ * {@link SparseSet} for {@link OffHeapStorage off-heap} component types. Instead of the component
+ * instances, the values of their fields are stored to direct buffers, one buffer per field. The
+ * buffers share the dense indices of the set, so the value of field <code>f</code> of the
+ * component at dense index <code>i</code> is the <code>i</code>-th value of the column of
+ * <code>f</code>.
+ * <p>
+ * Fields are read and written reflectively when components are added or fetched as instances.
+ * Iterating over the columns does not touch the instances at all.
+ */
+final class OffHeapSet<TComponent extends Component> extends SparseSet<TComponent> implements OffHeapColumns<TComponent> {
+    private final Constructor<TComponent> constructor;
+    private final Field[] fields;
+    private final Class<?>[] types;
+    private final int[] widths;
+    private ByteBuffer[] columns;
+
+    OffHeapSet(final int entityCapacity, final Class<TComponent> componentClass) {
+        super(entityCapacity);
+
+        val fields = new ArrayList<Field>();
+        for (Class<?> type = componentClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (val field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                    continue;
+                }
+                if (widthOf(field.getType()) == -1) {
+                    throw new IllegalStateException(String.format(
+                            "Off-heap component %s may only declare double, float, long or int fields, found \"%s\"",
+                            componentClass.getSimpleName(),
+                            field.getName()));
+                }
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+
+        try {
+            this.constructor = componentClass.getDeclaredConstructor();
+            this.constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(String.format("Off-heap component %s must have a no-args constructor",
+                                                          componentClass.getSimpleName()), e);
+        }
+
+        this.fields = fields.toArray(Field[]::new);
+        this.types = new Class<?>[this.fields.length];
+        this.widths = new int[this.fields.length];
+        this.columns = new ByteBuffer[this.fields.length];
+        for (int column = 0; column < this.fields.length; ++column) {
+            this.types[column] = this.fields[column].getType();
+            this.widths[column] = widthOf(this.types[column]);
+            this.columns[column] = allocate(INITIAL_CAPACITY * this.widths[column]);
+        }
+    }
+
+    @Override
+    public int size() {
+        return getSize();
+    }
+
+    @Override
+    public EntityImpl getEntity(final int index) {
+        return super.getEntity(index);
+    }
+
+    @Override
+    public int indexOf(final Entity entity) {
+        return indexOf((EntityImpl) entity);
+    }
+
+    @Override
+    public int columnOf(final String fieldName) {
+        for (int column = 0; column < this.fields.length; ++column) {
+            if (this.fields[column].getName().equals(fieldName)) {
+                return column;
+            }
+        }
+        throw new IllegalStateException(String.format("Off-heap component %s has no field \"%s\"",
+                                                      this.constructor.getDeclaringClass().getSimpleName(),
+                                                      fieldName));
+    }
+
+    @Override
+    public DoubleBuffer getDoubles(final int column) {
+        return view(column, double.class).asDoubleBuffer();
+    }
+
+    @Override
+    public FloatBuffer getFloats(final int column) {
+        return view(column, float.class).asFloatBuffer();
+    }
+
+    @Override
+    public LongBuffer getLongs(final int column) {
+        return view(column, long.class).asLongBuffer();
+    }
+
+    @Override
+    public IntBuffer getInts(final int column) {
+        return view(column, int.class).asIntBuffer();
+    }
+
+    @Override
+    void growComponents(final int capacity) {
+        for (int column = 0; column < this.columns.length; ++column) {
+            val old = this.columns[column];
+            val grown = allocate(capacity * this.widths[column]);
+            grown.put(old.duplicate().clear());
+            this.columns[column] = grown.clear();
+        }
+    }
+
+    @Override
+    void storeComponent(final int index, final Component component) {
+        try {
+            for (int column = 0; column < this.fields.length; ++column) {
+                val field = this.fields[column];
+                val buffer = this.columns[column];
+                val offset = index * this.widths[column];
+                val type = this.types[column];
+                if (type == double.class) {
+                    buffer.putDouble(offset, field.getDouble(component));
+                } else if (type == float.class) {
+                    buffer.putFloat(offset, field.getFloat(component));
+                } else if (type == long.class) {
+                    buffer.putLong(offset, field.getLong(component));
+                } else {
+                    buffer.putInt(offset, field.getInt(component));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Could not read the fields of an off-heap component", e);
+        }
+    }
+
+    @Override
+    Component loadComponent(final int index) {
+        try {
+            val component = this.constructor.newInstance();
+            for (int column = 0; column < this.fields.length; ++column) {
+                val field = this.fields[column];
+                val buffer = this.columns[column];
+                val offset = index * this.widths[column];
+                val type = this.types[column];
+                if (type == double.class) {
+                    field.setDouble(component, buffer.getDouble(offset));
+                } else if (type == float.class) {
+                    field.setFloat(component, buffer.getFloat(offset));
+                } else if (type == long.class) {
+                    field.setLong(component, buffer.getLong(offset));
+                } else {
+                    field.setInt(component, buffer.getInt(offset));
+                }
+            }
+            return component;
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not instantiate an off-heap component", e);
+        }
+    }
+
+    @Override
+    void moveComponent(final int from, final int to) {
+        for (int column = 0; column < this.columns.length; ++column) {
+            val buffer = this.columns[column];
+            val width = this.widths[column];
+            if (width == Long.BYTES) {
+                buffer.putLong(to * width, buffer.getLong(from * width));
+            } else {
+                buffer.putInt(to * width, buffer.getInt(from * width));
+            }
+        }
+    }
+
+    @Override
+    void clearComponent(final int index) {
+        // Stale values past the size are never read
+    }
+
+    private ByteBuffer view(final int column, final Class<?> expectedType) {
+        if (this.types[column] != expectedType) {
+            throw new IllegalStateException(String.format("Column \"%s\" is of type %s, not %s",
+                                                          this.fields[column].getName(),
+                                                          this.types[column].getName(),
+                                                          expectedType.getName()));
+        }
+
+        return this.columns[column].duplicate()
+                                   .limit(getSize() * this.widths[column])
+                                   .order(ByteOrder.nativeOrder());
+    }
+
+    private static ByteBuffer allocate(final int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private static int widthOf(final Class<?> type) {
+        if (type == double.class || type == long.class) {
+            return Long.BYTES;
+        } else if (type == float.class || type == int.class) {
+            return Integer.BYTES;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,154 @@
+package fi.jakojaannos.roguelite.engine.ecs.components;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.SparseStorage;
+import fi.jakojaannos.roguelite.engine.ecs.entities.EntityImpl;
+import fi.jakojaannos.roguelite.engine.utilities.PagedIntArray;
+import lombok.Getter;
+import lombok.val;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Storage for components of a single {@link SparseStorage sparse} type. Components, their entities
+ * and change ticks are packed to dense arrays, so that all entities having the component can be
+ * iterated without visiting any other entities. Removals swap the last element to the freed slot,
+ * so the order of the entities is not stable.
+ * <p>
+ * Dense indices are looked up from a {@link PagedIntArray paged} sparse index, indexed by entity
+ * ID. Pages are allocated when the first entity within the page range receives the component.
+ * Entries of the index are stored offset by one, so that zero can be used for marking entities
+ * without the component.
+ * <p>
+ * Component instances are stored to a dense array by default. Subclasses may store the component
+ * data elsewhere by overriding the component storage hooks, e.g. {@link OffHeapSet}.
+ */
+class SparseSet<TComponent extends Component> implements ComponentAccessor<TComponent> {
+    static final int INITIAL_CAPACITY = 4;
+
+    private final PagedIntArray sparse;
+    private EntityImpl[] entities = new EntityImpl[INITIAL_CAPACITY];
+    private Component[] components = new Component[INITIAL_CAPACITY];
+    private int[] changeTicks = new int[INITIAL_CAPACITY];
+    @Getter private int size;
+
+    SparseSet(final int entityCapacity) {
+        this.sparse = new PagedIntArray(entityCapacity);
+    }
+
+    void add(final EntityImpl entity, final Component component) {
+        if (this.size == this.entities.length) {
+            val capacity = this.size * 2;
+            this.entities = Arrays.copyOf(this.entities, capacity);
+            this.changeTicks = Arrays.copyOf(this.changeTicks, capacity);
+            growComponents(capacity);
+        }
+
+        val index = this.size;
+        this.entities[index] = entity;
+        storeComponent(index, component);
+        this.changeTicks[index] = 0;
+        this.sparse.set(entity.getId(), index + 1);
+        ++this.size;
+    }
+
+    void remove(final EntityImpl entity) {
+        val index = indexOf(entity);
+        if (index == -1) {
+            return;
+        }
+
+        val last = this.size - 1;
+        if (index != last) {
+            val moved = this.entities[last];
+            this.entities[index] = moved;
+            moveComponent(last, index);
+            this.changeTicks[index] = this.changeTicks[last];
+            this.sparse.set(moved.getId(), index + 1);
+        }
+
+        this.entities[last] = null;
+        clearComponent(last);
+        this.sparse.set(entity.getId(), 0);
+        --this.size;
+    }
+
+    @Nullable
+    Component get(final EntityImpl entity) {
+        val index = indexOf(entity);
+        return index != -1
+                ? loadComponent(index)
+                : null;
+    }
+
+    // The set only ever holds components of the type it was created for
+    @SuppressWarnings("unchecked")
+    @Nullable
+    @Override
+    public TComponent getOrNull(final Entity entity) {
+        return (TComponent) get((EntityImpl) entity);
+    }
+
+    EntityImpl getEntity(final int index) {
+        return this.entities[index];
+    }
+
+    void setChangeTick(final EntityImpl entity, final int tick) {
+        val index = indexOf(entity);
+        if (index != -1) {
+            this.changeTicks[index] = tick;
+        }
+    }
+
+    int getChangeTick(final EntityImpl entity) {
+        val index = indexOf(entity);
+        return index != -1
+                ? this.changeTicks[index]
+                : 0;
+    }
+
+    void releasePage(final int page) {
+        this.sparse.releasePage(page);
+    }
+
+    /**
+     * Gets the dense index of the entity.
+     *
+     * @param entity the entity to look up
+     *
+     * @return the dense index, <code>-1</code> if the entity does not have the component
+     */
+    int indexOf(final EntityImpl entity) {
+        val index = this.sparse.get(entity.getId()) - 1;
+        return index != -1 && this.entities[index] == entity
+                ? index
+                : -1;
+    }
+
+    /**
+     * Grows the component storage to hold at least the given number of components.
+     *
+     * @param capacity the new capacity
+     */
+    void growComponents(final int capacity) {
+        this.components = Arrays.copyOf(this.components, capacity);
+    }
+
+    void storeComponent(final int index, final Component component) {
+        this.components[index] = component;
+    }
+
+    Component loadComponent(final int index) {
+        return this.components[index];
+    }
+
+    void moveComponent(final int from, final int to) {
+        this.components[to] = this.components[from];
+    }
+
+    void clearComponent(final int index) {
+        this.components[index] = null;
+    }
+}
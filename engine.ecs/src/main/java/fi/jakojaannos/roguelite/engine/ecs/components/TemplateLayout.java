@@ -0,0 +1,58 @@
+package fi.jakojaannos.roguelite.engine.ecs.components;
+
+import fi.jakojaannos.roguelite.engine.ecs.ComponentSignature;
+import fi.jakojaannos.roguelite.engine.ecs.EntityTemplate;
+
+/**
+ * {@link EntityTemplate} resolved for a single {@link ComponentStorage}. Holds the component type
+ * indices of the template and the signature bits set by it, so that instantiating the template
+ * requires no type lookups.
+ *
+ * @see ComponentStorage#createLayout(EntityTemplate)
+ * @see ComponentStorage#addAll(fi.jakojaannos.roguelite.engine.ecs.entities.EntityImpl, TemplateLayout,
+ * fi.jakojaannos.roguelite.engine.ecs.Component[])
+ */
+public final class TemplateLayout {
+    /**
+     * Type index of each component of the template, in template order.
+     */
+    final int[] typeIndices;
+    /**
+     * Bits of the component types of the template.
+     */
+    final ComponentSignature typeBits;
+    /**
+     * Bits set to the entity signature, including the groups of the component types.
+     */
+    final ComponentSignature signatureBits;
+    /**
+     * Bits of the component types stored by the backend, including tags.
+     */
+    final ComponentSignature backendBits;
+    /**
+     * Positions of the components stored by the backend, in template order. Excludes tags and
+     * sparse components.
+     */
+    final int[] backendComponents;
+    /**
+     * Pool of each component of the template, <code>null</code> for components which are not
+     * pooled.
+     */
+    final ComponentPool[] pools;
+
+    TemplateLayout(
+            final int[] typeIndices,
+            final ComponentSignature typeBits,
+            final ComponentSignature signatureBits,
+            final ComponentSignature backendBits,
+            final int[] backendComponents,
+            final ComponentPool[] pools
+    ) {
+        this.typeIndices = typeIndices;
+        this.typeBits = typeBits;
+        this.signatureBits = signatureBits;
+        this.backendBits = backendBits;
+        this.backendComponents = backendComponents;
+        this.pools = pools;
+    }
+}
@@ -0,0 +1,211 @@
+package fi.jakojaannos.roguelite.engine.ecs.entities;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.EntityCommandBuffer;
+import fi.jakojaannos.roguelite.engine.ecs.TagComponent;
+import lombok.val;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Default {@link EntityCommandBuffer} implementation. Commands are encoded as opcodes in a
+ * <code>byte[]</code>, with the handle of the target entity and the argument of each command
+ * stored in parallel arrays. Component types are recorded as type indices, so only the component
+ * instances of added and set components are held as references.
+ */
+final class EntityCommandBufferImpl implements EntityCommandBuffer {
+    private static final byte SPAWN = 0;
+    private static final byte DESTROY = 1;
+    private static final byte ADD = 2;
+    private static final byte ADD_TAG = 3;
+    private static final byte SET = 4;
+    private static final byte REMOVE = 5;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final EntityManagerImpl entityManager;
+
+    private byte[] commands = new byte[0];
+    private long[] targets = new long[0];
+    private int[] componentTypes = new int[0];
+    private Component[] components = new Component[0];
+    private int size;
+    /**
+     * Set once the buffer has been released. Released buffers are played back one final time and
+     * are then returned to the pool of the entity manager.
+     */
+    private boolean released;
+
+    EntityCommandBufferImpl(final EntityManagerImpl entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    boolean isReleased() {
+        return this.released;
+    }
+
+    void setReleased(final boolean released) {
+        this.released = released;
+    }
+
+    @Override
+    public Entity createEntity() {
+        val entity = this.entityManager.reserveEntity();
+        spawn(entity);
+        return entity;
+    }
+
+    /**
+     * Records spawning an entity which has already been created, but not yet added to the world.
+     *
+     * @param entity the entity to spawn
+     */
+    void spawn(final EntityImpl entity) {
+        record(SPAWN, entity, -1, null);
+    }
+
+    /**
+     * Ensures that at least the given number of additional commands can be recorded without
+     * growing the buffer.
+     *
+     * @param count number of commands about to be recorded
+     */
+    void reserve(final int count) {
+        val required = this.size + count;
+        if (required > this.commands.length) {
+            grow(Math.max(required, this.commands.length * 2));
+        }
+    }
+
+    @Override
+    public void destroyEntity(final Entity entity) {
+        ((EntityImpl) entity).markForRemoval();
+        record(DESTROY, entity, -1, null);
+    }
+
+    @Override
+    public <TComponent extends Component> void addComponentTo(
+            final Entity entity,
+            final TComponent component
+    ) {
+        record(ADD, entity, -1, component);
+    }
+
+    @Override
+    public void addComponentTo(
+            final Entity entity,
+            final Class<? extends TagComponent> tagClass
+    ) {
+        record(ADD_TAG, entity, this.entityManager.getComponentTypeIndex(tagClass), null);
+    }
+
+    @Override
+    public <TComponent extends Component> void setComponent(
+            final Entity entity,
+            final TComponent component
+    ) {
+        record(SET, entity, -1, component);
+    }
+
+    @Override
+    public void removeComponentFrom(
+            final Entity entity,
+            final Class<? extends Component> componentClass
+    ) {
+        record(REMOVE, entity, this.entityManager.getComponentTypeIndex(componentClass), null);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Applies all recorded commands in the order they were recorded and clears the buffer.
+     * Commands targeting entities which have already been destroyed are skipped.
+     */
+    void playback() {
+        for (int i = 0; i < this.size; ++i) {
+            val entity = this.entityManager.resolve(this.targets[i]);
+            if (entity != null) {
+                playbackCommand(this.commands[i], entity, this.componentTypes[i], this.components[i]);
+            }
+        }
+
+        Arrays.fill(this.components, 0, this.size, null);
+        this.size = 0;
+    }
+
+    private void playbackCommand(
+            final byte command,
+            final EntityImpl entity,
+            final int componentType,
+            @Nullable final Component component
+    ) {
+        switch (command) {
+            case SPAWN:
+                this.entityManager.spawn(entity);
+                break;
+            case DESTROY:
+                this.entityManager.destroy(entity);
+                break;
+            case ADD:
+                // noinspection ConstantConditions
+                if (!this.entityManager.hasComponent(entity, component.getClass())) {
+                    this.entityManager.addComponentNow(entity, component);
+                }
+                break;
+            case ADD_TAG:
+                val tagClass = this.entityManager.getComponentType(componentType).asSubclass(TagComponent.class);
+                if (!this.entityManager.hasComponent(entity, tagClass)) {
+                    this.entityManager.addTagNow(entity, tagClass);
+                }
+                break;
+            case SET:
+                // noinspection ConstantConditions
+                removeIfPresent(entity, component.getClass());
+                this.entityManager.addComponentNow(entity, component);
+                break;
+            case REMOVE:
+                removeIfPresent(entity, this.entityManager.getComponentType(componentType));
+                break;
+            default:
+                throw new IllegalStateException("Unknown command: " + command);
+        }
+    }
+
+    private void removeIfPresent(
+            final EntityImpl entity,
+            final Class<? extends Component> componentClass
+    ) {
+        if (this.entityManager.hasComponent(entity, componentClass)) {
+            this.entityManager.removeComponentNow(entity, componentClass);
+        }
+    }
+
+    private void record(
+            final byte command,
+            final Entity target,
+            final int componentType,
+            @Nullable final Component component
+    ) {
+        if (this.size == this.commands.length) {
+            grow(Math.max(INITIAL_CAPACITY, this.size * 2));
+        }
+
+        this.commands[this.size] = command;
+        this.targets[this.size] = target.getHandle();
+        this.componentTypes[this.size] = componentType;
+        this.components[this.size] = component;
+        ++this.size;
+    }
+
+    private void grow(final int capacity) {
+        this.commands = Arrays.copyOf(this.commands, capacity);
+        this.targets = Arrays.copyOf(this.targets, capacity);
+        this.componentTypes = Arrays.copyOf(this.componentTypes, capacity);
+        this.components = Arrays.copyOf(this.components, capacity);
+    }
+}
@@ -1,22 +1,60 @@
 package fi.jakojaannos.roguelite.engine.ecs.entities;
 
-import fi.jakojaannos.roguelite.engine.utilities.BitMaskUtils;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentSignature;
 import lombok.Getter;
 
 public class EntityImpl implements fi.jakojaannos.roguelite.engine.ecs.Entity {
     @Getter private final int id;
-    @Getter private final byte[] componentBitmask;
+    @Getter private int generation;
+    @Getter private final ComponentSignature componentSignature;
     @Getter private boolean markedForRemoval;
 
     public EntityImpl(int id, int maxComponentTypes) {
+        this(id, 0, maxComponentTypes);
+    }
+
+    public EntityImpl(int id, int generation, int maxComponentTypes) {
         this.id = id;
+        this.generation = generation;
         this.markedForRemoval = false;
 
-        int nBytes = BitMaskUtils.calculateMaskSize(maxComponentTypes);
-        this.componentBitmask = new byte[nBytes];
+        this.componentSignature = new ComponentSignature(maxComponentTypes);
+    }
+
+    @Override
+    public long getHandle() {
+        return createHandle(this.id, this.generation);
+    }
+
+    /**
+     * Re-initializes the entity for a new generation of its ID. The component signature is cleared
+     * and the removal mark is lifted.
+     *
+     * @param generation the new generation
+     */
+    void reuse(final int generation) {
+        this.generation = generation;
+        this.componentSignature.clear();
+        this.markedForRemoval = false;
     }
 
     void markForRemoval() {
         this.markedForRemoval = true;
     }
+
+    void unmarkForRemoval() {
+        this.markedForRemoval = false;
+    }
+
+    static long createHandle(final int id, final int generation) {
+        return ((long) generation << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    static int idOf(final long handle) {
+        return (int) handle;
+    }
+
+    static int generationOf(final long handle) {
+        return (int) (handle >>> 32);
+    }
 }
@@ -2,17 +2,29 @@ package fi.jakojaannos.roguelite.engine.ecs.entities;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
 import fi.jakojaannos.roguelite.engine.ecs.ComponentGroup;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentMapper;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentObserver;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.EntityCommandBuffer;
 import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
+import fi.jakojaannos.roguelite.engine.ecs.EntityQuery;
+import fi.jakojaannos.roguelite.engine.ecs.EntityTemplate;
+import fi.jakojaannos.roguelite.engine.ecs.OffHeapColumns;
+import fi.jakojaannos.roguelite.engine.ecs.StorageLayout;
+import fi.jakojaannos.roguelite.engine.ecs.TagComponent;
+import fi.jakojaannos.roguelite.engine.ecs.components.ComponentSnapshot;
 import fi.jakojaannos.roguelite.engine.ecs.components.ComponentStorage;
-import fi.jakojaannos.roguelite.engine.utilities.BitMaskUtils;
+import fi.jakojaannos.roguelite.engine.ecs.components.TemplateLayout;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
-import java.util.ArrayDeque;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
 import java.util.stream.Stream;
 
 /**
@@ -23,12 +35,29 @@ public class EntityManagerImpl implements EntityManager {
     private final int maxComponentTypes;
     private final EntityStorage entityStorage;
     private final ComponentStorage componentStorage;
-    private final Queue<StorageTask> taskQueue = new ArrayDeque<>();
-
-    private int entityCapacity;
+    private final QueryStorage queryStorage;
+    private final ObserverStorage observers = new ObserverStorage();
+    private final EntityCommandBufferImpl modifications;
+    private final List<EntityCommandBufferImpl> commandBuffers = new ArrayList<>();
+    /**
+     * Released buffers which have been played back for the last time, re-used by {@link
+     * #createCommandBuffer()}.
+     */
+    private final List<EntityCommandBufferImpl> pooledCommandBuffers = new ArrayList<>();
+    private final EntityCommandBufferImpl defaultCommandBuffer;
+    private final ThreadLocal<EntityCommandBuffer> boundCommandBuffer = new ThreadLocal<>();
+    private final Map<EntityTemplate, TemplateLayout> templateLayouts = new IdentityHashMap<>();
 
     public EntityManagerImpl(final int entityCapacity, final int maxComponentTypes) {
-        this(entityCapacity, maxComponentTypes, new EntityStorage(entityCapacity), new ComponentStorage(entityCapacity, maxComponentTypes));
+        this(entityCapacity, maxComponentTypes, StorageLayout.COMPONENT_MAPS);
+    }
+
+    public EntityManagerImpl(
+            final int entityCapacity,
+            final int maxComponentTypes,
+            final StorageLayout layout
+    ) {
+        this(entityCapacity, maxComponentTypes, new EntityStorage(entityCapacity), new ComponentStorage(entityCapacity, maxComponentTypes, layout));
     }
 
     public EntityManagerImpl(
@@ -38,9 +67,11 @@ public class EntityManagerImpl implements EntityManager {
             final ComponentStorage componentStorage
     ) {
         this.entityStorage = entityStorage;
-        this.entityCapacity = entityCapacity;
         this.maxComponentTypes = maxComponentTypes;
         this.componentStorage = componentStorage;
+        this.queryStorage = new QueryStorage(entityCapacity);
+        this.modifications = new EntityCommandBufferImpl(this);
+        this.defaultCommandBuffer = (EntityCommandBufferImpl) createCommandBuffer();
     }
 
     @Override
@@ -48,6 +79,40 @@ public class EntityManagerImpl implements EntityManager {
         return this.entityStorage.count();
     }
 
+    @Override
+    public Snapshot snapshot() {
+        val entities = this.entityStorage.snapshot();
+        return new EntityManagerSnapshot(this,
+                                         entities,
+                                         this.componentStorage.snapshot(entities.entities),
+                                         this.queryStorage.snapshot());
+    }
+
+    @Override
+    public void restore(final Snapshot snapshot) {
+        if (!(snapshot instanceof EntityManagerSnapshot) || ((EntityManagerSnapshot) snapshot).owner != this) {
+            throw new IllegalStateException("Snapshot was not captured from this entity manager!");
+        }
+        val restored = (EntityManagerSnapshot) snapshot;
+
+        // Pending modifications are applied without notifying the observers, so that entities
+        // which are not yet spawned get cleared along with the rest
+        playbackCommandBuffers();
+        this.observers.clear();
+
+        this.entityStorage.stream().forEach(entity -> {
+            this.componentStorage.clear(entity);
+            entity.markForRemoval();
+        });
+
+        // Components and query members are restored in their captured order, so that systems
+        // iterate the entities in the same order as they did after the snapshot was captured
+        this.entityStorage.restore(restored.entities);
+        this.componentStorage.restore(restored.components);
+        this.queryStorage.restore(restored.queries, restored.entities.entities);
+        this.componentStorage.recyclePooledComponents();
+    }
+
     @Override
     public void registerComponentGroup(final ComponentGroup group) {
         this.componentStorage.registerGroup(group);
@@ -55,47 +120,198 @@ public class EntityManagerImpl implements EntityManager {
 
     @Override
     public Entity createEntity() {
-        val entity = this.entityStorage.create(this.maxComponentTypes);
-        if (this.entityStorage.isFull()) {
-            resize(this.entityCapacity * 2);
+        val entity = allocate();
+        this.modifications.spawn(entity);
+        return entity;
+    }
+
+    @Override
+    public Entity spawn(final EntityTemplate template) {
+        return spawnFrom(template, layoutOf(template));
+    }
+
+    @Override
+    public void spawnBatch(
+            final EntityTemplate template,
+            final int count,
+            final EntityTemplate.Initializer initializer
+    ) {
+        val layout = layoutOf(template);
+        this.modifications.reserve(count);
+        for (int i = 0; i < count; ++i) {
+            initializer.initialize(spawnFrom(template, layout), i);
         }
+    }
 
-        this.taskQueue.offer(() -> this.entityStorage.spawn(entity));
+    @Override
+    public void destroyEntity(final Entity entity) {
+        val buffer = this.boundCommandBuffer.get();
+        if (buffer != null) {
+            buffer.destroyEntity(entity);
+        } else {
+            this.modifications.destroyEntity(entity);
+        }
+    }
 
-        return entity;
+    @Override
+    public EntityCommandBuffer createCommandBuffer() {
+        val pooled = this.pooledCommandBuffers.size();
+        val buffer = pooled > 0
+                ? this.pooledCommandBuffers.remove(pooled - 1)
+                : new EntityCommandBufferImpl(this);
+        buffer.setReleased(false);
+        this.commandBuffers.add(buffer);
+        return buffer;
     }
 
     @Override
-    public void destroyEntity(final Entity entityRaw) {
-        val entity = (EntityImpl) entityRaw;
-        entity.markForRemoval();
-        this.taskQueue.offer(() -> {
-            this.componentStorage.clear(entity);
-            this.entityStorage.remove(entity);
-        });
+    public void releaseCommandBuffer(final EntityCommandBuffer buffer) {
+        if (!(buffer instanceof EntityCommandBufferImpl) || !this.commandBuffers.contains(buffer)) {
+            throw new IllegalStateException("Command buffer was not created by this entity manager!");
+        }
+        ((EntityCommandBufferImpl) buffer).setReleased(true);
+    }
+
+    @Override
+    public EntityCommandBuffer getCommandBuffer() {
+        val buffer = this.boundCommandBuffer.get();
+        return buffer != null
+                ? buffer
+                : this.defaultCommandBuffer;
+    }
+
+    @Override
+    public void setCommandBuffer(@Nullable final EntityCommandBuffer buffer) {
+        if (buffer == null) {
+            this.boundCommandBuffer.remove();
+        } else {
+            this.boundCommandBuffer.set(buffer);
+        }
+    }
+
+    @Override
+    public boolean isAlive(final long handle) {
+        return this.entityStorage.isAlive(handle);
+    }
+
+    @Nullable
+    @Override
+    public Entity getEntity(final long handle) {
+        return this.entityStorage.get(handle);
     }
 
     @Override
     public void applyModifications() {
-        while (!this.taskQueue.isEmpty()) {
-            this.taskQueue.remove().execute();
+        playbackCommandBuffers();
+        this.observers.notifyObservers();
+        this.componentStorage.recyclePooledComponents();
+    }
+
+    @Override
+    public int releaseEmptyPages() {
+        val emptyPages = this.entityStorage.releaseEmptyPages();
+        for (val page : emptyPages) {
+            this.componentStorage.releasePage(page);
+            this.queryStorage.releasePage(page);
         }
+
+        LOG.debug("Released storage pages of {} empty entity ID ranges", emptyPages.length);
+        return emptyPages.length;
+    }
+
+    @Override
+    public <TComponent extends Component> void addObserver(
+            final Class<TComponent> componentClass,
+            final ComponentObserver<? super TComponent> observer
+    ) {
+        this.observers.add(componentClass, observer);
+    }
+
+    @Override
+    public <TComponent extends Component> void removeObserver(
+            final Class<TComponent> componentClass,
+            final ComponentObserver<? super TComponent> observer
+    ) {
+        this.observers.remove(componentClass, observer);
     }
 
     @Override
     public <TComponent extends Component> void addComponentTo(
-            final Entity entity,
+            final Entity entityRaw,
             final TComponent component
     ) {
-        this.componentStorage.add((EntityImpl) entity, component);
+        val entity = unwrap(entityRaw);
+        val buffer = getBoundCommandBufferFor(entity);
+        if (buffer != null) {
+            buffer.addComponentTo(entity, component);
+        } else {
+            addComponentNow(entity, component);
+        }
+    }
+
+    @Override
+    public void addComponentTo(
+            final Entity entityRaw,
+            final Class<? extends TagComponent> tagClass
+    ) {
+        val entity = unwrap(entityRaw);
+        val buffer = getBoundCommandBufferFor(entity);
+        if (buffer != null) {
+            buffer.addComponentTo(entity, tagClass);
+        } else {
+            addTagNow(entity, tagClass);
+        }
     }
 
     @Override
     public void removeComponentFrom(
-            final Entity entity,
+            final Entity entityRaw,
+            final Class<? extends Component> componentClass
+    ) {
+        val entity = unwrap(entityRaw);
+        val buffer = getBoundCommandBufferFor(entity);
+        if (buffer != null) {
+            buffer.removeComponentFrom(entity, componentClass);
+        } else {
+            removeComponentNow(entity, componentClass);
+        }
+    }
+
+    <TComponent extends Component> void addComponentNow(
+            final EntityImpl entity,
+            final TComponent component
+    ) {
+        this.componentStorage.add(entity, component);
+        updateQueries(entity);
+
+        if (this.observers.isObserved(component.getClass())) {
+            this.observers.recordAdded(entity, component);
+        }
+    }
+
+    void addTagNow(
+            final EntityImpl entity,
+            final Class<? extends TagComponent> tagClass
+    ) {
+        this.componentStorage.addTag(entity, tagClass);
+        updateQueries(entity);
+
+        if (this.observers.isObserved(tagClass)) {
+            this.observers.recordAdded(entity, this.componentStorage.get(entity, tagClass).orElseThrow());
+        }
+    }
+
+    void removeComponentNow(
+            final EntityImpl entity,
             final Class<? extends Component> componentClass
     ) {
-        this.componentStorage.remove((EntityImpl) entity, componentClass);
+        if (this.observers.isObserved(componentClass)) {
+            this.componentStorage.get(entity, componentClass)
+                                 .ifPresent(component -> this.observers.recordRemoved(entity, component));
+        }
+
+        this.componentStorage.remove(entity, componentClass);
+        updateQueries(entity);
     }
 
     @Override
@@ -103,7 +319,31 @@ public class EntityManagerImpl implements EntityManager {
             final Entity entity,
             final Class<? extends TComponent> componentClass
     ) {
-        return this.componentStorage.get((EntityImpl) entity, componentClass);
+        return this.componentStorage.get(unwrap(entity), componentClass);
+    }
+
+    @Override
+    public <TComponent extends Component> ComponentMapper<TComponent> getComponentMapper(
+            final Class<TComponent> componentClass
+    ) {
+        return this.componentStorage.getMapper(componentClass);
+    }
+
+    @Override
+    public <TComponent extends Component> OffHeapColumns<TComponent> getOffHeapColumns(
+            final Class<TComponent> componentClass
+    ) {
+        return this.componentStorage.getOffHeapColumns(componentClass);
+    }
+
+    @Override
+    public int getChangeTick() {
+        return this.componentStorage.getChangeTick();
+    }
+
+    @Override
+    public int advanceChangeTick() {
+        return this.componentStorage.advanceChangeTick();
     }
 
     @Override
@@ -111,7 +351,7 @@ public class EntityManagerImpl implements EntityManager {
             final Entity entity,
             final Class<? extends Component> componentClass
     ) {
-        return this.componentStorage.exists((EntityImpl) entity, componentClass);
+        return this.componentStorage.exists(unwrap(entity), componentClass);
     }
 
     @Override
@@ -119,26 +359,25 @@ public class EntityManagerImpl implements EntityManager {
             final Entity entity,
             final ComponentGroup group
     ) {
-        return this.componentStorage.anyExists((EntityImpl) entity, group);
+        return this.componentStorage.anyExists(unwrap(entity), group);
     }
 
     @Override
     public <TComponent extends Component> Stream<EntityComponentPair<TComponent>> getEntitiesWith(
             final Class<? extends TComponent> componentClass
     ) {
-        return this.entityStorage.stream()
-                                 .filter(e -> this.componentStorage.exists(e, componentClass))
-                                 .map(e -> new EntityComponentPair<>(e, getComponentOf(e, componentClass).orElseThrow()));
+        return getEntitiesWith(List.<Class<? extends Component>>of(componentClass))
+                .map(e -> new EntityComponentPair<>(e, getComponentOf(e, componentClass).orElseThrow()));
     }
 
     @Override
     public Stream<Entity> getEntitiesWith(
             final Collection<Class<? extends Component>> componentTypes
     ) {
-        val requiredMask = this.componentStorage.createComponentBitmask(componentTypes);
-        return this.entityStorage.stream()
-                                 .filter(e -> BitMaskUtils.hasAllBitsOf(e.getComponentBitmask(), requiredMask))
-                                 .map(Entity.class::cast);
+        val required = this.componentStorage.createComponentSignature(componentTypes);
+        val excluded = this.componentStorage.createComponentSignature(List.of());
+        return this.componentStorage.stream(this.entityStorage, required, excluded)
+                                    .map(Entity.class::cast);
     }
 
     @Override
@@ -148,38 +387,206 @@ public class EntityManagerImpl implements EntityManager {
             final Collection<ComponentGroup> requiredGroups,
             final Collection<ComponentGroup> excludedGroups
     ) {
-        val requiredMask = this.componentStorage.createComponentBitmask(required, requiredGroups);
-        val excludedMask = this.componentStorage.createComponentBitmask(excluded, excludedGroups);
-        return this.entityStorage.stream()
-                                 .filter(e -> BitMaskUtils.hasNoneOfTheBitsOf(e.getComponentBitmask(), excludedMask))
-                                 .filter(e -> BitMaskUtils.hasAllBitsOf(e.getComponentBitmask(), requiredMask))
-                                 .map(Entity.class::cast);
+        val requiredSignature = this.componentStorage.createComponentSignature(required, requiredGroups);
+        val excludedSignature = this.componentStorage.createComponentSignature(excluded, excludedGroups);
+        return this.componentStorage.stream(this.entityStorage, requiredSignature, excludedSignature)
+                                    .map(Entity.class::cast);
     }
 
     @Override
     public void clearComponentsExcept(
-            final Entity entity,
+            final Entity entityRaw,
             final Class<? extends Component> componentType
     ) {
-        this.componentStorage.clear((EntityImpl) entity, componentType);
+        val entity = unwrap(entityRaw);
+        recordRemovals(entity, List.of(componentType), false);
+        this.componentStorage.clear(entity, componentType);
+        updateQueries(entity);
     }
 
     @Override
     public void clearComponentsExcept(
-            final Entity entity,
+            final Entity entityRaw,
             final Collection<Class<? extends Component>> allowedComponentTypes
     ) {
-        this.componentStorage.clear((EntityImpl) entity, allowedComponentTypes);
+        val entity = unwrap(entityRaw);
+        recordRemovals(entity, allowedComponentTypes, false);
+        this.componentStorage.clear(entity, allowedComponentTypes);
+        updateQueries(entity);
+    }
+
+    @Override
+    public EntityQuery createQuery(
+            final Collection<Class<? extends Component>> required,
+            final Collection<Class<? extends Component>> excluded,
+            final Collection<ComponentGroup> requiredGroups,
+            final Collection<ComponentGroup> excludedGroups
+    ) {
+        val requiredSignature = this.componentStorage.createComponentSignature(required, requiredGroups);
+        val excludedSignature = this.componentStorage.createComponentSignature(excluded, excludedGroups);
+        return this.queryStorage.getOrCreate(requiredSignature,
+                                             excludedSignature,
+                                             this.componentStorage.stream(this.entityStorage, requiredSignature, excludedSignature));
+    }
+
+    /**
+     * Creates a new entity without recording it to be spawned. Used by command buffers, which
+     * record spawning the entity themselves. May be called from systems ticking in parallel.
+     */
+    EntityImpl reserveEntity() {
+        return allocate();
+    }
+
+    /**
+     * Gets the entity referred to by the handle, including entities which are not yet spawned.
+     * Used when playing back command buffers.
+     */
+    @Nullable
+    EntityImpl resolve(final long handle) {
+        return this.entityStorage.resolve(handle);
+    }
+
+    int getComponentTypeIndex(final Class<? extends Component> componentClass) {
+        return this.componentStorage.getComponentTypeIndex(componentClass);
+    }
+
+    Class<? extends Component> getComponentType(final int componentTypeIndex) {
+        return this.componentStorage.getComponentType(componentTypeIndex);
+    }
+
+    void spawn(final EntityImpl entity) {
+        this.entityStorage.spawn(entity);
+        this.queryStorage.update(entity);
+    }
+
+    void destroy(final EntityImpl entity) {
+        recordRemovals(entity, List.of(), true);
+        this.queryStorage.remove(entity);
+        this.componentStorage.clear(entity);
+        this.entityStorage.remove(entity);
+    }
+
+    static EntityImpl unwrap(final Entity entity) {
+        return (EntityImpl) entity;
+    }
+
+    /**
+     * Plays back the modifications and all command buffers. Released buffers are unregistered and
+     * pooled once they have been played back.
+     */
+    private void playbackCommandBuffers() {
+        this.modifications.playback();
+        for (val buffer : this.commandBuffers) {
+            buffer.playback();
+        }
+
+        for (int i = this.commandBuffers.size() - 1; i >= 0; --i) {
+            val buffer = this.commandBuffers.get(i);
+            if (buffer.isReleased()) {
+                this.commandBuffers.remove(i);
+                this.pooledCommandBuffers.add(buffer);
+            }
+        }
+    }
+
+    /**
+     * Gets the command buffer changes to the entity should be recorded to. Changes to spawned
+     * entities are recorded to the buffer bound to the current thread, if any, so that systems
+     * never modify the entities matched by the queries while the systems are ticking. Entities
+     * which are not yet spawned match no queries, so they are modified immediately.
+     */
+    @Nullable
+    private EntityCommandBuffer getBoundCommandBufferFor(final EntityImpl entity) {
+        val buffer = this.boundCommandBuffer.get();
+        return buffer != null && this.entityStorage.isSpawned(entity)
+                ? buffer
+                : null;
+    }
+
+    /**
+     * Records removal of all observed components the entity has, except the ones of given types.
+     * Must be called before the components are actually removed.
+     */
+    private void recordRemovals(
+            final EntityImpl entity,
+            final Collection<Class<? extends Component>> keptComponentTypes,
+            final boolean destroyed
+    ) {
+        for (val componentClass : this.observers.getObservedTypes()) {
+            if (keptComponentTypes.contains(componentClass)) {
+                continue;
+            }
+
+            this.componentStorage.get(entity, componentClass)
+                                 .ifPresent(component -> {
+                                     if (destroyed) {
+                                         this.observers.recordDestroyed(entity, component);
+                                     } else {
+                                         this.observers.recordRemoved(entity, component);
+                                     }
+                                 });
+        }
+    }
+
+    private TemplateLayout layoutOf(final EntityTemplate template) {
+        return this.templateLayouts.computeIfAbsent(template, this.componentStorage::createLayout);
     }
 
-    private void resize(final int entityCapacity) {
-        LOG.debug("Resizing EntityManager... Size: {} -> {}", this.entityCapacity, entityCapacity);
-        this.entityCapacity = entityCapacity;
-        this.entityStorage.resize(entityCapacity);
-        this.componentStorage.resize(entityCapacity);
+    private Entity spawnFrom(final EntityTemplate template, final TemplateLayout layout) {
+        val entity = allocate();
+        val components = this.componentStorage.instantiate(template, layout);
+        this.componentStorage.addAll(entity, layout, components);
+
+        for (int i = 0; i < components.length; ++i) {
+            val componentClass = template.getComponentType(i);
+            if (this.observers.isObserved(componentClass)) {
+                val component = components[i] != null
+                        ? components[i]
+                        : this.componentStorage.get(entity, componentClass).orElseThrow();
+                this.observers.recordAdded(entity, component);
+            }
+        }
+
+        this.modifications.spawn(entity);
+        return entity;
     }
 
-    private interface StorageTask {
-        void execute();
+    // Command buffers of systems ticking in parallel may create entities simultaneously
+    private synchronized EntityImpl allocate() {
+        return this.entityStorage.create(this.maxComponentTypes);
+    }
+
+    private void updateQueries(final EntityImpl entity) {
+        // Entities which are not yet spawned are added to the queries once they are spawned
+        if (this.entityStorage.isSpawned(entity)) {
+            this.queryStorage.update(entity);
+        }
+    }
+
+    private static final class EntityManagerSnapshot implements Snapshot {
+        private final EntityManagerImpl owner;
+        private final EntityStorage.Snapshot entities;
+        private final ComponentSnapshot components;
+        /**
+         * Members of each query, in iteration order.
+         */
+        private final EntityImpl[][] queries;
+
+        private EntityManagerSnapshot(
+                final EntityManagerImpl owner,
+                final EntityStorage.Snapshot entities,
+                final ComponentSnapshot components,
+                final EntityImpl[][] queries
+        ) {
+            this.owner = owner;
+            this.entities = entities;
+            this.components = components;
+            this.queries = queries;
+        }
+
+        @Override
+        public int getEntityCount() {
+            return this.entities.entities.length;
+        }
     }
 }
@@ -0,0 +1,145 @@
+package fi.jakojaannos.roguelite.engine.ecs.entities;
+
+import fi.jakojaannos.roguelite.engine.ecs.ComponentSignature;
+import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.EntityQuery;
+import fi.jakojaannos.roguelite.engine.utilities.PagedIntArray;
+import lombok.val;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Default {@link EntityQuery} implementation. Members are kept in a dense array, with a per-entity
+ * position lookup allowing constant time insertion and removal.
+ */
+class EntityQueryImpl implements EntityQuery {
+    private final ComponentSignature required;
+    private final ComponentSignature excluded;
+
+    private EntityImpl[] members;
+    /**
+     * Position of each entity in <code>members</code>, indexed by entity ID. Positions are offset
+     * by one, so that zero can be used for marking non-members.
+     */
+    private final PagedIntArray positionOf;
+    private int size;
+
+    EntityQueryImpl(
+            final ComponentSignature required,
+            final ComponentSignature excluded,
+            final int entityCapacity
+    ) {
+        this.required = required;
+        this.excluded = excluded;
+        this.members = new EntityImpl[16];
+        this.positionOf = new PagedIntArray(entityCapacity);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public Entity get(final int index) {
+        Objects.checkIndex(index, this.size);
+        return this.members[index];
+    }
+
+    @Override
+    public Stream<Entity> stream() {
+        // Systems are allowed to add or remove components while iterating, which would shuffle
+        // the members around. Stream over a copy to keep the iteration stable.
+        return this.size == 0
+                ? Stream.empty()
+                : Arrays.stream(toArray());
+    }
+
+    @Override
+    public Entity[] toArray() {
+        return Arrays.copyOf(this.members, this.size, Entity[].class);
+    }
+
+    boolean matches(final EntityImpl entity) {
+        return entity.getComponentSignature().matches(this.required, this.excluded);
+    }
+
+    void update(final EntityImpl entity) {
+        val isMember = this.positionOf.get(entity.getId()) != 0;
+        val shouldBeMember = matches(entity);
+        if (shouldBeMember && !isMember) {
+            add(entity);
+        } else if (!shouldBeMember && isMember) {
+            remove(entity);
+        }
+    }
+
+    void remove(final EntityImpl entity) {
+        val position = this.positionOf.get(entity.getId()) - 1;
+        if (position == -1) {
+            return;
+        }
+
+        val last = this.size - 1;
+        if (position != last) {
+            val moved = this.members[last];
+            this.members[position] = moved;
+            this.positionOf.set(moved.getId(), position + 1);
+        }
+
+        this.members[last] = null;
+        this.positionOf.set(entity.getId(), 0);
+        --this.size;
+    }
+
+    void releasePage(final int page) {
+        this.positionOf.releasePage(page);
+    }
+
+    /**
+     * Copies the members, in iteration order.
+     *
+     * @return the members
+     */
+    EntityImpl[] copyMembers() {
+        return Arrays.copyOf(this.members, this.size);
+    }
+
+    /**
+     * Replaces the members, keeping their order.
+     *
+     * @param members the new members, must match the query
+     */
+    void setMembers(final EntityImpl[] members) {
+        clear();
+        if (members.length > this.members.length) {
+            this.members = Arrays.copyOf(this.members, Math.max(members.length, this.members.length * 2));
+        }
+
+        System.arraycopy(members, 0, this.members, 0, members.length);
+        this.size = members.length;
+        for (int i = 0; i < this.size; ++i) {
+            this.positionOf.set(this.members[i].getId(), i + 1);
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < this.size; ++i) {
+            this.positionOf.set(this.members[i].getId(), 0);
+            this.members[i] = null;
+        }
+        this.size = 0;
+    }
+
+    private void add(final EntityImpl entity) {
+        if (this.size == this.members.length) {
+            this.members = Arrays.copyOf(this.members, this.members.length * 2);
+        }
+
+        this.members[this.size] = entity;
+        ++this.size;
+        this.positionOf.set(entity.getId(), this.size);
+    }
+}
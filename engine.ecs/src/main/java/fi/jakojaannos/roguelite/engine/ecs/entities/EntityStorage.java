@@ -1,62 +1,308 @@
 package fi.jakojaannos.roguelite.engine.ecs.entities;
 
-import fi.jakojaannos.roguelite.engine.utilities.IdSupplier;
-import lombok.AccessLevel;
-import lombok.Getter;
+import fi.jakojaannos.roguelite.engine.utilities.PagedArray;
+import fi.jakojaannos.roguelite.engine.utilities.PagedIntArray;
 import lombok.val;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
  * Internal entity storage for default {@link fi.jakojaannos.roguelite.engine.ecs.EntityManager
  * EntityManager} implementation.
+ * <p>
+ * IDs of removed entities are re-used, along with the entity instances holding them, so that
+ * creating entities does not allocate once IDs are being recycled. References to removed entities
+ * thus end up referring to the entities re-using their IDs. To allow detecting stale references,
+ * each ID has a generation counter which is incremented whenever an entity with that ID is removed,
+ * and {@link EntityImpl#getHandle() handles} include the generation.
+ * <p>
+ * Entities are stored in {@link PagedArray pages}, so that growing the storage never copies the
+ * existing entities. Number of allocated IDs is tracked per page, allowing the storages indexed by
+ * entity ID to release pages of ID ranges with no entities left.
  */
 public class EntityStorage {
-    @Getter(AccessLevel.PACKAGE) private int capacity;
-    private EntityImpl[] entities;
+    /**
+     * The spawned entities, indexed by ID.
+     */
+    private final PagedArray<EntityImpl> entities;
+    /**
+     * Entities holding each allocated ID, indexed by ID. Unlike {@link #entities}, includes the
+     * entities which have been created but not yet spawned.
+     */
+    private final PagedArray<EntityImpl> allocated;
+    /**
+     * Entity instance of each ID, indexed by ID. Kept after the ID is freed, so that the instance
+     * can be re-used once the ID is.
+     */
+    private final PagedArray<EntityImpl> instances;
+    /**
+     * Generation of each ID. Never released and never decremented, as otherwise handles of removed
+     * entities could become valid again. May be ahead of the generation of the entity holding the
+     * ID after {@link #restore(Snapshot) restoring} an older entity.
+     */
+    private final PagedIntArray generations;
 
-    private final IdSupplier idSupplier = new IdSupplier();
+    /**
+     * Stack of IDs freed by removed entities.
+     */
+    private final PagedIntArray freeIds;
+    private int freeIdCount;
+    private int nextId;
     private int entityCount;
+    /**
+     * Number of allocated IDs on each page.
+     */
+    private int[] allocatedPerPage;
 
     public EntityStorage(final int capacity) {
-        this.capacity = 0;
-        this.entityCount = 0;
-        this.entities = new EntityImpl[0];
-        resize(capacity);
+        this.entities = new PagedArray<>(capacity);
+        this.allocated = new PagedArray<>(capacity);
+        this.instances = new PagedArray<>(capacity);
+        this.generations = new PagedIntArray(capacity);
+        this.freeIds = new PagedIntArray(0);
+        this.allocatedPerPage = new int[PagedArray.pageCountFor(capacity)];
     }
 
     EntityImpl create(final int maxComponentTypes) {
-        val entityId = this.idSupplier.get();
+        val entityId = this.freeIdCount > 0
+                ? this.freeIds.get(--this.freeIdCount)
+                : this.nextId++;
         this.entityCount += 1;
-        return new EntityImpl(entityId, maxComponentTypes);
+
+        val page = PagedArray.pageOf(entityId);
+        if (page >= this.allocatedPerPage.length) {
+            this.allocatedPerPage = Arrays.copyOf(this.allocatedPerPage,
+                                                  Math.max(page + 1, this.allocatedPerPage.length * 2));
+        }
+        ++this.allocatedPerPage[page];
+
+        val generation = this.generations.get(entityId);
+        var entity = this.instances.get(entityId);
+        if (entity != null) {
+            entity.reuse(generation);
+        } else {
+            entity = new EntityImpl(entityId, generation, maxComponentTypes);
+            this.instances.set(entityId, entity);
+        }
+        this.allocated.set(entityId, entity);
+        return entity;
     }
 
     void spawn(final EntityImpl entity) {
-        this.entities[entity.getId()] = entity;
+        this.entities.set(entity.getId(), entity);
     }
 
     void remove(final EntityImpl entity) {
+        val entityId = entity.getId();
+        if (this.allocated.get(entityId) != entity) {
+            return;
+        }
+
         this.entityCount -= 1;
-        this.idSupplier.free(entity.getId());
-        this.entities[entity.getId()] = null;
+        this.entities.set(entityId, null);
+        this.allocated.set(entityId, null);
+        this.generations.set(entityId, this.generations.get(entityId) + 1);
+        this.freeIds.set(this.freeIdCount++, entityId);
+        --this.allocatedPerPage[PagedArray.pageOf(entityId)];
+    }
+
+    /**
+     * Captures the spawned entities and the state of the ID allocator. IDs allocated for entities
+     * which are not yet spawned are captured as free IDs.
+     *
+     * @return the captured state
+     */
+    Snapshot snapshot() {
+        val isFree = new boolean[this.nextId];
+        for (int i = 0; i < this.freeIdCount; ++i) {
+            isFree[this.freeIds.get(i)] = true;
+        }
+
+        val generations = this.generations.toArray(this.nextId);
+        val entities = new ArrayList<EntityImpl>(this.entityCount);
+        val freeIds = new ArrayList<Integer>();
+        for (int id = 0; id < this.nextId; ++id) {
+            val entity = this.entities.get(id);
+            if (entity != null) {
+                entities.add(entity);
+            } else if (!isFree[id]) {
+                // Pending entities are never spawned after restoring, so their handles must not
+                // become valid again
+                ++generations[id];
+                freeIds.add(id);
+            }
+        }
+
+        val freeIdArray = Arrays.copyOf(this.freeIds.toArray(this.freeIdCount), this.freeIdCount + freeIds.size());
+        for (int i = 0; i < freeIds.size(); ++i) {
+            freeIdArray[this.freeIdCount + i] = freeIds.get(i);
+        }
+
+        val entityArray = entities.toArray(EntityImpl[]::new);
+        val entityGenerations = new int[entityArray.length];
+        for (int i = 0; i < entityArray.length; ++i) {
+            entityGenerations[i] = entityArray[i].getGeneration();
+        }
+
+        return new Snapshot(entityArray, entityGenerations, generations, freeIdArray, this.nextId);
+    }
+
+    /**
+     * Restores the captured state. Entities spawned after the snapshot was captured are removed
+     * and the captured entities are spawned again. The removed entities are not marked for
+     * removal, callers are expected to do that. Captured entities whose instances have since been
+     * re-used get their captured generation back, with their component signatures cleared.
+     * <p>
+     * Generations are not rolled back. IDs of the restored entities keep the newer of the current
+     * and the captured generation, and all other IDs advance past both, so that handles of the
+     * entities created after the snapshot never become valid again.
+     *
+     * @param snapshot the state to restore
+     */
+    void restore(final Snapshot snapshot) {
+        val idCount = Math.max(this.nextId, snapshot.nextId);
+        for (int id = 0; id < idCount; ++id) {
+            this.entities.set(id, null);
+            this.allocated.set(id, null);
+        }
+
+        val generations = this.generations.toArray(idCount);
+        val restored = new boolean[idCount];
+        for (val entity : snapshot.entities) {
+            restored[entity.getId()] = true;
+        }
+        for (int id = 0; id < idCount; ++id) {
+            val captured = id < snapshot.nextId ? snapshot.generations[id] : 0;
+            val newest = Math.max(generations[id], captured);
+            generations[id] = restored[id] ? newest : newest + 1;
+        }
+        this.generations.setAll(generations);
+        this.freeIds.setAll(snapshot.freeIds);
+        this.freeIdCount = snapshot.freeIds.length;
+        this.nextId = snapshot.nextId;
+        this.entityCount = snapshot.entities.length;
+
+        val pageCount = PagedArray.pageCountFor(this.nextId);
+        if (pageCount > this.allocatedPerPage.length) {
+            this.allocatedPerPage = new int[pageCount];
+        } else {
+            Arrays.fill(this.allocatedPerPage, 0);
+        }
+        for (int i = 0; i < snapshot.entities.length; ++i) {
+            val entity = snapshot.entities[i];
+            if (entity.getGeneration() != snapshot.entityGenerations[i]) {
+                entity.reuse(snapshot.entityGenerations[i]);
+            }
+            this.entities.set(entity.getId(), entity);
+            this.allocated.set(entity.getId(), entity);
+            this.instances.set(entity.getId(), entity);
+            entity.unmarkForRemoval();
+            ++this.allocatedPerPage[PagedArray.pageOf(entity.getId())];
+        }
     }
 
-    void resize(final int capacity) {
-        this.capacity = capacity;
-        this.entities = Arrays.copyOf(this.entities, this.capacity);
+    /**
+     * Releases the pages of ID ranges with no allocated IDs.
+     *
+     * @return indices of the pages with no allocated IDs
+     */
+    int[] releaseEmptyPages() {
+        val emptyPages = IntStream.range(0, PagedArray.pageCountFor(this.nextId))
+                                  .filter(page -> this.allocatedPerPage[page] == 0)
+                                  .toArray();
+        for (val page : emptyPages) {
+            this.entities.releasePage(page);
+            this.allocated.releasePage(page);
+            this.instances.releasePage(page);
+        }
+        return emptyPages;
     }
 
     public Stream<EntityImpl> stream() {
-        return Arrays.stream(this.entities).filter(Objects::nonNull);
+        return IntStream.range(0, this.nextId)
+                        .mapToObj(this.entities::get)
+                        .filter(Objects::nonNull);
+    }
+
+    public boolean isSpawned(final EntityImpl entity) {
+        return this.entities.get(entity.getId()) == entity;
+    }
+
+    boolean isAlive(final long handle) {
+        return get(handle) != null;
+    }
+
+    @Nullable
+    EntityImpl get(final long handle) {
+        val entityId = EntityImpl.idOf(handle);
+        if (entityId < 0) {
+            return null;
+        }
+
+        val entity = this.entities.get(entityId);
+        return entity != null && entity.getGeneration() == EntityImpl.generationOf(handle)
+                ? entity
+                : null;
     }
 
-    public boolean isFull() {
-        return this.entityCount >= this.capacity;
+    /**
+     * Gets the entity referred to by the handle. Unlike {@link #get(long)}, resolves entities which
+     * have been created but not yet spawned.
+     *
+     * @param handle handle of the entity
+     *
+     * @return the entity, <code>null</code> if the entity has been removed
+     */
+    @Nullable
+    EntityImpl resolve(final long handle) {
+        val entityId = EntityImpl.idOf(handle);
+        if (entityId < 0) {
+            return null;
+        }
+
+        val entity = this.allocated.get(entityId);
+        return entity != null && entity.getGeneration() == EntityImpl.generationOf(handle)
+                ? entity
+                : null;
     }
 
     public int count() {
         return this.entityCount;
     }
+
+    /**
+     * State of the storage, captured by {@link #snapshot()}.
+     */
+    static final class Snapshot {
+        /**
+         * The spawned entities, in ID order.
+         */
+        final EntityImpl[] entities;
+        /**
+         * Generations of the spawned entities, as their instances may be re-used later on.
+         */
+        final int[] entityGenerations;
+        final int[] generations;
+        final int[] freeIds;
+        final int nextId;
+
+        private Snapshot(
+                final EntityImpl[] entities,
+                final int[] entityGenerations,
+                final int[] generations,
+                final int[] freeIds,
+                final int nextId
+        ) {
+            this.entities = entities;
+            this.entityGenerations = entityGenerations;
+            this.generations = generations;
+            this.freeIds = freeIds;
+            this.nextId = nextId;
+        }
+    }
 }
@@ -0,0 +1,140 @@
+package fi.jakojaannos.roguelite.engine.ecs.entities;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentObserver;
+import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of the {@link ComponentObserver observers} registered to a single entity manager and
+ * the changes waiting to be notified. Like commands of a command buffer, pending notifications are
+ * stored as opcodes with the entity and the component in parallel arrays.
+ */
+final class ObserverStorage {
+    private static final byte ADDED = 0;
+    private static final byte REMOVED = 1;
+    private static final byte DESTROYED = 2;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<Class<? extends Component>, List<ComponentObserver<?>>> observers = new HashMap<>();
+
+    private byte[] events = new byte[0];
+    private Entity[] entities = new Entity[0];
+    private Component[] components = new Component[0];
+    private int size;
+
+    void add(
+            final Class<? extends Component> componentClass,
+            final ComponentObserver<?> observer
+    ) {
+        this.observers.computeIfAbsent(componentClass, key -> new ArrayList<>())
+                      .add(observer);
+    }
+
+    void remove(
+            final Class<? extends Component> componentClass,
+            final ComponentObserver<?> observer
+    ) {
+        val observersOfType = this.observers.get(componentClass);
+        if (observersOfType != null) {
+            observersOfType.remove(observer);
+            if (observersOfType.isEmpty()) {
+                this.observers.remove(componentClass);
+            }
+        }
+    }
+
+    boolean isObserved(final Class<? extends Component> componentClass) {
+        return !this.observers.isEmpty() && this.observers.containsKey(componentClass);
+    }
+
+    Set<Class<? extends Component>> getObservedTypes() {
+        return this.observers.keySet();
+    }
+
+    void recordAdded(final Entity entity, final Component component) {
+        record(ADDED, entity, component);
+    }
+
+    void recordRemoved(final Entity entity, final Component component) {
+        record(REMOVED, entity, component);
+    }
+
+    void recordDestroyed(final Entity entity, final Component component) {
+        record(DESTROYED, entity, component);
+    }
+
+    /**
+     * Notifies the observers of all recorded changes, in the order the changes were recorded.
+     * Changes recorded while notifying are notified during the same call.
+     */
+    void notifyObservers() {
+        for (int i = 0; i < this.size; ++i) {
+            val event = this.events[i];
+            val entity = this.entities[i];
+            val component = this.components[i];
+
+            val observersOfType = this.observers.get(component.getClass());
+            if (observersOfType == null) {
+                continue;
+            }
+
+            // Index-based, so that observers may safely register new observers while notified
+            for (int j = 0; j < observersOfType.size(); ++j) {
+                // Observers are stored under the class they observe, which is the class of the component
+                @SuppressWarnings("unchecked")
+                final ComponentObserver<Component> observer = (ComponentObserver<Component>) observersOfType.get(j);
+                switch (event) {
+                    case ADDED:
+                        observer.onAdded(entity, component);
+                        break;
+                    case REMOVED:
+                        observer.onRemoved(entity, component);
+                        break;
+                    case DESTROYED:
+                        observer.onDestroyed(entity, component);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown event: " + event);
+                }
+            }
+        }
+
+        clear();
+    }
+
+    /**
+     * Discards all recorded changes without notifying the observers.
+     */
+    void clear() {
+        Arrays.fill(this.entities, 0, this.size, null);
+        Arrays.fill(this.components, 0, this.size, null);
+        this.size = 0;
+    }
+
+    private void record(
+            final byte event,
+            final Entity entity,
+            final Component component
+    ) {
+        if (this.size == this.events.length) {
+            val capacity = Math.max(INITIAL_CAPACITY, this.size * 2);
+            this.events = Arrays.copyOf(this.events, capacity);
+            this.entities = Arrays.copyOf(this.entities, capacity);
+            this.components = Arrays.copyOf(this.components, capacity);
+        }
+
+        this.events[this.size] = event;
+        this.entities[this.size] = entity;
+        this.components[this.size] = component;
+        ++this.size;
+    }
+}
@@ -0,0 +1,123 @@
+package fi.jakojaannos.roguelite.engine.ecs.entities;
+
+import fi.jakojaannos.roguelite.engine.ecs.ComponentSignature;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Keeps track of all {@link EntityQueryImpl queries} created for a single entity manager. Queries
+ * with identical signatures are shared, so that multiple systems (or dispatchers) with the same
+ * requirements do not cause the same membership to be maintained multiple times.
+ */
+class QueryStorage {
+    private final Map<QueryKey, EntityQueryImpl> queriesBySignatures = new HashMap<>();
+    private final List<EntityQueryImpl> queries = new ArrayList<>();
+
+    private final int entityCapacity;
+
+    QueryStorage(final int entityCapacity) {
+        this.entityCapacity = entityCapacity;
+    }
+
+    /**
+     * Gets an existing query with the given signatures or creates a new one. New queries are
+     * populated from the given stream of currently spawned entities. The stream needs to contain at
+     * least all entities matching the signatures, other entities are ignored.
+     *
+     * @param required        signature of the required components and groups
+     * @param excluded        signature of the excluded components and groups
+     * @param spawnedEntities currently spawned entities to populate a new query from
+     *
+     * @return query for the given signatures
+     */
+    EntityQueryImpl getOrCreate(
+            final ComponentSignature required,
+            final ComponentSignature excluded,
+            final Stream<EntityImpl> spawnedEntities
+    ) {
+        val key = new QueryKey(required, excluded);
+        var query = this.queriesBySignatures.get(key);
+        if (query == null) {
+            val newQuery = new EntityQueryImpl(required, excluded, this.entityCapacity);
+            spawnedEntities.forEach(newQuery::update);
+
+            this.queriesBySignatures.put(key, newQuery);
+            this.queries.add(newQuery);
+            query = newQuery;
+        }
+        return query;
+    }
+
+    /**
+     * Re-evaluates membership of the entity in all queries. Should be called for spawned entities
+     * whenever their component signature changes and once when the entity is spawned.
+     *
+     * @param entity the entity to update
+     */
+    void update(final EntityImpl entity) {
+        for (val query : this.queries) {
+            query.update(entity);
+        }
+    }
+
+    void remove(final EntityImpl entity) {
+        for (val query : this.queries) {
+            query.remove(entity);
+        }
+    }
+
+    /**
+     * Captures the members of all queries, in iteration order.
+     *
+     * @return members of each query, in query creation order
+     */
+    EntityImpl[][] snapshot() {
+        val members = new EntityImpl[this.queries.size()][];
+        for (int i = 0; i < members.length; ++i) {
+            members[i] = this.queries.get(i).copyMembers();
+        }
+        return members;
+    }
+
+    /**
+     * Restores the captured members of the queries, so that the queries iterate their members in
+     * the same order as when the members were captured. Queries created after capturing are
+     * re-populated from the given entities.
+     *
+     * @param members         captured members of each query
+     * @param spawnedEntities the entities spawned after restoring
+     */
+    void restore(final EntityImpl[][] members, final EntityImpl[] spawnedEntities) {
+        for (int i = 0; i < this.queries.size(); ++i) {
+            val query = this.queries.get(i);
+            if (i < members.length) {
+                query.setMembers(members[i]);
+            } else {
+                query.clear();
+                for (val entity : spawnedEntities) {
+                    query.update(entity);
+                }
+            }
+        }
+    }
+
+    void releasePage(final int page) {
+        for (val query : this.queries) {
+            query.releasePage(page);
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class QueryKey {
+        private final ComponentSignature required;
+        private final ComponentSignature excluded;
+    }
+}
@@ -1,13 +1,20 @@
 package fi.jakojaannos.roguelite.engine.ecs.systems;
 
+import fi.jakojaannos.roguelite.engine.ecs.DispatchMode;
 import fi.jakojaannos.roguelite.engine.ecs.DispatcherBuilder;
 import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.SystemDispatcher;
 import fi.jakojaannos.roguelite.engine.ecs.SystemGroup;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
 import lombok.val;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -17,6 +24,9 @@ import java.util.stream.Collectors;
 public class DispatcherBuilderImpl implements DispatcherBuilder {
     private final List<RequirementsBuilderImpl> systems = new ArrayList<>();
     private final SystemDependencyResolver dependencyResolver = new SystemDependencyResolver();
+    private final Map<Class<? extends ECSSystem>, TickInterval> systemIntervals = new HashMap<>();
+    private final Map<SystemGroup, TickInterval> groupIntervals = new HashMap<>();
+    private DispatchMode mode = DispatchMode.SERIAL;
 
     @Override
     public DispatcherBuilder withGroup(final SystemGroup group) {
@@ -46,12 +56,87 @@ public class DispatcherBuilderImpl implements DispatcherBuilder {
         return this;
     }
 
+    @Override
+    public DispatcherBuilder withTickInterval(
+            final Class<? extends ECSSystem> system,
+            final int interval,
+            final int phase
+    ) {
+        this.systemIntervals.put(system, TickInterval.of(interval, phase));
+        return this;
+    }
+
+    @Override
+    public DispatcherBuilder withTickInterval(
+            final SystemGroup group,
+            final int interval,
+            final int phase
+    ) {
+        this.groupIntervals.put(group, TickInterval.of(interval, phase));
+        return this;
+    }
+
+    @Override
+    public DispatcherBuilder withMode(final DispatchMode mode) {
+        this.mode = mode;
+        return this;
+    }
+
     @Override
     public SystemDispatcher build() {
-        return new SystemDispatcherImpl(
-                new SystemStorage(this.systems.stream()
-                                              .map(RequirementsBuilderImpl::build)
-                                              .collect(Collectors.toList()),
-                                  this.dependencyResolver.buildGroups()));
+        val systemStorage = new SystemStorage(this.systems.stream()
+                                                          .map(RequirementsBuilderImpl::build)
+                                                          .map(this::applyTickInterval)
+                                                          .collect(Collectors.toList()),
+                                              this.dependencyResolver.buildGroups());
+        val scheduler = new SystemScheduler(systemStorage);
+        val schedule = scheduler.resolve();
+        val batches = this.mode == DispatchMode.PARALLEL
+                ? scheduler.resolveParallelBatches(schedule)
+                : Arrays.stream(schedule)
+                        .map(systemContext -> new SystemContext[]{systemContext})
+                        .toArray(SystemContext[][]::new);
+        return new SystemDispatcherImpl(systemStorage, batches, this.mode);
+    }
+
+    private SystemContext applyTickInterval(final SystemContext systemContext) {
+        var interval = this.systemIntervals.get(systemContext.getInstance().getClass());
+        if (interval == null) {
+            val groupIntervals = systemContext.getGroups()
+                                              .map(this.groupIntervals::get)
+                                              .filter(Objects::nonNull)
+                                              .distinct()
+                                              .collect(Collectors.toList());
+            if (groupIntervals.size() > 1) {
+                throw new IllegalStateException(String.format(
+                        "System %s belongs to groups with conflicting tick intervals!",
+                        systemContext.getInstance().getClass().getSimpleName()));
+            }
+            interval = groupIntervals.isEmpty() ? null : groupIntervals.get(0);
+        }
+
+        return interval != null
+                ? systemContext.toBuilder()
+                               .tickInterval(interval.interval)
+                               .tickPhase(interval.phase)
+                               .build()
+                : systemContext;
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class TickInterval {
+        private final int interval;
+        private final int phase;
+
+        static TickInterval of(final int interval, final int phase) {
+            if (interval < 1 || phase < 0 || phase >= interval) {
+                throw new IllegalStateException(String.format(
+                        "Invalid tick interval %d with phase %d, interval must be positive and phase within the interval!",
+                        interval,
+                        phase));
+            }
+            return new TickInterval(interval, phase);
+        }
     }
 }
@@ -2,6 +2,9 @@ package fi.jakojaannos.roguelite.engine.ecs.systems;
 
 import fi.jakojaannos.roguelite.engine.ecs.*;
 import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+import java.util.function.Predicate;
 
 /**
  * Default {@link RequirementsBuilder} implementation. Handles delegating system/group/component
@@ -15,8 +18,10 @@ public class RequirementsBuilderImpl implements RequirementsBuilder {
     private final SystemContext.Builder builder = new SystemContext.Builder();
 
     public SystemContext build() {
+        val requirements = this.requirements.build();
         return builder.instance(this.instance)
-                      .requirements(this.requirements.build())
+                      .requirements(requirements)
+                      .query(new SystemQuery(requirements))
                       .dependencies(this.dependencyBuilder.buildFor(this.instance))
                       .build();
     }
@@ -59,6 +64,13 @@ public class RequirementsBuilderImpl implements RequirementsBuilder {
         return this;
     }
 
+    @Override
+    public RequirementsBuilder withChangedComponent(final Class<? extends Component> componentClass) {
+        this.requirements.requiredComponent(componentClass);
+        this.requirements.changedComponent(componentClass);
+        return this;
+    }
+
     @Override
     public RequirementsBuilder withoutComponent(final Class<? extends Component> componentClass) {
         this.requirements.excludedComponent(componentClass);
@@ -82,4 +94,56 @@ public class RequirementsBuilderImpl implements RequirementsBuilder {
         this.requirements.requiredResource(resource);
         return this;
     }
+
+    @Override
+    public RequirementsBuilder readsComponent(final Class<? extends Component> componentClass) {
+        this.requirements.readComponent(componentClass);
+        return this;
+    }
+
+    @Override
+    public RequirementsBuilder writesComponent(final Class<? extends Component> componentClass) {
+        this.requirements.writtenComponent(componentClass);
+        return this;
+    }
+
+    @Override
+    public RequirementsBuilder readsResource(final Class<? extends Resource> resource) {
+        this.requirements.readResource(resource);
+        return this;
+    }
+
+    @Override
+    public RequirementsBuilder writesResource(final Class<? extends Resource> resource) {
+        this.requirements.writtenResource(resource);
+        return this;
+    }
+
+    @Override
+    public RequirementsBuilder runIfEntitiesMatch() {
+        this.requirements.skippedWhenEmpty(true);
+        return this;
+    }
+
+    @Override
+    public <TResource extends Resource> RequirementsBuilder runIf(
+            final Class<TResource> resource,
+            final Predicate<? super TResource> condition
+    ) {
+        val handle = ResourceHandle.of(resource);
+        this.requirements.requiredResource(resource);
+        this.requirements.runCondition(world -> condition.test(world.getResource(handle)));
+        return this;
+    }
+
+    @Override
+    public RequirementsBuilder runIfEventsIn(final Class<? extends EventChannel<?>> channel) {
+        final ResourceHandle<? extends EventChannel<?>> handle = ResourceHandle.of(channel);
+        this.requirements.requiredResource(channel);
+        this.requirements.runCondition(world -> {
+            val events = world.getResource(handle);
+            return !events.current().isEmpty() || !events.previous().isEmpty();
+        });
+        return this;
+    }
 }
@@ -0,0 +1,58 @@
+package fi.jakojaannos.roguelite.engine.ecs.systems;
+
+import fi.jakojaannos.roguelite.engine.ecs.EntityCommandBuffer;
+import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
+import fi.jakojaannos.roguelite.engine.ecs.ParallelECSSystem;
+
+import javax.annotation.Nullable;
+
+/**
+ * Command buffers of a single system. Buffers are created once per entity manager, one for each
+ * range the system may be split into. ({@link ParallelECSSystem Parallel systems} may have multiple
+ * ranges, regular systems always have exactly one) As the entity manager plays buffers back in the
+ * order they were created, the buffers must be created on the dispatching thread.
+ */
+final class SystemCommandBuffers {
+    private final EntityCommandBuffer[] buffers;
+
+    @Nullable private EntityManager entityManager;
+
+    SystemCommandBuffers(final int rangeCount) {
+        this.buffers = new EntityCommandBuffer[rangeCount];
+    }
+
+    /**
+     * Gets the buffers for the given entity manager. Re-creates the buffers if the entity manager
+     * differs from the one used on previous call. (e.g. dispatcher is used with a different world)
+     * The buffers of the previous entity manager are released.
+     *
+     * @param entityManager entity manager to get the buffers for
+     *
+     * @return command buffers, one for each range
+     */
+    EntityCommandBuffer[] getFor(final EntityManager entityManager) {
+        if (this.entityManager != entityManager) {
+            release();
+            this.entityManager = entityManager;
+            for (int i = 0; i < this.buffers.length; ++i) {
+                this.buffers[i] = entityManager.createCommandBuffer();
+            }
+        }
+        return this.buffers;
+    }
+
+    /**
+     * Releases the buffers back to the entity manager they were created for, if any.
+     */
+    void release() {
+        if (this.entityManager == null) {
+            return;
+        }
+
+        for (int i = 0; i < this.buffers.length; ++i) {
+            this.entityManager.releaseCommandBuffer(this.buffers[i]);
+            this.buffers[i] = null;
+        }
+        this.entityManager = null;
+    }
+}
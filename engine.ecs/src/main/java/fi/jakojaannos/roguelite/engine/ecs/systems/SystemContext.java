@@ -1,11 +1,14 @@
 package fi.jakojaannos.roguelite.engine.ecs.systems;
 
 import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
+import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
 import fi.jakojaannos.roguelite.engine.ecs.SystemDispatcher;
 import fi.jakojaannos.roguelite.engine.ecs.SystemGroup;
+import fi.jakojaannos.roguelite.engine.ecs.World;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Singular;
+import lombok.val;
 
 import java.util.Collection;
 import java.util.stream.Stream;
@@ -17,15 +20,60 @@ import java.util.stream.Stream;
  *
  * @see InternalSystemGroup
  */
-@Builder(builderClassName = "Builder")
+@Builder(builderClassName = "Builder", toBuilder = true)
 public final class SystemContext {
     @Getter private final SystemRequirements requirements;
     @Getter private final SystemDependencies dependencies;
     @Getter private final ECSSystem instance;
+    @Getter private final SystemQuery query;
+    /**
+     * Number of dispatches between the ticks of the system. Values less than two tick the system
+     * on every dispatch.
+     */
+    @Getter private final int tickInterval;
+    @Getter private final int tickPhase;
 
     @Singular private final Collection<SystemGroup> groups;
 
     public Stream<SystemGroup> getGroups() {
         return this.groups.stream();
     }
+
+    /**
+     * Checks whether or not the system is scheduled to tick on the given dispatch.
+     *
+     * @param dispatchIndex number of earlier dispatches of the current world
+     *
+     * @return <code>true</code> if the system ticks on the dispatch
+     */
+    public boolean isDue(final long dispatchIndex) {
+        return this.tickInterval < 2 || dispatchIndex % this.tickInterval == this.tickPhase;
+    }
+
+    /**
+     * Checks the run criteria of the system. Empty queries are detected using the match count
+     * maintained by the entity manager, so this never iterates over the entities.
+     *
+     * @param entityManager entity manager the system is about to be ticked with
+     * @param world         world the system is about to be ticked with
+     *
+     * @return <code>true</code> if the system should be ticked, <code>false</code> if it should
+     * be skipped
+     */
+    public boolean shouldRun(final EntityManager entityManager, final World world) {
+        if (!this.requirements.hasRunCriteria()) {
+            return true;
+        }
+
+        if (this.requirements.isSkippedWhenEmpty() && this.query.getFor(entityManager).isEmpty()) {
+            return false;
+        }
+
+        for (val condition : this.requirements.getRunConditions()) {
+            if (!condition.test(world)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -1,126 +1,337 @@
 package fi.jakojaannos.roguelite.engine.ecs.systems;
 
+import fi.jakojaannos.roguelite.engine.ecs.DispatchMode;
+import fi.jakojaannos.roguelite.engine.ecs.DispatchTicks;
 import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
+import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.EntityCommandBuffer;
+import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
+import fi.jakojaannos.roguelite.engine.ecs.EntitySpanSystem;
+import fi.jakojaannos.roguelite.engine.ecs.EventChannel;
+import fi.jakojaannos.roguelite.engine.ecs.ParallelECSSystem;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.SystemDispatcher;
 import fi.jakojaannos.roguelite.engine.ecs.World;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
-import java.util.*;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
 
 /**
  * Default {@link SystemDispatcher} implementation.
  */
 @Slf4j
-@RequiredArgsConstructor
 public class SystemDispatcherImpl implements SystemDispatcher {
+    private static final int MIN_ENTITIES_PER_RANGE = 64;
+    private static final ResourceHandle<DispatchTicks> DISPATCH_TICKS = ResourceHandle.of(DispatchTicks.class);
+
     private final SystemStorage systems;
+    /**
+     * Systems in the order they are dispatched, split into batches of systems which may be
+     * executed simultaneously. Resolved once when the dispatcher is built. In serial mode, each
+     * batch contains exactly one system.
+     */
+    private final SystemContext[][] batches;
+    @Nullable private final ForkJoinPool pool;
+    /**
+     * Per-worker scratch objects for {@link ParallelECSSystem parallel systems}. Only populated in
+     * parallel mode.
+     */
+    private final Map<ECSSystem, Object[]> scratchObjects = new IdentityHashMap<>();
+    /**
+     * Command buffers of each system. Bound to the entity manager for the duration of the system
+     * tick, so that structural changes made by systems are deferred and played back in a
+     * deterministic order.
+     */
+    private final Map<ECSSystem, SystemCommandBuffers> commandBuffers = new IdentityHashMap<>();
+    /**
+     * Handles of all resources accessed by the systems. Registered to the world before
+     * dispatching, so that resources are never created while the systems are ticking.
+     */
+    private final ResourceHandle<?>[] resources;
+    /**
+     * Handles of the {@link EventChannel event channels} among the accessed resources. Channels are
+     * swapped after each dispatch.
+     */
+    private final ResourceHandle<?>[] eventChannels;
+
+    SystemDispatcherImpl(
+            final SystemStorage systems,
+            final SystemContext[][] batches,
+            final DispatchMode mode
+    ) {
+        this.systems = systems;
+        this.batches = batches;
+        this.pool = mode == DispatchMode.PARALLEL
+                ? new ForkJoinPool(Runtime.getRuntime().availableProcessors())
+                : null;
+
+        if (this.pool != null) {
+            Arrays.stream(batches)
+                  .flatMap(Arrays::stream)
+                  .map(SystemContext::getInstance)
+                  .filter(system -> system instanceof ParallelECSSystem)
+                  .forEach(system -> this.scratchObjects.put(system, IntStream.range(0, this.pool.getParallelism())
+                                                                              .mapToObj(i -> ((ParallelECSSystem<?>) system).createScratch())
+                                                                              .toArray()));
+        }
+
+        Arrays.stream(batches)
+              .flatMap(Arrays::stream)
+              .map(SystemContext::getInstance)
+              .forEach(system -> this.commandBuffers.put(system, new SystemCommandBuffers(
+                      this.scratchObjects.containsKey(system)
+                              ? this.scratchObjects.get(system).length
+                              : 1)));
+
+        this.resources = Arrays.stream(batches)
+                               .flatMap(Arrays::stream)
+                               .flatMap(systemContext -> systemContext.getRequirements().getAccessedResources())
+                               .distinct()
+                               .map(ResourceHandle::of)
+                               .toArray(ResourceHandle<?>[]::new);
+        this.eventChannels = Arrays.stream(this.resources)
+                                   .filter(handle -> EventChannel.class.isAssignableFrom(handle.getResourceType()))
+                                   .toArray(ResourceHandle<?>[]::new);
+    }
 
     @Override
     public void dispatch(final World world) {
-        val dispatchContext = new DispatchContext(this.systems.getSystems(), this.systems.getSystemGroups());
-
-        Optional<Class<? extends ECSSystem>> nextEntryPoint;
-        while ((nextEntryPoint = dispatchContext.findAnyNotDispatched()).isPresent()) {
-            Deque<SystemContext> queue = new ArrayDeque<>();
-            queue.add(this.systems.findContextByType(nextEntryPoint.get()));
-            while (!queue.isEmpty()) {
-                val systemContext = queue.getFirst();
-
-                // Due to the fact our dependency walker is paranoid, same systems may end up on the
-                // queue multiple times. If that happens, just throw away systems already dispatched.
-                if (dispatchContext.isDispatched(systemContext.getInstance().getClass())) {
-                    queue.remove();
-                    continue;
-                }
+        for (val resource : this.resources) {
+            world.registerResource(resource);
+        }
 
-                if (dispatchContext.isReadyToDispatch(systemContext)) {
-                    removeFromQueueAndDispatch(world, dispatchContext, queue, systemContext);
-                } else {
-                    queueDependenciesWithoutRemovingFromQueue(dispatchContext, queue, systemContext);
+        // The schedule is kept in the world, so that it is captured to the snapshots of the world
+        val ticks = world.getResource(DISPATCH_TICKS);
+        val dispatchIndex = ticks.getDispatchIndex();
+        val entityManager = world.getEntityManager();
+        // Skipped systems simply do not tick. The batches are still dispatched in order, so
+        // systems depending on a skipped system are never ticked before its position in the order.
+        for (val batch : this.batches) {
+            if (batch.length == 1) {
+                if (batch[0].isDue(dispatchIndex)) {
+                    ticks.markDue(batch[0].getInstance(), batch[0].getTickInterval());
+                    if (batch[0].shouldRun(entityManager, world)) {
+                        dispatchSystem(batch[0], entityManager, world);
+                    }
+                    ticks.markConsumed(batch[0].getInstance());
                 }
+            } else {
+                dispatchInParallel(batch, ticks, entityManager, world);
             }
         }
+
+        for (val channel : this.eventChannels) {
+            ((EventChannel<?>) world.getResource(channel)).swap();
+        }
+        ticks.advance();
+    }
+
+    private void dispatchSystem(
+            final SystemContext systemContext,
+            final EntityManager entityManager,
+            final World world
+    ) {
+        val query = systemContext.getQuery();
+        val buffers = this.commandBuffers.get(systemContext.getInstance()).getFor(entityManager);
+        val scratch = this.scratchObjects.get(systemContext.getInstance());
+        if (scratch != null) {
+            dispatchRanges((ParallelECSSystem<?>) systemContext.getInstance(), query.toArray(entityManager), scratch, buffers, entityManager, world);
+        } else if (systemContext.getInstance() instanceof EntitySpanSystem) {
+            val entities = query.toSpan(entityManager);
+            entityManager.setCommandBuffer(buffers[0]);
+            try {
+                ((EntitySpanSystem) systemContext.getInstance()).tick(entities, world);
+            } finally {
+                entityManager.setCommandBuffer(null);
+                entities.clear();
+            }
+        } else {
+            entityManager.setCommandBuffer(buffers[0]);
+            try {
+                systemContext.getInstance().tick(query.stream(entityManager), world);
+            } finally {
+                entityManager.setCommandBuffer(null);
+            }
+        }
+        query.markRun(entityManager.advanceChangeTick());
+    }
+
+    /**
+     * Prepares dispatching the system from another thread. Entity snapshot is taken and command
+     * buffers are created immediately, so that the returned task does not access the entity queries
+     * and the buffers are played back in a deterministic order.
+     */
+    private Runnable prepareDispatch(
+            final SystemContext systemContext,
+            final EntityManager entityManager,
+            final World world
+    ) {
+        val system = systemContext.getInstance();
+        val query = systemContext.getQuery();
+        val buffers = this.commandBuffers.get(system).getFor(entityManager);
+        val scratch = this.scratchObjects.get(system);
+        if (scratch != null) {
+            val entities = query.toArray(entityManager);
+            return () -> dispatchRanges((ParallelECSSystem<?>) system, entities, scratch, buffers, entityManager, world);
+        }
+
+        if (system instanceof EntitySpanSystem) {
+            val entities = query.toSpan(entityManager);
+            return () -> {
+                entityManager.setCommandBuffer(buffers[0]);
+                try {
+                    ((EntitySpanSystem) system).tick(entities, world);
+                } finally {
+                    entityManager.setCommandBuffer(null);
+                    entities.clear();
+                }
+            };
+        }
+
+        val entities = query.stream(entityManager);
+        return () -> {
+            entityManager.setCommandBuffer(buffers[0]);
+            try {
+                system.tick(entities, world);
+            } finally {
+                entityManager.setCommandBuffer(null);
+            }
+        };
     }
 
+    /**
+     * Splits the entities into ranges and ticks the system for each range on worker threads. Each
+     * range is given its own scratch object and command buffer.
+     */
+    private void dispatchRanges(
+            final ParallelECSSystem<?> system,
+            final Entity[] entities,
+            final Object[] scratch,
+            final EntityCommandBuffer[] buffers,
+            final EntityManager entityManager,
+            final World world
+    ) {
+        val rangeCount = Math.max(1, Math.min(scratch.length, entities.length / MIN_ENTITIES_PER_RANGE));
+        if (rangeCount == 1) {
+            tickRange(system, entities, 0, entities.length, world, scratch[0], buffers[0], entityManager);
+            return;
+        }
+
+        val pool = Objects.requireNonNull(this.pool);
+        val tasks = new ForkJoinTask<?>[rangeCount];
+        for (int i = 0; i < rangeCount; ++i) {
+            final int from = (int) ((long) entities.length * i / rangeCount);
+            final int to = (int) ((long) entities.length * (i + 1) / rangeCount);
+            final Object rangeScratch = scratch[i];
+            final EntityCommandBuffer rangeBuffer = buffers[i];
+            tasks[i] = ForkJoinTask.adapt(() -> tickRange(system, entities, from, to, world, rangeScratch, rangeBuffer, entityManager));
+        }
+
+        for (int i = 1; i < tasks.length; ++i) {
+            if (ForkJoinTask.getPool() == pool) {
+                tasks[i].fork();
+            } else {
+                pool.execute(tasks[i]);
+            }
+        }
+        tasks[0].invoke();
+        for (int i = 1; i < tasks.length; ++i) {
+            tasks[i].join();
+        }
+    }
 
-    private void removeFromQueueAndDispatch(
+    // The scratch objects of each system are created by the createScratch of the system itself
+    @SuppressWarnings("unchecked")
+    private static <TScratch> void tickRange(
+            final ParallelECSSystem<TScratch> system,
+            final Entity[] entities,
+            final int from,
+            final int to,
             final World world,
-            final DispatchContext dispatchContext,
-            final Deque<SystemContext> queue,
-            final SystemContext systemContext
+            final Object scratch,
+            final EntityCommandBuffer buffer,
+            final EntityManager entityManager
     ) {
-        queue.removeFirst();
-        systemContext.getInstance().tick(world.getEntityManager().getEntitiesWith(systemContext.getRequirements().getRequiredComponents(),
-                                                                                  systemContext.getRequirements().getExcludedComponents(),
-                                                                                  systemContext.getRequirements().getRequiredGroups(),
-                                                                                  systemContext.getRequirements().getExcludedGroups()),
-                                         world);
-        dispatchContext.setDispatched(systemContext);
+        entityManager.setCommandBuffer(buffer);
+        try {
+            system.tick(entities, from, to, world, (TScratch) scratch);
+        } finally {
+            entityManager.setCommandBuffer(null);
+        }
     }
 
-    private void queueDependenciesWithoutRemovingFromQueue(
-            final DispatchContext dispatchContext,
-            final Deque<SystemContext> queue,
-            final SystemContext systemContext
+    private void dispatchInParallel(
+            final SystemContext[] batch,
+            final DispatchTicks ticks,
+            final EntityManager entityManager,
+            final World world
     ) {
-        // TODO: This extensive dependency tree walking here should NOT be necessary. Simplify
-        //  things for easier handling of transitive dependencies caused by groups
-        //  -   One possible solution is to bake the groups into the dependency graph at build() by
-        //      adding the group dependencies to the systems.
-        //  -   Another one is to add a getAllDependencies() -method to SystemDependencies for
-        //      getting all concrete systems the system requires to be dispatched before it can run
-        //      (basically the spaghetti below, but inside SystemDependencies)
-
-        systemContext.getDependencies()
-                     .stream()
-                     .filter(dispatchContext::notDispatched)
-                     .map(this.systems::findContextByType)
-                     .forEach(queue::addFirst);
-
-        systemContext.getDependencies()
-                     .groupDependenciesAsStream()
-                     .filter(dispatchContext::notDispatched)
-                     .map(this.systems::findGroupByType)
-                     .flatMap(InternalSystemGroup::getSystems)
-                     .filter(dispatchContext::notDispatched)
-                     .map(this.systems::findContextByType)
-                     .forEach(queue::addFirst);
-
-        systemContext.getGroups()
-                     .filter(dispatchContext::notDispatched)
-                     .map(this.systems::findGroupByType)
-                     .flatMap(InternalSystemGroup::getSystems)
-                     .filter(dispatchContext::notDispatched)
-                     .filter(systemClass -> !systemClass.equals(systemContext.getInstance().getClass()))
-                     .map(this.systems::findContextByType)
-                     .forEach(queue::addFirst);
-
-        systemContext.getGroups()
-                     .filter(dispatchContext::notDispatched)
-                     .map(this.systems::findGroupByType)
-                     .flatMap(InternalSystemGroup::getDependencies)
-                     .filter(dispatchContext::notDispatched)
-                     .filter(systemClass -> !systemClass.equals(systemContext.getInstance().getClass()))
-                     .map(this.systems::findContextByType)
-                     .forEach(queue::addFirst);
-
-        systemContext.getGroups()
-                     .filter(dispatchContext::notDispatched)
-                     .map(this.systems::findGroupByType)
-                     .flatMap(InternalSystemGroup::getGroupDependencies)
-                     .filter(dispatchContext::notDispatched)
-                     .map(this.systems::findGroupByType)
-                     .flatMap(InternalSystemGroup::getSystems)
-                     .filter(dispatchContext::notDispatched)
-                     .filter(systemClass -> !systemClass.equals(systemContext.getInstance().getClass()))
-                     .map(this.systems::findContextByType)
-                     .forEach(queue::addFirst);
+        // Entity snapshots are taken on the dispatching thread and resources have been registered
+        // before dispatching, so that the systems only ever read the shared entity and resource
+        // storages.
+        val due = Arrays.stream(batch)
+                        .filter(systemContext -> systemContext.isDue(ticks.getDispatchIndex()))
+                        .toArray(SystemContext[]::new);
+        for (val systemContext : due) {
+            ticks.markDue(systemContext.getInstance(), systemContext.getTickInterval());
+        }
+
+        val running = Arrays.stream(due)
+                            .filter(systemContext -> systemContext.shouldRun(entityManager, world))
+                            .toArray(SystemContext[]::new);
+        if (running.length > 0) {
+            dispatchBatch(running, entityManager, world);
+        }
+
+        // Skipped systems consume the dispatch as well, see DispatchTicks
+        for (val systemContext : due) {
+            ticks.markConsumed(systemContext.getInstance());
+        }
+    }
+
+    private void dispatchBatch(
+            final SystemContext[] running,
+            final EntityManager entityManager,
+            final World world
+    ) {
+
+        val tasks = new ForkJoinTask<?>[running.length];
+        for (int i = 0; i < running.length; ++i) {
+            tasks[i] = ForkJoinTask.adapt(prepareDispatch(running[i], entityManager, world));
+        }
+
+        val pool = Objects.requireNonNull(this.pool);
+        for (int i = 1; i < tasks.length; ++i) {
+            pool.execute(tasks[i]);
+        }
+        tasks[0].invoke();
+        for (int i = 1; i < tasks.length; ++i) {
+            tasks[i].join();
+        }
+
+        // Systems in the same batch never access components written by each other, so they can
+        // all share the same change tick.
+        val tick = entityManager.advanceChangeTick();
+        for (val systemContext : running) {
+            systemContext.getQuery().markRun(tick);
+        }
     }
 
     @Override
     public void close() throws Exception {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+        this.commandBuffers.values().forEach(SystemCommandBuffers::release);
+
         val exceptions = this.systems.nonPrioritizedStream()
                                      .filter(s -> s instanceof AutoCloseable)
                                      .map(s -> {
@@ -0,0 +1,152 @@
+package fi.jakojaannos.roguelite.engine.ecs.systems;
+
+import fi.jakojaannos.roguelite.engine.ecs.ComponentMapper;
+import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
+import fi.jakojaannos.roguelite.engine.ecs.EntityQuery;
+import fi.jakojaannos.roguelite.engine.ecs.EntitySpan;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Persistent entity query of a single system. The underlying {@link EntityQuery} is created once
+ * per entity manager from the {@link SystemRequirements}, after which the entity manager keeps it
+ * up to date. This way dispatching a system only ever iterates over the entities matching its
+ * requirements.
+ * <p>
+ * If the system requires changed components, the matching entities are further filtered to those
+ * with components changed since the change tick of the previous run of the system.
+ */
+@RequiredArgsConstructor
+final class SystemQuery {
+    private final SystemRequirements requirements;
+    private final EntitySpan span = new EntitySpan();
+
+    @Nullable private EntityManager entityManager;
+    @Nullable private EntityQuery query;
+    @Nullable private ComponentMapper<?>[] changedComponents;
+    private int lastRunTick;
+
+    /**
+     * Gets the query for the given entity manager. Re-creates the query if the entity manager
+     * differs from the one used on previous call. (e.g. dispatcher is used with a different world)
+     * <p>
+     * The component types the system accesses are registered when the query is created. This is
+     * always done on the dispatching thread, so that systems ticking in parallel only ever read
+     * the component storage when getting their mappers.
+     *
+     * @param entityManager entity manager to get the query for
+     *
+     * @return query for the entities matching the system requirements
+     */
+    EntityQuery getFor(final EntityManager entityManager) {
+        if (this.query == null || this.entityManager != entityManager) {
+            this.entityManager = entityManager;
+            this.query = entityManager.createQuery(this.requirements.getRequiredComponents(),
+                                                   this.requirements.getExcludedComponents(),
+                                                   this.requirements.getRequiredGroups(),
+                                                   this.requirements.getExcludedGroups());
+            this.changedComponents = this.requirements.getChangedComponents()
+                                                      .stream()
+                                                      .map(entityManager::getComponentMapper)
+                                                      .toArray(ComponentMapper<?>[]::new);
+            Stream.concat(this.requirements.getReadComponents().stream(),
+                          this.requirements.getWrittenComponents().stream())
+                  .forEach(entityManager::getComponentMapper);
+            this.lastRunTick = 0;
+        }
+        return this.query;
+    }
+
+    /**
+     * Streams the entities the system should tick for. The stream is a snapshot, as with {@link
+     * EntityQuery#stream()}.
+     *
+     * @param entityManager entity manager to get the entities from
+     *
+     * @return stream of the entities
+     */
+    Stream<Entity> stream(final EntityManager entityManager) {
+        val query = getFor(entityManager);
+        return hasChangeFilter()
+                ? Arrays.stream(filterChanged(query.toArray()))
+                : query.stream();
+    }
+
+    /**
+     * Copies the entities the system should tick for to a new array.
+     *
+     * @param entityManager entity manager to get the entities from
+     *
+     * @return array of the entities
+     */
+    Entity[] toArray(final EntityManager entityManager) {
+        val entities = getFor(entityManager).toArray();
+        return hasChangeFilter()
+                ? filterChanged(entities)
+                : entities;
+    }
+
+    /**
+     * Fills the reusable span of this query with the entities the system should tick for. The span
+     * is a snapshot, like the stream returned by {@link #stream(EntityManager)}, but filling it
+     * allocates nothing once the span has grown large enough.
+     *
+     * @param entityManager entity manager to get the entities from
+     *
+     * @return the span of the entities, valid until the next call
+     */
+    EntitySpan toSpan(final EntityManager entityManager) {
+        val query = getFor(entityManager);
+        this.span.clear();
+        val filter = hasChangeFilter();
+        for (int i = 0; i < query.size(); ++i) {
+            val entity = query.get(i);
+            if (!filter || isChanged(entity)) {
+                this.span.add(entity);
+            }
+        }
+        return this.span;
+    }
+
+    /**
+     * Records the change tick of the finished run. Only changes made after the tick are visible to
+     * the next run of the system.
+     *
+     * @param tick change tick of the run
+     */
+    void markRun(final int tick) {
+        this.lastRunTick = tick;
+    }
+
+    private boolean hasChangeFilter() {
+        return this.changedComponents != null && this.changedComponents.length > 0;
+    }
+
+    private boolean isChanged(final Entity entity) {
+        // noinspection ConstantConditions
+        for (val mapper : this.changedComponents) {
+            if (mapper.isChangedSince(entity, this.lastRunTick)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Entity[] filterChanged(final Entity[] entities) {
+        int count = 0;
+        for (val entity : entities) {
+            if (isChanged(entity)) {
+                entities[count] = entity;
+                ++count;
+            }
+        }
+        return count == entities.length
+                ? entities
+                : Arrays.copyOf(entities, count);
+    }
+}
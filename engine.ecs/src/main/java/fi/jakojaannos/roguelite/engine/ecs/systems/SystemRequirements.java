@@ -9,6 +9,7 @@ import lombok.Getter;
 import lombok.Singular;
 
 import java.util.Collection;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 /**
@@ -19,8 +20,83 @@ import java.util.stream.Stream;
 @Builder(builderClassName = "Builder")
 class SystemRequirements {
     @Getter @Singular private final Collection<Class<? extends Component>> requiredComponents;
+    @Getter @Singular private final Collection<Class<? extends Component>> changedComponents;
     @Getter @Singular private final Collection<Class<? extends Component>> excludedComponents;
     @Getter @Singular private final Collection<ComponentGroup> requiredGroups;
     @Getter @Singular private final Collection<ComponentGroup> excludedGroups;
     @Getter @Singular private final Collection<Class<? extends Resource>> requiredResources;
+
+    @Getter @Singular private final Collection<Class<? extends Component>> readComponents;
+    @Getter @Singular private final Collection<Class<? extends Component>> writtenComponents;
+    @Getter @Singular private final Collection<Class<? extends Resource>> readResources;
+    @Getter @Singular private final Collection<Class<? extends Resource>> writtenResources;
+
+    /**
+     * Should the system be skipped when its query matches no entities.
+     */
+    @Getter private final boolean skippedWhenEmpty;
+    /**
+     * Conditions which must all hold for the system to be ticked.
+     */
+    @Getter @Singular private final Collection<Predicate<World>> runConditions;
+
+    /**
+     * Checks whether or not the system has declared its component and resource accesses. Systems
+     * without declared accesses may access anything and are never executed in parallel.
+     *
+     * @return <code>true</code> if any accesses have been declared, <code>false</code> otherwise
+     */
+    boolean declaresAccess() {
+        return !this.readComponents.isEmpty()
+                || !this.writtenComponents.isEmpty()
+                || !this.readResources.isEmpty()
+                || !this.writtenResources.isEmpty();
+    }
+
+    /**
+     * Checks whether or not the declared accesses of two systems conflict, that is, if either of
+     * the systems writes something the other one reads or writes.
+     *
+     * @param other requirements of the other system
+     *
+     * @return <code>true</code> if the systems cannot be executed simultaneously
+     */
+    boolean conflictsWith(final SystemRequirements other) {
+        return writesAnyOf(other.writtenComponents, other.writtenResources)
+                || writesAnyOf(other.readComponents, other.readResources)
+                || other.writesAnyOf(this.readComponents, this.readResources);
+    }
+
+    /**
+     * Checks whether or not both systems write to the same component type or resource.
+     *
+     * @param other requirements of the other system
+     *
+     * @return <code>true</code> if the systems have at least one write in common
+     */
+    boolean hasConflictingWritesWith(final SystemRequirements other) {
+        return writesAnyOf(other.writtenComponents, other.writtenResources);
+    }
+
+    /**
+     * Checks whether or not the system has any conditions which may cause it to be skipped.
+     *
+     * @return <code>true</code> if the system may be skipped
+     */
+    boolean hasRunCriteria() {
+        return this.skippedWhenEmpty || !this.runConditions.isEmpty();
+    }
+
+    Stream<Class<? extends Resource>> getAccessedResources() {
+        return Stream.of(this.requiredResources, this.readResources, this.writtenResources)
+                     .flatMap(Collection::stream);
+    }
+
+    private boolean writesAnyOf(
+            final Collection<Class<? extends Component>> components,
+            final Collection<Class<? extends Resource>> resources
+    ) {
+        return components.stream().anyMatch(this.writtenComponents::contains)
+                || resources.stream().anyMatch(this.writtenResources::contains);
+    }
 }
@@ -0,0 +1,215 @@
+package fi.jakojaannos.roguelite.engine.ecs.systems;
+
+import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
+import fi.jakojaannos.roguelite.engine.ecs.SystemGroup;
+import lombok.val;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the order in which systems are dispatched. Systems, groups and group dependencies are
+ * flattened into a plain system-to-system dependency graph, which is then sorted topologically.
+ * Systems not ordered by any dependency are scheduled in their registration order, so that the
+ * resulting schedule is deterministic.
+ */
+final class SystemScheduler {
+    private final SystemContext[] contexts;
+    private final Map<Class<? extends ECSSystem>, Integer> indexOf = new HashMap<>();
+    /**
+     * For each system, indices of the systems which must be dispatched before it.
+     */
+    private final List<Set<Integer>> dependencies;
+
+    SystemScheduler(final SystemStorage systems) {
+        this.contexts = systems.getSystems().toArray(SystemContext[]::new);
+        for (int i = 0; i < this.contexts.length; ++i) {
+            this.indexOf.put(this.contexts[i].getInstance().getClass(), i);
+        }
+
+        this.dependencies = new ArrayList<>(this.contexts.length);
+        for (val context : this.contexts) {
+            this.dependencies.add(collectDependencies(systems, context).map(this::indexOf)
+                                                                       .collect(Collectors.toSet()));
+        }
+    }
+
+    /**
+     * Resolves the dispatch order for the systems.
+     *
+     * @return the systems, in order they should be dispatched
+     *
+     * @throws IllegalStateException if the dependencies contain a cycle
+     */
+    SystemContext[] resolve() {
+        // For each system, the systems which must be dispatched after it
+        val dependents = new ArrayList<List<Integer>>(this.contexts.length);
+        val remainingDependencies = new int[this.contexts.length];
+        for (int i = 0; i < this.contexts.length; ++i) {
+            dependents.add(new ArrayList<>());
+        }
+        for (int i = 0; i < this.contexts.length; ++i) {
+            for (val dependency : this.dependencies.get(i)) {
+                dependents.get(dependency).add(i);
+            }
+            remainingDependencies[i] = this.dependencies.get(i).size();
+        }
+
+        val ready = new PriorityQueue<Integer>();
+        for (int i = 0; i < this.contexts.length; ++i) {
+            if (remainingDependencies[i] == 0) {
+                ready.add(i);
+            }
+        }
+
+        val schedule = new SystemContext[this.contexts.length];
+        var scheduled = 0;
+        while (!ready.isEmpty()) {
+            final int next = ready.remove();
+            schedule[scheduled++] = this.contexts[next];
+            for (val dependent : dependents.get(next)) {
+                if (--remainingDependencies[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (scheduled != this.contexts.length) {
+            throw new IllegalStateException(String.format(
+                    "Cyclic dependency between systems: %s",
+                    IntStream.range(0, this.contexts.length)
+                             .filter(i -> remainingDependencies[i] > 0)
+                             .mapToObj(i -> this.contexts[i].getInstance().getClass().getSimpleName())
+                             .collect(Collectors.joining(", "))));
+        }
+
+        return schedule;
+    }
+
+    /**
+     * Splits the schedule into batches of systems which can be executed simultaneously. Batches
+     * are formed from consecutive systems in the schedule, so executing the batches one after
+     * another keeps the order of any conflicting systems the same as in the serial schedule.
+     * Systems which have not declared their accesses always form a batch of their own.
+     *
+     * @param schedule the systems, in order they should be dispatched
+     *
+     * @return the batches, in order they should be dispatched
+     *
+     * @throws IllegalStateException if two systems not ordered by dependencies write to the same
+     *                               component type or resource
+     */
+    SystemContext[][] resolveParallelBatches(final SystemContext[] schedule) {
+        validateNoAmbiguousWrites(schedule);
+
+        val batches = new ArrayList<SystemContext[]>();
+        val batch = new ArrayList<SystemContext>();
+        for (val context : schedule) {
+            if (!batch.isEmpty() && !canJoin(batch, context)) {
+                batches.add(batch.toArray(SystemContext[]::new));
+                batch.clear();
+            }
+            batch.add(context);
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch.toArray(SystemContext[]::new));
+        }
+
+        return batches.toArray(SystemContext[][]::new);
+    }
+
+    private boolean canJoin(final List<SystemContext> batch, final SystemContext context) {
+        val requirements = context.getRequirements();
+        if (!requirements.declaresAccess() || !batch.get(0).getRequirements().declaresAccess()) {
+            return false;
+        }
+
+        val dependencies = this.dependencies.get(indexOf(context.getInstance().getClass()));
+        return batch.stream()
+                    .noneMatch(other -> dependencies.contains(indexOf(other.getInstance().getClass()))
+                            || requirements.conflictsWith(other.getRequirements()));
+    }
+
+    /**
+     * Ensures that there are no two systems writing to the same data without their execution order
+     * being defined by the dependencies. Such writes would produce nondeterministic results, as
+     * their order could only be determined by the order the systems happen to be registered in.
+     */
+    private void validateNoAmbiguousWrites(final SystemContext[] schedule) {
+        // All systems which must be dispatched before the system, direct or indirect
+        val predecessors = new BitSet[this.contexts.length];
+        for (val context : schedule) {
+            val index = indexOf(context.getInstance().getClass());
+            val systemPredecessors = new BitSet(this.contexts.length);
+            for (val dependency : this.dependencies.get(index)) {
+                systemPredecessors.set(dependency);
+                systemPredecessors.or(predecessors[dependency]);
+            }
+            predecessors[index] = systemPredecessors;
+        }
+
+        for (int i = 0; i < this.contexts.length; ++i) {
+            for (int j = i + 1; j < this.contexts.length; ++j) {
+                val a = this.contexts[i];
+                val b = this.contexts[j];
+                val ordered = predecessors[i].get(j) || predecessors[j].get(i);
+                if (!ordered && a.getRequirements().declaresAccess()
+                        && b.getRequirements().declaresAccess()
+                        && a.getRequirements().hasConflictingWritesWith(b.getRequirements())) {
+                    throw new IllegalStateException(String.format(
+                            "Systems %s and %s write to the same data without a defined order! Use tickAfter/tickBefore to order them.",
+                            a.getInstance().getClass().getSimpleName(),
+                            b.getInstance().getClass().getSimpleName()));
+                }
+            }
+        }
+    }
+
+    private int indexOf(final Class<? extends ECSSystem> systemClass) {
+        val index = this.indexOf.get(systemClass);
+        if (index == null) {
+            throw new IllegalStateException(String.format(
+                    "Non-registered system %s found on the dependency graph!",
+                    systemClass.getSimpleName()));
+        }
+        return index;
+    }
+
+    /**
+     * Collects all systems which need to be dispatched before the given system. These are the
+     * direct dependencies of the system, the systems of the groups the system depends on and the
+     * dependencies of the groups the system belongs to.
+     */
+    private static Stream<Class<? extends ECSSystem>> collectDependencies(
+            final SystemStorage systems,
+            final SystemContext systemContext
+    ) {
+        val dependencies = systemContext.getDependencies();
+        val groupDependencies = dependencies.groupDependenciesAsStream()
+                                            .map(group -> findGroup(systems, group))
+                                            .flatMap(InternalSystemGroup::getSystems);
+        val dependenciesFromGroups = systemContext.getGroups()
+                                                  .map(group -> findGroup(systems, group))
+                                                  .flatMap(group -> Stream.concat(
+                                                          group.getDependencies(),
+                                                          group.getGroupDependencies()
+                                                               .map(dependency -> findGroup(systems, dependency))
+                                                               .flatMap(InternalSystemGroup::getSystems)));
+
+        return Stream.of(dependencies.stream(), groupDependencies, dependenciesFromGroups)
+                     .flatMap(s -> s);
+    }
+
+    private static InternalSystemGroup findGroup(
+            final SystemStorage systems,
+            final SystemGroup group
+    ) {
+        val internalGroup = systems.findGroupByType(group);
+        if (internalGroup == null) {
+            throw new IllegalStateException(String.format("Unknown group \"%s\"!", group.getName()));
+        }
+        return internalGroup;
+    }
+}
@@ -1,19 +1,29 @@
 package fi.jakojaannos.roguelite.engine.ecs.world;
 
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
 import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
+import fi.jakojaannos.roguelite.engine.ecs.EventChannel;
 import fi.jakojaannos.roguelite.engine.ecs.Resource;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.World;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
 
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 public class WorldImpl implements World {
     private final EntityManager entityManager;
-    private final Map<Class<? extends Resource>, Resource> resourceStorage = new HashMap<>();
+    /**
+     * Resources, indexed by {@link ResourceHandle#getIndex() handle indices}.
+     */
+    private Resource[] resources;
 
     public WorldImpl(EntityManager entityManager) {
         this.entityManager = entityManager;
+        this.resources = new Resource[ResourceHandle.count()];
     }
 
     @Override
@@ -22,33 +32,96 @@ public class WorldImpl implements World {
     }
 
     @Override
-    public <TResource extends Resource> TResource getResource(Class<? extends TResource> resourceType) {
-        // noinspection unchecked
-        return (TResource) this.resourceStorage.computeIfAbsent(resourceType,
-                                                                rt -> {
-                                                                    try {
-                                                                        return resourceType.getConstructor().newInstance();
-                                                                    } catch (InstantiationException e) {
-                                                                        throw new IllegalStateException(String.format(
-                                                                                "Resource type %s represents an abstract class!",
-                                                                                rt.getSimpleName()
-                                                                        ), e);
-                                                                    } catch (IllegalAccessException e) {
-                                                                        throw new IllegalStateException(String.format(
-                                                                                "Resource type %s default constructor is not accessible!",
-                                                                                rt.getSimpleName()
-                                                                        ), e);
-                                                                    } catch (InvocationTargetException e) {
-                                                                        throw new IllegalStateException(String.format(
-                                                                                "Error creating resource of type %s, constructor threw an exception",
-                                                                                rt.getSimpleName()
-                                                                        ), e);
-                                                                    } catch (NoSuchMethodException e) {
-                                                                        throw new IllegalStateException(String.format(
-                                                                                "Resource type %s does not define a default constructor!",
-                                                                                rt.getSimpleName()
-                                                                        ));
-                                                                    }
-                                                                });
+    public <TResource extends Resource> void registerResource(final ResourceHandle<TResource> handle) {
+        val index = handle.getIndex();
+        if (index >= this.resources.length) {
+            this.resources = Arrays.copyOf(this.resources, Math.max(index + 1, ResourceHandle.count()));
+        }
+
+        if (this.resources[index] == null) {
+            this.resources[index] = createResource(handle.getResourceType());
+        }
+    }
+
+    // Resources are only ever stored at the index of the handle of their own type
+    @SuppressWarnings("unchecked")
+    @Override
+    public <TResource extends Resource> TResource getResource(final ResourceHandle<TResource> handle) {
+        val index = handle.getIndex();
+        if (index >= this.resources.length || this.resources[index] == null) {
+            registerResource(handle);
+        }
+
+        return (TResource) this.resources[index];
+    }
+
+    @Override
+    public World.Snapshot snapshot() {
+        val resources = new Resource[this.resources.length];
+        for (int i = 0; i < resources.length; ++i) {
+            if (this.resources[i] instanceof Copyable) {
+                resources[i] = copyOf(this.resources[i]);
+            }
+        }
+        return new WorldSnapshot(this, this.entityManager.snapshot(), resources);
+    }
+
+    @Override
+    public void restore(final World.Snapshot snapshot) {
+        if (!(snapshot instanceof WorldSnapshot) || ((WorldSnapshot) snapshot).owner != this) {
+            throw new IllegalStateException("Snapshot was not captured from this world!");
+        }
+        val restored = (WorldSnapshot) snapshot;
+
+        this.entityManager.restore(restored.entities);
+        for (int i = 0; i < this.resources.length; ++i) {
+            val resource = i < restored.resources.length ? restored.resources[i] : null;
+            if (resource != null) {
+                this.resources[i] = copyOf(resource);
+            } else if (this.resources[i] instanceof EventChannel) {
+                ((EventChannel<?>) this.resources[i]).clear();
+            }
+        }
+    }
+
+    private static Resource copyOf(final Resource resource) {
+        return (Resource) ((Copyable<?>) resource).copy();
+    }
+
+    private static <TResource extends Resource> TResource createResource(final Class<TResource> resourceType) {
+        try {
+            return resourceType.getConstructor().newInstance();
+        } catch (InstantiationException e) {
+            throw new IllegalStateException(String.format(
+                    "Resource type %s represents an abstract class!",
+                    resourceType.getSimpleName()
+            ), e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(String.format(
+                    "Resource type %s default constructor is not accessible!",
+                    resourceType.getSimpleName()
+            ), e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(String.format(
+                    "Error creating resource of type %s, constructor threw an exception",
+                    resourceType.getSimpleName()
+            ), e);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(String.format(
+                    "Resource type %s does not define a default constructor!",
+                    resourceType.getSimpleName()
+            ));
+        }
+    }
+
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class WorldSnapshot implements World.Snapshot {
+        private final WorldImpl owner;
+        @Getter private final EntityManager.Snapshot entities;
+        /**
+         * Copies of the copyable resources, indexed by handle indices. <code>null</code> for
+         * resources which were not captured.
+         */
+        private final Resource[] resources;
     }
 }
@@ -0,0 +1,132 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComponentSignatureTest {
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 31, 63, 64, 65, 127, 128, 199})
+    void setBitCanBeRead(int n) {
+        ComponentSignature signature = new ComponentSignature(200).set(n);
+        assertTrue(signature.get(n));
+        assertFalse(signature.get(n + 1));
+        assertFalse(signature.isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 63, 64, 150})
+    void unsetBitIsCleared(int n) {
+        ComponentSignature signature = new ComponentSignature(200).set(n).unset(n);
+        assertFalse(signature.get(n));
+        assertTrue(signature.isEmpty());
+    }
+
+    @Test
+    void settingBitOutOfBoundsThrows() {
+        assertThrows(IndexOutOfBoundsException.class, () -> new ComponentSignature(32).set(32));
+        assertThrows(IndexOutOfBoundsException.class, () -> new ComponentSignature(100).set(100));
+        assertThrows(IndexOutOfBoundsException.class, () -> new ComponentSignature(100).set(-1));
+    }
+
+    @Test
+    void containsAllChecksBitsOfAllWords() {
+        ComponentSignature signature = new ComponentSignature(200).set(1).set(70).set(150);
+
+        assertTrue(signature.containsAll(new ComponentSignature(200).set(1).set(150)));
+        assertTrue(signature.containsAll(new ComponentSignature(200)));
+        assertFalse(signature.containsAll(new ComponentSignature(200).set(1).set(151)));
+        assertFalse(signature.containsAll(new ComponentSignature(200).set(2)));
+    }
+
+    @Test
+    void containsNoneOfChecksBitsOfAllWords() {
+        ComponentSignature signature = new ComponentSignature(200).set(1).set(70).set(150);
+
+        assertTrue(signature.containsNoneOf(new ComponentSignature(200).set(2).set(151)));
+        assertFalse(signature.containsNoneOf(new ComponentSignature(200).set(2).set(150)));
+        assertFalse(signature.containsNoneOf(new ComponentSignature(200).set(1)));
+    }
+
+    @Test
+    void matchesRequiresAllRequiredAndNoneOfExcluded() {
+        ComponentSignature signature = new ComponentSignature(100).set(3).set(80);
+        ComponentSignature required = new ComponentSignature(100).set(80);
+
+        assertTrue(signature.matches(required, new ComponentSignature(100).set(4)));
+        assertFalse(signature.matches(required, new ComponentSignature(100).set(3)));
+        assertFalse(signature.matches(new ComponentSignature(100).set(81), new ComponentSignature(100)));
+    }
+
+    @Test
+    void signaturesOfDifferentSizesCanBeMatched() {
+        ComponentSignature small = new ComponentSignature(32).set(5);
+        ComponentSignature large = new ComponentSignature(200).set(5).set(150);
+
+        assertTrue(large.containsAll(small));
+        assertFalse(small.containsAll(large));
+        assertTrue(small.containsNoneOf(new ComponentSignature(200).set(150)));
+    }
+
+    @Test
+    void equalSignaturesAreEqualAndHaveEqualHashes() {
+        ComponentSignature a = new ComponentSignature(200).set(2).set(130);
+        ComponentSignature b = new ComponentSignature(200).set(130).set(2);
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, new ComponentSignature(200).set(2));
+    }
+
+    @Test
+    void equalityIgnoresTrailingUnsetBits() {
+        ComponentSignature small = new ComponentSignature(32).set(7);
+        ComponentSignature large = new ComponentSignature(200).set(7);
+
+        assertEquals(small, large);
+        assertEquals(small.hashCode(), large.hashCode());
+    }
+
+    @Test
+    void copyIsIndependentOfTheOriginal() {
+        ComponentSignature original = new ComponentSignature(200).set(100);
+        ComponentSignature copy = new ComponentSignature(original).set(101);
+
+        assertTrue(copy.get(100));
+        assertFalse(original.get(101));
+    }
+
+    @Test
+    void orCombinesSignatures() {
+        ComponentSignature signature = new ComponentSignature(200).set(1)
+                                                                  .or(new ComponentSignature(200).set(120));
+        assertTrue(signature.get(1));
+        assertTrue(signature.get(120));
+    }
+
+    @Test
+    void andNotUnsetsBitsOfOtherSignature() {
+        ComponentSignature signature = new ComponentSignature(200).set(1).set(2).set(120).set(121)
+                                                                  .andNot(new ComponentSignature(200).set(2).set(121));
+        assertTrue(signature.get(1));
+        assertFalse(signature.get(2));
+        assertTrue(signature.get(120));
+        assertFalse(signature.get(121));
+    }
+
+    @Test
+    void nextSetBitIteratesAllSetBitsInOrder() {
+        ComponentSignature signature = new ComponentSignature(200).set(0).set(63).set(64).set(199);
+
+        List<Integer> bits = new ArrayList<>();
+        for (int i = signature.nextSetBit(0); i != -1; i = signature.nextSetBit(i + 1)) {
+            bits.add(i);
+        }
+        assertEquals(List.of(0, 63, 64, 199), bits);
+    }
+}
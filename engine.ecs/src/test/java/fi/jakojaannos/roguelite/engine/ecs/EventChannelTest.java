@@ -0,0 +1,104 @@
+package fi.jakojaannos.roguelite.engine.ecs;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventChannelTest {
+    private EntityManager entityManager;
+    private TestChannel channel;
+
+    @BeforeEach
+    void beforeEach() {
+        entityManager = EntityManager.createNew(16, 8);
+        channel = new TestChannel();
+    }
+
+    @Test
+    void publishedEventsAreVisibleInPublishOrder() {
+        for (int i = 0; i < 100; ++i) {
+            channel.publish(i);
+        }
+
+        EventChannel.Events<Integer> events = channel.current();
+        assertEquals(100, events.size());
+        for (int i = 0; i < events.size(); ++i) {
+            assertEquals(i, events.get(i));
+            assertNull(events.getEntity(i));
+        }
+    }
+
+    @Test
+    void swapMovesCurrentEventsToPreviousAndDiscardsOldOnes() {
+        channel.publish(1);
+        channel.swap();
+        channel.publish(2);
+
+        assertEquals(List.of(2), channel.current().stream().collect(Collectors.toList()));
+        assertEquals(List.of(1), channel.previous().stream().collect(Collectors.toList()));
+
+        channel.swap();
+        assertTrue(channel.current().isEmpty());
+        assertEquals(List.of(2), channel.previous().stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    void eventsOfSingleEntityCanBeIterated() {
+        Entity first = entityManager.createEntity();
+        Entity second = entityManager.createEntity();
+        channel.publish(first, 1);
+        channel.publish(second, 2);
+        channel.publish(3);
+        channel.publish(first, 4);
+
+        EventChannel.Events<Integer> events = channel.current();
+        List<Integer> ofFirst = new ArrayList<>();
+        for (int i = events.first(first); i != -1; i = events.next(i)) {
+            ofFirst.add(events.get(i));
+        }
+
+        assertEquals(List.of(1, 4), ofFirst);
+        assertEquals(List.of(2), events.streamFor(second).collect(Collectors.toList()));
+        assertSame(second, events.getEntity(1));
+    }
+
+    @Test
+    void entityIndexIsResetOnSwap() {
+        Entity entity = entityManager.createEntity();
+        channel.publish(entity, 1);
+        channel.swap();
+
+        assertFalse(channel.current().hasEventsFor(entity));
+        assertTrue(channel.previous().hasEventsFor(entity));
+
+        channel.publish(entity, 2);
+        assertEquals(List.of(2), channel.current().streamFor(entity).collect(Collectors.toList()));
+    }
+
+    @Test
+    void eventsOfEntitiesSharingAnIdAreNotMixed() {
+        Entity destroyed = entityManager.createEntity();
+        channel.publish(destroyed, 1);
+        entityManager.destroyEntity(destroyed);
+        entityManager.applyModifications();
+
+        Entity reused = entityManager.createEntity();
+        entityManager.applyModifications();
+        channel.publish(reused, 2);
+
+        assertSame(destroyed, reused);
+        assertEquals(List.of(2), channel.current().streamFor(reused).collect(Collectors.toList()));
+        assertEquals(List.of(1, 2), channel.current().stream().collect(Collectors.toList()));
+    }
+
+    private static class TestChannel extends EventChannel<Integer> {
+        TestChannel() {
+            super(4);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package fi.jakojaannos.roguelite.engine.ecs.components;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentSignature;
+import fi.jakojaannos.roguelite.engine.ecs.entities.EntityImpl;
+import fi.jakojaannos.roguelite.engine.ecs.entities.EntityStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ArchetypeBackendTest {
+    private static final int TYPE_A = 0;
+    private static final int TYPE_B = 1;
+
+    private ArchetypeBackend backend;
+
+    @BeforeEach
+    void beforeEach() {
+        backend = new ArchetypeBackend(16, 8);
+        backend.registerType(TYPE_A, ComponentA.class);
+        backend.registerType(TYPE_B, ComponentB.class);
+    }
+
+    @Test
+    void addedComponentCanBeFetched() {
+        EntityImpl entity = new EntityImpl(0, 8);
+        ComponentA component = new ComponentA();
+        backend.add(entity, TYPE_A, component);
+
+        assertEquals(component, backend.get(entity, TYPE_A));
+        assertNull(backend.get(entity, TYPE_B));
+    }
+
+    @Test
+    void addingComponentPreservesExistingComponents() {
+        EntityImpl entity = new EntityImpl(0, 8);
+        ComponentA componentA = new ComponentA();
+        ComponentB componentB = new ComponentB();
+        backend.add(entity, TYPE_A, componentA);
+        backend.add(entity, TYPE_B, componentB);
+
+        assertEquals(componentA, backend.get(entity, TYPE_A));
+        assertEquals(componentB, backend.get(entity, TYPE_B));
+    }
+
+    @Test
+    void removingComponentPreservesOtherComponents() {
+        EntityImpl entity = new EntityImpl(0, 8);
+        ComponentA componentA = new ComponentA();
+        backend.add(entity, TYPE_A, componentA);
+        backend.add(entity, TYPE_B, new ComponentB());
+        backend.remove(entity, TYPE_B);
+
+        assertEquals(componentA, backend.get(entity, TYPE_A));
+        assertNull(backend.get(entity, TYPE_B));
+    }
+
+    @Test
+    void movingEntityOutOfArchetypeDoesNotAffectOtherEntities() {
+        List<EntityImpl> entities = new ArrayList<>();
+        List<ComponentA> components = new ArrayList<>();
+        for (int i = 0; i < 300; ++i) {
+            EntityImpl entity = new EntityImpl(i, 8);
+            ComponentA component = new ComponentA();
+            backend.add(entity, TYPE_A, component);
+            entities.add(entity);
+            components.add(component);
+        }
+
+        backend.add(entities.get(0), TYPE_B, new ComponentB());
+        backend.clear(entities.get(42));
+
+        for (int i = 0; i < entities.size(); ++i) {
+            if (i == 42) {
+                assertNull(backend.get(entities.get(i), TYPE_A));
+            } else {
+                assertEquals(components.get(i), backend.get(entities.get(i), TYPE_A));
+            }
+        }
+    }
+
+    @Test
+    void streamReturnsOnlySpawnedEntities() {
+        EntityStorage entityStorage = mock(EntityStorage.class);
+        EntityImpl spawned = new EntityImpl(0, 8);
+        EntityImpl notSpawned = new EntityImpl(1, 8);
+        when(entityStorage.isSpawned(any())).thenAnswer(invocation -> invocation.getArgument(0) == spawned);
+
+        backend.add(spawned, TYPE_A, new ComponentA());
+        backend.add(notSpawned, TYPE_A, new ComponentA());
+        spawned.getComponentSignature().set(TYPE_A);
+        notSpawned.getComponentSignature().set(TYPE_A);
+
+        List<EntityImpl> result = backend.stream(entityStorage,
+                                                 new ComponentSignature(8).set(TYPE_A),
+                                                 new ComponentSignature(8))
+                                         .collect(Collectors.toList());
+        assertEquals(List.of(spawned), result);
+    }
+
+    private static class ComponentA implements Component {
+    }
+
+    private static class ComponentB implements Component {
+    }
+}
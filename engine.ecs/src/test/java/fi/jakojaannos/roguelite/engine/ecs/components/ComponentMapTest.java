@@ -14,7 +14,7 @@ class ComponentMapTest {
 
     @BeforeEach
     void beforeEach() {
-        storage = new ComponentMap<>(100, MockComponent.class);
+        storage = new ComponentMap<>(100);
     }
 
     @Test
@@ -0,0 +1,84 @@
+package fi.jakojaannos.roguelite.engine.ecs.components;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Poolable;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComponentPoolTest {
+    @Test
+    void releasedComponentsAreNotAvailableBeforeRecycle() {
+        ComponentPool pool = new ComponentPool(4);
+        pool.release(new PooledComponent());
+
+        assertNull(pool.acquire());
+        pool.recycle();
+        assertNotNull(pool.acquire());
+        assertNull(pool.acquire());
+    }
+
+    @Test
+    void recycledComponentsAreReset() {
+        ComponentPool pool = new ComponentPool(4);
+        PooledComponent component = new PooledComponent();
+        component.value = 3;
+        pool.release(component);
+        pool.recycle();
+
+        assertSame(component, pool.acquire());
+        assertEquals(0, component.value);
+    }
+
+    @Test
+    void componentsReleasedToFullPoolAreDropped() {
+        ComponentPool pool = new ComponentPool(2);
+        pool.release(new PooledComponent());
+        pool.release(new PooledComponent());
+        pool.release(new PooledComponent());
+        pool.recycle();
+
+        assertEquals(2, pool.getAvailableCount());
+    }
+
+    @Test
+    void releasingPendingComponentAgainThrows() {
+        ComponentPool pool = new ComponentPool(4);
+        PooledComponent component = new PooledComponent();
+        pool.release(component);
+
+        assertThrows(IllegalStateException.class, () -> pool.release(component));
+    }
+
+    @Test
+    void releasingAvailableComponentAgainThrows() {
+        ComponentPool pool = new ComponentPool(4);
+        PooledComponent component = new PooledComponent();
+        pool.release(component);
+        pool.recycle();
+
+        assertThrows(IllegalStateException.class, () -> pool.release(component));
+        assertEquals(1, pool.getAvailableCount());
+    }
+
+    @Test
+    void acquiredComponentsCanBeReleasedAgain() {
+        ComponentPool pool = new ComponentPool(4);
+        PooledComponent component = new PooledComponent();
+        pool.release(component);
+        pool.recycle();
+        pool.release(pool.acquire());
+        pool.recycle();
+
+        assertSame(component, pool.acquire());
+    }
+
+    private static class PooledComponent implements Component, Poolable {
+        private int value;
+
+        @Override
+        public void reset() {
+            this.value = 0;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package fi.jakojaannos.roguelite.engine.ecs.components;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.entities.EntityImpl;
+import org.junit.jupiter.api.Test;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapSetTest {
+    @Test
+    void valuesArePreservedWhenColumnsGrow() {
+        OffHeapSet<MixedComponent> set = new OffHeapSet<>(256, MixedComponent.class);
+        for (int i = 0; i < 100; ++i) {
+            MixedComponent component = new MixedComponent();
+            component.x = i;
+            component.y = -i;
+            component.id = 1000L + i;
+            set.add(new EntityImpl(i, 256), component);
+        }
+
+        DoubleBuffer xs = set.getDoubles(set.columnOf("x"));
+        FloatBuffer ys = set.getFloats(set.columnOf("y"));
+        LongBuffer ids = set.getLongs(set.columnOf("id"));
+        assertEquals(100, xs.limit());
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(i, xs.get(i));
+            assertEquals(-i, ys.get(i));
+            assertEquals(1000L + i, ids.get(i));
+        }
+    }
+
+    @Test
+    void removalMovesTheLastComponentToTheFreedIndex() {
+        OffHeapSet<MixedComponent> set = new OffHeapSet<>(16, MixedComponent.class);
+        EntityImpl first = new EntityImpl(0, 16);
+        EntityImpl last = new EntityImpl(1, 16);
+        MixedComponent component = new MixedComponent();
+        component.x = 7.0;
+        set.add(first, new MixedComponent());
+        set.add(last, component);
+
+        set.remove(first);
+
+        assertEquals(1, set.size());
+        assertSame(last, set.getEntity(0));
+        assertEquals(7.0, ((MixedComponent) set.get(last)).x);
+        assertNull(set.get(first));
+    }
+
+    @Test
+    void columnsOfWrongTypeCannotBeAccessed() {
+        OffHeapSet<MixedComponent> set = new OffHeapSet<>(16, MixedComponent.class);
+        assertThrows(IllegalStateException.class, () -> set.getInts(set.columnOf("x")));
+        assertThrows(IllegalStateException.class, () -> set.columnOf("z"));
+    }
+
+    private static class MixedComponent implements Component {
+        private double x;
+        private float y;
+        private long id;
+    }
+}
@@ -1,13 +1,34 @@
 package fi.jakojaannos.roguelite.engine.ecs.entities;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentGroup;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentMapper;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentObserver;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.EntityCommandBuffer;
 import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
+import fi.jakojaannos.roguelite.engine.ecs.EntityQuery;
+import fi.jakojaannos.roguelite.engine.ecs.EntityTemplate;
+import fi.jakojaannos.roguelite.engine.ecs.OffHeapColumns;
+import fi.jakojaannos.roguelite.engine.ecs.OffHeapStorage;
+import fi.jakojaannos.roguelite.engine.ecs.Poolable;
+import fi.jakojaannos.roguelite.engine.ecs.SparseStorage;
+import fi.jakojaannos.roguelite.engine.ecs.StorageLayout;
+import fi.jakojaannos.roguelite.engine.ecs.TagComponent;
 import fi.jakojaannos.roguelite.engine.ecs.components.ComponentStorage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.nio.DoubleBuffer;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.eq;
@@ -355,6 +376,1154 @@ class EntityManagerTest {
         });
     }
 
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void componentMapperReturnsComponentsOfEntities(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        Entity entityA = entityManager.createEntity();
+        Entity entityB = entityManager.createEntity();
+        ComponentA component = new ComponentA();
+        entityManager.addComponentTo(entityA, component);
+        entityManager.addComponentTo(entityB, new ComponentB());
+        entityManager.applyModifications();
+
+        ComponentMapper<ComponentA> mapper = entityManager.getComponentMapper(ComponentA.class);
+        assertEquals(component, mapper.get(entityA));
+        assertTrue(mapper.has(entityA));
+        assertNull(mapper.getOrNull(entityB));
+        assertFalse(mapper.has(entityB));
+        assertThrows(IllegalStateException.class, () -> mapper.get(entityB));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void componentMapperReflectsChangesMadeAfterObtainingIt(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        ComponentMapper<ComponentA> mapper = entityManager.getComponentMapper(ComponentA.class);
+        Entity entity = entityManager.createEntity();
+        ComponentA component = new ComponentA();
+        entityManager.addComponentTo(entity, component);
+        assertEquals(component, mapper.get(entity));
+
+        entityManager.removeComponentFrom(entity, ComponentA.class);
+        assertNull(mapper.getOrNull(entity));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void componentMapperSeesEntitiesCreatedAfterResize(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(4, 8, layout);
+        ComponentMapper<ComponentA> mapper = entityManager.getComponentMapper(ComponentA.class);
+        Entity entity = null;
+        for (int i = 0; i < 32; ++i) {
+            entity = entityManager.createEntity();
+        }
+        ComponentA component = new ComponentA();
+        entityManager.addComponentTo(entity, component);
+        entityManager.applyModifications();
+
+        assertEquals(component, mapper.get(entity));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void releasingEmptyPagesPreservesRemainingEntities(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < 3000; ++i) {
+            Entity entity = entityManager.createEntity();
+            entityManager.addComponentTo(entity, new ComponentA());
+            entities.add(entity);
+        }
+        entityManager.applyModifications();
+        EntityQuery query = entityManager.createQuery(List.of(ComponentA.class), List.of(), List.of(), List.of());
+
+        Entity survivor = entities.get(2500);
+        entities.stream()
+                .filter(entity -> entity != survivor)
+                .forEach(entityManager::destroyEntity);
+        entityManager.applyModifications();
+
+        assertEquals(2, entityManager.releaseEmptyPages());
+        assertTrue(entityManager.isAlive(survivor));
+        assertTrue(entityManager.hasComponent(survivor, ComponentA.class));
+        assertEquals(List.of(survivor), query.stream().collect(Collectors.toList()));
+
+        Entity created = entityManager.createEntity();
+        ComponentA component = new ComponentA();
+        entityManager.addComponentTo(created, component);
+        entityManager.applyModifications();
+        assertEquals(component, entityManager.getComponentMapper(ComponentA.class).get(created));
+        assertEquals(2, query.size());
+    }
+
+    @Test
+    void entitiesAreAliveOnlyBetweenSpawningAndDestroying() {
+        Entity entity = entityManager.createEntity();
+        assertFalse(entityManager.isAlive(entity));
+
+        entityManager.applyModifications();
+        assertTrue(entityManager.isAlive(entity));
+        assertEquals(entity, entityManager.getEntity(entity.getHandle()));
+
+        entityManager.destroyEntity(entity);
+        entityManager.applyModifications();
+        assertFalse(entityManager.isAlive(entity));
+        assertNull(entityManager.getEntity(entity.getHandle()));
+    }
+
+    @Test
+    void handleOfDestroyedEntityStaysDeadAfterIdIsReused() {
+        Entity destroyed = entityManager.createEntity();
+        entityManager.applyModifications();
+        long handle = destroyed.getHandle();
+        entityManager.destroyEntity(destroyed);
+        entityManager.applyModifications();
+
+        Entity created = entityManager.createEntity();
+        entityManager.applyModifications();
+
+        assertEquals(destroyed.getId(), created.getId());
+        assertFalse(entityManager.isAlive(handle));
+        assertTrue(entityManager.isAlive(created.getHandle()));
+    }
+
+    @Test
+    void componentMappersAreCachedPerType() {
+        assertSame(entityManager.getComponentMapper(ComponentA.class),
+                   entityManager.getComponentMapper(ComponentA.class));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void tagAddedByTypeIsPresent(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        Entity entity = entityManager.createEntity();
+        ComponentA component = new ComponentA();
+        entityManager.addComponentTo(entity, component);
+        entityManager.addComponentTo(entity, TagA.class);
+
+        assertTrue(entityManager.hasComponent(entity, TagA.class));
+        assertTrue(entityManager.getComponentOf(entity, TagA.class).isPresent());
+        assertTrue(entityManager.getComponentMapper(TagA.class).has(entity));
+        assertEquals(component, entityManager.getComponentOf(entity, ComponentA.class).orElseThrow());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void removingTagPreservesOtherComponents(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        Entity entity = entityManager.createEntity();
+        ComponentA component = new ComponentA();
+        entityManager.addComponentTo(entity, TagA.class);
+        entityManager.addComponentTo(entity, component);
+        entityManager.removeComponentFrom(entity, TagA.class);
+
+        assertFalse(entityManager.hasComponent(entity, TagA.class));
+        assertFalse(entityManager.getComponentOf(entity, TagA.class).isPresent());
+        assertEquals(component, entityManager.getComponentOf(entity, ComponentA.class).orElseThrow());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void entitiesCanBeQueriedByTags(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        Entity tagged = entityManager.createEntity();
+        Entity untagged = entityManager.createEntity();
+        entityManager.addComponentTo(tagged, new ComponentA());
+        entityManager.addComponentTo(tagged, TagA.class);
+        entityManager.addComponentTo(untagged, new ComponentA());
+        entityManager.applyModifications();
+
+        List<Entity> result = entityManager.getEntitiesWith(List.of(ComponentA.class, TagA.class))
+                                           .collect(Collectors.toList());
+        assertEquals(List.of(tagged), result);
+    }
+
+    @Test
+    void tagInstancesAreShared() {
+        Entity entityA = entityManager.createEntity();
+        Entity entityB = entityManager.createEntity();
+        entityManager.addComponentTo(entityA, new TagA());
+        entityManager.addComponentTo(entityB, TagA.class);
+
+        assertSame(entityManager.getComponentOf(entityA, TagA.class).orElseThrow(),
+                   entityManager.getComponentOf(entityB, TagA.class).orElseThrow());
+    }
+
+    @Test
+    void addComponentIfAbsentWithTagTypeDoesNotAddTwice() {
+        Entity entity = entityManager.createEntity();
+        assertTrue(entityManager.addComponentIfAbsent(entity, TagA.class));
+        assertFalse(entityManager.addComponentIfAbsent(entity, TagA.class));
+    }
+
+    @Test
+    void tagsWithFieldsAreRejected() {
+        Entity entity = entityManager.createEntity();
+        assertThrows(IllegalStateException.class,
+                     () -> entityManager.addComponentTo(entity, InvalidTag.class));
+    }
+
+    @Test
+    void commandBufferChangesAreAppliedOnlyOnApplyModifications() {
+        Entity entity = entityManager.createEntity();
+        entityManager.applyModifications();
+
+        EntityCommandBuffer buffer = entityManager.createCommandBuffer();
+        buffer.addComponentTo(entity, new ComponentA());
+        buffer.addComponentTo(entity, TagA.class);
+        assertFalse(entityManager.hasComponent(entity, ComponentA.class));
+        assertFalse(buffer.isEmpty());
+
+        entityManager.applyModifications();
+        assertTrue(entityManager.hasComponent(entity, ComponentA.class));
+        assertTrue(entityManager.hasComponent(entity, TagA.class));
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void entityCreatedThroughCommandBufferCanBeUsedAsCommandTarget() {
+        EntityCommandBuffer buffer = entityManager.createCommandBuffer();
+        Entity entity = buffer.createEntity();
+        buffer.addComponentTo(entity, new ComponentA());
+        assertFalse(entityManager.isAlive(entity));
+
+        entityManager.applyModifications();
+        assertTrue(entityManager.isAlive(entity));
+        assertTrue(entityManager.hasComponent(entity, ComponentA.class));
+        assertEquals(1, entityManager.getEntitiesWith(List.of(ComponentA.class)).count());
+    }
+
+    @Test
+    void commandsTargetingDestroyedEntitiesAreSkipped() {
+        Entity entity = entityManager.createEntity();
+        entityManager.applyModifications();
+
+        EntityCommandBuffer buffer = entityManager.createCommandBuffer();
+        entityManager.destroyEntity(entity);
+        buffer.addComponentTo(entity, new ComponentA());
+        buffer.destroyEntity(entity);
+
+        assertDoesNotThrow(entityManager::applyModifications);
+        assertEquals(0, entityManager.entityCount());
+    }
+
+    @Test
+    void commandsTargetingDestroyedEntityAreSkippedEvenIfItsIdIsReused() {
+        Entity entity = entityManager.createEntity();
+        entityManager.applyModifications();
+        entityManager.destroyEntity(entity);
+        entityManager.applyModifications();
+
+        EntityCommandBuffer buffer = entityManager.createCommandBuffer();
+        buffer.addComponentTo(entity, new ComponentA());
+        Entity reused = entityManager.createEntity();
+        entityManager.applyModifications();
+
+        assertEquals(entity.getId(), reused.getId());
+        assertFalse(entityManager.hasComponent(reused, ComponentA.class));
+    }
+
+    @Test
+    void releasedCommandBufferIsPlayedBackOnceMoreAndThenReused() {
+        Entity entity = entityManager.createEntity();
+        entityManager.applyModifications();
+
+        EntityCommandBuffer buffer = entityManager.createCommandBuffer();
+        buffer.addComponentTo(entity, new ComponentA());
+        entityManager.releaseCommandBuffer(buffer);
+        entityManager.applyModifications();
+
+        assertTrue(entityManager.hasComponent(entity, ComponentA.class));
+        assertSame(buffer, entityManager.createCommandBuffer());
+    }
+
+    @Test
+    void releasingCommandBufferOfOtherEntityManagerThrows() {
+        EntityCommandBuffer buffer = EntityManager.createNew(16, 8).createCommandBuffer();
+        assertThrows(IllegalStateException.class, () -> entityManager.releaseCommandBuffer(buffer));
+    }
+
+    @Test
+    void changesToSpawnedEntitiesAreRecordedToBoundCommandBuffer() {
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentB());
+        entityManager.applyModifications();
+
+        EntityCommandBuffer buffer = entityManager.createCommandBuffer();
+        entityManager.setCommandBuffer(buffer);
+        Entity created = entityManager.createEntity();
+        entityManager.addComponentTo(created, new ComponentA());
+        entityManager.addComponentTo(entity, new ComponentA());
+        entityManager.removeComponentFrom(entity, ComponentB.class);
+        entityManager.setCommandBuffer(null);
+
+        assertTrue(entityManager.hasComponent(created, ComponentA.class));
+        assertFalse(entityManager.hasComponent(entity, ComponentA.class));
+        assertTrue(entityManager.hasComponent(entity, ComponentB.class));
+
+        entityManager.applyModifications();
+        assertTrue(entityManager.hasComponent(entity, ComponentA.class));
+        assertFalse(entityManager.hasComponent(entity, ComponentB.class));
+    }
+
+    @Test
+    void setComponentReplacesExistingComponent() {
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        entityManager.applyModifications();
+
+        ComponentA replacement = new ComponentA();
+        EntityCommandBuffer buffer = entityManager.createCommandBuffer();
+        buffer.setComponent(entity, replacement);
+        buffer.removeComponentFrom(entity, ComponentB.class);
+        entityManager.applyModifications();
+
+        assertSame(replacement, entityManager.getComponentOf(entity, ComponentA.class).orElseThrow());
+    }
+
+    @Test
+    void commandBuffersArePlayedBackInCreationOrder() {
+        Entity entity = entityManager.createEntity();
+        entityManager.applyModifications();
+
+        EntityCommandBuffer first = entityManager.createCommandBuffer();
+        EntityCommandBuffer second = entityManager.createCommandBuffer();
+        ComponentA fromFirst = new ComponentA();
+        second.addComponentTo(entity, new ComponentA());
+        first.addComponentTo(entity, fromFirst);
+        entityManager.applyModifications();
+
+        assertSame(fromFirst, entityManager.getComponentOf(entity, ComponentA.class).orElseThrow());
+    }
+
+    @Test
+    void getCommandBufferReturnsBoundBuffer() {
+        EntityCommandBuffer buffer = entityManager.createCommandBuffer();
+        EntityCommandBuffer defaultBuffer = entityManager.getCommandBuffer();
+
+        entityManager.setCommandBuffer(buffer);
+        assertSame(buffer, entityManager.getCommandBuffer());
+
+        entityManager.setCommandBuffer(null);
+        assertSame(defaultBuffer, entityManager.getCommandBuffer());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void addedComponentsAreChangedSinceEarlierTicks(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        int before = entityManager.advanceChangeTick();
+
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        entityManager.addComponentTo(entity, TagA.class);
+
+        assertTrue(entityManager.getComponentMapper(ComponentA.class).isChangedSince(entity, before));
+        assertTrue(entityManager.getComponentMapper(TagA.class).isChangedSince(entity, before));
+        assertFalse(entityManager.getComponentMapper(ComponentB.class).isChangedSince(entity, before));
+    }
+
+    @Test
+    void componentsAreNotChangedSinceTickTheyWereChangedOn() {
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        int tick = entityManager.advanceChangeTick();
+
+        assertFalse(entityManager.getComponentMapper(ComponentA.class).isChangedSince(entity, tick));
+    }
+
+    @Test
+    void markChangedUpdatesChangeTick() {
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        int tick = entityManager.advanceChangeTick();
+
+        ComponentMapper<ComponentA> mapper = entityManager.getComponentMapper(ComponentA.class);
+        mapper.getForWrite(entity);
+        assertTrue(mapper.isChangedSince(entity, tick));
+
+        int secondTick = entityManager.advanceChangeTick();
+        assertFalse(mapper.isChangedSince(entity, secondTick));
+        entityManager.markChanged(entity, ComponentA.class);
+        assertTrue(mapper.isChangedSince(entity, secondTick));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void markingComponentsChangedFromParallelThreadsMarksEveryEntity(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(4096, 8, layout);
+        Entity[] entities = new Entity[4096];
+        for (int i = 0; i < entities.length; ++i) {
+            entities[i] = entityManager.createEntity();
+            entityManager.addComponentTo(entities[i], new ComponentA());
+        }
+        entityManager.applyModifications();
+        int tick = entityManager.advanceChangeTick();
+
+        ComponentMapper<ComponentA> mapper = entityManager.getComponentMapper(ComponentA.class);
+        IntStream.range(0, entities.length)
+                 .parallel()
+                 .forEach(i -> entityManager.getComponentMapper(ComponentA.class).markChanged(entities[i]));
+
+        assertTrue(Arrays.stream(entities).allMatch(entity -> mapper.isChangedSince(entity, tick)));
+    }
+
+    @Test
+    void markingMissingComponentChangedThrows() {
+        Entity entity = entityManager.createEntity();
+        assertThrows(IllegalStateException.class,
+                     () -> entityManager.markChanged(entity, ComponentA.class));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void sparseComponentsCanBeAddedAndRemoved(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        Entity entity = entityManager.createEntity();
+        ComponentA component = new ComponentA();
+        SparseComponent sparse = new SparseComponent();
+        entityManager.addComponentTo(entity, component);
+        entityManager.addComponentTo(entity, sparse);
+
+        assertEquals(sparse, entityManager.getComponentOf(entity, SparseComponent.class).orElseThrow());
+        assertEquals(sparse, entityManager.getComponentMapper(SparseComponent.class).get(entity));
+
+        entityManager.removeComponentFrom(entity, SparseComponent.class);
+        assertFalse(entityManager.hasComponent(entity, SparseComponent.class));
+        assertNull(entityManager.getComponentMapper(SparseComponent.class).getOrNull(entity));
+        assertEquals(component, entityManager.getComponentOf(entity, ComponentA.class).orElseThrow());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void queriesRequiringSparseComponentsReturnOnlyEntitiesHavingThem(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        Entity withSparse = entityManager.createEntity();
+        Entity withSparseOnly = entityManager.createEntity();
+        Entity withoutSparse = entityManager.createEntity();
+        entityManager.addComponentTo(withSparse, new ComponentA());
+        entityManager.addComponentTo(withSparse, new SparseComponent());
+        entityManager.addComponentTo(withSparseOnly, new SparseComponent());
+        entityManager.addComponentTo(withoutSparse, new ComponentA());
+        entityManager.applyModifications();
+
+        List<Entity> result = entityManager.getEntitiesWith(List.of(ComponentA.class, SparseComponent.class))
+                                           .collect(Collectors.toList());
+        assertEquals(List.of(withSparse), result);
+
+        List<Entity> queried = entityManager.createQuery(List.of(SparseComponent.class), List.of(), List.of(), List.of())
+                                            .stream()
+                                            .collect(Collectors.toList());
+        assertEquals(2, queried.size());
+        assertTrue(queried.containsAll(List.of(withSparse, withSparseOnly)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void queriesExcludingSparseComponentsSkipEntitiesHavingThem(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        Entity withSparse = entityManager.createEntity();
+        Entity withoutSparse = entityManager.createEntity();
+        entityManager.addComponentTo(withSparse, new ComponentA());
+        entityManager.addComponentTo(withSparse, new SparseComponent());
+        entityManager.addComponentTo(withoutSparse, new ComponentA());
+        entityManager.applyModifications();
+
+        List<Entity> result = entityManager.getEntitiesWith(List.of(ComponentA.class),
+                                                            List.of(SparseComponent.class),
+                                                            List.of(),
+                                                            List.of())
+                                           .collect(Collectors.toList());
+        assertEquals(List.of(withoutSparse), result);
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void sparseComponentsOfDestroyedEntitiesAreRemoved(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        Entity destroyed = entityManager.createEntity();
+        entityManager.addComponentTo(destroyed, new SparseComponent());
+        entityManager.applyModifications();
+        entityManager.destroyEntity(destroyed);
+        entityManager.applyModifications();
+
+        Entity created = entityManager.createEntity();
+        entityManager.applyModifications();
+
+        assertEquals(destroyed.getId(), created.getId());
+        assertFalse(entityManager.hasComponent(created, SparseComponent.class));
+        assertNull(entityManager.getComponentMapper(SparseComponent.class).getOrNull(created));
+        assertEquals(0, entityManager.getEntitiesWith(List.of(SparseComponent.class)).count());
+    }
+
+    @Test
+    void sparseComponentsTrackChangeTicks() {
+        Entity entity = entityManager.createEntity();
+        int before = entityManager.advanceChangeTick();
+        entityManager.addComponentTo(entity, new SparseComponent());
+        ComponentMapper<SparseComponent> mapper = entityManager.getComponentMapper(SparseComponent.class);
+        assertTrue(mapper.isChangedSince(entity, before));
+
+        int tick = entityManager.advanceChangeTick();
+        assertFalse(mapper.isChangedSince(entity, tick));
+        mapper.getForWrite(entity);
+        assertTrue(mapper.isChangedSince(entity, tick));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void groupBitIsUnsetOnceAllMembersAreRemoved(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        ComponentGroup group = createGroup(ComponentA.class, ComponentB.class);
+        entityManager.registerComponentGroup(group);
+
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        entityManager.addComponentTo(entity, new ComponentB());
+        entityManager.addComponentTo(entity, new ComponentC());
+        entityManager.applyModifications();
+        EntityQuery query = entityManager.createQuery(List.of(), List.of(), List.of(group), List.of());
+        assertEquals(1, query.size());
+
+        entityManager.removeComponentFrom(entity, ComponentA.class);
+        assertEquals(1, query.size());
+
+        entityManager.removeComponentFrom(entity, ComponentB.class);
+        assertEquals(0, query.size());
+        assertEquals(1, entityManager.getEntitiesWith(List.of(ComponentC.class)).count());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void clearingComponentsUpdatesGroupsOfRemovedAndKeptComponents(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        ComponentGroup keptGroup = createGroup(ComponentA.class);
+        ComponentGroup removedGroup = createGroup(ComponentB.class, ComponentC.class);
+        entityManager.registerComponentGroup(keptGroup);
+        entityManager.registerComponentGroup(removedGroup);
+
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        entityManager.addComponentTo(entity, new ComponentB());
+        entityManager.addComponentTo(entity, new ComponentC());
+        entityManager.addComponentTo(entity, TagA.class);
+        entityManager.applyModifications();
+
+        entityManager.clearComponentsExcept(entity, ComponentA.class);
+        assertTrue(entityManager.hasComponent(entity, ComponentA.class));
+        assertFalse(entityManager.hasComponent(entity, ComponentB.class));
+        assertFalse(entityManager.hasComponent(entity, TagA.class));
+        assertEquals(1, entityManager.getEntitiesWith(List.of(), List.of(), List.of(keptGroup), List.of()).count());
+        assertEquals(0, entityManager.getEntitiesWith(List.of(), List.of(), List.of(removedGroup), List.of()).count());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void spawnedEntitiesHaveAllComponentsOfTheTemplate(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        EntityTemplate template = EntityTemplate.builder()
+                                                .with(ComponentA.class, ComponentA::new)
+                                                .with(SparseComponent.class, SparseComponent::new)
+                                                .withTag(TagA.class)
+                                                .build();
+
+        Entity first = entityManager.spawn(template);
+        Entity second = entityManager.spawn(template);
+        assertFalse(entityManager.isAlive(first));
+        assertTrue(entityManager.hasComponent(first, ComponentA.class));
+        assertTrue(entityManager.hasComponent(first, SparseComponent.class));
+        assertTrue(entityManager.hasComponent(first, TagA.class));
+        assertNotSame(entityManager.getComponentOf(first, ComponentA.class).orElseThrow(),
+                      entityManager.getComponentOf(second, ComponentA.class).orElseThrow());
+
+        entityManager.applyModifications();
+        assertTrue(entityManager.isAlive(first));
+        List<Entity> result = entityManager.getEntitiesWith(List.of(ComponentA.class, SparseComponent.class, TagA.class))
+                                           .collect(Collectors.toList());
+        assertEquals(List.of(first, second), result);
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void templateComponentsCanBeAddedToAndRemovedFromLater(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        EntityTemplate template = EntityTemplate.builder()
+                                                .with(ComponentA.class, ComponentA::new)
+                                                .with(ComponentB.class, ComponentB::new)
+                                                .build();
+
+        Entity entity = entityManager.spawn(template);
+        ComponentC component = new ComponentC();
+        entityManager.addComponentTo(entity, component);
+        entityManager.removeComponentFrom(entity, ComponentA.class);
+        entityManager.applyModifications();
+
+        assertFalse(entityManager.hasComponent(entity, ComponentA.class));
+        assertTrue(entityManager.hasComponent(entity, ComponentB.class));
+        assertEquals(component, entityManager.getComponentOf(entity, ComponentC.class).orElseThrow());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void spawnBatchInitializesEachEntity(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        EntityTemplate template = EntityTemplate.builder()
+                                                .with(ComponentA.class, ComponentA::new)
+                                                .build();
+
+        List<Integer> indices = new ArrayList<>();
+        List<Entity> spawned = new ArrayList<>();
+        entityManager.spawnBatch(template, 40, (entity, index) -> {
+            indices.add(index);
+            spawned.add(entity);
+            if (index % 2 == 0) {
+                entityManager.addComponentTo(entity, new ComponentB());
+            }
+        });
+        entityManager.applyModifications();
+
+        assertEquals(40, indices.size());
+        assertEquals(39, (int) indices.get(39));
+        assertEquals(40, entityManager.getEntitiesWith(List.of(ComponentA.class)).count());
+        assertEquals(20, entityManager.getEntitiesWith(List.of(ComponentB.class)).count());
+        assertTrue(spawned.stream().allMatch(entityManager::isAlive));
+    }
+
+    @Test
+    void observersAreNotifiedOfSpawnedComponents() {
+        List<String> events = new ArrayList<>();
+        entityManager.addObserver(ComponentA.class, new RecordingObserver<>(events));
+        entityManager.addObserver(TagA.class, new RecordingObserver<>(events));
+
+        entityManager.spawn(EntityTemplate.builder()
+                                          .with(ComponentA.class, ComponentA::new)
+                                          .withTag(TagA.class)
+                                          .build());
+        entityManager.applyModifications();
+
+        assertEquals(List.of("added", "added"), events);
+    }
+
+    @Test
+    void templatesCannotContainDuplicateComponentTypes() {
+        EntityTemplate.Builder builder = EntityTemplate.builder()
+                                                       .with(ComponentA.class, ComponentA::new);
+        assertThrows(IllegalStateException.class, () -> builder.with(ComponentA.class, ComponentA::new));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void pooledComponentsOfDestroyedEntitiesAreReused(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        EntityTemplate template = EntityTemplate.builder()
+                                                .with(ComponentA.class, ComponentA::new)
+                                                .withPooled(PooledComponent.class,
+                                                            PooledComponent::new,
+                                                            component -> component.initialized = true)
+                                                .build();
+
+        Entity destroyed = entityManager.spawn(template);
+        PooledComponent component = entityManager.getComponentOf(destroyed, PooledComponent.class).orElseThrow();
+        component.value = 42;
+        entityManager.applyModifications();
+        entityManager.destroyEntity(destroyed);
+        entityManager.applyModifications();
+
+        Entity spawned = entityManager.spawn(template);
+        PooledComponent recycled = entityManager.getComponentOf(spawned, PooledComponent.class).orElseThrow();
+        assertSame(component, recycled);
+        assertEquals(0, recycled.value);
+        assertTrue(recycled.initialized);
+        assertNotSame(component, entityManager.getComponentOf(entityManager.spawn(template), PooledComponent.class)
+                                              .orElseThrow());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void offHeapComponentsCanBeIteratedAndModifiedThroughColumns(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        Entity first = entityManager.createEntity();
+        Entity second = entityManager.createEntity();
+        entityManager.addComponentTo(first, new OffHeapComponent(1.0, 2));
+        entityManager.addComponentTo(second, new OffHeapComponent(3.0, 4));
+
+        OffHeapColumns<OffHeapComponent> columns = entityManager.getOffHeapColumns(OffHeapComponent.class);
+        DoubleBuffer values = columns.getDoubles(columns.columnOf("value"));
+        assertEquals(2, columns.size());
+        assertEquals(2, values.limit());
+        for (int i = 0; i < columns.size(); ++i) {
+            values.put(i, values.get(i) * 10.0);
+        }
+
+        assertEquals(10.0, entityManager.getComponentOf(first, OffHeapComponent.class).orElseThrow().value);
+        assertEquals(30.0, entityManager.getComponentMapper(OffHeapComponent.class).get(second).value);
+        assertEquals(4, columns.getInts(columns.columnOf("count")).get(columns.indexOf(second)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void removingOffHeapComponentsKeepsTheRemainingValues(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) {
+            Entity entity = entityManager.createEntity();
+            entityManager.addComponentTo(entity, new ComponentA());
+            entityManager.addComponentTo(entity, new OffHeapComponent(i, i));
+            entities.add(entity);
+        }
+        entityManager.applyModifications();
+
+        entityManager.removeComponentFrom(entities.get(2), OffHeapComponent.class);
+        entityManager.destroyEntity(entities.get(5));
+        entityManager.applyModifications();
+
+        OffHeapColumns<OffHeapComponent> columns = entityManager.getOffHeapColumns(OffHeapComponent.class);
+        assertEquals(8, columns.size());
+        assertEquals(-1, columns.indexOf(entities.get(2)));
+        for (int i = 0; i < 10; ++i) {
+            if (i != 2 && i != 5) {
+                assertEquals(i, entityManager.getComponentOf(entities.get(i), OffHeapComponent.class)
+                                             .orElseThrow().count);
+            }
+        }
+        assertEquals(8, entityManager.getEntitiesWith(List.of(ComponentA.class, OffHeapComponent.class)).count());
+    }
+
+    @Test
+    void offHeapComponentsMustOnlyHaveSupportedFields() {
+        Entity entity = entityManager.createEntity();
+        assertThrows(IllegalStateException.class,
+                     () -> entityManager.addComponentTo(entity, new InvalidOffHeapComponent()));
+        assertThrows(IllegalStateException.class,
+                     () -> entityManager.getOffHeapColumns(ComponentA.class));
+    }
+
+    @Test
+    void pooledComponentsAreNotRecycledBeforeObserversAreNotified() {
+        List<Integer> values = new ArrayList<>();
+        entityManager.addObserver(PooledComponent.class, new ComponentObserver<>() {
+            @Override
+            public void onDestroyed(Entity entity, PooledComponent component) {
+                values.add(component.value);
+            }
+        });
+
+        Entity entity = entityManager.createEntity();
+        PooledComponent component = new PooledComponent();
+        component.value = 7;
+        entityManager.addComponentTo(entity, component);
+        entityManager.applyModifications();
+        entityManager.destroyEntity(entity);
+        entityManager.applyModifications();
+
+        assertEquals(List.of(7), values);
+        assertEquals(0, component.value);
+    }
+
+    @Test
+    void observersAreNotifiedOnlyOnApplyModifications() {
+        List<String> events = new ArrayList<>();
+        entityManager.addObserver(ComponentA.class, new RecordingObserver<>(events));
+
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        assertTrue(events.isEmpty());
+
+        entityManager.applyModifications();
+        assertEquals(List.of("added"), events);
+    }
+
+    @Test
+    void observersAreNotifiedOfChangesInOrder() {
+        List<String> events = new ArrayList<>();
+        entityManager.addObserver(ComponentA.class, new RecordingObserver<>(events));
+
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        entityManager.addComponentTo(entity, new ComponentB());
+        entityManager.removeComponentFrom(entity, ComponentA.class);
+        entityManager.addComponentTo(entity, new ComponentA());
+        entityManager.clearComponentsExcept(entity, ComponentB.class);
+        entityManager.applyModifications();
+
+        assertEquals(List.of("added", "removed", "added", "removed"), events);
+    }
+
+    @Test
+    void observersAreNotifiedOfDestroyedEntities() {
+        List<String> events = new ArrayList<>();
+        entityManager.addObserver(ComponentA.class, new RecordingObserver<>(events));
+        entityManager.addObserver(TagA.class, new RecordingObserver<>(events));
+
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        entityManager.addComponentTo(entity, TagA.class);
+        entityManager.applyModifications();
+        events.clear();
+
+        entityManager.destroyEntity(entity);
+        entityManager.applyModifications();
+        assertEquals(2, events.size());
+        assertTrue(events.stream().allMatch("destroyed"::equals));
+    }
+
+    @Test
+    void removedObserversAreNotNotified() {
+        List<String> events = new ArrayList<>();
+        RecordingObserver<ComponentA> observer = new RecordingObserver<>(events);
+        entityManager.addObserver(ComponentA.class, observer);
+        entityManager.removeObserver(ComponentA.class, observer);
+
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        entityManager.applyModifications();
+
+        assertTrue(events.isEmpty());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void restoringSnapshotRestoresEntitiesAndComponents(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        EntityQuery query = entityManager.createQuery(List.of(CopyableComponent.class, TagA.class),
+                                                      List.of(),
+                                                      List.of(),
+                                                      List.of());
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < 4; ++i) {
+            Entity entity = entityManager.createEntity();
+            entityManager.addComponentTo(entity, new CopyableComponent(i));
+            entityManager.addComponentTo(entity, new OffHeapComponent(i, i));
+            entityManager.addComponentTo(entity, TagA.class);
+            entities.add(entity);
+        }
+        entityManager.applyModifications();
+        EntityManager.Snapshot snapshot = entityManager.snapshot();
+
+        entityManager.getComponentOf(entities.get(0), CopyableComponent.class).orElseThrow().value = 42;
+        entityManager.removeComponentFrom(entities.get(1), TagA.class);
+        entityManager.destroyEntity(entities.get(2));
+        Entity created = entityManager.createEntity();
+        entityManager.addComponentTo(created, new CopyableComponent(7));
+        entityManager.applyModifications();
+
+        entityManager.restore(snapshot);
+        assertEquals(4, entityManager.entityCount());
+        assertFalse(entityManager.isAlive(created.getHandle()));
+        assertTrue(created.isMarkedForRemoval());
+        assertEquals(4, query.size());
+        for (int i = 0; i < 4; ++i) {
+            Entity entity = entities.get(i);
+            assertTrue(entityManager.isAlive(entity.getHandle()));
+            assertFalse(entity.isMarkedForRemoval());
+            assertEquals(i, entityManager.getComponentOf(entity, CopyableComponent.class).orElseThrow().value);
+            assertEquals(i, entityManager.getComponentOf(entity, OffHeapComponent.class).orElseThrow().count);
+            assertTrue(entityManager.hasComponent(entity, TagA.class));
+        }
+        assertEquals(4, entityManager.getEntitiesWith(List.of(CopyableComponent.class, OffHeapComponent.class)).count());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void restoringSnapshotRestoresEntitiesWhoseInstancesHaveBeenReused(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new CopyableComponent(1));
+        entityManager.applyModifications();
+        long handle = entity.getHandle();
+        EntityManager.Snapshot snapshot = entityManager.snapshot();
+
+        entityManager.destroyEntity(entity);
+        entityManager.applyModifications();
+        Entity reused = entityManager.createEntity();
+        entityManager.addComponentTo(reused, TagA.class);
+        entityManager.applyModifications();
+        assertSame(entity, reused);
+        long reusedHandle = reused.getHandle();
+
+        entityManager.restore(snapshot);
+        assertTrue(entityManager.isAlive(handle));
+        assertFalse(entityManager.isAlive(reusedHandle));
+        assertEquals(handle, entity.getHandle());
+        assertEquals(1, entityManager.getComponentOf(entity, CopyableComponent.class).orElseThrow().value);
+        assertFalse(entityManager.hasComponent(entity, TagA.class));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void snapshotCanBeRestoredMultipleTimes(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new CopyableComponent(1));
+        entityManager.applyModifications();
+        EntityManager.Snapshot snapshot = entityManager.snapshot();
+
+        for (int i = 0; i < 3; ++i) {
+            entityManager.getComponentOf(entity, CopyableComponent.class).orElseThrow().value = 42;
+            entityManager.destroyEntity(entity);
+            entityManager.applyModifications();
+
+            entityManager.restore(snapshot);
+            assertEquals(1, entityManager.getComponentOf(entity, CopyableComponent.class).orElseThrow().value);
+        }
+        assertEquals(1, snapshot.getEntityCount());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void entitiesAreIteratedInTheSameOrderAfterRestoring(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        EntityQuery query = entityManager.createQuery(List.of(CopyableComponent.class),
+                                                      List.of(),
+                                                      List.of(),
+                                                      List.of());
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < 8; ++i) {
+            Entity entity = entityManager.createEntity();
+            entityManager.addComponentTo(entity, new CopyableComponent(i));
+            if (i % 2 == 0) {
+                entityManager.addComponentTo(entity, new CopyableSparseComponent());
+            }
+            entities.add(entity);
+        }
+        entityManager.applyModifications();
+
+        // Removing and re-adding moves the entities out of ID order
+        entityManager.removeComponentFrom(entities.get(1), CopyableComponent.class);
+        entityManager.removeComponentFrom(entities.get(2), CopyableSparseComponent.class);
+        entityManager.applyModifications();
+        entityManager.addComponentTo(entities.get(1), new CopyableComponent(1));
+        entityManager.addComponentTo(entities.get(2), new CopyableSparseComponent());
+        entityManager.applyModifications();
+
+        List<Entity> queryOrder = List.of(query.toArray());
+        List<Entity> componentOrder = entityManager.getEntitiesWith(List.of(CopyableComponent.class))
+                                                   .collect(Collectors.toList());
+        List<Entity> sparseOrder = entityManager.getEntitiesWith(List.of(CopyableSparseComponent.class))
+                                                .collect(Collectors.toList());
+        EntityManager.Snapshot snapshot = entityManager.snapshot();
+
+        entityManager.destroyEntity(entities.get(0));
+        entityManager.removeComponentFrom(entities.get(3), CopyableComponent.class);
+        entityManager.removeComponentFrom(entities.get(4), CopyableSparseComponent.class);
+        entityManager.applyModifications();
+        entityManager.restore(snapshot);
+
+        assertEquals(queryOrder, List.of(query.toArray()));
+        assertEquals(componentOrder, entityManager.getEntitiesWith(List.of(CopyableComponent.class))
+                                                  .collect(Collectors.toList()));
+        assertEquals(sparseOrder, entityManager.getEntitiesWith(List.of(CopyableSparseComponent.class))
+                                               .collect(Collectors.toList()));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageLayout.class)
+    void componentsSharedByEntitiesAreStillSharedAfterRestoring(StorageLayout layout) {
+        EntityManager entityManager = EntityManager.createNew(16, 8, layout);
+        CopyableComponent shared = new CopyableComponent(1);
+        Entity first = entityManager.createEntity();
+        entityManager.addComponentTo(first, shared);
+        Entity second = entityManager.createEntity();
+        entityManager.addComponentTo(second, shared);
+        entityManager.addComponentTo(second, TagA.class);
+        entityManager.applyModifications();
+        EntityManager.Snapshot snapshot = entityManager.snapshot();
+
+        shared.value = 42;
+        entityManager.restore(snapshot);
+
+        CopyableComponent restoredFirst = entityManager.getComponentOf(first, CopyableComponent.class).orElseThrow();
+        CopyableComponent restoredSecond = entityManager.getComponentOf(second, CopyableComponent.class).orElseThrow();
+        assertSame(restoredFirst, restoredSecond);
+        assertNotSame(shared, restoredFirst);
+        assertEquals(1, restoredFirst.value);
+    }
+
+    @Test
+    void entitiesCreatedAfterRestoringReuseTheSameIDs() {
+        entityManager.createEntity();
+        entityManager.applyModifications();
+        EntityManager.Snapshot snapshot = entityManager.snapshot();
+
+        Entity first = entityManager.createEntity();
+        entityManager.applyModifications();
+        entityManager.restore(snapshot);
+
+        Entity second = entityManager.createEntity();
+        entityManager.applyModifications();
+        assertEquals(first.getId(), second.getId());
+        assertEquals(2, entityManager.entityCount());
+    }
+
+    @Test
+    void handlesOfEntitiesCreatedAfterSnapshotDoNotBecomeValidAgainAfterRestoring() {
+        Entity kept = entityManager.createEntity();
+        Entity destroyed = entityManager.createEntity();
+        entityManager.applyModifications();
+        long destroyedHandle = destroyed.getHandle();
+        entityManager.destroyEntity(destroyed);
+        entityManager.applyModifications();
+        EntityManager.Snapshot snapshot = entityManager.snapshot();
+
+        Entity reusingFreeId = entityManager.createEntity();
+        Entity withNewId = entityManager.createEntity();
+        entityManager.applyModifications();
+        long reusingFreeIdHandle = reusingFreeId.getHandle();
+        long withNewIdHandle = withNewId.getHandle();
+
+        entityManager.restore(snapshot);
+        Entity respawnedA = entityManager.createEntity();
+        Entity respawnedB = entityManager.createEntity();
+        entityManager.applyModifications();
+
+        assertEquals(reusingFreeId.getId(), respawnedA.getId());
+        assertEquals(withNewId.getId(), respawnedB.getId());
+        assertFalse(entityManager.isAlive(reusingFreeIdHandle));
+        assertFalse(entityManager.isAlive(withNewIdHandle));
+        assertTrue(entityManager.isAlive(kept.getHandle()));
+        assertFalse(entityManager.isAlive(destroyedHandle));
+    }
+
+    @Test
+    void handlesOfEntitiesCreatedAfterSnapshotDoNotBecomeValidAgainAfterRestoredEntityIsDestroyed() {
+        Entity original = entityManager.createEntity();
+        entityManager.applyModifications();
+        EntityManager.Snapshot snapshot = entityManager.snapshot();
+
+        entityManager.destroyEntity(original);
+        entityManager.applyModifications();
+        Entity replacement = entityManager.createEntity();
+        entityManager.applyModifications();
+        long replacementHandle = replacement.getHandle();
+
+        entityManager.restore(snapshot);
+        entityManager.destroyEntity(original);
+        entityManager.applyModifications();
+        Entity respawned = entityManager.createEntity();
+        entityManager.applyModifications();
+
+        assertEquals(replacement.getId(), respawned.getId());
+        assertFalse(entityManager.isAlive(replacementHandle));
+        assertTrue(entityManager.isAlive(respawned.getHandle()));
+    }
+
+    @Test
+    void observersAreNotNotifiedWhenRestoringSnapshot() {
+        List<String> events = new ArrayList<>();
+        entityManager.addObserver(CopyableComponent.class, new RecordingObserver<>(events));
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new CopyableComponent(1));
+        entityManager.applyModifications();
+        EntityManager.Snapshot snapshot = entityManager.snapshot();
+        events.clear();
+
+        entityManager.destroyEntity(entity);
+        entityManager.restore(snapshot);
+        entityManager.applyModifications();
+
+        assertTrue(events.isEmpty());
+        assertTrue(entityManager.isAlive(entity.getHandle()));
+    }
+
+    @Test
+    void snapshotOfEntityWithComponentWhichIsNotCopyableThrows() {
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        entityManager.applyModifications();
+
+        assertThrows(IllegalStateException.class, () -> entityManager.snapshot());
+    }
+
+    @Test
+    void restoringSnapshotOfAnotherEntityManagerThrows() {
+        EntityManager.Snapshot snapshot = EntityManager.createNew(16, 8).snapshot();
+        assertThrows(IllegalStateException.class, () -> entityManager.restore(snapshot));
+    }
+
+    @SafeVarargs
+    private static ComponentGroup createGroup(Class<? extends Component>... componentTypes) {
+        return new ComponentGroup() {
+            @Override
+            public int getId() {
+                return 0;
+            }
+
+            @Override
+            public String getName() {
+                return "test";
+            }
+
+            @Override
+            public Collection<Class<? extends Component>> getComponentTypes() {
+                return List.of(componentTypes);
+            }
+        };
+    }
+
+    private static class RecordingObserver<T extends Component> implements ComponentObserver<T> {
+        private final List<String> events;
+
+        RecordingObserver(List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void onAdded(Entity entity, T component) {
+            events.add("added");
+        }
+
+        @Override
+        public void onRemoved(Entity entity, T component) {
+            events.add("removed");
+        }
+
+        @Override
+        public void onDestroyed(Entity entity, T component) {
+            events.add("destroyed");
+        }
+    }
+
+    private static class TagA implements TagComponent {
+    }
+
+    private static class InvalidTag implements TagComponent {
+        private int value;
+    }
+
+    private static class PooledComponent implements Component, Poolable {
+        private int value;
+        private boolean initialized;
+
+        @Override
+        public void reset() {
+            this.value = 0;
+            this.initialized = false;
+        }
+    }
+
+    private static class CopyableComponent implements Component, Copyable<CopyableComponent> {
+        private int value;
+
+        CopyableComponent(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public CopyableComponent copy() {
+            return new CopyableComponent(this.value);
+        }
+    }
+
+    @SparseStorage
+    private static class CopyableSparseComponent implements Component, Copyable<CopyableSparseComponent> {
+        @Override
+        public CopyableSparseComponent copy() {
+            return new CopyableSparseComponent();
+        }
+    }
+
     private static class ComponentA implements Component {
     }
 
@@ -366,4 +1535,27 @@ class EntityManagerTest {
 
     private static class ComponentD implements Component {
     }
+
+    @SparseStorage
+    private static class SparseComponent implements Component {
+    }
+
+    @OffHeapStorage
+    private static class OffHeapComponent implements Component {
+        private double value;
+        private int count;
+
+        OffHeapComponent() {
+        }
+
+        OffHeapComponent(double value, int count) {
+            this.value = value;
+            this.count = count;
+        }
+    }
+
+    @OffHeapStorage
+    private static class InvalidOffHeapComponent implements Component {
+        private String name;
+    }
 }
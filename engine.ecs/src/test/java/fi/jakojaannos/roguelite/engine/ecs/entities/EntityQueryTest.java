@@ -0,0 +1,123 @@
+package fi.jakojaannos.roguelite.engine.ecs.entities;
+
+import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
+import fi.jakojaannos.roguelite.engine.ecs.EntityQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityQueryTest {
+    private EntityManager entityManager;
+    private EntityQuery query;
+
+    @BeforeEach
+    void beforeEach() {
+        entityManager = new EntityManagerImpl(4, 8);
+        query = entityManager.createQuery(List.of(ComponentA.class),
+                                          List.of(ComponentB.class),
+                                          List.of(),
+                                          List.of());
+    }
+
+    @Test
+    void queryDoesNotContainNonAppliedEntities() {
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+
+        assertTrue(query.isEmpty());
+    }
+
+    @Test
+    void queryContainsMatchingEntitiesAfterApplyingModifications() {
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        entityManager.applyModifications();
+
+        assertEquals(List.of(entity), query.stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    void addingExcludedComponentRemovesEntityFromQuery() {
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        entityManager.applyModifications();
+        entityManager.addComponentTo(entity, new ComponentB());
+
+        assertTrue(query.isEmpty());
+    }
+
+    @Test
+    void removingRequiredComponentRemovesEntityFromQuery() {
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        entityManager.applyModifications();
+        entityManager.removeComponentFrom(entity, ComponentA.class);
+
+        assertTrue(query.isEmpty());
+    }
+
+    @Test
+    void destroyedEntitiesAreRemovedFromQuery() {
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        entityManager.applyModifications();
+        entityManager.destroyEntity(entity);
+        entityManager.applyModifications();
+
+        assertTrue(query.isEmpty());
+    }
+
+    @Test
+    void queryCreatedAfterSpawningContainsExistingEntities() {
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        entityManager.applyModifications();
+
+        EntityQuery newQuery = entityManager.createQuery(List.of(ComponentA.class),
+                                                         List.of(),
+                                                         List.of(),
+                                                         List.of());
+        assertEquals(1, newQuery.size());
+    }
+
+    @Test
+    void queryIsUpToDateAfterEntityManagerIsResized() {
+        for (int i = 0; i < 100; ++i) {
+            Entity entity = entityManager.createEntity();
+            entityManager.addComponentTo(entity, new ComponentA());
+        }
+        entityManager.applyModifications();
+
+        assertEquals(100, query.size());
+    }
+
+    @Test
+    void removingComponentsWhileStreamingDoesNotSkipEntities() {
+        for (int i = 0; i < 10; ++i) {
+            Entity entity = entityManager.createEntity();
+            entityManager.addComponentTo(entity, new ComponentA());
+        }
+        entityManager.applyModifications();
+
+        List<Entity> iterated = new ArrayList<>();
+        query.stream().forEach(entity -> {
+            entityManager.removeComponentFrom(entity, ComponentA.class);
+            iterated.add(entity);
+        });
+        assertEquals(10, iterated.size());
+        assertTrue(query.isEmpty());
+    }
+
+    private static class ComponentA implements Component {
+    }
+
+    private static class ComponentB implements Component {
+    }
+}
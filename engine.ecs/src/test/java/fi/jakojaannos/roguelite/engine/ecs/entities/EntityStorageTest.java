@@ -14,6 +14,64 @@ class EntityStorageTest {
                         storage.create(100).getId());
     }
 
+    @Test
+    void idsOfRemovedEntitiesAreReusedWithNewGeneration() {
+        EntityStorage storage = new EntityStorage(256);
+        EntityImpl removed = storage.create(10);
+        storage.spawn(removed);
+        int removedId = removed.getId();
+        int removedGeneration = removed.getGeneration();
+        long removedHandle = removed.getHandle();
+        storage.remove(removed);
+
+        EntityImpl created = storage.create(10);
+        assertEquals(removedId, created.getId());
+        assertNotEquals(removedGeneration, created.getGeneration());
+        assertNotEquals(removedHandle, created.getHandle());
+    }
+
+    @Test
+    void instancesOfRemovedEntitiesAreReusedWithClearedSignature() {
+        EntityStorage storage = new EntityStorage(256);
+        EntityImpl removed = storage.create(10);
+        storage.spawn(removed);
+        removed.getComponentSignature().set(3);
+        removed.markForRemoval();
+        storage.remove(removed);
+
+        EntityImpl created = storage.create(10);
+        assertSame(removed, created);
+        assertFalse(created.getComponentSignature().get(3));
+        assertFalse(created.isMarkedForRemoval());
+    }
+
+    @Test
+    void handlesOfRemovedEntitiesAreNotAlive() {
+        EntityStorage storage = new EntityStorage(256);
+        EntityImpl removed = storage.create(10);
+        storage.spawn(removed);
+        long removedHandle = removed.getHandle();
+        storage.remove(removed);
+        EntityImpl created = storage.create(10);
+        storage.spawn(created);
+
+        assertFalse(storage.isAlive(removedHandle));
+        assertNull(storage.get(removedHandle));
+        assertTrue(storage.isAlive(created.getHandle()));
+        assertEquals(created, storage.get(created.getHandle()));
+    }
+
+    @Test
+    void removingEntityTwiceDoesNotFreeItsIdTwice() {
+        EntityStorage storage = new EntityStorage(256);
+        EntityImpl removed = storage.create(10);
+        storage.spawn(removed);
+        storage.remove(removed);
+        storage.remove(removed);
+
+        assertNotEquals(storage.create(10).getId(), storage.create(10).getId());
+    }
+
     @Test
     void streamContainsAllSpawned() {
         EntityStorage storage = new EntityStorage(256);
@@ -3,16 +3,15 @@ package fi.jakojaannos.roguelite.engine.ecs.entities;
 import fi.jakojaannos.roguelite.engine.ecs.entities.EntityImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
-import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class EntityTest {
     @ParameterizedTest
-    @CsvSource({"0,0", "1,1", "8,1", "9,2", "100,13"})
-    void constructorCreatesMaskWithCorrectSize(int nComponentTypes, int maskSize) {
-        assertEquals(maskSize, new EntityImpl(0, nComponentTypes).getComponentBitmask().length);
+    @ValueSource(ints = {0, 1, 8, 9, 64, 65, 100, 129})
+    void constructorCreatesSignatureWithCorrectSize(int nComponentTypes) {
+        assertEquals(nComponentTypes, new EntityImpl(0, nComponentTypes).getComponentSignature().size());
     }
 
     @ParameterizedTest
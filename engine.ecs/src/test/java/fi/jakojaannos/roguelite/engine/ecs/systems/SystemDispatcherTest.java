@@ -8,11 +8,15 @@ import org.mockito.ArgumentMatcher;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -57,6 +61,13 @@ class SystemDispatcherTest {
     static class ComponentD implements Component {
     }
 
+    public static class ResourceA implements Resource {
+        boolean enabled;
+    }
+
+    public static class EventsA extends EventChannel<String> {
+    }
+
     private final Object callOrderLock = new Object();
     private World world;
     private EntityManager entityManager;
@@ -83,9 +94,8 @@ class SystemDispatcherTest {
     @BeforeEach
     void beforeEach() {
         callOrder = new ArrayList<>();
-        world = mock(World.class);
         entityManager = EntityManager.createNew(256, 32);
-        when(world.getEntityManager()).thenReturn(entityManager);
+        world = World.createNew(entityManager);
 
         entityManager.registerComponentGroup(componentGroup);
         entityA = entityManager.createEntity();
@@ -133,6 +143,25 @@ class SystemDispatcherTest {
         });
     }
 
+    @Test
+    void cyclicSystemDependenciesThrow() {
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
+            ECSSystem systemA = new SystemA() {
+                @Override
+                public void declareRequirements(RequirementsBuilder requirements) {
+                    requirements.tickAfter(SystemB.class)
+                                .tickBefore(SystemB.class);
+                }
+            };
+
+            SystemDispatcher.builder()
+                            .withSystem(systemA)
+                            .withSystem(new SystemB())
+                            .build();
+        });
+        assertTrue(exception.getMessage().startsWith("Cyclic dependency"));
+    }
+
     @Test
     void systemDependingOnGroupItBelongsToThrows() {
         assertThrows(IllegalStateException.class, () -> {
@@ -564,6 +593,694 @@ class SystemDispatcherTest {
                       any());
     }
 
+    @Test
+    void parallelDispatcherDispatchesAllSystems() throws Exception {
+        ECSSystem systemA = new SystemA() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.readsComponent(ComponentA.class);
+            }
+        };
+        ECSSystem systemB = new SystemB() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.readsComponent(ComponentA.class);
+            }
+        };
+        ECSSystem systemC = new SystemC();
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withMode(DispatchMode.PARALLEL)
+                                                           .withSystem(systemA)
+                                                           .withSystem(systemB)
+                                                           .withSystem(systemC)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+        }
+
+        assertEquals(3, callOrder.size());
+        assertTrue(callOrder.containsAll(List.of(systemA, systemB, systemC)));
+    }
+
+    @Test
+    void parallelDispatcherKeepsOrderOfConflictingSystems() throws Exception {
+        ECSSystem systemA = new SystemA() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.writesComponent(ComponentA.class);
+            }
+        };
+        ECSSystem systemB = new SystemB() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.readsComponent(ComponentA.class);
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withMode(DispatchMode.PARALLEL)
+                                                           .withSystem(systemA)
+                                                           .withSystem(systemB)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+        }
+
+        assertEquals(List.of(systemA, systemB), callOrder);
+    }
+
+    @Test
+    void parallelDispatcherRejectsUnorderedConflictingWrites() {
+        assertThrows(IllegalStateException.class, () -> {
+            ECSSystem systemA = new SystemA() {
+                @Override
+                public void declareRequirements(RequirementsBuilder requirements) {
+                    requirements.writesResource(ResourceA.class);
+                }
+            };
+            ECSSystem systemB = new SystemB() {
+                @Override
+                public void declareRequirements(RequirementsBuilder requirements) {
+                    requirements.writesResource(ResourceA.class);
+                }
+            };
+
+            SystemDispatcher.builder()
+                            .withMode(DispatchMode.PARALLEL)
+                            .withSystem(systemA)
+                            .withSystem(systemB)
+                            .build();
+        });
+    }
+
+    @Test
+    void parallelDispatcherAllowsOrderedConflictingWrites() throws Exception {
+        ECSSystem systemA = new SystemA() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.writesComponent(ComponentA.class);
+            }
+        };
+        ECSSystem systemB = new SystemB() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.writesComponent(ComponentA.class)
+                            .tickBefore(systemA.getClass());
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withMode(DispatchMode.PARALLEL)
+                                                           .withSystem(systemA)
+                                                           .withSystem(systemB)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+        }
+
+        assertEquals(List.of(systemB, systemA), callOrder);
+    }
+
+    @Test
+    void parallelDispatcherTicksParallelSystemForAllEntities() throws Exception {
+        for (int i = 0; i < 1000; ++i) {
+            Entity entity = entityManager.createEntity();
+            entityManager.addComponentTo(entity, new ComponentA());
+        }
+        entityManager.applyModifications();
+
+        AtomicInteger processed = new AtomicInteger();
+        ParallelECSSystem<Object> system = new ParallelECSSystem<>() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.withComponent(ComponentA.class);
+            }
+
+            @Override
+            public Object createScratch() {
+                return new Object();
+            }
+
+            @Override
+            public void tick(Entity[] entities, int from, int to, World world, Object scratch) {
+                processed.addAndGet(to - from);
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withMode(DispatchMode.PARALLEL)
+                                                           .withSystem(system)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+        }
+
+        assertEquals(1004, processed.get());
+    }
+
+    @Test
+    void structuralChangesMadeWhileTickingAreDeferredToApplyModifications() throws Exception {
+        Entity entity = entityManager.createEntity();
+        entityManager.addComponentTo(entity, new ComponentA());
+        entityManager.applyModifications();
+
+        ECSSystem system = new ECSSystem() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.withComponent(ComponentA.class);
+            }
+
+            @Override
+            public void tick(Stream<Entity> entities, World world) {
+                entities.forEach(e -> world.getEntityManager().addComponentTo(e, new ComponentB()));
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withSystem(system)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+            assertFalse(entityManager.hasComponent(entity, ComponentB.class));
+        }
+
+        entityManager.applyModifications();
+        assertTrue(entityManager.hasComponent(entity, ComponentB.class));
+    }
+
+    @Test
+    void closingDispatcherReleasesCommandBuffersOfSystems() throws Exception {
+        List<EntityCommandBuffer> bound = new ArrayList<>();
+        ECSSystem system = new ECSSystem() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+            }
+
+            @Override
+            public void tick(Stream<Entity> entities, World world) {
+                bound.add(world.getEntityManager().getCommandBuffer());
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withSystem(system)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+        }
+        entityManager.applyModifications();
+
+        assertSame(bound.get(0), entityManager.createCommandBuffer());
+    }
+
+    @Test
+    void parallelSystemCanDeferStructuralChangesThroughCommandBuffer() throws Exception {
+        for (int i = 0; i < 1000; ++i) {
+            Entity entity = entityManager.createEntity();
+            entityManager.addComponentTo(entity, new ComponentA());
+        }
+        entityManager.applyModifications();
+
+        ParallelECSSystem<Object> system = new ParallelECSSystem<>() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.withComponent(ComponentA.class);
+            }
+
+            @Override
+            public Object createScratch() {
+                return new Object();
+            }
+
+            @Override
+            public void tick(Entity[] entities, int from, int to, World world, Object scratch) {
+                EntityCommandBuffer buffer = world.getEntityManager().getCommandBuffer();
+                for (int i = from; i < to; ++i) {
+                    buffer.addComponentTo(entities[i], new ComponentB());
+                    buffer.createEntity();
+                }
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withMode(DispatchMode.PARALLEL)
+                                                           .withSystem(system)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+        }
+        entityManager.applyModifications();
+
+        assertEquals(2008, entityManager.entityCount());
+        assertEquals(1004, entityManager.getEntitiesWith(List.of(ComponentA.class, ComponentB.class)).count());
+    }
+
+    @Test
+    void systemWithChangedComponentReceivesOnlyEntitiesChangedSincePreviousTick() throws Exception {
+        List<Entity> received = new ArrayList<>();
+        ECSSystem system = new ECSSystem() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.withChangedComponent(ComponentB.class);
+            }
+
+            @Override
+            public void tick(Stream<Entity> entities, World world) {
+                entities.forEach(received::add);
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withSystem(system)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+            assertEquals(3, received.size());
+
+            received.clear();
+            dispatcher.dispatch(world);
+            assertTrue(received.isEmpty());
+
+            entityManager.markChanged(entityC, ComponentB.class);
+            dispatcher.dispatch(world);
+            assertEquals(List.of(entityC), received);
+        }
+    }
+
+    @Test
+    void spanSystemReceivesMatchingEntitiesInReusedSpan() throws Exception {
+        List<Entity> received = new ArrayList<>();
+        List<EntitySpan> spans = new ArrayList<>();
+        EntitySpanSystem system = new EntitySpanSystem() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.withComponent(ComponentC.class);
+            }
+
+            @Override
+            public void tick(EntitySpan entities, World world) {
+                spans.add(entities);
+                for (int i = 0; i < entities.size(); ++i) {
+                    received.add(entities.get(i));
+                }
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withSystem(system)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+            dispatcher.dispatch(world);
+        }
+
+        assertEquals(4, received.size());
+        assertTrue(received.containsAll(List.of(entityC, entityD)));
+        assertSame(spans.get(0), spans.get(1));
+        assertTrue(spans.get(0).isEmpty());
+    }
+
+    @Test
+    void spanSystemWithChangedComponentReceivesOnlyChangedEntities() throws Exception {
+        List<Integer> sizes = new ArrayList<>();
+        EntitySpanSystem system = new EntitySpanSystem() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.withChangedComponent(ComponentB.class);
+            }
+
+            @Override
+            public void tick(EntitySpan entities, World world) {
+                sizes.add(entities.size());
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withSystem(system)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+            dispatcher.dispatch(world);
+            entityManager.markChanged(entityC, ComponentB.class);
+            dispatcher.dispatch(world);
+        }
+
+        assertEquals(List.of(3, 0, 1), sizes);
+    }
+
+    @Test
+    void spanSystemCanBeTickedWithStream() {
+        List<Entity> received = new ArrayList<>();
+        EntitySpanSystem system = new EntitySpanSystem() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+            }
+
+            @Override
+            public void tick(EntitySpan entities, World world) {
+                entities.stream().forEach(received::add);
+            }
+        };
+
+        system.tick(Stream.of(entityA, entityB), world);
+        assertEquals(List.of(entityA, entityB), received);
+    }
+
+    @Test
+    void eventChannelsAreSwappedAfterEachDispatch() throws Exception {
+        World world = World.createNew(entityManager);
+        List<String> sizesAtReader = new ArrayList<>();
+        ECSSystem writer = new SystemA() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.writesResource(EventsA.class);
+            }
+
+            @Override
+            public void tick(Stream<Entity> entities, World world) {
+                world.getResource(EventsA.class).publish("event");
+            }
+        };
+        ECSSystem reader = new SystemB() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.tickAfter(writer.getClass())
+                            .readsResource(EventsA.class);
+            }
+
+            @Override
+            public void tick(Stream<Entity> entities, World world) {
+                EventsA events = world.getResource(EventsA.class);
+                sizesAtReader.add(events.current().size() + "/" + events.previous().size());
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withSystem(writer)
+                                                           .withSystem(reader)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+            dispatcher.dispatch(world);
+        }
+
+        assertEquals(List.of("1/0", "1/1"), sizesAtReader);
+        assertEquals(0, world.getResource(EventsA.class).current().size());
+        assertEquals(1, world.getResource(EventsA.class).previous().size());
+    }
+
+    @Test
+    void systemWithRunIfEntitiesMatchIsSkippedWhileNoEntitiesMatch() throws Exception {
+        ECSSystem system = spy(new SystemA() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.runIfEntitiesMatch()
+                            .withComponent(ComponentD.class)
+                            .withoutComponent(ComponentA.class);
+            }
+        });
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withSystem(system)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+            verify(system, never()).tick(any(), any());
+
+            Entity entity = entityManager.createEntity();
+            entityManager.addComponentTo(entity, new ComponentD());
+            entityManager.applyModifications();
+            dispatcher.dispatch(world);
+            verify(system).tick(streamThat(s -> s.collect(Collectors.toList()).equals(List.of(entity))), eq(world));
+        }
+    }
+
+    @Test
+    void systemWithResourceConditionTicksOnlyWhileConditionHolds() throws Exception {
+        World world = World.createNew(entityManager);
+        ECSSystem system = new SystemA() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.runIf(ResourceA.class, resource -> resource.enabled);
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withSystem(system)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+            world.getResource(ResourceA.class).enabled = true;
+            dispatcher.dispatch(world);
+            world.getResource(ResourceA.class).enabled = false;
+            dispatcher.dispatch(world);
+        }
+
+        assertEquals(List.of(system), callOrder);
+    }
+
+    @Test
+    void systemWithEventConditionTicksWhileChannelHasCurrentOrPreviousEvents() throws Exception {
+        World world = World.createNew(entityManager);
+        ECSSystem system = new SystemA() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.runIfEventsIn(EventsA.class);
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withSystem(system)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+            assertEquals(0, callOrder.size());
+
+            world.getResource(EventsA.class).publish("event");
+            dispatcher.dispatch(world);
+            dispatcher.dispatch(world);
+            dispatcher.dispatch(world);
+        }
+
+        assertEquals(2, callOrder.size());
+    }
+
+    @Test
+    void skippedSystemsDoNotBreakOrderOfTheirDependents() throws Exception {
+        ECSSystem skipped = new SystemB() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.runIfEntitiesMatch()
+                            .withoutComponent(ComponentA.class);
+            }
+        };
+        ECSSystem first = new SystemA() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.tickBefore(skipped.getClass())
+                            .writesComponent(ComponentA.class);
+            }
+        };
+        ECSSystem last = new SystemC() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.tickAfter(skipped.getClass())
+                            .readsComponent(ComponentA.class);
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withMode(DispatchMode.PARALLEL)
+                                                           .withSystem(last)
+                                                           .withSystem(skipped)
+                                                           .withSystem(first)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+        }
+
+        assertEquals(List.of(first, last), callOrder);
+    }
+
+    @Test
+    void systemWithTickIntervalTicksOnlyOnDispatchesMatchingItsPhase() throws Exception {
+        ECSSystem every = new SystemA();
+        ECSSystem third = new SystemB() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.tickAfter(every.getClass());
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withSystem(every)
+                                                           .withSystem(third)
+                                                           .withTickInterval(third.getClass(), 3, 1)
+                                                           .build()) {
+            for (int i = 0; i < 6; ++i) {
+                dispatcher.dispatch(world);
+            }
+        }
+
+        assertEquals(List.of(every, every, third, every, every, every, third, every), callOrder);
+    }
+
+    @Test
+    void systemTickIntervalOverridesGroupTickInterval() throws Exception {
+        SystemGroup group = () -> "test";
+        ECSSystem fromGroup = new SystemA() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.addToGroup(group);
+            }
+        };
+        ECSSystem overridden = new SystemB() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.addToGroup(group)
+                            .tickAfter(fromGroup.getClass());
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withGroup(group)
+                                                           .withTickInterval(group, 2, 0)
+                                                           .withSystem(fromGroup)
+                                                           .withSystem(overridden)
+                                                           .withTickInterval(overridden.getClass(), 2, 1)
+                                                           .build()) {
+            for (int i = 0; i < 4; ++i) {
+                dispatcher.dispatch(world);
+            }
+        }
+
+        assertEquals(List.of(fromGroup, overridden, fromGroup, overridden), callOrder);
+    }
+
+    @Test
+    void tickIntervalScheduleIsTrackedPerWorld() throws Exception {
+        ECSSystem system = new SystemA();
+        World otherWorld = World.createNew(EntityManager.createNew(256, 32));
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withSystem(system)
+                                                           .withTickInterval(system.getClass(), 2, 0)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+            assertEquals(1, callOrder.size());
+
+            dispatcher.dispatch(otherWorld);
+            assertEquals(2, callOrder.size());
+
+            dispatcher.dispatch(world);
+            assertEquals(2, callOrder.size());
+        }
+    }
+
+    @Test
+    void restoringSnapshotRewindsTickIntervalSchedule() throws Exception {
+        ECSSystem system = new SystemA();
+        World world = World.createNew(EntityManager.createNew(256, 32));
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withSystem(system)
+                                                           .withTickInterval(system.getClass(), 2, 0)
+                                                           .build()) {
+            dispatcher.dispatch(world);
+            World.Snapshot snapshot = world.snapshot();
+            dispatcher.dispatch(world);
+            world.restore(snapshot);
+
+            dispatcher.dispatch(world);
+            assertEquals(1, callOrder.size());
+            dispatcher.dispatch(world);
+            assertEquals(2, callOrder.size());
+        }
+    }
+
+    @Test
+    void elapsedTicksCountDispatchesSincePreviousTickOfTheSystem() throws Exception {
+        List<Long> everyElapsed = new ArrayList<>();
+        List<Long> thirdElapsed = new ArrayList<>();
+        ECSSystem every = new SystemA() {
+            @Override
+            public void tick(Stream<Entity> entities, World world) {
+                everyElapsed.add(world.getResource(DispatchTicks.class).getElapsedTicks(this));
+            }
+        };
+        ECSSystem third = new SystemB() {
+            @Override
+            public void tick(Stream<Entity> entities, World world) {
+                thirdElapsed.add(world.getResource(DispatchTicks.class).getElapsedTicks(this));
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withSystem(every)
+                                                           .withSystem(third)
+                                                           .withTickInterval(third.getClass(), 3, 1)
+                                                           .build()) {
+            for (int i = 0; i < 7; ++i) {
+                dispatcher.dispatch(world);
+            }
+        }
+
+        assertEquals(List.of(1L, 1L, 1L, 1L, 1L, 1L, 1L), everyElapsed);
+        assertEquals(List.of(2L, 3L), thirdElapsed);
+    }
+
+    @Test
+    void elapsedTicksDoNotAccumulateWhileSystemIsSkippedByRunConditions() throws Exception {
+        List<Long> elapsed = new ArrayList<>();
+        ECSSystem system = new SystemA() {
+            @Override
+            public void declareRequirements(RequirementsBuilder requirements) {
+                requirements.runIf(ResourceA.class, resource -> resource.enabled);
+            }
+
+            @Override
+            public void tick(Stream<Entity> entities, World world) {
+                elapsed.add(world.getResource(DispatchTicks.class).getElapsedTicks(this));
+            }
+        };
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withSystem(system)
+                                                           .withTickInterval(system.getClass(), 2, 0)
+                                                           .build()) {
+            for (int i = 0; i < 10; ++i) {
+                dispatcher.dispatch(world);
+            }
+            world.getResource(ResourceA.class).enabled = true;
+            for (int i = 0; i < 4; ++i) {
+                dispatcher.dispatch(world);
+            }
+        }
+
+        assertEquals(List.of(2L, 2L), elapsed);
+    }
+
+    @Test
+    void firstTickOfSystemAccountsForAtMostOneTickInterval() throws Exception {
+        List<Long> elapsed = new ArrayList<>();
+        ECSSystem system = new SystemA() {
+            @Override
+            public void tick(Stream<Entity> entities, World world) {
+                elapsed.add(world.getResource(DispatchTicks.class).getElapsedTicks(this));
+            }
+        };
+
+        try (SystemDispatcher other = SystemDispatcher.builder()
+                                                      .withSystem(new SystemB())
+                                                      .build()) {
+            for (int i = 0; i < 10; ++i) {
+                other.dispatch(world);
+            }
+        }
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withSystem(system)
+                                                           .withTickInterval(system.getClass(), 3, 1)
+                                                           .build()) {
+            for (int i = 0; i < 3; ++i) {
+                dispatcher.dispatch(world);
+            }
+        }
+
+        assertEquals(List.of(3L), elapsed);
+    }
+
+    @Test
+    void phaseOutsideTickIntervalThrows() {
+        assertThrows(IllegalStateException.class,
+                     () -> SystemDispatcher.builder().withTickInterval(SystemA.class, 2, 2));
+    }
+
     private static <T> Stream<T> streamThat(ArgumentMatcher<Stream<T>> matcher) {
         return argThat(new SafeStreamMatcher<>(matcher));
     }
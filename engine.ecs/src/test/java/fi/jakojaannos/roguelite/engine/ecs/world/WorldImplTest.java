@@ -0,0 +1,132 @@
+package fi.jakojaannos.roguelite.engine.ecs.world;
+
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
+import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
+import fi.jakojaannos.roguelite.engine.ecs.EventChannel;
+import fi.jakojaannos.roguelite.engine.ecs.Resource;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
+import fi.jakojaannos.roguelite.engine.ecs.World;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class WorldImplTest {
+    private WorldImpl world;
+
+    @BeforeEach
+    void beforeEach() {
+        this.world = new WorldImpl(mock(EntityManager.class));
+    }
+
+    @Test
+    void handlesAreSharedPerResourceType() {
+        assertSame(ResourceHandle.of(ResourceA.class), ResourceHandle.of(ResourceA.class));
+    }
+
+    @Test
+    void handlesOfDifferentResourceTypesHaveDistinctIndices() {
+        assertNotEquals(ResourceHandle.of(ResourceA.class).getIndex(),
+                        ResourceHandle.of(ResourceB.class).getIndex());
+    }
+
+    @Test
+    void registeredResourceIsReturnedByHandleAndByType() {
+        ResourceHandle<ResourceA> handle = ResourceHandle.of(ResourceA.class);
+        this.world.registerResource(handle);
+
+        ResourceA resource = this.world.getResource(handle);
+        assertNotNull(resource);
+        assertSame(resource, this.world.getResource(ResourceA.class));
+    }
+
+    @Test
+    void registeringResourceTwiceDoesNotReplaceIt() {
+        ResourceHandle<ResourceA> handle = ResourceHandle.of(ResourceA.class);
+        this.world.registerResource(handle);
+        ResourceA resource = this.world.getResource(handle);
+
+        this.world.registerResource(handle);
+        assertSame(resource, this.world.getResource(handle));
+    }
+
+    @Test
+    void unregisteredResourceIsCreatedOnFirstAccess() {
+        assertNotNull(this.world.getResource(ResourceHandle.of(ResourceB.class)));
+    }
+
+    @Test
+    void resourcesAreNotSharedBetweenWorlds() {
+        WorldImpl other = new WorldImpl(mock(EntityManager.class));
+        assertNotSame(this.world.getResource(ResourceA.class), other.getResource(ResourceA.class));
+    }
+
+    @Test
+    void registeringResourceWithoutDefaultConstructorThrows() {
+        assertThrows(IllegalStateException.class,
+                     () -> this.world.registerResource(ResourceHandle.of(NoDefaultConstructor.class)));
+    }
+
+    @Test
+    void restoringSnapshotReplacesCopyableResourcesWithCopies() {
+        WorldImpl world = new WorldImpl(EntityManager.createNew(16, 8));
+        world.getResource(CopyableResource.class).value = 1;
+        ResourceA uncopied = world.getResource(ResourceA.class);
+        World.Snapshot snapshot = world.snapshot();
+
+        world.getResource(CopyableResource.class).value = 2;
+        world.restore(snapshot);
+        assertEquals(1, world.getResource(CopyableResource.class).value);
+        assertSame(uncopied, world.getResource(ResourceA.class));
+
+        world.getResource(CopyableResource.class).value = 3;
+        world.restore(snapshot);
+        assertEquals(1, world.getResource(CopyableResource.class).value);
+    }
+
+    @Test
+    void restoringSnapshotClearsEventChannels() {
+        WorldImpl world = new WorldImpl(EntityManager.createNew(16, 8));
+        World.Snapshot snapshot = world.snapshot();
+        Events events = world.getResource(Events.class);
+        events.publish("foo");
+        events.swap();
+        events.publish("bar");
+
+        world.restore(snapshot);
+        assertTrue(events.current().isEmpty());
+        assertTrue(events.previous().isEmpty());
+    }
+
+    @Test
+    void restoringSnapshotOfAnotherWorldThrows() {
+        World.Snapshot snapshot = new WorldImpl(EntityManager.createNew(16, 8)).snapshot();
+        assertThrows(IllegalStateException.class, () -> this.world.restore(snapshot));
+    }
+
+    public static class ResourceA implements Resource {
+    }
+
+    public static class ResourceB implements Resource {
+    }
+
+    public static class NoDefaultConstructor implements Resource {
+        public NoDefaultConstructor(int ignored) {
+        }
+    }
+
+    public static class CopyableResource implements Resource, Copyable<CopyableResource> {
+        private int value;
+
+        @Override
+        public CopyableResource copy() {
+            CopyableResource copy = new CopyableResource();
+            copy.value = this.value;
+            return copy;
+        }
+    }
+
+    public static class Events extends EventChannel<String> {
+    }
+}
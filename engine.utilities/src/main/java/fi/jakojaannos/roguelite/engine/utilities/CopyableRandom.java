@@ -0,0 +1,47 @@
+package fi.jakojaannos.roguelite.engine.utilities;
+
+/**
+ * Small pseudo-random number generator with copyable state. Unlike {@link java.util.Random}, the
+ * state of the generator is a single <code>long</code>, so that a copy of the generator produces
+ * exactly the same sequence of values as the original from the point it was copied at. Useful for
+ * state which is snapshotted and restored, as restoring replays the same values.
+ * <p>
+ * Uses the SplitMix64 algorithm, which is also what {@link java.util.SplittableRandom} uses
+ * internally. Not thread-safe.
+ */
+public final class CopyableRandom {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long state;
+
+    public CopyableRandom(final long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Creates a new generator continuing from the current state of this generator. The original
+     * and the copy produce the same values, but advancing one does not advance the other.
+     *
+     * @return copy of this generator
+     */
+    public CopyableRandom copy() {
+        return new CopyableRandom(this.state);
+    }
+
+    public long nextLong() {
+        long z = (this.state += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Gets the next value uniformly distributed between zero (inclusive) and one (exclusive).
+     *
+     * @return the next value in range <code>[0.0, 1.0)</code>
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+}
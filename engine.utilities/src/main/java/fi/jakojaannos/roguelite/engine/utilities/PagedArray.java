@@ -0,0 +1,126 @@
+package fi.jakojaannos.roguelite.engine.utilities;
+
+import lombok.val;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Array of references split into fixed-size pages, which are allocated on first write. Growing the
+ * array never copies the existing elements, only the table of page references is re-allocated.
+ * Pages no longer needed can be released, after which all elements within the page read as
+ * <code>null</code> until written again.
+ *
+ * @param <T> type of the elements
+ *
+ * @see PagedIntArray
+ */
+public final class PagedArray<T> {
+    public static final int PAGE_SHIFT = 10;
+    public static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private Object[][] pages;
+
+    /**
+     * Creates a new paged array. No pages are allocated until elements are written.
+     *
+     * @param initialCapacity expected number of elements, used for sizing the page table
+     */
+    public PagedArray(final int initialCapacity) {
+        this.pages = new Object[pageCountFor(initialCapacity)][];
+    }
+
+    /**
+     * Gets the index of the page the element with given index belongs to.
+     *
+     * @param index index of the element
+     *
+     * @return the index of the page
+     */
+    public static int pageOf(final int index) {
+        return index >>> PAGE_SHIFT;
+    }
+
+    /**
+     * Gets the number of pages needed for holding the given number of elements.
+     *
+     * @param capacity number of elements
+     *
+     * @return the number of pages needed
+     */
+    public static int pageCountFor(final int capacity) {
+        return (capacity + PAGE_MASK) >>> PAGE_SHIFT;
+    }
+
+    // Elements are only ever written through set, which takes a T
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public T get(final int index) {
+        val pageIndex = index >>> PAGE_SHIFT;
+        if (pageIndex >= this.pages.length) {
+            return null;
+        }
+
+        val page = this.pages[pageIndex];
+        return page != null
+                ? (T) page[index & PAGE_MASK]
+                : null;
+    }
+
+    /**
+     * Sets the element at the given index. Allocates the page if necessary, except when setting
+     * an element of a non-allocated page to <code>null</code>.
+     *
+     * @param index index of the element
+     * @param value the new value
+     */
+    public void set(final int index, @Nullable final T value) {
+        val pageIndex = index >>> PAGE_SHIFT;
+        if (value == null && (pageIndex >= this.pages.length || this.pages[pageIndex] == null)) {
+            return;
+        }
+
+        pageFor(pageIndex)[index & PAGE_MASK] = value;
+    }
+
+    /**
+     * Releases the page with given index. Elements within the page read as <code>null</code>
+     * afterwards.
+     *
+     * @param pageIndex index of the page to release
+     */
+    public void releasePage(final int pageIndex) {
+        if (pageIndex < this.pages.length) {
+            this.pages[pageIndex] = null;
+        }
+    }
+
+    /**
+     * Gets the number of currently allocated pages.
+     *
+     * @return the number of allocated pages
+     */
+    public int getAllocatedPageCount() {
+        int count = 0;
+        for (val page : this.pages) {
+            if (page != null) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private Object[] pageFor(final int pageIndex) {
+        if (pageIndex >= this.pages.length) {
+            this.pages = Arrays.copyOf(this.pages, Math.max(pageIndex + 1, this.pages.length * 2));
+        }
+
+        var page = this.pages[pageIndex];
+        if (page == null) {
+            page = new Object[PAGE_SIZE];
+            this.pages[pageIndex] = page;
+        }
+        return page;
+    }
+}
@@ -0,0 +1,139 @@
+package fi.jakojaannos.roguelite.engine.utilities;
+
+import lombok.val;
+
+import java.util.Arrays;
+
+import static fi.jakojaannos.roguelite.engine.utilities.PagedArray.PAGE_MASK;
+import static fi.jakojaannos.roguelite.engine.utilities.PagedArray.PAGE_SHIFT;
+import static fi.jakojaannos.roguelite.engine.utilities.PagedArray.PAGE_SIZE;
+
+/**
+ * Primitive <code>int</code> variant of {@link PagedArray}. Uses the same page size, so page
+ * indices of both are interchangeable. Elements of non-allocated or released pages read as zero.
+ */
+public final class PagedIntArray {
+    private int[][] pages;
+
+    /**
+     * Creates a new paged array. No pages are allocated until elements are written.
+     *
+     * @param initialCapacity expected number of elements, used for sizing the page table
+     */
+    public PagedIntArray(final int initialCapacity) {
+        this.pages = new int[PagedArray.pageCountFor(initialCapacity)][];
+    }
+
+    public int get(final int index) {
+        val pageIndex = index >>> PAGE_SHIFT;
+        if (pageIndex >= this.pages.length) {
+            return 0;
+        }
+
+        val page = this.pages[pageIndex];
+        return page != null
+                ? page[index & PAGE_MASK]
+                : 0;
+    }
+
+    /**
+     * Sets the element at the given index. Allocates the page if necessary, except when setting
+     * an element of a non-allocated page to zero.
+     *
+     * @param index index of the element
+     * @param value the new value
+     */
+    public void set(final int index, final int value) {
+        val pageIndex = index >>> PAGE_SHIFT;
+        if (value == 0 && (pageIndex >= this.pages.length || this.pages[pageIndex] == null)) {
+            return;
+        }
+
+        pageFor(pageIndex)[index & PAGE_MASK] = value;
+    }
+
+    /**
+     * Releases the page with given index. Elements within the page read as zero afterwards.
+     *
+     * @param pageIndex index of the page to release
+     */
+    public void releasePage(final int pageIndex) {
+        if (pageIndex < this.pages.length) {
+            this.pages[pageIndex] = null;
+        }
+    }
+
+    /**
+     * Copies the first <code>length</code> elements to a flat array. Pages are copied in bulk,
+     * elements of non-allocated pages are left as zero.
+     *
+     * @param length number of elements to copy
+     *
+     * @return the copied elements
+     */
+    public int[] toArray(final int length) {
+        val result = new int[length];
+        for (int pageIndex = 0, n = Math.min(this.pages.length, PagedArray.pageCountFor(length)); pageIndex < n; ++pageIndex) {
+            val page = this.pages[pageIndex];
+            if (page != null) {
+                val start = pageIndex << PAGE_SHIFT;
+                System.arraycopy(page, 0, result, start, Math.min(PAGE_SIZE, length - start));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Overwrites the first elements with the given values. Pages are written in bulk, pages which
+     * would be written only zeros are not allocated.
+     *
+     * @param values the new values
+     */
+    public void setAll(final int[] values) {
+        for (int start = 0; start < values.length; start += PAGE_SIZE) {
+            val pageIndex = start >>> PAGE_SHIFT;
+            val count = Math.min(PAGE_SIZE, values.length - start);
+            val allocated = pageIndex < this.pages.length && this.pages[pageIndex] != null;
+            if (allocated || !isZero(values, start, count)) {
+                System.arraycopy(values, start, pageFor(pageIndex), 0, count);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of currently allocated pages.
+     *
+     * @return the number of allocated pages
+     */
+    public int getAllocatedPageCount() {
+        int count = 0;
+        for (val page : this.pages) {
+            if (page != null) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private int[] pageFor(final int pageIndex) {
+        if (pageIndex >= this.pages.length) {
+            this.pages = Arrays.copyOf(this.pages, Math.max(pageIndex + 1, this.pages.length * 2));
+        }
+
+        var page = this.pages[pageIndex];
+        if (page == null) {
+            page = new int[PAGE_SIZE];
+            this.pages[pageIndex] = page;
+        }
+        return page;
+    }
+
+    private static boolean isZero(final int[] values, final int from, final int count) {
+        for (int i = from; i < from + count; ++i) {
+            if (values[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
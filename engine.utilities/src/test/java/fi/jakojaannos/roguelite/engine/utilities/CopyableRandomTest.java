@@ -0,0 +1,49 @@
+package fi.jakojaannos.roguelite.engine.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CopyableRandomTest {
+    @Test
+    void generatorsWithSameSeedProduceSameValues() {
+        CopyableRandom a = new CopyableRandom(42);
+        CopyableRandom b = new CopyableRandom(42);
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(a.nextLong(), b.nextLong());
+        }
+    }
+
+    @Test
+    void copyProducesSameValuesAsOriginal() {
+        CopyableRandom original = new CopyableRandom(42);
+        for (int i = 0; i < 10; ++i) {
+            original.nextLong();
+        }
+
+        CopyableRandom copy = original.copy();
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(original.nextDouble(), copy.nextDouble());
+        }
+    }
+
+    @Test
+    void advancingCopyDoesNotAdvanceOriginal() {
+        CopyableRandom original = new CopyableRandom(42);
+        CopyableRandom copy = original.copy();
+        copy.nextLong();
+        copy.nextLong();
+
+        CopyableRandom expected = new CopyableRandom(42);
+        assertEquals(expected.nextLong(), original.nextLong());
+    }
+
+    @Test
+    void nextDoubleIsWithinUnitRange() {
+        CopyableRandom random = new CopyableRandom(1234);
+        for (int i = 0; i < 1000; ++i) {
+            double value = random.nextDouble();
+            assertTrue(value >= 0.0 && value < 1.0);
+        }
+    }
+}
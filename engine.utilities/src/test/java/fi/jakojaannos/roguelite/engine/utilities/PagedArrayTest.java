@@ -0,0 +1,86 @@
+package fi.jakojaannos.roguelite.engine.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedArrayTest {
+    @Test
+    void unwrittenElementsAreNull() {
+        PagedArray<String> array = new PagedArray<>(16);
+        assertNull(array.get(0));
+        assertNull(array.get(100_000));
+    }
+
+    @Test
+    void writtenElementsCanBeRead() {
+        PagedArray<String> array = new PagedArray<>(16);
+        array.set(3, "foo");
+        array.set(100_000, "bar");
+
+        assertEquals("foo", array.get(3));
+        assertEquals("bar", array.get(100_000));
+    }
+
+    @Test
+    void growingDoesNotMoveExistingPages() {
+        PagedArray<String> array = new PagedArray<>(0);
+        for (int i = 0; i < PagedArray.PAGE_SIZE * 8; ++i) {
+            array.set(i, String.valueOf(i));
+        }
+
+        for (int i = 0; i < PagedArray.PAGE_SIZE * 8; ++i) {
+            assertEquals(String.valueOf(i), array.get(i));
+        }
+    }
+
+    @Test
+    void pagesAreAllocatedOnlyWhenWritten() {
+        PagedArray<String> array = new PagedArray<>(PagedArray.PAGE_SIZE * 4);
+        array.set(PagedArray.PAGE_SIZE * 2, null);
+        assertEquals(0, array.getAllocatedPageCount());
+
+        array.set(PagedArray.PAGE_SIZE * 2, "foo");
+        assertEquals(1, array.getAllocatedPageCount());
+    }
+
+    @Test
+    void releasedPagesReadAsNull() {
+        PagedArray<String> array = new PagedArray<>(16);
+        array.set(1, "foo");
+        array.set(PagedArray.PAGE_SIZE + 1, "bar");
+        array.releasePage(PagedArray.pageOf(1));
+
+        assertNull(array.get(1));
+        assertEquals("bar", array.get(PagedArray.PAGE_SIZE + 1));
+        assertEquals(1, array.getAllocatedPageCount());
+    }
+
+    @Test
+    void releasedIntPagesReadAsZero() {
+        PagedIntArray array = new PagedIntArray(16);
+        array.set(1, 42);
+        array.set(PagedArray.PAGE_SIZE + 1, 1337);
+        array.releasePage(PagedArray.pageOf(1));
+
+        assertEquals(0, array.get(1));
+        assertEquals(1337, array.get(PagedArray.PAGE_SIZE + 1));
+        assertEquals(1, array.getAllocatedPageCount());
+    }
+
+    @Test
+    void intArrayCopiedToFlatArrayCanBeWrittenBack() {
+        PagedIntArray array = new PagedIntArray(16);
+        array.set(1, 42);
+        array.set(PagedArray.PAGE_SIZE * 2 + 1, 1337);
+
+        int[] copy = array.toArray(PagedArray.PAGE_SIZE * 2 + 2);
+        array.set(1, 7);
+        array.set(PagedArray.PAGE_SIZE * 2 + 1, 0);
+        array.setAll(copy);
+
+        assertEquals(42, array.get(1));
+        assertEquals(1337, array.get(PagedArray.PAGE_SIZE * 2 + 1));
+        assertEquals(2, array.getAllocatedPageCount());
+    }
+}
@@ -1,17 +1,20 @@
 package fi.jakojaannos.roguelite.game.view;
 
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.lwjgl.view.LWJGLCamera;
 import fi.jakojaannos.roguelite.engine.state.GameState;
 import fi.jakojaannos.roguelite.game.data.resources.CameraProperties;
 import lombok.val;
 
 class RogueliteCamera extends LWJGLCamera {
+    private static final ResourceHandle<CameraProperties> CAMERA_PROPERTIES = ResourceHandle.of(CameraProperties.class);
+
     public RogueliteCamera(int viewportWidth, int viewportHeight) {
         super(viewportWidth, viewportHeight);
     }
 
     void updateConfigurationFromState(GameState state) {
-        val camBounds = state.getWorld().getResource(CameraProperties.class);
+        val camBounds = state.getWorld().getResource(CAMERA_PROPERTIES);
         refreshTargetScreenSizeInUnits(camBounds.targetViewportSizeInWorldUnits, camBounds.targetViewportSizeRespectiveToMinorAxis);
 
         // FIXME: THIS BREAKS MVC ENCAPSULATION. Technically, we should queue task on the controller
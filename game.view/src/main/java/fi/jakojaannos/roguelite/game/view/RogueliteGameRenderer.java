@@ -1,5 +1,6 @@
 package fi.jakojaannos.roguelite.game.view;
 
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.SystemDispatcher;
 import fi.jakojaannos.roguelite.engine.lwjgl.view.LWJGLWindow;
 import fi.jakojaannos.roguelite.engine.lwjgl.view.rendering.LWJGLTexture;
@@ -22,6 +23,9 @@ import java.nio.file.Path;
 
 @Slf4j
 public class RogueliteGameRenderer implements GameRenderer<GameState> {
+    private static final ResourceHandle<CameraProperties> CAMERA_PROPERTIES = ResourceHandle.of(CameraProperties.class);
+    private static final ResourceHandle<Time> TIME = ResourceHandle.of(Time.class);
+
     private final SystemDispatcher rendererDispatcher;
     private final RogueliteCamera camera;
     private final TextureRegistry<LWJGLTexture> textureRegistry;
@@ -57,12 +61,12 @@ public class RogueliteGameRenderer implements GameRenderer<GameState> {
 
     @Override
     public void render(GameState state, double partialTickAlpha) {
-        state.getWorld().getResource(Time.class).setTimeManager(state.getTime());
+        state.getWorld().getResource(TIME).setTimeManager(state.getTime());
         // Make sure that the camera configuration matches the current state
         this.camera.updateConfigurationFromState(state);
 
         // Snap camera to active camera
-        val cameraEntity = state.getWorld().getResource(CameraProperties.class).cameraEntity;
+        val cameraEntity = state.getWorld().getResource(CAMERA_PROPERTIES).cameraEntity;
         state.getWorld().getEntityManager().getComponentOf(cameraEntity, Camera.class)
              .ifPresent(cam -> this.camera.setPosition(cam.pos.x - this.camera.getViewportWidthInUnits() / 2.0,
                                                        cam.pos.y - this.camera.getViewportHeightInUnits() / 2.0));
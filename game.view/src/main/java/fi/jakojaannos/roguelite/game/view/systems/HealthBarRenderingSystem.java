@@ -3,6 +3,7 @@ package fi.jakojaannos.roguelite.game.view.systems;
 import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.RequirementsBuilder;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.engine.lwjgl.view.LWJGLCamera;
 import fi.jakojaannos.roguelite.engine.lwjgl.view.rendering.ShaderProgram;
@@ -25,6 +26,8 @@ import static org.lwjgl.opengl.GL30.glGenVertexArrays;
 import static org.lwjgl.system.MemoryUtil.NULL;
 
 public class HealthBarRenderingSystem implements ECSSystem {
+    private static final ResourceHandle<Time> TIME = ResourceHandle.of(Time.class);
+
     @Override
     public void declareRequirements(final RequirementsBuilder requirements) {
         requirements.tickBefore(RenderHUDSystem.class)
@@ -120,7 +123,7 @@ public class HealthBarRenderingSystem implements ECSSystem {
         glBindBuffer(GL_ARRAY_BUFFER, this.vbo);
 
         val entityManager = world.getEntityManager();
-        val timeManager = world.getResource(Time.class);
+        val timeManager = world.getResource(TIME);
         val healthbarDurationInTicks = timeManager.convertToTicks(5.0);
 
         entities.forEach(entity -> {
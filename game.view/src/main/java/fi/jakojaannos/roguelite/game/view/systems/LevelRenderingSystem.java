@@ -3,6 +3,7 @@ package fi.jakojaannos.roguelite.game.view.systems;
 import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.RequirementsBuilder;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.engine.lwjgl.view.LWJGLCamera;
 import fi.jakojaannos.roguelite.engine.lwjgl.view.rendering.LWJGLSpriteBatch;
@@ -18,6 +19,8 @@ import java.nio.file.Path;
 import java.util.stream.Stream;
 
 public class LevelRenderingSystem implements ECSSystem {
+    private static final ResourceHandle<CameraProperties> CAMERA_PROPERTIES = ResourceHandle.of(CameraProperties.class);
+
     @Override
     public void declareRequirements(RequirementsBuilder requirements) {
         requirements.withComponent(TileMapLayer.class);
@@ -41,7 +44,7 @@ public class LevelRenderingSystem implements ECSSystem {
             final World world
     ) {
         val camera = world.getEntityManager()
-                          .getComponentOf(world.getResource(CameraProperties.class).cameraEntity,
+                          .getComponentOf(world.getResource(CAMERA_PROPERTIES).cameraEntity,
                                           Camera.class)
                           .orElseThrow();
 
@@ -1,7 +1,12 @@
 package fi.jakojaannos.roguelite.game;
 
 import fi.jakojaannos.roguelite.engine.GameBase;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentObserver;
+import fi.jakojaannos.roguelite.engine.ecs.DispatchMode;
+import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
+import fi.jakojaannos.roguelite.engine.ecs.StorageLayout;
 import fi.jakojaannos.roguelite.engine.ecs.SystemDispatcher;
 import fi.jakojaannos.roguelite.engine.ecs.SystemGroup;
 import fi.jakojaannos.roguelite.engine.ecs.World;
@@ -26,11 +31,30 @@ import java.util.Queue;
 
 @Slf4j
 public class Roguelite extends GameBase {
+    private static final ResourceHandle<CameraProperties> CAMERA_PROPERTIES = ResourceHandle.of(CameraProperties.class);
+    private static final ResourceHandle<GameStatus> GAME_STATUS = ResourceHandle.of(GameStatus.class);
+    private static final ResourceHandle<Inputs> INPUTS = ResourceHandle.of(Inputs.class);
+    private static final ResourceHandle<Mouse> MOUSE = ResourceHandle.of(Mouse.class);
+    private static final ResourceHandle<Players> PLAYERS = ResourceHandle.of(Players.class);
+    private static final ResourceHandle<Time> TIME = ResourceHandle.of(Time.class);
+
+    /**
+     * AI and spawners do not need to react on every tick, so they tick on every other tick. The
+     * systems are split between the two phases to even out the load. The systems scale their
+     * time-steps by the number of ticks elapsed since they were last due.
+     */
+    private static final int AI_TICK_INTERVAL = 2;
+
     private final SystemDispatcher dispatcher;
 
     public Roguelite() {
+        this(DispatchMode.SERIAL);
+    }
+
+    public Roguelite(final DispatchMode dispatchMode) {
         this.dispatcher = SystemDispatcher
                 .builder()
+                .withMode(dispatchMode)
                 .withGroups(SystemGroups.values())
                 .addGroupDependencies(SystemGroups.CLEANUP, Arrays.stream(SystemGroups.values())
                                                                   .filter(group -> group != SystemGroups.CLEANUP)
@@ -62,6 +86,9 @@ public class Roguelite extends GameBase {
                 .withSystem(new CleanUpDeadPlayersSystem())
                 .withSystem(new RotatePlayerTowardsAttackTargetSystem())
                 .withSystem(new RestartGameSystem())
+                .withTickInterval(StalkerAIControllerSystem.class, AI_TICK_INTERVAL, 1)
+                .withTickInterval(SlimeAIControllerSystem.class, AI_TICK_INTERVAL, 1)
+                .withTickInterval(SpawnerSystem.class, AI_TICK_INTERVAL, 0)
                 .build();
     }
 
@@ -70,23 +97,24 @@ public class Roguelite extends GameBase {
     }
 
     public static GameState createInitialState(long seed) {
-        val entities = EntityManager.createNew(256, 32);
+        val entities = EntityManager.createNew(256, 64, StorageLayout.COMPONENT_MAPS);
         val state = new GameState(World.createNew(entities), new SimpleTimeManager(20L));
+        registerObservers(state.getWorld());
 
         val player = PlayerArchetype.create(entities,
                                             new Transform(0, 0));
-        state.getWorld().getResource(Players.class).player = player;
+        state.getWorld().getResource(PLAYERS).player = player;
 
         val camera = entities.createEntity();
         val cameraComponent = new Camera();
-        cameraComponent.followTarget = player;
+        cameraComponent.setFollowTarget(player);
         entities.addComponentTo(camera, cameraComponent);
-        entities.addComponentTo(camera, new NoDrawTag());
-        state.getWorld().getResource(CameraProperties.class).cameraEntity = camera;
+        entities.addComponentTo(camera, NoDrawTag.class);
+        state.getWorld().getResource(CAMERA_PROPERTIES).cameraEntity = camera;
 
         val crosshair = entities.createEntity();
         entities.addComponentTo(crosshair, new Transform(-999.0, -999.0));
-        entities.addComponentTo(crosshair, new CrosshairTag());
+        entities.addComponentTo(crosshair, CrosshairTag.class);
         val crosshairCollider = new Collider(CollisionLayer.NONE);
         crosshairCollider.width = 0.3;
         crosshairCollider.height = 0.3;
@@ -108,14 +136,39 @@ public class Roguelite extends GameBase {
         return state;
     }
 
+    /**
+     * Registers observers keeping entity references stored outside of the components valid when
+     * the entities are removed.
+     */
+    private static void registerObservers(final World world) {
+        val entities = world.getEntityManager();
+        entities.addObserver(PlayerTag.class, new ComponentObserver<>() {
+            @Override
+            public void onRemoved(final Entity entity, final PlayerTag component) {
+                // Fetched on each call, as restoring a snapshot replaces the resource
+                val players = world.getResource(PLAYERS);
+                if (players.player == entity) {
+                    players.player = null;
+                }
+            }
+        });
+        entities.addObserver(SlimeSharedAI.class, new ComponentObserver<>() {
+            @Override
+            public void onRemoved(final Entity entity, final SlimeSharedAI sharedAI) {
+                sharedAI.slimes.remove(entity);
+            }
+        });
+        ColliderDataCollectorSystem.registerObservers(world);
+    }
+
     @Override
     public GameState tick(
             final GameState state,
             final Queue<InputEvent> inputEvents
     ) {
-        state.getWorld().getResource(Time.class).setTimeManager(state.getTime());
-        val inputs = state.getWorld().getResource(Inputs.class);
-        val mouse = state.getWorld().getResource(Mouse.class);
+        state.getWorld().getResource(TIME).setTimeManager(state.getTime());
+        val inputs = state.getWorld().getResource(INPUTS);
+        val mouse = state.getWorld().getResource(MOUSE);
 
         while (!inputEvents.isEmpty()) {
             val event = inputEvents.remove();
@@ -148,10 +201,20 @@ public class Roguelite extends GameBase {
         this.dispatcher.dispatch(state.getWorld());
         state.getWorld().getEntityManager().applyModifications();
 
-        if (state.getWorld().getResource(GameStatus.class).shouldRestart) {
+        if (state.getWorld().getResource(GAME_STATUS).shouldRestart) {
             return Roguelite.createInitialState();
         }
 
         return state;
     }
+
+    @Override
+    public void close() {
+        try {
+            this.dispatcher.close();
+        } catch (Exception e) {
+            LOG.error("Error while closing the system dispatcher: ", e);
+        }
+        super.close();
+    }
 }
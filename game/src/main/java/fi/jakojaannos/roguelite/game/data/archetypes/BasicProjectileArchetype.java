@@ -1,15 +1,25 @@
 package fi.jakojaannos.roguelite.game.data.archetypes;
 
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.EntityTemplate;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.game.systems.collision.CollisionLayer;
 import fi.jakojaannos.roguelite.game.data.components.*;
 import lombok.val;
 import org.joml.Vector2d;
 
-import javax.annotation.Nonnull;
-
 public class BasicProjectileArchetype {
+    public static final EntityTemplate PROJECTILE = EntityTemplate.builder()
+                                                                  .withPooled(ProjectileStats.class, ProjectileStats::new)
+                                                                  .withPooled(Collider.class,
+                                                                              () -> new Collider(CollisionLayer.PLAYER_PROJECTILE),
+                                                                              BasicProjectileArchetype::initializeCollider)
+                                                                  .withPooled(Transform.class, Transform::new)
+                                                                  .withPooled(Velocity.class, Velocity::new)
+                                                                  .withPooled(SpriteInfo.class,
+                                                                              SpriteInfo::new,
+                                                                              BasicProjectileArchetype::initializeSpriteInfo)
+                                                                  .build();
 
 
     public static Entity create(
@@ -20,11 +30,17 @@ public class BasicProjectileArchetype {
             final double projectileSpeed,
             final Vector2d spreadOffset
     ) {
-        return create(world,
-                      new Transform(projectileX, projectileY),
-                      new Velocity(direction.normalize(projectileSpeed, new Vector2d())
-                                            .add(spreadOffset)
-                      ));
+        val entities = world.getEntityManager();
+
+        val projectile = entities.spawn(PROJECTILE);
+        entities.getComponentOf(projectile, Transform.class).orElseThrow()
+                .position.set(projectileX, projectileY);
+
+        val velocity = entities.getComponentOf(projectile, Velocity.class).orElseThrow();
+        direction.normalize(projectileSpeed, velocity.velocity)
+                 .add(spreadOffset);
+
+        return projectile;
     }
 
 
@@ -35,36 +51,22 @@ public class BasicProjectileArchetype {
     ) {
         val entities = world.getEntityManager();
 
-        val projectile = entities.createEntity();
-        val projectileStats = createProjectileStats();
-
-        entities.addComponentTo(projectile, projectileStats);
-        entities.addComponentTo(projectile, createCollider());
-        entities.addComponentTo(projectile, transform);
-        entities.addComponentTo(projectile, velocity);
-        entities.addComponentTo(projectile, createSpriteInfo());
+        val projectile = entities.spawn(PROJECTILE);
+        entities.getComponentOf(projectile, Transform.class).orElseThrow().set(transform);
+        entities.getComponentOf(projectile, Velocity.class).orElseThrow().velocity.set(velocity.velocity);
 
         return projectile;
     }
 
-    @Nonnull
-    private static Collider createCollider() {
-        val collider = new Collider(CollisionLayer.PLAYER_PROJECTILE);
+    private static void initializeCollider(final Collider collider) {
+        collider.layer = CollisionLayer.PLAYER_PROJECTILE;
         collider.width = 0.30;
         collider.height = 0.30;
         collider.origin.set(0.15);
-        return collider;
     }
 
-    private static ProjectileStats createProjectileStats() {
-        return new ProjectileStats(1.0);
-    }
 
-
-    private static SpriteInfo createSpriteInfo() {
-        val sprite = new SpriteInfo();
+    private static void initializeSpriteInfo(final SpriteInfo sprite) {
         sprite.spriteName = "sprites/projectile";
-
-        return sprite;
     }
 }
@@ -29,7 +29,7 @@ public class FollowerArchetype {
         entityManager.addComponentTo(follower, createCharacterStats());
         entityManager.addComponentTo(follower, createEnemyAI());
         entityManager.addComponentTo(follower, createSpriteInfo());
-        entityManager.addComponentTo(follower, new EnemyTag());
+        entityManager.addComponentTo(follower, EnemyTag.class);
         entityManager.addComponentTo(follower, new CharacterAbilities());
         entityManager.addComponentTo(follower, new EnemyMeleeWeaponStats());
 
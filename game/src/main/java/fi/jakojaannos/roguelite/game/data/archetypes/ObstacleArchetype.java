@@ -19,7 +19,7 @@ public class ObstacleArchetype {
         entityManager.addComponentTo(obstacle, transform);
         entityManager.addComponentTo(obstacle, createCollider(size));
         entityManager.addComponentTo(obstacle, createSpriteInfo());
-        entityManager.addComponentTo(obstacle, new ObstacleTag());
+        entityManager.addComponentTo(obstacle, ObstacleTag.class);
         return obstacle;
     }
 
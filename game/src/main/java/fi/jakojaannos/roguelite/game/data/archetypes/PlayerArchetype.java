@@ -20,7 +20,7 @@ public class PlayerArchetype {
         entityManager.addComponentTo(player, new CharacterInput());
         entityManager.addComponentTo(player, new CharacterAbilities());
         entityManager.addComponentTo(player, createCollider());
-        entityManager.addComponentTo(player, new PlayerTag());
+        entityManager.addComponentTo(player, PlayerTag.class);
         entityManager.addComponentTo(player, createCharacterStats());
         entityManager.addComponentTo(player, createWeaponStats());
         entityManager.addComponentTo(player, createSpriteInfo());
@@ -2,12 +2,36 @@ package fi.jakojaannos.roguelite.game.data.archetypes;
 
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
+import fi.jakojaannos.roguelite.engine.ecs.EntityTemplate;
 import fi.jakojaannos.roguelite.game.data.components.*;
 import fi.jakojaannos.roguelite.game.systems.collision.CollisionLayer;
 import lombok.val;
 import org.joml.Vector2d;
 
+import java.util.function.Supplier;
+
 public class SlimeArchetype {
+    public static final EntityTemplate SMALL_SLIME = createTemplate(
+            3,
+            () -> new Collider(CollisionLayer.ENEMY, 0.6, 0.6, 0.3, 0.3),
+            () -> new SlimeAI(0.2, 0.4, 1),
+            11.0
+    );
+
+    public static final EntityTemplate MEDIUM_SLIME = createTemplate(
+            7,
+            () -> new Collider(CollisionLayer.ENEMY, 1.0, 1.0, 0.5, 0.5),
+            () -> new SlimeAI(0.3, 0.8, 2),
+            6.0
+    );
+
+    public static final EntityTemplate LARGE_SLIME = createTemplate(
+            15,
+            () -> new Collider(CollisionLayer.ENEMY, 1.75, 1.75, 1.75 / 2, 1.75 / 2),
+            () -> new SlimeAI(0.6, 1.0, 3),
+            4.5
+    );
+
     public static Entity spawnLargeSlime(
             final EntityManager entityManager,
             final Transform spawnerTransform,
@@ -25,33 +49,8 @@ public class SlimeArchetype {
             Vector2d dir,
             double airTime
     ) {
-        val slime = entityManager.createEntity();
-        entityManager.addComponentTo(slime, new Transform(x, y));
-        entityManager.addComponentTo(slime, new Health(3));
-        entityManager.addComponentTo(slime, new Collider(CollisionLayer.ENEMY, 0.6, 0.6, 0.3, 0.3));
-        entityManager.addComponentTo(slime, new Velocity());
-        entityManager.addComponentTo(slime, new CharacterInput());
-        entityManager.addComponentTo(slime, new EnemyTag());
-        entityManager.addComponentTo(slime, new CharacterAbilities());
-        entityManager.addComponentTo(slime, new EnemyMeleeWeaponStats());
-        val slimeAi = new SlimeAI(
-                0.2,
-                0.4,
-                1
-        );
-        slimeAi.airTime = airTime;
-        slimeAi.jumpCoolDown = airTime * 1.2;
-        slimeAi.jumpDir.set(dir);
-
-        entityManager.addComponentTo(slime, slimeAi);
-        entityManager.addComponentTo(slime, new CharacterStats(
-                11.0,
-                100.0,
-                800.0
-        ));
-        entityManager.addComponentTo(slime, createSpriteInfo());
-
-
+        val slime = entityManager.spawn(SMALL_SLIME);
+        initialize(entityManager, slime, x, y, dir, airTime);
         return slime;
     }
 
@@ -63,33 +62,8 @@ public class SlimeArchetype {
             Vector2d dir,
             double airTime
     ) {
-        val slime = entityManager.createEntity();
-        entityManager.addComponentTo(slime, new Transform(x, y));
-        entityManager.addComponentTo(slime, new Health(7));
-        entityManager.addComponentTo(slime, new Collider(CollisionLayer.ENEMY, 1.0, 1.0, 0.5, 0.5));
-        entityManager.addComponentTo(slime, new Velocity());
-        entityManager.addComponentTo(slime, new CharacterInput());
-        entityManager.addComponentTo(slime, new EnemyTag());
-        entityManager.addComponentTo(slime, new CharacterAbilities());
-        entityManager.addComponentTo(slime, new EnemyMeleeWeaponStats());
-        val slimeAi = new SlimeAI(
-                0.3,
-                0.8,
-                2
-        );
-        slimeAi.airTime = airTime;
-        slimeAi.jumpCoolDown = airTime * 1.2;
-        slimeAi.jumpDir.set(dir);
-
-        entityManager.addComponentTo(slime, slimeAi);
-        entityManager.addComponentTo(slime, new CharacterStats(
-                6.0,
-                100.0,
-                800.0
-        ));
-        entityManager.addComponentTo(slime, createSpriteInfo());
-
-
+        val slime = entityManager.spawn(MEDIUM_SLIME);
+        initialize(entityManager, slime, x, y, dir, airTime);
         return slime;
     }
 
@@ -99,36 +73,53 @@ public class SlimeArchetype {
             double x,
             double y
     ) {
-        val slime = entityManager.createEntity();
-        entityManager.addComponentTo(slime, new Transform(x, y));
-        entityManager.addComponentTo(slime, new Health(15));
-        entityManager.addComponentTo(slime, new Collider(CollisionLayer.ENEMY, 1.75, 1.75, 1.75 / 2, 1.75 / 2));
-        entityManager.addComponentTo(slime, new Velocity());
-        entityManager.addComponentTo(slime, new CharacterInput());
-        entityManager.addComponentTo(slime, new EnemyTag());
-        entityManager.addComponentTo(slime, new CharacterAbilities());
-        entityManager.addComponentTo(slime, new EnemyMeleeWeaponStats());
-        entityManager.addComponentTo(slime, new SlimeAI(
-                0.6,
-                1.0,
-                3
-        ));
-        entityManager.addComponentTo(slime, new CharacterStats(
-                4.5,
-                100.0,
-                800.0
-        ));
-        entityManager.addComponentTo(slime, createSpriteInfo());
+        val slime = entityManager.spawn(LARGE_SLIME);
+        entityManager.getComponentOf(slime, Transform.class).orElseThrow().position.set(x, y);
+        return slime;
+    }
+
+    /**
+     * Sets the position and the initial jump of a slime spawned from one of the slime templates.
+     */
+    public static void initialize(
+            final EntityManager entityManager,
+            final Entity slime,
+            double x,
+            double y,
+            Vector2d dir,
+            double airTime
+    ) {
+        entityManager.getComponentOf(slime, Transform.class).orElseThrow().position.set(x, y);
 
+        val slimeAi = entityManager.getComponentOf(slime, SlimeAI.class).orElseThrow();
+        slimeAi.airTime = airTime;
+        slimeAi.jumpCoolDown = airTime * 1.2;
+        slimeAi.jumpDir.set(dir);
+    }
 
-        return slime;
+    private static EntityTemplate createTemplate(
+            final double health,
+            final Supplier<Collider> collider,
+            final Supplier<SlimeAI> slimeAi,
+            final double speed
+    ) {
+        return EntityTemplate.builder()
+                             .withPooled(Transform.class, Transform::new)
+                             .with(Health.class, () -> new Health(health))
+                             .with(Collider.class, collider)
+                             .withPooled(Velocity.class, Velocity::new)
+                             .with(CharacterInput.class, CharacterInput::new)
+                             .withTag(EnemyTag.class)
+                             .with(CharacterAbilities.class, CharacterAbilities::new)
+                             .with(EnemyMeleeWeaponStats.class, EnemyMeleeWeaponStats::new)
+                             .with(SlimeAI.class, slimeAi)
+                             .with(CharacterStats.class, () -> new CharacterStats(speed, 100.0, 800.0))
+                             .withPooled(SpriteInfo.class, SpriteInfo::new, SlimeArchetype::initializeSpriteInfo)
+                             .build();
     }
 
-    private static SpriteInfo createSpriteInfo() {
-        val sprite = new SpriteInfo();
+    private static void initializeSpriteInfo(final SpriteInfo sprite) {
         sprite.spriteName = "sprites/slime";
-
-        return sprite;
     }
 
 
@@ -2,11 +2,26 @@ package fi.jakojaannos.roguelite.game.data.archetypes;
 
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
+import fi.jakojaannos.roguelite.engine.ecs.EntityTemplate;
 import fi.jakojaannos.roguelite.game.data.components.*;
 import fi.jakojaannos.roguelite.game.systems.collision.CollisionLayer;
 import lombok.val;
 
 public class StalkerArchetype {
+    public static final EntityTemplate STALKER = EntityTemplate.builder()
+                                                               .withPooled(Transform.class, Transform::new)
+                                                               .withPooled(Velocity.class, Velocity::new)
+                                                               .with(CharacterInput.class, CharacterInput::new)
+                                                               .with(Health.class, () -> new Health(3))
+                                                               .with(Collider.class, () -> new Collider(CollisionLayer.ENEMY, 1.0, 1.0, 0.5, 0.5))
+                                                               .with(CharacterStats.class, StalkerArchetype::createCharacterStats)
+                                                               .with(StalkerAI.class, StalkerArchetype::createStalkerAi)
+                                                               .withPooled(SpriteInfo.class, SpriteInfo::new, StalkerArchetype::initializeSpriteInfo)
+                                                               .withTag(EnemyTag.class)
+                                                               .with(CharacterAbilities.class, CharacterAbilities::new)
+                                                               .with(EnemyMeleeWeaponStats.class, EnemyMeleeWeaponStats::new)
+                                                               .build();
+
     public static Entity spawnStalker(
             EntityManager entityManager,
             Transform spawnerTransform,
@@ -31,18 +46,8 @@ public class StalkerArchetype {
             final EntityManager entityManager,
             final Transform transform
     ) {
-        val stalker = entityManager.createEntity();
-        entityManager.addComponentTo(stalker, transform);
-        entityManager.addComponentTo(stalker, new Velocity());
-        entityManager.addComponentTo(stalker, new CharacterInput());
-        entityManager.addComponentTo(stalker, new Health(3));
-        entityManager.addComponentTo(stalker, new Collider(CollisionLayer.ENEMY, 1.0, 1.0, 0.5, 0.5));
-        entityManager.addComponentTo(stalker, createCharacterStats());
-        entityManager.addComponentTo(stalker, createStalkerAi());
-        entityManager.addComponentTo(stalker, createSpriteInfo());
-        entityManager.addComponentTo(stalker, new EnemyTag());
-        entityManager.addComponentTo(stalker, new CharacterAbilities());
-        entityManager.addComponentTo(stalker, new EnemyMeleeWeaponStats());
+        val stalker = entityManager.spawn(STALKER);
+        entityManager.getComponentOf(stalker, Transform.class).orElseThrow().set(transform);
 
         return stalker;
     }
@@ -61,10 +66,7 @@ public class StalkerArchetype {
     }
 
 
-    private static SpriteInfo createSpriteInfo() {
-        val sprite = new SpriteInfo();
+    private static void initializeSpriteInfo(final SpriteInfo sprite) {
         sprite.spriteName = "sprites/enemy";
-
-        return sprite;
     }
 }
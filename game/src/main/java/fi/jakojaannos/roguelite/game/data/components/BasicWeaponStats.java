@@ -1,13 +1,19 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 
 @NoArgsConstructor
 @AllArgsConstructor
-public class BasicWeaponStats implements Component {
+public class BasicWeaponStats implements Component, Copyable<BasicWeaponStats> {
     public double attackRate = 2.0; // Attacks per second
     public double attackProjectileSpeed = 40.0;
     public double attackSpread = 2.5;
+
+    @Override
+    public BasicWeaponStats copy() {
+        return new BasicWeaponStats(this.attackRate, this.attackProjectileSpeed, this.attackSpread);
+    }
 }
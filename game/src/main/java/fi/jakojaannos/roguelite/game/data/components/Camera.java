@@ -1,10 +1,50 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
+import fi.jakojaannos.roguelite.engine.ecs.SparseStorage;
+import lombok.val;
 import org.joml.Vector2d;
 
-public class Camera implements Component {
+import javax.annotation.Nullable;
+
+@SparseStorage
+public class Camera implements Component, Copyable<Camera> {
     public Vector2d pos = new Vector2d();
-    public Entity followTarget;
+    @Nullable private Entity followTarget;
+    /**
+     * Handle of the follow target at the time it was set. Entity instances are re-used once
+     * destroyed, so the handle tells whether the instance still refers to the same entity.
+     */
+    private long followTargetHandle;
+
+    public void setFollowTarget(@Nullable final Entity target) {
+        this.followTarget = target;
+        this.followTargetHandle = target != null ? target.getHandle() : 0L;
+    }
+
+    /**
+     * Gets the entity to follow.
+     *
+     * @param entityManager entity manager of the world the camera is in
+     *
+     * @return the entity, <code>null</code> if there is no target or the target has been destroyed
+     */
+    @Nullable
+    public Entity getFollowTarget(final EntityManager entityManager) {
+        return this.followTarget != null && entityManager.isAlive(this.followTargetHandle)
+                ? this.followTarget
+                : null;
+    }
+
+    @Override
+    public Camera copy() {
+        val copy = new Camera();
+        copy.pos = new Vector2d(this.pos);
+        copy.followTarget = this.followTarget;
+        copy.followTargetHandle = this.followTargetHandle;
+        return copy;
+    }
 }
@@ -1,9 +1,19 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
+import lombok.val;
 import org.joml.Vector2d;
 
-public class CharacterAbilities implements Component {
+public class CharacterAbilities implements Component, Copyable<CharacterAbilities> {
     public double attackTimer;
     public Vector2d attackTarget = new Vector2d();
+
+    @Override
+    public CharacterAbilities copy() {
+        val copy = new CharacterAbilities();
+        copy.attackTimer = this.attackTimer;
+        copy.attackTarget = new Vector2d(this.attackTarget);
+        return copy;
+    }
 }
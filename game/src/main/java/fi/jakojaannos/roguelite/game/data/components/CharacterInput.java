@@ -1,10 +1,20 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
+import lombok.val;
 import org.joml.Vector2d;
 
-public class CharacterInput implements Component {
+public class CharacterInput implements Component, Copyable<CharacterInput> {
     public Vector2d move = new Vector2d(0.0f, 0.0f);
 
     public boolean attack = false;
+
+    @Override
+    public CharacterInput copy() {
+        val copy = new CharacterInput();
+        copy.move = new Vector2d(this.move);
+        copy.attack = this.attack;
+        return copy;
+    }
 }
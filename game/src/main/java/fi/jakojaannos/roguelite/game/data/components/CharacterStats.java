@@ -1,6 +1,7 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
 import fi.jakojaannos.roguelite.engine.input.MouseInfo;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
@@ -8,7 +9,7 @@ import org.joml.Vector2d;
 
 @NoArgsConstructor
 @AllArgsConstructor
-public class CharacterStats implements Component {
+public class CharacterStats implements Component, Copyable<CharacterStats> {
     public double speed = 4.0;
     public double acceleration = 1.0;
     public double friction = 2.0;
@@ -18,4 +19,9 @@ public class CharacterStats implements Component {
     public CharacterStats(double speed, double acceleration, double friction) {
         this(speed, acceleration, friction, new Vector2d(0.25, -0.5));
     }
+
+    @Override
+    public CharacterStats copy() {
+        return new CharacterStats(this.speed, this.acceleration, this.friction, new Vector2d(this.weaponOffset));
+    }
 }
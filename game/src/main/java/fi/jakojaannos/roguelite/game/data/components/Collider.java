@@ -1,6 +1,8 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
+import fi.jakojaannos.roguelite.engine.ecs.Poolable;
 import fi.jakojaannos.roguelite.engine.utilities.math.RotatedRectangle;
 import fi.jakojaannos.roguelite.game.systems.collision.CollisionLayer;
 import lombok.extern.slf4j.Slf4j;
@@ -18,9 +20,14 @@ import org.joml.Vector2d;
  * <p>
  * In other words: Each layer defines separately which other layers it treats as solid and from
  * which layers it wants overlap events.
+ * <p>
+ * Changing the layer of a collider after it has been added to an entity requires marking it
+ * changed, as colliders are collected to the per-layer lists only when they change. See {@link
+ * fi.jakojaannos.roguelite.game.systems.collision.ColliderDataCollectorSystem
+ * ColliderDataCollectorSystem}.
  */
 @Slf4j
-public class Collider implements Component, Shape {
+public class Collider implements Component, Shape, Poolable, Copyable<Collider> {
     public double width;
     public double height;
     public CollisionLayer layer;
@@ -55,6 +62,18 @@ public class Collider implements Component, Shape {
 
     private static final RotatedRectangle tmpBounds = new RotatedRectangle();
 
+    /**
+     * Resets the collider to a unit-sized collider. The layer is left as-is, pooled colliders are
+     * expected to have their layer set when they are re-used.
+     */
+    @Override
+    public void reset() {
+        this.width = 1.0;
+        this.height = 1.0;
+        this.origin.zero();
+        this.lastRotation = Double.NaN;
+    }
+
     @Override
     public Vector2d[] getVerticesInLocalSpace(final Transform transform) {
         if (this.lastRotation != transform.rotation) {
@@ -69,4 +88,9 @@ public class Collider implements Component, Shape {
 
         return this.vertices;
     }
+
+    @Override
+    public Collider copy() {
+        return new Collider(this.layer, this.width, this.height, this.origin.x, this.origin.y);
+    }
 }
@@ -1,6 +1,6 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
-import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.TagComponent;
 
-public class DeadTag implements Component {
+public class DeadTag implements TagComponent {
 }
@@ -1,8 +1,18 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
+import lombok.val;
 
-public class EnemyMeleeWeaponStats implements Component {
+public class EnemyMeleeWeaponStats implements Component, Copyable<EnemyMeleeWeaponStats> {
     public double attackRate = 1.0;
     public double damage = 1.0;
+
+    @Override
+    public EnemyMeleeWeaponStats copy() {
+        val copy = new EnemyMeleeWeaponStats();
+        copy.attackRate = this.attackRate;
+        copy.damage = this.damage;
+        return copy;
+    }
 }
@@ -1,6 +1,6 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
-import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.TagComponent;
 
-public class EnemyTag implements Component {
+public class EnemyTag implements TagComponent {
 }
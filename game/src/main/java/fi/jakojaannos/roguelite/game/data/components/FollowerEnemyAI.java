@@ -1,8 +1,9 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
 
-public class FollowerEnemyAI implements Component {
+public class FollowerEnemyAI implements Component, Copyable<FollowerEnemyAI> {
 
     public double aggroRadius, targetDistance;
 
@@ -11,4 +12,8 @@ public class FollowerEnemyAI implements Component {
         this.targetDistance = targetDistance;
     }
 
+    @Override
+    public FollowerEnemyAI copy() {
+        return new FollowerEnemyAI(this.aggroRadius, this.targetDistance);
+    }
 }
@@ -1,16 +1,18 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
 import fi.jakojaannos.roguelite.game.data.DamageInstance;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.val;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @NoArgsConstructor
-public class Health implements Component {
+public class Health implements Component, Copyable<Health> {
 
     public List<DamageInstance> damageInstances = new ArrayList<>();
 
@@ -42,4 +44,13 @@ public class Health implements Component {
         if (maxHealth == 0.0) return 0.0;
         return currentHealth / maxHealth;
     }
+
+    @Override
+    public Health copy() {
+        val copy = new Health(this.maxHealth, this.currentHealth);
+        copy.damageInstances = new ArrayList<>(this.damageInstances);
+        copy.lastDamageInstanceTimeStamp = this.lastDamageInstanceTimeStamp;
+        copy.healthBarAlwaysVisible = this.healthBarAlwaysVisible;
+        return copy;
+    }
 }
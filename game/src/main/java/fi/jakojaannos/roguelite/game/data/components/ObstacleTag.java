@@ -1,6 +1,6 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
-import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.TagComponent;
 
-public class ObstacleTag implements Component {
+public class ObstacleTag implements TagComponent {
 }
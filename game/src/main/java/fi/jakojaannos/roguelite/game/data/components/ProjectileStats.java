@@ -1,13 +1,24 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
+import fi.jakojaannos.roguelite.engine.ecs.Poolable;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 
 @AllArgsConstructor
 @NoArgsConstructor
-public class ProjectileStats implements Component {
+public class ProjectileStats implements Component, Poolable, Copyable<ProjectileStats> {
 
     public double damage = 1.0;
 
+    @Override
+    public void reset() {
+        this.damage = 1.0;
+    }
+
+    @Override
+    public ProjectileStats copy() {
+        return new ProjectileStats(this.damage);
+    }
 }
@@ -1,9 +1,11 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
+import lombok.val;
 import org.joml.Vector2d;
 
-public class SlimeAI implements Component {
+public class SlimeAI implements Component, Copyable<SlimeAI> {
 
     public double chaseRadiusSquared = 100.0 * 100.0,
             targetRadiusSquared = 1.0;
@@ -41,5 +43,18 @@ public class SlimeAI implements Component {
         this.slimeSize = slimeSize;
     }
 
-
+    @Override
+    public SlimeAI copy() {
+        val copy = new SlimeAI(this.chaseRadiusSquared,
+                               this.targetRadiusSquared,
+                               this.setAirTimeCoolDown,
+                               this.setJumpCoolDown,
+                               this.slimeSize);
+        copy.crawlSpeed = this.crawlSpeed;
+        copy.airTime = this.airTime;
+        copy.jumpCoolDown = this.jumpCoolDown;
+        copy.regroupTimer = this.regroupTimer;
+        copy.jumpDir.set(this.jumpDir);
+        return copy;
+    }
 }
@@ -1,13 +1,17 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.SparseStorage;
+import lombok.val;
 import org.joml.Vector2d;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class SlimeSharedAI implements Component {
+@SparseStorage
+public class SlimeSharedAI implements Component, Copyable<SlimeSharedAI> {
 
     public List<Entity> slimes = new ArrayList<>();
 
@@ -16,5 +20,13 @@ public class SlimeSharedAI implements Component {
 
     public double regroupRadiusSquared = 0.01;
 
-
+    @Override
+    public SlimeSharedAI copy() {
+        val copy = new SlimeSharedAI();
+        copy.slimes = new ArrayList<>(this.slimes);
+        copy.regrouping = this.regrouping;
+        copy.regroupPos = new Vector2d(this.regroupPos);
+        copy.regroupRadiusSquared = this.regroupRadiusSquared;
+        return copy;
+    }
 }
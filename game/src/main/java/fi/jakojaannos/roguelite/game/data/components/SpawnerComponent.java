@@ -1,18 +1,20 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
+import fi.jakojaannos.roguelite.engine.ecs.SparseStorage;
+import fi.jakojaannos.roguelite.engine.utilities.CopyableRandom;
 import lombok.val;
 import org.joml.Vector2d;
 
-import java.util.Random;
-
-public class SpawnerComponent implements Component {
+@SparseStorage
+public class SpawnerComponent implements Component, Copyable<SpawnerComponent> {
     public double spawnFrequency;
     public double spawnCoolDown, maxSpawnDistance;
 
-    public final Random random;
+    public final CopyableRandom random;
     public final EntityFactory entityFactory;
 
     private final Vector2d temp = new Vector2d();
@@ -32,13 +34,30 @@ public class SpawnerComponent implements Component {
         this.entityFactory = entityFactory;
 
         this.spawnCoolDown = spawnFrequency;
-        this.random = new Random(seed);
+        this.random = new CopyableRandom(seed);
+    }
+
+    private SpawnerComponent(final SpawnerComponent source) {
+        this.spawnFrequency = source.spawnFrequency;
+        this.spawnCoolDown = source.spawnCoolDown;
+        this.maxSpawnDistance = source.maxSpawnDistance;
+        this.entityFactory = source.entityFactory;
+        this.random = source.random.copy();
+    }
+
+    /**
+     * Copies the spawner, including the state of its random number generator. Restoring a snapshot
+     * thus replays the same spawn positions.
+     */
+    @Override
+    public SpawnerComponent copy() {
+        return new SpawnerComponent(this);
     }
 
     private static Vector2d getRandomSpotAround(
             final Transform origin,
             final double maxDist,
-            final Random random,
+            final CopyableRandom random,
             final Vector2d result
     ) {
         double xDir = random.nextDouble() * 2.0f - 1.0f;
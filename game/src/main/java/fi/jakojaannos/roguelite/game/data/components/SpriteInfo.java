@@ -1,6 +1,8 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
+import fi.jakojaannos.roguelite.engine.ecs.Poolable;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 
@@ -8,7 +10,7 @@ import java.util.List;
 
 @NoArgsConstructor
 @AllArgsConstructor
-public class SpriteInfo implements Component {
+public class SpriteInfo implements Component, Poolable, Copyable<SpriteInfo> {
     public String spriteName;
     public int zLayer;
 
@@ -17,7 +19,22 @@ public class SpriteInfo implements Component {
 
     public double frameTimer;
 
+    @Override
+    public void reset() {
+        this.spriteName = null;
+        this.zLayer = 0;
+        this.frames = List.of(0);
+        this.frameIndex = 0;
+        this.frameTimer = 0.0;
+    }
+
     public int getCurrentFrame() {
         return this.frames.get(this.frameIndex);
     }
+
+    @Override
+    public SpriteInfo copy() {
+        // Frame lists are never modified, only replaced
+        return new SpriteInfo(this.spriteName, this.zLayer, this.frames, this.frameIndex, this.frameTimer);
+    }
 }
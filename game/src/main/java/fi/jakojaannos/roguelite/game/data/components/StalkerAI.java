@@ -1,9 +1,13 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
+import fi.jakojaannos.roguelite.engine.ecs.SparseStorage;
+import lombok.val;
 import org.joml.Vector2d;
 
-public class StalkerAI implements Component {
+@SparseStorage
+public class StalkerAI implements Component, Copyable<StalkerAI> {
 
     public double sneakRadiusSquared, leapRadiusSquared, jumpAbilityGoesCoolDownThisLong;
     public double jumpCoolDown, airTime;
@@ -18,4 +22,13 @@ public class StalkerAI implements Component {
         this.jumpCoolDown = 0;
         this.airTime = 0;
     }
+
+    @Override
+    public StalkerAI copy() {
+        val copy = new StalkerAI(this.sneakRadiusSquared, this.leapRadiusSquared, this.jumpAbilityGoesCoolDownThisLong);
+        copy.jumpCoolDown = this.jumpCoolDown;
+        copy.airTime = this.airTime;
+        copy.jumpDir.set(this.jumpDir);
+        return copy;
+    }
 }
@@ -1,15 +1,27 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
+import fi.jakojaannos.roguelite.engine.ecs.SparseStorage;
 import fi.jakojaannos.roguelite.engine.tilemap.TileMap;
 import fi.jakojaannos.roguelite.engine.tilemap.TileType;
 import lombok.Getter;
+import lombok.val;
 
-public class TileMapLayer implements Component {
+@SparseStorage
+public class TileMapLayer implements Component, Copyable<TileMapLayer> {
     @Getter public TileMap<TileType> tileMap;
     @Getter public boolean collisionEnabled = true;
 
     public TileMapLayer(TileMap<TileType> tileMap) {
         this.tileMap = tileMap;
     }
+
+    @Override
+    public TileMapLayer copy() {
+        // Tile maps are never modified after generation, so the copy may share the map
+        val copy = new TileMapLayer(this.tileMap);
+        copy.collisionEnabled = this.collisionEnabled;
+        return copy;
+    }
 }
@@ -1,11 +1,13 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
+import fi.jakojaannos.roguelite.engine.ecs.Poolable;
 import lombok.NoArgsConstructor;
 import org.joml.Vector2d;
 
 @NoArgsConstructor
-public final class Transform implements Component {
+public final class Transform implements Component, Poolable, Copyable<Transform> {
     public Vector2d position = new Vector2d();
     public double rotation = 0.0;
 
@@ -22,6 +24,12 @@ public final class Transform implements Component {
         set(source);
     }
 
+    @Override
+    public void reset() {
+        this.position.zero();
+        this.rotation = 0.0;
+    }
+
     /**
      * Deprecated as transform now has an absolute position which should be treated as the entity
      * center-point
@@ -65,4 +73,9 @@ public final class Transform implements Component {
         this.position.x = x;
         this.position.y = y;
     }
+
+    @Override
+    public Transform copy() {
+        return new Transform(this);
+    }
 }
@@ -1,12 +1,24 @@
 package fi.jakojaannos.roguelite.game.data.components;
 
 import fi.jakojaannos.roguelite.engine.ecs.Component;
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
+import fi.jakojaannos.roguelite.engine.ecs.Poolable;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import org.joml.Vector2d;
 
 @NoArgsConstructor
 @AllArgsConstructor
-public class Velocity implements Component {
+public class Velocity implements Component, Poolable, Copyable<Velocity> {
     public Vector2d velocity = new Vector2d(0.0f, 0.0f);
+
+    @Override
+    public void reset() {
+        this.velocity.zero();
+    }
+
+    @Override
+    public Velocity copy() {
+        return new Velocity(new Vector2d(this.velocity));
+    }
 }
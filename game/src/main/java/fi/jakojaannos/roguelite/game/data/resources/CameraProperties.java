@@ -1,9 +1,11 @@
 package fi.jakojaannos.roguelite.game.data.resources;
 
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.Resource;
+import lombok.val;
 
-public class CameraProperties implements Resource {
+public class CameraProperties implements Resource, Copyable<CameraProperties> {
     public double viewportWidthInWorldUnits;
     public double viewportHeightInWorldUnits;
 
@@ -11,4 +13,15 @@ public class CameraProperties implements Resource {
     public boolean targetViewportSizeRespectiveToMinorAxis = true;
 
     public Entity cameraEntity;
+
+    @Override
+    public CameraProperties copy() {
+        val copy = new CameraProperties();
+        copy.viewportWidthInWorldUnits = this.viewportWidthInWorldUnits;
+        copy.viewportHeightInWorldUnits = this.viewportHeightInWorldUnits;
+        copy.targetViewportSizeInWorldUnits = this.targetViewportSizeInWorldUnits;
+        copy.targetViewportSizeRespectiveToMinorAxis = this.targetViewportSizeRespectiveToMinorAxis;
+        copy.cameraEntity = this.cameraEntity;
+        return copy;
+    }
 }
@@ -1,7 +1,16 @@
 package fi.jakojaannos.roguelite.game.data.resources;
 
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
 import fi.jakojaannos.roguelite.engine.ecs.Resource;
+import lombok.val;
 
-public class GameStatus implements Resource {
+public class GameStatus implements Resource, Copyable<GameStatus> {
     public boolean shouldRestart = false;
+
+    @Override
+    public GameStatus copy() {
+        val copy = new GameStatus();
+        copy.shouldRestart = this.shouldRestart;
+        return copy;
+    }
 }
@@ -1,8 +1,17 @@
 package fi.jakojaannos.roguelite.game.data.resources;
 
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.Resource;
+import lombok.val;
 
-public class Players implements Resource {
+public class Players implements Resource, Copyable<Players> {
     public Entity player;
+
+    @Override
+    public Players copy() {
+        val copy = new Players();
+        copy.player = this.player;
+        return copy;
+    }
 }
@@ -1,24 +1,103 @@
 package fi.jakojaannos.roguelite.game.data.resources.collision;
 
+import fi.jakojaannos.roguelite.engine.ecs.Copyable;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.Resource;
 import fi.jakojaannos.roguelite.game.data.components.Collider;
 import fi.jakojaannos.roguelite.game.data.components.Transform;
 import fi.jakojaannos.roguelite.game.systems.ApplyVelocitySystem;
 import fi.jakojaannos.roguelite.game.systems.collision.CollisionLayer;
+import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
 import org.joml.Rectangled;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 
-public class Colliders implements Resource {
+/**
+ * Colliders grouped by the layers they are solid to or overlap with. Entries are added and removed
+ * per entity in constant time, so that the lists can be maintained incrementally as colliders
+ * change. Removal moves the last entry of a list to the freed slot, so the order of the entries is
+ * not preserved.
+ * <p>
+ * The entries refer to the live components, which restoring a snapshot replaces with copies. The
+ * restored components are marked changed, so copies start out empty and get rebuilt by {@link
+ * fi.jakojaannos.roguelite.game.systems.collision.ColliderDataCollectorSystem the collector} on
+ * the next tick.
+ */
+public class Colliders implements Resource, Copyable<Colliders> {
+    private static final CollisionLayer[] LAYERS = CollisionLayer.values();
+
     public final Map<CollisionLayer, List<ColliderEntity>> solidForLayer = new HashMap<>();
     public final Map<CollisionLayer, List<ColliderEntity>> overlapsWithLayer = new HashMap<>();
 
+    private final Map<Entity, ColliderEntity> entries = new IdentityHashMap<>();
+
+    @Nullable
+    public ColliderEntity getEntry(final Entity entity) {
+        return this.entries.get(entity);
+    }
+
+    /**
+     * Adds the collider of the entity to the lists of the layers it interacts with. Replaces the
+     * previous entry of the entity, if any.
+     *
+     * @param entity    the entity
+     * @param transform transform of the entity
+     * @param collider  collider of the entity
+     */
+    public void add(
+            final Entity entity,
+            final Transform transform,
+            final Collider collider
+    ) {
+        remove(entity);
+
+        val entry = new ColliderEntity(entity, transform, collider);
+        for (val layer : LAYERS) {
+            if (collider.layer.isSolidTo(layer)) {
+                val entriesOfLayer = this.solidForLayer.computeIfAbsent(layer, key -> new ArrayList<>());
+                entry.solidIndices[layer.ordinal()] = entriesOfLayer.size();
+                entriesOfLayer.add(entry);
+            } else if (collider.layer.canOverlapWith(layer)) {
+                val entriesOfLayer = this.overlapsWithLayer.computeIfAbsent(layer, key -> new ArrayList<>());
+                entry.overlapIndices[layer.ordinal()] = entriesOfLayer.size();
+                entriesOfLayer.add(entry);
+            }
+        }
+        this.entries.put(entity, entry);
+    }
+
+    /**
+     * Removes the entry of the entity from all lists. Does nothing if the entity has no entry.
+     *
+     * @param entity the entity
+     */
+    public void remove(final Entity entity) {
+        val entry = this.entries.remove(entity);
+        if (entry == null) {
+            return;
+        }
+
+        for (val layer : LAYERS) {
+            val solidIndex = entry.solidIndices[layer.ordinal()];
+            if (solidIndex != -1) {
+                removeAt(this.solidForLayer.get(layer), layer, solidIndex, true);
+            }
+            val overlapIndex = entry.overlapIndices[layer.ordinal()];
+            if (overlapIndex != -1) {
+                removeAt(this.overlapsWithLayer.get(layer), layer, overlapIndex, false);
+            }
+        }
+    }
+
     public void collectRelevantEntities(
             final Entity entity,
             final CollisionLayer layer,
@@ -26,7 +105,7 @@ public class Colliders implements Resource {
             final Consumer<ApplyVelocitySystem.CollisionCandidate> colliderConsumer,
             final Consumer<ApplyVelocitySystem.CollisionCandidate> overlapConsumer
     ) {
-        val potentialCollisions = this.solidForLayer.computeIfAbsent(layer, key -> List.of());
+        val potentialCollisions = this.solidForLayer.getOrDefault(layer, List.of());
         for (val other : potentialCollisions) {
             if (other.entity.getId() == entity.getId()) {
                 continue;
@@ -34,7 +113,7 @@ public class Colliders implements Resource {
             colliderConsumer.accept(new ApplyVelocitySystem.CollisionCandidate(other));
         }
 
-        val potentialOverlaps = this.overlapsWithLayer.computeIfAbsent(layer, key -> List.of());
+        val potentialOverlaps = this.overlapsWithLayer.getOrDefault(layer, List.of());
         for (val other : potentialOverlaps) {
             if (other.entity.getId() == entity.getId()) {
                 continue;
@@ -43,10 +122,38 @@ public class Colliders implements Resource {
         }
     }
 
-    @RequiredArgsConstructor
+    @Override
+    public Colliders copy() {
+        return new Colliders();
+    }
+
+    private static void removeAt(
+            final List<ColliderEntity> entriesOfLayer,
+            final CollisionLayer layer,
+            final int index,
+            final boolean solid
+    ) {
+        val last = entriesOfLayer.remove(entriesOfLayer.size() - 1);
+        if (index < entriesOfLayer.size()) {
+            entriesOfLayer.set(index, last);
+            val indices = solid ? last.solidIndices : last.overlapIndices;
+            indices[layer.ordinal()] = index;
+        }
+    }
+
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     public static final class ColliderEntity {
         public final Entity entity;
         public final Transform transform;
         public final Collider collider;
+
+        private final int[] solidIndices = createIndices();
+        private final int[] overlapIndices = createIndices();
+
+        private static int[] createIndices() {
+            val indices = new int[LAYERS.length];
+            Arrays.fill(indices, -1);
+            return indices;
+        }
     }
 }
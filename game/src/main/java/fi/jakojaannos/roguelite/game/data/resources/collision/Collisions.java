@@ -1,27 +1,26 @@
 package fi.jakojaannos.roguelite.game.data.resources.collision;
 
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
-import fi.jakojaannos.roguelite.engine.ecs.Resource;
+import fi.jakojaannos.roguelite.engine.ecs.EventChannel;
 import fi.jakojaannos.roguelite.game.systems.collision.CollisionEvent;
 
-import java.util.*;
+import java.util.stream.Stream;
 
 /**
- * Manages {@link CollisionEvent CollisionEvents} for entities.
+ * Manages {@link CollisionEvent CollisionEvents} for entities. Events are indexed by entity, and
+ * are discarded automatically once the tick they were fired on is over.
  */
-public class Collisions implements Resource {
-    private final Map<Entity, List<CollisionEvent>> collisionEvents = new HashMap<>();
-
+public class Collisions extends EventChannel<CollisionEvent> {
     /**
-     * Gets all collision events currently recorded for given entity. This usually means only events
-     * fired earlier during the current tick.
+     * Gets all collision events currently recorded for given entity. This means only events fired
+     * earlier during the current tick.
      *
      * @param entity entity to fetch collisions for
      *
-     * @return collection containing all the collision events
+     * @return stream of all the collision events of the entity
      */
-    public Collection<CollisionEvent> getEventsFor(final Entity entity) {
-        return collisionEvents.getOrDefault(entity, List.of());
+    public Stream<CollisionEvent> getEventsFor(final Entity entity) {
+        return current().streamFor(entity);
     }
 
     /**
@@ -32,14 +31,6 @@ public class Collisions implements Resource {
      * @param event  event to fire
      */
     public void fireCollisionEvent(final Entity entity, final CollisionEvent event) {
-        this.collisionEvents.computeIfAbsent(entity, key -> new ArrayList<>())
-                            .add(event);
-    }
-
-    /**
-     * Clears all currently recorded collision events for all entities.
-     */
-    public void clear() {
-        this.collisionEvents.clear();
+        publish(entity, event);
     }
 }
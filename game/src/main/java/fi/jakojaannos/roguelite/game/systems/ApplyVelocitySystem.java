@@ -1,6 +1,7 @@
 package fi.jakojaannos.roguelite.game.systems;
 
 import fi.jakojaannos.roguelite.engine.ecs.*;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.state.TimeProvider;
 import fi.jakojaannos.roguelite.engine.tilemap.TileMap;
 import fi.jakojaannos.roguelite.engine.tilemap.TileType;
@@ -37,6 +38,10 @@ import java.util.stream.Stream;
  */
 @Slf4j
 public class ApplyVelocitySystem implements ECSSystem {
+    private static final ResourceHandle<Colliders> COLLIDERS = ResourceHandle.of(Colliders.class);
+    private static final ResourceHandle<Collisions> COLLISIONS = ResourceHandle.of(Collisions.class);
+    private static final ResourceHandle<Time> TIME = ResourceHandle.of(Time.class);
+
     /**
      * If velocity length is smaller than this value, applying velocity will be skipped.
      */
@@ -62,6 +67,7 @@ public class ApplyVelocitySystem implements ECSSystem {
     @Override
     public void declareRequirements(RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.PHYSICS_TICK)
+                    .runIfEntitiesMatch()
                     .withComponent(Transform.class)
                     .withComponent(Velocity.class)
                     .requireResource(Collisions.class)
@@ -76,9 +82,12 @@ public class ApplyVelocitySystem implements ECSSystem {
             final World world
     ) {
         val entityManager = world.getEntityManager();
-        val entitiesWithCollider = world.getResource(Colliders.class);
-        val collisionEvents = world.getResource(Collisions.class);
-        val delta = world.getResource(Time.class).getTimeStepInSeconds();
+        val transforms = entityManager.getComponentMapper(Transform.class);
+        val velocities = entityManager.getComponentMapper(Velocity.class);
+        val colliders = entityManager.getComponentMapper(Collider.class);
+        val entitiesWithCollider = world.getResource(COLLIDERS);
+        val collisionEvents = world.getResource(COLLISIONS);
+        val delta = world.getResource(TIME).getTimeStepInSeconds();
 
         val tileMapLayers = getTileMapLayersWithCollision(world);
 
@@ -87,16 +96,15 @@ public class ApplyVelocitySystem implements ECSSystem {
         entities.forEach(entity -> {
             collisionTargets.clear();
             overlapTargets.clear();
-            val transform = entityManager.getComponentOf(entity, Transform.class).orElseThrow();
-            val velocity = entityManager.getComponentOf(entity, Velocity.class).orElseThrow();
+            val transform = transforms.get(entity);
+            val velocity = velocities.get(entity);
 
             if (velocity.velocity.length() < VELOCITY_EPSILON) {
                 return;
             }
 
-            if (entityManager.hasComponent(entity, Collider.class)) {
-                val collider = entityManager.getComponentOf(entity, Collider.class).orElseThrow();
-
+            val collider = colliders.getOrNull(entity);
+            if (collider != null) {
 
                 val translatedCollider = new StretchedCollider(collider, transform);
                 val translatedTransform = new Transform(transform);
@@ -393,10 +401,10 @@ public class ApplyVelocitySystem implements ECSSystem {
             collisions.fireCollisionEvent(candidate.entity.entity, new CollisionEvent(Collision.entity(mode,
                                                                                                        entity)));
 
-            world.getEntityManager().addComponentIfAbsent(candidate.entity.entity, new RecentCollisionTag());
+            world.getEntityManager().addComponentIfAbsent(candidate.entity.entity, RecentCollisionTag.class);
         }
 
-        world.getEntityManager().addComponentIfAbsent(entity, new RecentCollisionTag());
+        world.getEntityManager().addComponentIfAbsent(entity, RecentCollisionTag.class);
     }
 
     private void moveWithoutCollision(
@@ -14,6 +14,7 @@ public class CameraControlSystem implements ECSSystem {
     @Override
     public void declareRequirements(RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.LATE_TICK)
+                    .runIfEntitiesMatch()
                     .withComponent(Camera.class);
     }
 
@@ -26,12 +27,12 @@ public class CameraControlSystem implements ECSSystem {
         entities.forEach(entity -> {
             val camera = entityManager.getComponentOf(entity, Camera.class)
                                       .orElseThrow();
-            if (camera.followTarget == null || camera.followTarget.isMarkedForRemoval()) {
-                camera.followTarget = null;
+            val followTarget = camera.getFollowTarget(entityManager);
+            if (followTarget == null || followTarget.isMarkedForRemoval()) {
                 return;
             }
 
-            entityManager.getComponentOf(camera.followTarget, Transform.class)
+            entityManager.getComponentOf(followTarget, Transform.class)
                          .ifPresent(transform -> camera.pos.set(transform.position));
         });
     }
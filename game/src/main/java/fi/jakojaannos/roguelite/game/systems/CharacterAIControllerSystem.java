@@ -1,8 +1,9 @@
 package fi.jakojaannos.roguelite.game.systems;
 
-import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.ParallelECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.RequirementsBuilder;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.game.data.components.CharacterInput;
 import fi.jakojaannos.roguelite.game.data.components.FollowerEnemyAI;
@@ -13,49 +14,54 @@ import lombok.val;
 import org.joml.Vector2d;
 
 import java.util.Random;
-import java.util.stream.Stream;
 
 @Slf4j
-public class CharacterAIControllerSystem implements ECSSystem {
+public class CharacterAIControllerSystem implements ParallelECSSystem<Vector2d> {
+    private static final ResourceHandle<Players> PLAYERS = ResourceHandle.of(Players.class);
+
     @Override
     public void declareRequirements(RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.INPUT)
+                    .runIfEntitiesMatch()
                     .requireResource(Players.class)
                     .withComponent(FollowerEnemyAI.class)
                     .withComponent(CharacterInput.class)
                     .withComponent(Transform.class);
     }
 
-    private final Vector2d tmpDirection = new Vector2d();
+    @Override
+    public Vector2d createScratch() {
+        return new Vector2d();
+    }
 
     @Override
     public void tick(
-            final Stream<Entity> entities,
-            final World world
+            final Entity[] entities,
+            final int from,
+            final int to,
+            final World world,
+            final Vector2d tmpDirection
     ) {
-        val player = world.getResource(Players.class).player;
+        val entityManager = world.getEntityManager();
+        val inputs = entityManager.getComponentMapper(CharacterInput.class);
+        val player = world.getResource(PLAYERS).player;
         if (player == null) {
-            entities.forEach(entity -> world.getEntityManager()
-                                            .getComponentOf(entity, CharacterInput.class)
-                                            .orElseThrow().move.set(new Random().nextDouble() * 2 - 1.0,
-                                                                    new Random().nextDouble() * 2 - 1.0));
+            for (int i = from; i < to; ++i) {
+                inputs.get(entities[i]).move.set(new Random().nextDouble() * 2 - 1.0,
+                                                 new Random().nextDouble() * 2 - 1.0);
+            }
             return;
         }
 
-        val playerPos = world.getEntityManager()
-                             .getComponentOf(player, Transform.class)
-                             .orElseThrow().position;
+        val transforms = entityManager.getComponentMapper(Transform.class);
+        val playerPos = transforms.get(player).position;
 
-        entities.forEach(entity -> {
-            val aiPos = world.getEntityManager()
-                             .getComponentOf(entity, Transform.class)
-                             .orElseThrow().position;
+        for (int i = from; i < to; ++i) {
+            val entity = entities[i];
+            val aiPos = transforms.get(entity).position;
 
             tmpDirection.set(playerPos).sub(aiPos);
-            val input = world.getEntityManager()
-                             .getComponentOf(entity, CharacterInput.class)
-                             .orElseThrow();
-            input.move.set(tmpDirection);
-        });
+            inputs.get(entity).move.set(tmpDirection);
+        }
     }
 }
@@ -3,6 +3,7 @@ package fi.jakojaannos.roguelite.game.systems;
 import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.RequirementsBuilder;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.engine.state.TimeProvider;
 import fi.jakojaannos.roguelite.engine.utilities.math.CoordinateHelper;
@@ -16,9 +17,12 @@ import java.util.Random;
 import java.util.stream.Stream;
 
 public class CharacterAttackSystem implements ECSSystem {
+    private static final ResourceHandle<Time> TIME = ResourceHandle.of(Time.class);
+
     @Override
     public void declareRequirements(RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.CHARACTER_TICK)
+                    .runIfEntitiesMatch()
                     .withComponent(Transform.class)
                     .withComponent(CharacterInput.class)
                     .withComponent(CharacterStats.class)
@@ -34,7 +38,7 @@ public class CharacterAttackSystem implements ECSSystem {
             final Stream<Entity> entities,
             final World world
     ) {
-        val delta = world.getResource(Time.class).getTimeStepInSeconds();
+        val delta = world.getResource(TIME).getTimeStepInSeconds();
 
         val entityManager = world.getEntityManager();
         entities.forEach(entity -> {
@@ -1,8 +1,9 @@
 package fi.jakojaannos.roguelite.game.systems;
 
-import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.ParallelECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.RequirementsBuilder;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.engine.state.TimeProvider;
 import fi.jakojaannos.roguelite.game.data.components.CharacterInput;
@@ -14,34 +15,50 @@ import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.joml.Vector2d;
 
-import java.util.stream.Stream;
-
 @Slf4j
-public class CharacterMovementSystem implements ECSSystem {
+public class CharacterMovementSystem implements ParallelECSSystem<Vector2d> {
+    private static final ResourceHandle<Time> TIME = ResourceHandle.of(Time.class);
+
     @Override
     public void declareRequirements(RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.CHARACTER_TICK)
+                    .runIfEntitiesMatch()
                     .withComponent(Transform.class)
                     .withComponent(Velocity.class)
                     .withComponent(CharacterInput.class)
-                    .withComponent(CharacterStats.class);
+                    .withComponent(CharacterStats.class)
+                    .readsResource(Time.class)
+                    .readsComponent(CharacterInput.class)
+                    .readsComponent(CharacterStats.class)
+                    .writesComponent(Velocity.class);
     }
 
     private static final float INPUT_EPSILON = 0.001f;
 
-    private final Vector2d tmpVelocity = new Vector2d();
+    @Override
+    public Vector2d createScratch() {
+        return new Vector2d();
+    }
 
     @Override
     public void tick(
-            final Stream<Entity> entities,
-            final World world
+            final Entity[] entities,
+            final int from,
+            final int to,
+            final World world,
+            final Vector2d tmpVelocity
     ) {
-        val delta = world.getResource(Time.class).getTimeStepInSeconds();
+        val delta = world.getResource(TIME).getTimeStepInSeconds();
 
-        entities.forEach(entity -> {
-            val input = world.getEntityManager().getComponentOf(entity, CharacterInput.class).orElseThrow();
-            val stats = world.getEntityManager().getComponentOf(entity, CharacterStats.class).orElseThrow();
-            val velocity = world.getEntityManager().getComponentOf(entity, Velocity.class).orElseThrow();
+        val entityManager = world.getEntityManager();
+        val inputs = entityManager.getComponentMapper(CharacterInput.class);
+        val statsMapper = entityManager.getComponentMapper(CharacterStats.class);
+        val velocities = entityManager.getComponentMapper(Velocity.class);
+        for (int i = from; i < to; ++i) {
+            val entity = entities[i];
+            val input = inputs.get(entity);
+            val stats = statsMapper.get(entity);
+            val velocity = velocities.get(entity);
 
             // Accelerate
             if (input.move.lengthSquared() > INPUT_EPSILON * INPUT_EPSILON) {
@@ -61,6 +78,6 @@ public class CharacterMovementSystem implements ECSSystem {
                 velocity.velocity.set(Math.signum(xVel) * Math.max(0.0f, Math.abs(xVel) - decelerationThisFrame),
                                       Math.signum(yVel) * Math.max(0.0f, Math.abs(yVel) - decelerationThisFrame));
             }
-        });
+        }
     }
 }
@@ -3,6 +3,7 @@ package fi.jakojaannos.roguelite.game.systems;
 import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.RequirementsBuilder;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.game.data.components.DeadTag;
 import fi.jakojaannos.roguelite.game.data.components.PlayerTag;
@@ -12,9 +13,12 @@ import lombok.val;
 import java.util.stream.Stream;
 
 public class CleanUpDeadPlayersSystem implements ECSSystem {
+    private static final ResourceHandle<Players> PLAYERS = ResourceHandle.of(Players.class);
+
     @Override
     public void declareRequirements(RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.CLEANUP)
+                    .runIfEntitiesMatch()
                     .withComponent(DeadTag.class)
                     .withComponent(PlayerTag.class)
                     .tickBefore(ReaperSystem.class);
@@ -25,7 +29,7 @@ public class CleanUpDeadPlayersSystem implements ECSSystem {
             final Stream<Entity> entities,
             final World world
     ) {
-        val players = world.getResource(Players.class);
+        val players = world.getResource(PLAYERS);
         if (players.player == null) {
             return;
         }
@@ -1,8 +1,9 @@
 package fi.jakojaannos.roguelite.game.systems;
 
-import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.ParallelECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.RequirementsBuilder;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.engine.state.TimeProvider;
 import fi.jakojaannos.roguelite.game.data.components.CharacterAbilities;
@@ -11,26 +12,41 @@ import fi.jakojaannos.roguelite.game.data.components.Transform;
 import fi.jakojaannos.roguelite.game.data.resources.Time;
 import lombok.val;
 
-import java.util.stream.Stream;
+import javax.annotation.Nullable;
+
+public class EnemyAttackCoolDownSystem implements ParallelECSSystem<Void> {
+    private static final ResourceHandle<Time> TIME = ResourceHandle.of(Time.class);
 
-public class EnemyAttackCoolDownSystem implements ECSSystem {
     @Override
     public void declareRequirements(final RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.CHARACTER_TICK)
+                    .runIfEntitiesMatch()
                     .withComponent(Transform.class)
                     .withComponent(CharacterAbilities.class)
-                    .withComponent(EnemyTag.class);
+                    .withComponent(EnemyTag.class)
+                    .readsResource(Time.class)
+                    .writesComponent(CharacterAbilities.class);
+    }
+
+    @Nullable
+    @Override
+    public Void createScratch() {
+        return null;
     }
 
     @Override
     public void tick(
-            final Stream<Entity> entities,
-            final World world
+            final Entity[] entities,
+            final int from,
+            final int to,
+            final World world,
+            @Nullable final Void scratch
     ) {
-        val delta = world.getResource(Time.class).getTimeStepInSeconds();
+        val delta = world.getResource(TIME).getTimeStepInSeconds();
 
-        val entityManager = world.getEntityManager();
-        entities.forEach(entity -> entityManager.getComponentOf(entity, CharacterAbilities.class)
-                                                .orElseThrow().attackTimer += delta);
+        val abilities = world.getEntityManager().getComponentMapper(CharacterAbilities.class);
+        for (int i = from; i < to; ++i) {
+            abilities.get(entities[i]).attackTimer += delta;
+        }
     }
 }
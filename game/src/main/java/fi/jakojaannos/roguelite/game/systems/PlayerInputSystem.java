@@ -3,6 +3,7 @@ package fi.jakojaannos.roguelite.game.systems;
 import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.RequirementsBuilder;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.game.data.components.Camera;
 import fi.jakojaannos.roguelite.game.data.components.CharacterAbilities;
@@ -17,9 +18,14 @@ import org.joml.Vector2d;
 import java.util.stream.Stream;
 
 public class PlayerInputSystem implements ECSSystem {
+    private static final ResourceHandle<CameraProperties> CAMERA_PROPERTIES = ResourceHandle.of(CameraProperties.class);
+    private static final ResourceHandle<Inputs> INPUTS = ResourceHandle.of(Inputs.class);
+    private static final ResourceHandle<Mouse> MOUSE = ResourceHandle.of(Mouse.class);
+
     @Override
     public void declareRequirements(RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.INPUT)
+                    .runIfEntitiesMatch()
                     .withComponent(CharacterInput.class)
                     .withComponent(CharacterAbilities.class)
                     .withComponent(PlayerTag.class)
@@ -35,9 +41,9 @@ public class PlayerInputSystem implements ECSSystem {
             final Stream<Entity> entities,
             final World world
     ) {
-        val inputs = world.getResource(Inputs.class);
-        val mouse = world.getResource(Mouse.class);
-        val camProps = world.getResource(CameraProperties.class);
+        val inputs = world.getResource(INPUTS);
+        val mouse = world.getResource(MOUSE);
+        val camProps = world.getResource(CAMERA_PROPERTIES);
         val cursorPosition = tmpCursorPos.set(0.0, 0.0);
         if (camProps.cameraEntity != null) {
             val camera = world.getEntityManager().getComponentOf(camProps.cameraEntity, Camera.class).get();
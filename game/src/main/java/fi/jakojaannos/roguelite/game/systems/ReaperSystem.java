@@ -16,6 +16,7 @@ public class ReaperSystem implements ECSSystem {
     @Override
     public void declareRequirements(RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.CLEANUP)
+                    .runIfEntitiesMatch()
                     .withComponent(DeadTag.class);
     }
 
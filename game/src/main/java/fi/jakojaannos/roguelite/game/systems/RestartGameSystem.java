@@ -1,38 +1,40 @@
 package fi.jakojaannos.roguelite.game.systems;
 
-import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
-import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.EntitySpan;
+import fi.jakojaannos.roguelite.engine.ecs.EntitySpanSystem;
 import fi.jakojaannos.roguelite.engine.ecs.RequirementsBuilder;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.game.data.components.PlayerTag;
 import fi.jakojaannos.roguelite.game.data.resources.GameStatus;
 import fi.jakojaannos.roguelite.game.data.resources.Inputs;
 import lombok.val;
 
-import java.util.stream.Stream;
+public class RestartGameSystem implements EntitySpanSystem {
+    private static final ResourceHandle<GameStatus> GAME_STATUS = ResourceHandle.of(GameStatus.class);
+    private static final ResourceHandle<Inputs> INPUTS = ResourceHandle.of(Inputs.class);
 
-public class RestartGameSystem implements ECSSystem {
     @Override
     public void declareRequirements(final RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.CLEANUP)
-                    .requireResource(Inputs.class)
+                    .runIf(Inputs.class, inputs -> inputs.inputRestart)
                     .requireResource(GameStatus.class)
                     .withComponent(PlayerTag.class);
     }
 
     @Override
     public void tick(
-            final Stream<Entity> entities,
+            final EntitySpan entities,
             final World world
     ) {
-        val anyPlayerAlive = entities.count() > 0;
+        val anyPlayerAlive = !entities.isEmpty();
         if (anyPlayerAlive) {
             return;
         }
 
-        val inputs = world.getResource(Inputs.class);
+        val inputs = world.getResource(INPUTS);
         if (inputs.inputRestart) {
-            world.getResource(GameStatus.class).shouldRestart = true;
+            world.getResource(GAME_STATUS).shouldRestart = true;
         }
     }
 }
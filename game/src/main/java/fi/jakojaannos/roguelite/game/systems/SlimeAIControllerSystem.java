@@ -1,6 +1,7 @@
 package fi.jakojaannos.roguelite.game.systems;
 
 import fi.jakojaannos.roguelite.engine.ecs.*;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.game.data.archetypes.SlimeArchetype;
 import fi.jakojaannos.roguelite.game.data.components.*;
 import fi.jakojaannos.roguelite.game.data.resources.Players;
@@ -13,9 +14,14 @@ import java.util.stream.Stream;
 
 @Slf4j
 public class SlimeAIControllerSystem implements ECSSystem {
+    private static final ResourceHandle<Players> PLAYERS = ResourceHandle.of(Players.class);
+    private static final ResourceHandle<Time> TIME = ResourceHandle.of(Time.class);
+    private static final ResourceHandle<DispatchTicks> DISPATCH_TICKS = ResourceHandle.of(DispatchTicks.class);
+
     @Override
     public void declareRequirements(RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.INPUT)
+                .runIfEntitiesMatch()
                 .requireResource(Players.class)
                 .withComponent(SlimeAI.class)
                 .withComponent(CharacterInput.class)
@@ -34,9 +40,10 @@ public class SlimeAIControllerSystem implements ECSSystem {
             final Stream<Entity> entities,
             final World world
     ) {
-        val delta = world.getResource(Time.class).getTimeStepInSeconds();
+        val delta = world.getResource(TIME).getTimeStepInSeconds()
+                * world.getResource(DISPATCH_TICKS).getElapsedTicks(this);
         val entityManager = world.getEntityManager();
-        val player = world.getResource(Players.class).player;
+        val player = world.getResource(PLAYERS).player;
         if (player == null) {
             return;
         }
@@ -2,6 +2,7 @@ package fi.jakojaannos.roguelite.game.systems;
 
 import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.EntityTemplate;
 import fi.jakojaannos.roguelite.engine.ecs.RequirementsBuilder;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.game.data.archetypes.SlimeArchetype;
@@ -19,6 +20,7 @@ public class SlimeDeathHandlerSystem implements ECSSystem {
     @Override
     public void declareRequirements(RequirementsBuilder requirements) {
         requirements.tickAfter(HealthUpdateSystem.class)
+                    .runIfEntitiesMatch()
                     .tickBefore(ReaperSystem.class)
                     .withComponent(DeadTag.class)
                     .withComponent(SlimeAI.class)
@@ -51,10 +53,23 @@ public class SlimeDeathHandlerSystem implements ECSSystem {
             if (ai.slimeSize <= 1) return;
 
 
+            final EntityTemplate template;
+            final double airTime;
+            if (ai.slimeSize == 3) {
+                template = SlimeArchetype.MEDIUM_SLIME;
+                airTime = 0.4;
+            } else if (ai.slimeSize == 2) {
+                template = SlimeArchetype.SMALL_SLIME;
+                airTime = 0.25;
+            } else {
+                return;
+            }
+
+
             val pos = entityManager.getComponentOf(entity, Transform.class).get();
             val sharedAi = new SlimeSharedAI();
 
-            for (int i = 0; i < 4; i++) {
+            entityManager.spawnBatch(template, 4, (slime, i) -> {
                 double xSpread = random.nextDouble() * 2.0 - 1.0;
                 double ySpread = random.nextDouble() * 2.0 - 1.0;
 
@@ -63,31 +78,15 @@ public class SlimeDeathHandlerSystem implements ECSSystem {
                     tempDir.normalize();
                 }
 
-
-                if (ai.slimeSize == 3) {
-                    val slime = SlimeArchetype.createMediumSlimeWithInitialVelocity(
-                            entityManager,
-                            pos.getCenterX() + xSpread,
-                            pos.getCenterY() + ySpread,
-                            tempDir,
-                            0.4
-                    );
-                    entityManager.addComponentTo(slime, sharedAi);
-                    sharedAi.slimes.add(slime);
-
-                } else if (ai.slimeSize == 2) {
-                    val slime = SlimeArchetype.createSmallSlimeWithInitialVelocity(
-                            entityManager,
-                            pos.getCenterX() + xSpread,
-                            pos.getCenterY() + ySpread,
-                            tempDir,
-                            0.25
-                    );
-                    entityManager.addComponentTo(slime, sharedAi);
-                    sharedAi.slimes.add(slime);
-
-                }
-            }
+                SlimeArchetype.initialize(entityManager,
+                                          slime,
+                                          pos.position.x + xSpread,
+                                          pos.position.y + ySpread,
+                                          tempDir,
+                                          airTime);
+                entityManager.addComponentTo(slime, sharedAi);
+                sharedAi.slimes.add(slime);
+            });
 
 
         });
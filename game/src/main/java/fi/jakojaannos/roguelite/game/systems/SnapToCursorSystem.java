@@ -3,6 +3,7 @@ package fi.jakojaannos.roguelite.game.systems;
 import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.RequirementsBuilder;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.game.data.components.Camera;
 import fi.jakojaannos.roguelite.game.data.components.CrosshairTag;
@@ -16,9 +17,13 @@ import java.util.Optional;
 import java.util.stream.Stream;
 
 public class SnapToCursorSystem implements ECSSystem {
+    private static final ResourceHandle<CameraProperties> CAMERA_PROPERTIES = ResourceHandle.of(CameraProperties.class);
+    private static final ResourceHandle<Mouse> MOUSE = ResourceHandle.of(Mouse.class);
+
     @Override
     public void declareRequirements(RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.PHYSICS_TICK)
+                    .runIfEntitiesMatch()
                     .requireResource(Mouse.class)
                     .requireResource(CameraProperties.class)
                     .withComponent(Transform.class)
@@ -32,8 +37,8 @@ public class SnapToCursorSystem implements ECSSystem {
             final Stream<Entity> entities,
             final World world
     ) {
-        val mouse = world.getResource(Mouse.class);
-        val camProps = world.getResource(CameraProperties.class);
+        val mouse = world.getResource(MOUSE);
+        val camProps = world.getResource(CAMERA_PROPERTIES);
 
         val cursorPosition = Optional.ofNullable(camProps.cameraEntity)
                                      .map(e -> world.getEntityManager().getComponentOf(e, Camera.class))
@@ -1,6 +1,7 @@
 package fi.jakojaannos.roguelite.game.systems;
 
 import fi.jakojaannos.roguelite.engine.ecs.*;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.state.TimeProvider;
 import fi.jakojaannos.roguelite.game.data.components.SpawnerComponent;
 import fi.jakojaannos.roguelite.game.data.components.Transform;
@@ -14,9 +15,13 @@ import java.util.stream.Stream;
 
 @Slf4j
 public class SpawnerSystem implements ECSSystem {
+    private static final ResourceHandle<Time> TIME = ResourceHandle.of(Time.class);
+    private static final ResourceHandle<DispatchTicks> DISPATCH_TICKS = ResourceHandle.of(DispatchTicks.class);
+
     @Override
     public void declareRequirements( RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.EARLY_TICK)
+                    .runIfEntitiesMatch()
                     .withComponent(SpawnerComponent.class)
                     .withComponent(Transform.class);
     }
@@ -26,7 +31,8 @@ public class SpawnerSystem implements ECSSystem {
             final Stream<Entity> entities,
             final World world
     ) {
-        val delta = world.getResource(Time.class).getTimeStepInSeconds();
+        val delta = world.getResource(TIME).getTimeStepInSeconds()
+                * world.getResource(DISPATCH_TICKS).getElapsedTicks(this);
         EntityManager cluster = world.getEntityManager();
 
         entities.forEach(entity -> {
@@ -1,8 +1,10 @@
 package fi.jakojaannos.roguelite.game.systems;
 
-import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
+import fi.jakojaannos.roguelite.engine.ecs.DispatchTicks;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.ParallelECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.RequirementsBuilder;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.engine.state.TimeProvider;
 import fi.jakojaannos.roguelite.game.data.components.CharacterInput;
@@ -16,45 +18,68 @@ import lombok.val;
 import org.joml.Vector2d;
 
 import java.util.Random;
-import java.util.stream.Stream;
 
 @Slf4j
-public class StalkerAIControllerSystem implements ECSSystem {
+public class StalkerAIControllerSystem implements ParallelECSSystem<StalkerAIControllerSystem.Scratch> {
+    private static final ResourceHandle<Players> PLAYERS = ResourceHandle.of(Players.class);
+    private static final ResourceHandle<Time> TIME = ResourceHandle.of(Time.class);
+    private static final ResourceHandle<DispatchTicks> DISPATCH_TICKS = ResourceHandle.of(DispatchTicks.class);
+
     @Override
     public void declareRequirements(final RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.INPUT)
+                    .runIfEntitiesMatch()
                     .requireResource(Players.class)
                     .withComponent(StalkerAI.class)
                     .withComponent(CharacterInput.class)
                     .withComponent(Transform.class)
-                    .withComponent(CharacterStats.class);
+                    .withComponent(CharacterStats.class)
+                    .readsResource(Players.class)
+                    .readsResource(Time.class)
+                    .readsResource(DispatchTicks.class)
+                    .readsComponent(Transform.class)
+                    .writesComponent(StalkerAI.class)
+                    .writesComponent(CharacterInput.class)
+                    .writesComponent(CharacterStats.class);
     }
 
-    private final Vector2d tmpDirection = new Vector2d();
+    @Override
+    public Scratch createScratch() {
+        return new Scratch();
+    }
 
     @Override
     public void tick(
-            final Stream<Entity> entities,
-            final World world
+            final Entity[] entities,
+            final int from,
+            final int to,
+            final World world,
+            final Scratch scratch
     ) {
-        val delta = world.getResource(Time.class).getTimeStepInSeconds();
+        val delta = world.getResource(TIME).getTimeStepInSeconds()
+                * world.getResource(DISPATCH_TICKS).getElapsedTicks(this);
 
-        val player = world.getResource(Players.class).player;
+        val entityManager = world.getEntityManager();
+        val characterInputs = entityManager.getComponentMapper(CharacterInput.class);
+        val player = world.getResource(PLAYERS).player;
         if (player == null) {
-            entities.forEach(entity -> world.getEntityManager()
-                                            .getComponentOf(entity, CharacterInput.class)
-                                            .orElseThrow().move.set(new Random().nextDouble() * 2 - 1.0,
-                                                                    new Random().nextDouble() * 2 - 1.0));
+            for (int i = from; i < to; ++i) {
+                characterInputs.get(entities[i]).move.set(new Random().nextDouble() * 2 - 1.0,
+                                                          new Random().nextDouble() * 2 - 1.0);
+            }
             return;
         }
 
-        val playerTransform = world.getEntityManager().getComponentOf(player, Transform.class);
-        val playerPos = playerTransform.orElseThrow().position;
+        val transforms = entityManager.getComponentMapper(Transform.class);
+        val stalkerAIs = entityManager.getComponentMapper(StalkerAI.class);
+        val characterStatsMapper = entityManager.getComponentMapper(CharacterStats.class);
+        val playerPos = transforms.get(player).position;
 
-        entities.forEach(entity -> {
-            val stalkerAI = world.getEntityManager().getComponentOf(entity, StalkerAI.class).orElseThrow();
-            val characterInput = world.getEntityManager().getComponentOf(entity, CharacterInput.class).orElseThrow();
-            val characterStats = world.getEntityManager().getComponentOf(entity, CharacterStats.class).orElseThrow();
+        for (int i = from; i < to; ++i) {
+            val entity = entities[i];
+            val stalkerAI = stalkerAIs.get(entity);
+            val characterInput = characterInputs.get(entity);
+            val characterStats = characterStatsMapper.get(entity);
 
             stalkerAI.airTime -= delta;
             stalkerAI.jumpCoolDown -= delta;
@@ -62,13 +87,11 @@ public class StalkerAIControllerSystem implements ECSSystem {
             if (stalkerAI.airTime > 0) {
                 characterStats.speed = 18.0f;
                 characterInput.move.set(stalkerAI.jumpDir);
-                return;
+                continue;
             }
 
-            val myPos = new Vector2d();
-            world.getEntityManager().getComponentOf(entity, Transform.class).get()
-                 .getCenter(myPos);
-            tmpDirection.set(playerPos).sub(myPos);
+            val tmpDirection = scratch.direction;
+            tmpDirection.set(playerPos).sub(transforms.get(entity).position);
 
             double distToPlayerSquared = tmpDirection.lengthSquared();
 
@@ -92,6 +115,10 @@ public class StalkerAIControllerSystem implements ECSSystem {
             }
 
             characterInput.move.set(tmpDirection);
-        });
+        }
+    }
+
+    public static final class Scratch {
+        private final Vector2d direction = new Vector2d();
     }
 }
@@ -1,8 +1,11 @@
 package fi.jakojaannos.roguelite.game.systems.collision;
 
+import fi.jakojaannos.roguelite.engine.ecs.ComponentMapper;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentObserver;
 import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.RequirementsBuilder;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.game.data.components.Collider;
 import fi.jakojaannos.roguelite.game.data.components.Transform;
@@ -10,14 +13,68 @@ import fi.jakojaannos.roguelite.game.data.resources.collision.Colliders;
 import fi.jakojaannos.roguelite.game.systems.SystemGroups;
 import lombok.val;
 
-import java.util.ArrayList;
 import java.util.stream.Stream;
 
+/**
+ * Collects colliders to the {@link Colliders} lists of the layers they interact with. The lists are
+ * maintained incrementally: only entities with {@link Collider colliders} changed since the
+ * previous tick are (re-)inserted. Entries of entities which lose their collider or transform, or
+ * are destroyed, are pruned by the observers registered with {@link #registerObservers(World)}, so
+ * the work done scales with the number of changes instead of the number of colliders.
+ * <p>
+ * The entries refer to the transforms and colliders directly, so moving entities or resizing their
+ * colliders does not require updating the lists. Changing the layer of a collider after it has been
+ * added, however, requires accessing it using {@link ComponentMapper#getForWrite(Entity)} or
+ * marking it changed, so that the entity is moved to the lists of its new layer.
+ */
 public class ColliderDataCollectorSystem implements ECSSystem {
+    private static final ResourceHandle<Colliders> COLLIDERS = ResourceHandle.of(Colliders.class);
+
+    /**
+     * Registers the observers keeping the {@link Colliders} lists up to date. Entries are removed
+     * when the collider or the transform they refer to is removed. Entities which get a new
+     * transform while keeping their collider have the collider marked changed, so that they are
+     * re-inserted on the next tick.
+     *
+     * @param world the world the system is dispatched on
+     */
+    public static void registerObservers(final World world) {
+        val entities = world.getEntityManager();
+        entities.addObserver(Collider.class, new ComponentObserver<>() {
+            @Override
+            public void onRemoved(final Entity entity, final Collider collider) {
+                // Fetched on each call, as restoring a snapshot replaces the resource
+                val colliders = world.getResource(COLLIDERS);
+                val entry = colliders.getEntry(entity);
+                if (entry != null && entry.collider == collider) {
+                    colliders.remove(entity);
+                }
+            }
+        });
+        entities.addObserver(Transform.class, new ComponentObserver<>() {
+            @Override
+            public void onAdded(final Entity entity, final Transform transform) {
+                val colliderMapper = entities.getComponentMapper(Collider.class);
+                if (colliderMapper.has(entity)) {
+                    colliderMapper.markChanged(entity);
+                }
+            }
+
+            @Override
+            public void onRemoved(final Entity entity, final Transform transform) {
+                val colliders = world.getResource(COLLIDERS);
+                val entry = colliders.getEntry(entity);
+                if (entry != null && entry.transform == transform) {
+                    colliders.remove(entity);
+                }
+            }
+        });
+    }
+
     @Override
     public void declareRequirements(RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.EARLY_TICK)
-                    .withComponent(Collider.class)
+                    .withChangedComponent(Collider.class)
                     .withComponent(Transform.class)
                     .requireResource(Colliders.class);
     }
@@ -27,23 +84,10 @@ public class ColliderDataCollectorSystem implements ECSSystem {
             final Stream<Entity> entities,
             final World world
     ) {
-        val colliders = world.getResource(Colliders.class);
-
-        colliders.solidForLayer.clear();
-        colliders.overlapsWithLayer.clear();
-        entities.forEach(entity -> {
-            val collider = world.getEntityManager().getComponentOf(entity, Collider.class).orElseThrow();
-            val transform = world.getEntityManager().getComponentOf(entity, Transform.class).orElseThrow();
-            val colliderEntity = new Colliders.ColliderEntity(entity, transform, collider);
-            for (val layer : CollisionLayer.values()) {
-                if (collider.layer.isSolidTo(layer)) {
-                    colliders.solidForLayer.computeIfAbsent(layer, key -> new ArrayList<>())
-                                           .add(colliderEntity);
-                } else if (collider.layer.canOverlapWith(layer)) {
-                    colliders.overlapsWithLayer.computeIfAbsent(layer, key -> new ArrayList<>())
-                                               .add(colliderEntity);
-                }
-            }
-        });
+        val colliders = world.getResource(COLLIDERS);
+        val colliderMapper = world.getEntityManager().getComponentMapper(Collider.class);
+        val transforms = world.getEntityManager().getComponentMapper(Transform.class);
+
+        entities.forEach(entity -> colliders.add(entity, transforms.get(entity), colliderMapper.get(entity)));
     }
 }
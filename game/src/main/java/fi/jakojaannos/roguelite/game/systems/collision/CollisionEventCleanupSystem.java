@@ -13,8 +13,9 @@ import fi.jakojaannos.roguelite.game.systems.SystemGroups;
 import java.util.stream.Stream;
 
 /**
- * Performs cleanup on all {@link Collider Colliders} to clear all unprocessed {@link CollisionEvent
- * CollisionEvents} at the end of each tick.
+ * Performs cleanup on all {@link Collider Colliders} which have recently collided, at the end of
+ * each tick. Unprocessed {@link CollisionEvent CollisionEvents} are discarded by the dispatcher, as
+ * {@link Collisions} is an event channel.
  *
  * @see ApplyVelocitySystem
  */
@@ -22,7 +23,7 @@ public class CollisionEventCleanupSystem implements ECSSystem {
     @Override
     public void declareRequirements(RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.CLEANUP)
-                    .requireResource(Collisions.class)
+                    .runIfEntitiesMatch()
                     .withComponent(RecentCollisionTag.class);
     }
 
@@ -31,7 +32,6 @@ public class CollisionEventCleanupSystem implements ECSSystem {
             final Stream<Entity> entities,
             final World world
     ) {
-        world.getResource(Collisions.class).clear();
         entities.forEach(entity -> world.getEntityManager().removeComponentFrom(entity, RecentCollisionTag.class));
     }
 }
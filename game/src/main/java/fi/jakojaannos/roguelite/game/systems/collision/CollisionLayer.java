@@ -1,6 +1,6 @@
 package fi.jakojaannos.roguelite.game.systems.collision;
 
-import fi.jakojaannos.roguelite.engine.utilities.BitMaskUtils;
+import fi.jakojaannos.roguelite.engine.ecs.ComponentSignature;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
@@ -14,17 +14,17 @@ public enum CollisionLayer {
     PLAYER_PROJECTILE,
     ENEMY;
 
-    private static final int MASK_SIZE = 1;
+    private static final int MASK_SIZE = 8;
 
-    private final byte[] collisionMask = new byte[MASK_SIZE];
-    private final byte[] overlapMask = new byte[MASK_SIZE];
+    private final ComponentSignature collisionMask = new ComponentSignature(MASK_SIZE);
+    private final ComponentSignature overlapMask = new ComponentSignature(MASK_SIZE);
 
     public boolean isSolidTo(final CollisionLayer other) {
-        return other != NONE && BitMaskUtils.isNthBitSet(other.collisionMask, getIndex());
+        return other != NONE && other.collisionMask.get(getIndex());
     }
 
     public boolean canOverlapWith(final CollisionLayer other) {
-        return other != NONE && BitMaskUtils.isNthBitSet(other.overlapMask, getIndex());
+        return other != NONE && other.overlapMask.get(getIndex());
     }
 
     private int getIndex() {
@@ -35,7 +35,9 @@ public enum CollisionLayer {
         LOG.trace("Setting collisions for {}", this.name());
         for (val other : layers) {
             LOG.trace("\t-> {}", other.name());
-            BitMaskUtils.setNthBit(this.collisionMask, other.getIndex());
+            if (other != NONE) {
+                this.collisionMask.set(other.getIndex());
+            }
         }
     }
 
@@ -43,7 +45,9 @@ public enum CollisionLayer {
         LOG.trace("Setting overlaps for {}", this.name());
         for (val other : layers) {
             LOG.trace("\t-> {}", other.name());
-            BitMaskUtils.setNthBit(this.overlapMask, other.getIndex());
+            if (other != NONE) {
+                this.overlapMask.set(other.getIndex());
+            }
         }
     }
 
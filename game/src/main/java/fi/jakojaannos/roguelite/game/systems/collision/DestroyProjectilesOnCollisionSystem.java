@@ -3,6 +3,7 @@ package fi.jakojaannos.roguelite.game.systems.collision;
 import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.RequirementsBuilder;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.game.data.components.ProjectileStats;
 import fi.jakojaannos.roguelite.game.data.components.RecentCollisionTag;
@@ -15,9 +16,12 @@ import java.util.stream.Stream;
 
 @Slf4j
 public class DestroyProjectilesOnCollisionSystem implements ECSSystem {
+    private static final ResourceHandle<Collisions> COLLISIONS = ResourceHandle.of(Collisions.class);
+
     @Override
     public void declareRequirements(RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.COLLISION_HANDLER)
+                    .runIfEntitiesMatch()
                     .tickAfter(ProjectileToCharacterCollisionHandlerSystem.class)
                     .requireResource(Collisions.class)
                     .withComponent(ProjectileStats.class)
@@ -29,11 +33,10 @@ public class DestroyProjectilesOnCollisionSystem implements ECSSystem {
             final Stream<Entity> entities,
             final World world
     ) {
-        val collisions = world.getResource(Collisions.class);
+        val collisions = world.getResource(COLLISIONS);
 
         entities.forEach(entity -> {
             if (collisions.getEventsFor(entity)
-                          .stream()
                           .map(CollisionEvent::getCollision)
                           .anyMatch(c -> c.getMode() == Collision.Mode.COLLISION)) {
                 world.getEntityManager().destroyEntity(entity);
@@ -3,6 +3,7 @@ package fi.jakojaannos.roguelite.game.systems.collision;
 import fi.jakojaannos.roguelite.engine.ecs.ECSSystem;
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.RequirementsBuilder;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.game.data.DamageInstance;
 import fi.jakojaannos.roguelite.game.data.components.*;
@@ -16,9 +17,13 @@ import java.util.stream.Stream;
 
 @Slf4j
 public class EnemyToPlayerCollisionHandlerSystem implements ECSSystem {
+    private static final ResourceHandle<Collisions> COLLISIONS = ResourceHandle.of(Collisions.class);
+    private static final ResourceHandle<Time> TIME = ResourceHandle.of(Time.class);
+
     @Override
     public void declareRequirements(RequirementsBuilder requirements) {
         requirements.addToGroup(SystemGroups.COLLISION_HANDLER)
+                    .runIfEntitiesMatch()
                     .requireResource(Collisions.class)
                     .withComponent(RecentCollisionTag.class)
                     .withComponent(PlayerTag.class);
@@ -29,20 +34,20 @@ public class EnemyToPlayerCollisionHandlerSystem implements ECSSystem {
             final Stream<Entity> entities,
             final World world
     ) {
-        val timeManager = world.getResource(Time.class);
+        val timeManager = world.getResource(TIME);
         val entityManager = world.getEntityManager();
-        val collisions = world.getResource(Collisions.class);
+        val collisions = world.getResource(COLLISIONS);
 
         entities.forEach(entity -> {
             val health = entityManager.getComponentOf(entity, Health.class).get();
 
-            val entityCollisions = collisions.getEventsFor(entity)
-                                             .stream()
-                                             .map(CollisionEvent::getCollision)
-                                             .filter(Collision::isEntity)
-                                             .map(Collision::getAsEntityCollision);
+            val events = collisions.current();
+            for (int i = events.first(entity); i != -1; i = events.next(i)) {
+                if (!events.get(i).getCollision().isEntity()) {
+                    continue;
+                }
 
-            for (val collision : (Iterable<Collision.EntityCollision>) entityCollisions::iterator) {
+                val collision = events.get(i).getCollision().getAsEntityCollision();
                 val other = collision.getOther();
                 if (entityManager.hasComponent(other, EnemyTag.class)
                         && entityManager.hasComponent(other, EnemyMeleeWeaponStats.class)
@@ -1,9 +1,15 @@
 package fi.jakojaannos.roguelite.game;
 
+import fi.jakojaannos.roguelite.engine.ecs.DispatchMode;
+import fi.jakojaannos.roguelite.engine.ecs.Entity;
+import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.engine.input.*;
 import fi.jakojaannos.roguelite.engine.state.GameState;
+import fi.jakojaannos.roguelite.game.data.components.Transform;
 import fi.jakojaannos.roguelite.game.data.resources.Inputs;
 import fi.jakojaannos.roguelite.game.data.resources.Mouse;
+import fi.jakojaannos.roguelite.game.data.resources.Players;
+import org.joml.Vector2d;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
@@ -14,6 +20,47 @@ import java.util.Queue;
 import static org.junit.jupiter.api.Assertions.*;
 
 class RogueliteTest {
+    @Test
+    void gameCanBeTickedWithParallelDispatcher() {
+        GameState state = Roguelite.createInitialState(1234L);
+        Roguelite roguelite = new Roguelite(DispatchMode.PARALLEL);
+
+        assertDoesNotThrow(() -> {
+            for (int i = 0; i < 100; ++i) {
+                roguelite.tick(state, new ArrayDeque<>());
+            }
+        });
+        roguelite.close();
+    }
+
+    @Test
+    void restoringSnapshotRollsBackThePlayer() {
+        GameState state = Roguelite.createInitialState(1234L);
+        Roguelite roguelite = new Roguelite();
+        for (int i = 0; i < 10; ++i) {
+            roguelite.tick(state, new ArrayDeque<>());
+        }
+
+        World world = state.getWorld();
+        World.Snapshot snapshot = world.snapshot();
+        Entity player = world.getResource(Players.class).player;
+        Vector2d position = new Vector2d(getPosition(world, player));
+        int entityCount = world.getEntityManager().entityCount();
+
+        Queue<InputEvent> events = new ArrayDeque<>();
+        events.offer(new InputEvent(new ButtonInput(InputButton.Keyboard.KEY_D, ButtonInput.Action.PRESS)));
+        for (int i = 0; i < 20; ++i) {
+            roguelite.tick(state, events);
+        }
+        assertNotEquals(position, getPosition(world, player));
+
+        world.restore(snapshot);
+        assertSame(player, world.getResource(Players.class).player);
+        assertEquals(position, getPosition(world, player));
+        assertEquals(entityCount, world.getEntityManager().entityCount());
+        roguelite.close();
+    }
+
     @Test
     void inputsAreFalseByDefault() {
         GameState state = Roguelite.createInitialState();
@@ -134,4 +181,8 @@ class RogueliteTest {
         Inputs inputs = state.getWorld().getResource(Inputs.class);
         assertFalse(inputs.inputAttack);
     }
+
+    private static Vector2d getPosition(World world, Entity entity) {
+        return world.getEntityManager().getComponentOf(entity, Transform.class).orElseThrow().position;
+    }
 }
@@ -52,7 +52,7 @@ class CameraControlSystemTest {
         Entity target = world.getEntityManager().createEntity();
         world.getEntityManager().addComponentTo(target, new Transform(10, 20));
         camera.pos.set(42000, 69000);
-        camera.followTarget = target;
+        camera.setFollowTarget(target);
         world.getEntityManager().applyModifications();
 
         for (int i = 0; i < 5 / 0.02; ++i) {
@@ -3,6 +3,7 @@ package fi.jakojaannos.roguelite.game.systems;
 
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
+import fi.jakojaannos.roguelite.engine.ecs.SystemDispatcher;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.game.data.components.FollowerEnemyAI;
 import fi.jakojaannos.roguelite.game.data.components.SpawnerComponent;
@@ -88,4 +89,25 @@ public class SpawnerSystemTest {
 
     }
 
+    @Test
+    void spawnerWithTickIntervalSpawnsAtTheSameRateInFewerTicks() throws Exception {
+        SpawnerComponent.EntityFactory mockFactory = mock(SpawnerComponent.EntityFactory.class);
+        SpawnerComponent spawnerComponent = new SpawnerComponent(1.0f, mockFactory);
+        Entity spawner = entityManager.createEntity();
+        entityManager.addComponentTo(spawner, spawnerComponent);
+        entityManager.addComponentTo(spawner, new Transform());
+        entityManager.applyModifications();
+
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withGroups(SystemGroups.values())
+                                                           .withSystem(new SpawnerSystem())
+                                                           .withTickInterval(SpawnerSystem.class, 2, 0)
+                                                           .build()) {
+            for (int i = 0; i < 210; i++) {
+                dispatcher.dispatch(world);
+            }
+        }
+
+        verify(mockFactory, times(4)).get(eq(entityManager), any(), eq(spawnerComponent));
+    }
 }
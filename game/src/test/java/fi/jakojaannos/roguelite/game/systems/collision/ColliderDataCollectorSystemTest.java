@@ -2,10 +2,12 @@ package fi.jakojaannos.roguelite.game.systems.collision;
 
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
+import fi.jakojaannos.roguelite.engine.ecs.SystemDispatcher;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.game.data.components.Collider;
 import fi.jakojaannos.roguelite.game.data.components.Transform;
 import fi.jakojaannos.roguelite.game.data.resources.collision.Colliders;
+import fi.jakojaannos.roguelite.game.systems.SystemGroups;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -13,7 +15,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 class ColliderDataCollectorSystemTest {
     private EntityManager entityManager;
@@ -49,6 +51,7 @@ class ColliderDataCollectorSystemTest {
         entities.add(entityA);
         entities.add(entityB);
         entityManager.applyModifications();
+        ColliderDataCollectorSystem.registerObservers(world);
     }
 
     @Test
@@ -63,4 +66,138 @@ class ColliderDataCollectorSystemTest {
                                           .stream()
                                           .anyMatch(e -> e.entity.getId() == entityB.getId()));
     }
+
+    @Test
+    void tickingAgainWithSameEntitiesDoesNotDuplicateEntries() {
+        system.tick(Stream.of(entityA, entityB), world);
+        system.tick(Stream.of(entityA, entityB), world);
+
+        Colliders colliders = world.getResource(Colliders.class);
+        assertEquals(1, colliders.solidForLayer.get(CollisionLayer.PLAYER)
+                                               .stream()
+                                               .filter(e -> e.entity.getId() == entityB.getId())
+                                               .count());
+    }
+
+    @Test
+    void entitiesWithReplacedTransformsAreReinserted() throws Exception {
+        Transform replacement = new Transform(4.0, 2.0);
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withGroups(SystemGroups.values())
+                                                           .withSystem(new ColliderDataCollectorSystem())
+                                                           .build()) {
+            dispatcher.dispatch(world);
+            entityManager.removeComponentFrom(entityB, Transform.class);
+            entityManager.applyModifications();
+            entityManager.addComponentTo(entityB, replacement);
+            entityManager.applyModifications();
+            dispatcher.dispatch(world);
+        }
+
+        Colliders colliders = world.getResource(Colliders.class);
+        assertTrue(colliders.solidForLayer.get(CollisionLayer.PLAYER)
+                                          .stream()
+                                          .filter(e -> e.entity.getId() == entityB.getId())
+                                          .allMatch(e -> e.transform == replacement));
+        assertEquals(1, colliders.solidForLayer.get(CollisionLayer.PLAYER)
+                                               .stream()
+                                               .filter(e -> e.entity.getId() == entityB.getId())
+                                               .count());
+    }
+
+    @Test
+    void entitiesWhichLoseTheirTransformAreRemovedFromLists() {
+        system.tick(Stream.of(entityA, entityB), world);
+        entityManager.removeComponentFrom(entityB, Transform.class);
+        entityManager.applyModifications();
+
+        Colliders colliders = world.getResource(Colliders.class);
+        assertTrue(colliders.solidForLayer.get(CollisionLayer.PLAYER)
+                                          .stream()
+                                          .noneMatch(e -> e.entity == entityB));
+    }
+
+    @Test
+    void entitiesWhichLoseTheirColliderAreRemovedFromLists() {
+        system.tick(Stream.of(entityA, entityB), world);
+        entityManager.removeComponentFrom(entityB, Collider.class);
+        entityManager.applyModifications();
+
+        Colliders colliders = world.getResource(Colliders.class);
+        assertTrue(colliders.solidForLayer.get(CollisionLayer.PLAYER)
+                                          .stream()
+                                          .noneMatch(e -> e.entity == entityB));
+    }
+
+    @Test
+    void removingReplacedColliderDoesNotRemoveEntryOfItsReplacement() {
+        system.tick(Stream.of(entityA, entityB), world);
+        entityManager.removeComponentFrom(entityB, Collider.class);
+        Collider replacement = new Collider(CollisionLayer.OBSTACLE);
+        entityManager.addComponentTo(entityB, replacement);
+        // Collected before the removal of the original collider gets observed
+        system.tick(Stream.of(entityB), world);
+        entityManager.applyModifications();
+
+        Colliders colliders = world.getResource(Colliders.class);
+        assertTrue(colliders.solidForLayer.get(CollisionLayer.PLAYER)
+                                          .stream()
+                                          .anyMatch(e -> e.collider == replacement));
+    }
+
+    @Test
+    void removingEntriesKeepsRemainingEntriesInLists() {
+        system.tick(entities.stream(), world);
+        for (int i = 0; i < entities.size(); i += 2) {
+            entityManager.destroyEntity(entities.get(i));
+        }
+        entityManager.applyModifications();
+
+        Colliders colliders = world.getResource(Colliders.class);
+        for (int i = 0; i < entities.size(); ++i) {
+            Entity entity = entities.get(i);
+            Collider collider = entityManager.getComponentMapper(Collider.class).getOrNull(entity);
+            for (CollisionLayer layer : CollisionLayer.values()) {
+                long solidCount = colliders.solidForLayer.getOrDefault(layer, List.of())
+                                                         .stream()
+                                                         .filter(e -> e.entity == entity)
+                                                         .count();
+                long expected = i % 2 != 0 && collider.layer.isSolidTo(layer) ? 1 : 0;
+                assertEquals(expected, solidCount);
+            }
+        }
+    }
+
+    @Test
+    void changingLayerMovesEntityToListsOfNewLayerWhenMarkedChanged() throws Exception {
+        try (SystemDispatcher dispatcher = SystemDispatcher.builder()
+                                                           .withGroups(SystemGroups.values())
+                                                           .withSystem(new ColliderDataCollectorSystem())
+                                                           .build()) {
+            dispatcher.dispatch(world);
+            entityManager.getComponentMapper(Collider.class).getForWrite(entityA).layer = CollisionLayer.OBSTACLE;
+            dispatcher.dispatch(world);
+        }
+
+        Colliders colliders = world.getResource(Colliders.class);
+        assertTrue(colliders.solidForLayer.get(CollisionLayer.PLAYER)
+                                          .stream()
+                                          .anyMatch(e -> e.entity.getId() == entityA.getId()));
+        assertFalse(colliders.overlapsWithLayer.get(CollisionLayer.PLAYER_PROJECTILE)
+                                               .stream()
+                                               .anyMatch(e -> e.entity.getId() == entityA.getId()));
+    }
+
+    @Test
+    void destroyedEntitiesAreRemovedFromLists() {
+        system.tick(Stream.of(entityA, entityB), world);
+        entityManager.destroyEntity(entityB);
+        entityManager.applyModifications();
+        system.tick(Stream.empty(), world);
+
+        Colliders colliders = world.getResource(Colliders.class);
+        assertTrue(colliders.solidForLayer.get(CollisionLayer.PLAYER)
+                                          .stream()
+                                          .noneMatch(e -> e.entity == entityB));
+    }
 }
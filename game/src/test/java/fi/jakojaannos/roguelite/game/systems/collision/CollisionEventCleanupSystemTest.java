@@ -2,6 +2,7 @@ package fi.jakojaannos.roguelite.game.systems.collision;
 
 import fi.jakojaannos.roguelite.engine.ecs.Entity;
 import fi.jakojaannos.roguelite.engine.ecs.EntityManager;
+import fi.jakojaannos.roguelite.engine.ecs.ResourceHandle;
 import fi.jakojaannos.roguelite.engine.ecs.World;
 import fi.jakojaannos.roguelite.game.data.components.Collider;
 import fi.jakojaannos.roguelite.game.data.components.RecentCollisionTag;
@@ -12,7 +13,7 @@ import org.junit.jupiter.api.Test;
 import java.util.Optional;
 import java.util.stream.Stream;
 
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -34,19 +35,21 @@ class CollisionEventCleanupSystemTest {
 
         entityManager = mock(EntityManager.class);
         when(world.getEntityManager()).thenReturn(entityManager);
-        when(world.getResource(eq(Collisions.class))).thenReturn(collisions);
+        when(world.getResource(eq(ResourceHandle.of(Collisions.class)))).thenReturn(collisions);
         when(entityManager.getComponentOf(eq(entity), eq(Collider.class))).thenReturn(Optional.of(collider));
     }
 
     @Test
-    void collisionEventsAreCleanedUp() {
+    void collisionEventsAreCleanedUpOnceTheTickIsOver() {
         Entity other = mock(Entity.class);
         collisions.fireCollisionEvent(entity, new CollisionEvent(Collision.entity(Collision.Mode.COLLISION, other)));
         collisions.fireCollisionEvent(entity, new CollisionEvent(Collision.entity(Collision.Mode.COLLISION, other)));
         collisions.fireCollisionEvent(entity, new CollisionEvent(Collision.entity(Collision.Mode.COLLISION, other)));
+        assertEquals(3, collisions.getEventsFor(entity).count());
 
         system.tick(Stream.of(entity), world);
-        assertTrue(collisions.getEventsFor(entity).isEmpty());
+        collisions.swap();
+        assertEquals(0, collisions.getEventsFor(entity).count());
     }
 
     @Test